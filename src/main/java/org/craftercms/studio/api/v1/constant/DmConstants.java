@@ -25,6 +25,7 @@ package org.craftercms.studio.api.v1.constant;
 public class DmConstants {
 	public final static String CONTENT_CHAIN_FORM = "formContent";
 	public final static String CONTENT_CHAIN_ASSET = "assetContent";
+	public final static String CONTENT_CHAIN_ASSET_VALIDATION = "assetValidation";
 
     public final static String CONTENT_TYPE_CONFIG_FORM_PATH_SIMPLE = "simple";
 
@@ -44,6 +45,7 @@ public class DmConstants {
 	public final static String KEY_ALLOWED_HEIGHT = "allowedHeight";
 	public final static String KEY_CREATE_FOLDERS = "createFolders";
 	public final static String KEY_CONTENT_TYPE = "contentType";
+	public final static String KEY_CONTENT_EXISTS = "contentExists";
 	public static final String KEY_EDIT = "edit";
 	public final static String KEY_FILE_NAME = "fileName";
 	public final static String KEY_FOLDER_PATH = "folderPath";
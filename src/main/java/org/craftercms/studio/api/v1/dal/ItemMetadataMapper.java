@@ -24,10 +24,14 @@ public interface ItemMetadataMapper {
 
     ItemMetadata getProperties(Map params);
 
+    List<ItemMetadata> getPropertiesForPaths(Map params);
+
     void setProperties(Map params);
 
     void insertEntry(Map params);
 
+    void resetEntries(Map params);
+
     int countEntries(Map params);
 
     int countAllItems();
@@ -50,5 +54,7 @@ public interface ItemMetadataMapper {
 
     List<String> getSameCommitItems(Map params);
 
+    List<String> getSameCommitItemsForPaths(Map params);
+
     void setPropertiesForCommit(Map params);
 }
@@ -42,6 +42,8 @@ public interface ItemStateMapper {
 
     void insertEntry(ItemState itemState);
 
+    void resetEntries(Map params);
+
     void setObjectState(ItemState itemState);
 
     List<ItemState> getObjectStateForSiteAndPaths(Map params);
@@ -37,6 +37,13 @@ public interface PublishRequestMapper {
 
     void updateItemDeploymentState(PublishRequest item);
 
+    /**
+     * Update the state of multiple publishing requests
+     *
+     * @param params SQL query parameters, the ids of the requests and the new state
+     */
+    void updateItemsDeploymentState(Map params);
+
     void deleteDeploymentDataForSite(Map params);
 
     PublishRequest checkPublishingStatus(Map params);
@@ -24,6 +24,7 @@ public class PreviewEventContext extends EventContext implements Serializable {
     private static final long serialVersionUID = 6915982832841499939L;
 
     private boolean waitTillDeploymentIsDone;
+    private boolean force;
 
     public PreviewEventContext() {
     }
@@ -36,4 +37,15 @@ public class PreviewEventContext extends EventContext implements Serializable {
         return waitTillDeploymentIsDone;
     }
 
+    /**
+     * Indicates if all the content should be deployed even if the targets already have the latest commit
+     */
+    public boolean isForce() {
+        return force;
+    }
+
+    public void setForce(boolean force) {
+        this.force = force;
+    }
+
 }
@@ -18,6 +18,7 @@
 package org.craftercms.studio.api.v1.repository;
 
 
+import org.craftercms.studio.api.v1.constant.GitRepositories;
 import org.craftercms.studio.api.v1.dal.GitLog;
 import org.craftercms.studio.api.v1.exception.ContentNotFoundException;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
@@ -30,6 +31,7 @@ import org.craftercms.studio.api.v1.service.deployment.DeploymentException;
 import org.craftercms.studio.api.v1.to.DeploymentItemTO;
 import org.craftercms.studio.api.v1.to.RemoteRepositoryInfoTO;
 import org.craftercms.studio.api.v1.to.RepoOperationTO;
+import org.craftercms.studio.api.v1.to.VersionHistoryTO;
 import org.craftercms.studio.api.v1.to.VersionTO;
 
 import java.io.InputStream;
@@ -81,6 +83,15 @@ public interface ContentRepository {
      */
     String writeContent(String site, String path, InputStream content) throws ServiceLayerException;
 
+    /**
+     * write several contents in a single commit
+     *
+     * @param site     site id where the operation will be executed
+     * @param contents streams of content to write, by path
+     * @return Commit Id if successful, null otherwise
+     */
+    String writeContents(String site, Map<String, InputStream> contents) throws ServiceLayerException;
+
     /**
      * create a folder
      *
@@ -151,6 +162,19 @@ public interface ContentRepository {
      */
     VersionTO[] getContentVersionHistory(String site, String path);
 
+    /**
+     * get a page of the version history for an item, newest first
+     *
+     * @param site - the project ID
+     * @param path - the path of the item
+     * @param cursor - the cursor returned with the previous page, null for the first page
+     * @param limit - the maximum number of versions
+     * @param followRenames - if true, the history continues with the versions the item had under previous paths
+     * @return the page of versions
+     */
+    VersionHistoryTO getContentVersionHistory(String site, String path, String cursor, int limit,
+                                              boolean followRenames);
+
     /**
      * create a version
      *
@@ -281,6 +305,38 @@ public interface ContentRepository {
      */
     List<RepoOperationTO> getOperations(String site, String commitIdFrom, String commitIdTo);
 
+    /**
+     * Iterate the operations since the commit ID provided, reading the repository lazily so the range can be of any
+     * size. The iterator must be closed by the caller.
+     *
+     * @param site         site to use
+     * @param commitIdFrom commit ID to start at, empty to start from the first commit
+     * @param commitIdTo   commit ID to end at
+     * @return iterator of the operations in commit order
+     */
+    RepoOperationIterator iterateOperations(String site, String commitIdFrom, String commitIdTo);
+
+    /**
+     * Get the paths that are different between two commits, comparing their trees without walking the commits in
+     * between
+     *
+     * @param site         site to use
+     * @param commitIdFrom commit ID to compare from
+     * @param commitIdTo   commit ID to compare to
+     * @return the changed paths, or null if the commits could not be compared
+     */
+    List<String> getChangedPaths(String site, String commitIdFrom, String commitIdTo);
+
+    /**
+     * Get the operations that create every item of the repository as it is at the given commit. Each item gets a
+     * single create operation with the last commit that changed it.
+     *
+     * @param site     site to use
+     * @param commitId commit ID of the snapshot
+     * @return create operations sorted by path
+     */
+    List<RepoOperationTO> getSnapshotOperations(String site, String commitId);
+
     /**
      * Get last commit id from repository for given site.
      *
@@ -483,10 +539,13 @@ public interface ContentRepository {
     void reloadRepository(String siteId);
 
     /**
-     * Performs a cleanup all repositories for the given site
-     * @param siteId site identifier
+     * Measures the given repository and runs only the maintenance it needs: packing refs, packing loose objects or a
+     * full gc. Writes to the repository wait while the maintenance runs.
+     *
+     * @param siteId site identifier, empty for the global repository
+     * @param repository the repository to maintain
      */
-    void cleanupRepositories(String siteId);
+    void maintainRepository(String siteId, GitRepositories repository);
 
     /**
      * Check if repository exists for  given site
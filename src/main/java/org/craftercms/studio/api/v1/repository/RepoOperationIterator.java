@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.api.v1.repository;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.craftercms.studio.api.v1.to.RepoOperationTO;
+
+/**
+ * Lazily yields the repository operations of a commit range, in the order they were committed. The iterator holds
+ * repository resources and must be closed when the caller is done with it.
+ */
+public interface RepoOperationIterator extends Iterator<RepoOperationTO>, AutoCloseable {
+
+    @Override
+    void close();
+
+    /**
+     * Returns an iterator without operations.
+     */
+    static RepoOperationIterator empty() {
+        return new RepoOperationIterator() {
+
+            @Override
+            public boolean hasNext() {
+                return false;
+            }
+
+            @Override
+            public RepoOperationTO next() {
+                throw new NoSuchElementException();
+            }
+
+            @Override
+            public void close() {
+                // Nothing to release
+            }
+
+        };
+    }
+
+}
@@ -18,14 +18,18 @@
 package org.craftercms.studio.api.v1.service.content;
 
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+import org.craftercms.studio.api.v1.asset.Asset;
 import org.craftercms.studio.api.v1.exception.ContentNotFoundException;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v1.exception.repository.InvalidRemoteUrlException;
 import org.craftercms.studio.api.v1.exception.security.AuthenticationException;
+import org.craftercms.studio.api.v1.service.clipboard.ClipboardService.ClipboardItem;
 import org.craftercms.studio.api.v1.to.*;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
@@ -129,6 +133,19 @@ public interface ContentService {
      */
     String copyContent(String site, String fromPath, String toPath);
 
+    /**
+     * copy a set of items, with the children given for each one, to toPath as a single operation: all the new files
+     * are written in one commit, the database is updated in batches and preview is synced once at the end
+     *
+     * @param site   - the project ID
+     * @param toPath the target path to copy content to
+     * @param items  items to copy
+     * @return final paths of the copied items
+     * @throws ServiceLayerException if the content could not be written or the database could not be updated
+     */
+    List<String> copyContents(String site, String toPath, Collection<ClipboardItem> items)
+            throws ServiceLayerException;
+
     /**
      * move content fromPath to toPath
      *
@@ -147,6 +164,23 @@ public interface ContentService {
      */
     ContentItemTO getContentItemTree(String site, String path, int depth);
 
+    /**
+     * get a bounded tree of content items (metadata) beginning at a root. Children are paged on every level and the
+     * whole tree never holds more than the configured maximum number of nodes, levels that were cut short can be
+     * detected by comparing the size of {@code children} against {@code numOfChildren} and fetched with a new
+     * request rooted at that level
+     *
+     * @param site - the project ID
+     * @param path - the path to root at
+     * @param depth - the number of levels to include
+     * @param offset - the number of children of the root to skip
+     * @param limit - the maximum number of children to include per level
+     * @param includeMetadata - if true, lock owner, modifier and scheduling metadata are populated
+     * @param includeWorkflow - if true, the workflow state is populated
+     */
+    ContentItemTO getContentItemTree(String site, String path, int depth, int offset, int limit,
+                                     boolean includeMetadata, boolean includeWorkflow);
+
     /**
      * get the content item (metadata) at a specific path
      *
@@ -172,6 +206,18 @@ public interface ContentService {
      */
     VersionTO[] getContentItemVersionHistory(String site, String path);
 
+    /**
+     * get a page of the version history for an item, newest first
+     *
+     * @param site - the project ID
+     * @param path - the path of the item
+     * @param cursor - the cursor returned with the previous page, null for the first page
+     * @param limit - the maximum number of versions
+     * @param followRenames - if true, include the versions the item had under previous paths
+     */
+    VersionHistoryTO getContentItemVersionHistory(String site, String path, String cursor, int limit,
+                                                  boolean followRenames);
+
     /**
      * revert a version (create a new version based on an old version)
      *
@@ -227,6 +273,44 @@ public interface ContentService {
                                           String allowLessSize, String draft, String unlock, String systemAsset)
                                             throws ServiceLayerException;
 
+    /**
+     * write several content assets, committing all of them to the repository in a single commit. Every asset is
+     * validated before the commit, nothing is written if any of them is rejected
+     *
+     * @param site
+     * @param assets
+     * 			assets to write, each one backed by a file
+     * @param isImage
+     * @param allowedWidth
+     * @param allowedHeight
+     * @param allowLessSize
+     * @param draft
+     * @param unlock
+     * @param systemAsset
+     * @return the result of writing each asset, in the same order as the given assets
+     * @throws ServiceLayerException if any asset is rejected or the assets could not be written
+     */
+    List<Map<String, Object>> writeContentAssets(String site, Collection<Asset> assets, String isImage,
+                                                 String allowedWidth, String allowedHeight, String allowLessSize,
+                                                 String draft, String unlock, String systemAsset)
+                                                    throws ServiceLayerException;
+
+    /**
+     * write several files in a single commit and then run the given action, any
+     * {@link #writeContent(String, String, InputStream)} of those paths made by the action in the current thread (e.g.
+     * from a content processing chain) only updates the database with that commit instead of writing again
+     *
+     * @param site
+     * @param contents
+     * 			content to write by path
+     * @param action
+     * 			action to run once the files are committed, it receives the commit id
+     * @return the commit id
+     * @throws ServiceLayerException if the files could not be written
+     */
+    String writeContents(String site, Map<String, InputStream> contents, Consumer<String> action)
+            throws ServiceLayerException;
+
     /**
      * get the next available of the given content name at the given path (used for paste/duplicate)
      *
@@ -30,6 +30,8 @@ public interface ObjectMetadataManager {
 
     ItemMetadata getProperties(String site, String path);
 
+    List<ItemMetadata> getProperties(String site, List<String> paths);
+
     boolean metadataExist(String site, String path);
 
     boolean isRenamed(String site, String path);
@@ -42,6 +44,12 @@ public interface ObjectMetadataManager {
 
     void deleteObjectMetadataForSite(String site);
 
+    /**
+     * Replace the metadata of the given items with only their path, name, modifier, modified date, owner, creator and
+     * commit id, inserting the entries that don't exist
+     */
+    void resetObjectMetadata(String site, List<ItemMetadata> items);
+
     void deleteObjectMetadata(String site, String path);
 
     void deleteObjectMetadataForFolder(String site, String path);
@@ -58,6 +66,8 @@ public interface ObjectMetadataManager {
 
     List<String> getSameCommitItems(String site, String path);
 
+    List<String> getSameCommitItems(String site, List<String> paths);
+
     void setObjectMetadataForCommitId(String site, String commitId, Map<String, Object> props);
 
     int countAllItems();
@@ -22,8 +22,10 @@ import org.craftercms.studio.api.v1.exception.EnvironmentNotFoundException;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v1.exception.security.AuthenticationException;
+import org.craftercms.studio.api.v1.to.BulkPublishStatusTO;
 import org.craftercms.studio.api.v1.to.ContentItemTO;
 import org.craftercms.studio.api.v1.to.DmDeploymentTaskTO;
+import org.craftercms.studio.api.v1.to.PreviewSyncStatusTO;
 import org.craftercms.studio.api.v1.to.PublishStatus;
 import org.craftercms.studio.api.v1.to.PublishingChannelTO;
 
@@ -78,6 +80,16 @@ public interface DeploymentService {
 
     void syncAllContentToPreview(String site, boolean waitTillDone) throws ServiceLayerException;
 
+    /**
+     * Get how far behind the sandbox repository the preview deployer targets of given site are
+     *
+     * @param site site identifier
+     * @return last commit synced to each target and the current commit of the sandbox
+     *
+     * @throws SiteNotFoundException if the site doesn't exist
+     */
+    PreviewSyncStatusTO getPreviewSyncStatus(String site) throws SiteNotFoundException;
+
     /**
      * Start executing bulk publish for given site, path on given environment
      *
@@ -90,6 +102,23 @@ public interface DeploymentService {
      */
     void bulkGoLive(String site, String environment, String path, String comment) throws ServiceLayerException;
 
+    /**
+     * Get the progress of the last bulk publish started for given site
+     *
+     * @param site site identifier
+     * @return status of the last bulk publish, or null if none has been started
+     */
+    BulkPublishStatusTO getBulkPublishStatus(String site);
+
+    /**
+     * Cancel the bulk publish running for given site. Packages already submitted to the publishing queue are
+     * not removed from it.
+     *
+     * @param site site identifier
+     * @return true if a running bulk publish was cancelled
+     */
+    boolean cancelBulkPublish(String site);
+
     /**
      * Get last deployment date time for given site and path
      *
@@ -19,6 +19,7 @@ package org.craftercms.studio.api.v1.service.deployment;
 
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.service.workflow.context.MultiChannelPublishingContext;
+import org.craftercms.studio.api.v1.to.BulkPublishStatusTO;
 
 import java.time.ZonedDateTime;
 import java.util.List;
@@ -46,4 +47,21 @@ public interface DmPublishService {
      * @throws ServiceLayerException exception is case of en error
      */
     void bulkGoLive(String site, String environment, String path, String comment) throws ServiceLayerException;
+
+    /**
+     * Get the progress of the last bulk publish started for given site
+     *
+     * @param site site identifier
+     * @return status of the last bulk publish, or null if none has been started
+     */
+    BulkPublishStatusTO getBulkPublishStatus(String site);
+
+    /**
+     * Cancel the bulk publish running for given site. Packages already submitted to the publishing queue are
+     * not removed from it.
+     *
+     * @param site site identifier
+     * @return true if a running bulk publish was cancelled
+     */
+    boolean cancelBulkPublish(String site);
 }
@@ -22,7 +22,6 @@ import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v1.to.DeploymentItemTO;
 
 import java.util.List;
-import java.util.Set;
 
 /**
  *document
@@ -45,8 +44,28 @@ public interface PublishingManager {
     void markItemsBlocked(String site, String environment, List<PublishRequest> copyToEnvironmentItems)
         throws DeploymentException;
 
-    List<DeploymentItemTO> processMandatoryDependencies(PublishRequest item, Set<String> pathsToDeploy,
-                                                        Set<String> missingDependenciesPaths)
+    /**
+     * Computes the never published or renamed parents and dependencies that need to be published together with the
+     * given items, including the ones required by those items. Paths of the given items are never included.
+     *
+     * @param site site identifier
+     * @param items items being published
+     * @return deduplicated list of the missing items in the order they should be processed
+     * @throws ServiceLayerException if the dependencies can't be resolved
+     */
+    List<PublishRequest> planMandatoryDependencies(String site, List<PublishRequest> items)
+            throws ServiceLayerException;
+
+    /**
+     * Cancels the pending workflow of the given mandatory dependencies and processes them.
+     *
+     * @param site site identifier
+     * @param mandatoryDependencies plan returned by {@link #planMandatoryDependencies(String, List)}
+     * @return deployment items for the mandatory dependencies
+     * @throws DeploymentException if a dependency can't be processed
+     * @throws ServiceLayerException if the dependencies can't be resolved
+     */
+    List<DeploymentItemTO> processMandatoryDependencies(String site, List<PublishRequest> mandatoryDependencies)
             throws DeploymentException, ServiceLayerException;
 
     boolean isPublishingBlocked(String site);
@@ -67,12 +67,22 @@ public interface ObjectStateService {
      */
     List<ItemState> getObjectStateByStates(String site, List<String> states);
 
+    /**
+     * get the existing object states for the given paths, paths without a state are not included
+     */
+    List<ItemState> getObjectStatesForPaths(String site, List<String> paths);
+
     boolean isScheduled(String site, String path);
 
     boolean isInWorkflow(String site,String path);
 
     void deleteObjectStatesForSite(String site);
 
+    /**
+     * set the given paths to the state of newly created items, inserting the entries that don't exist
+     */
+    void resetObjectStates(String site, List<String> paths);
+
     boolean isFolderLive(String site, String uri);
 
     boolean isSubmitted(String site, String dep);
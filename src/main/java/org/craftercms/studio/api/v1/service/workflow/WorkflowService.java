@@ -48,9 +48,40 @@ public interface WorkflowService {
 
 	Map<String, Object> getGoLiveItems(String site, String sort, boolean ascending) throws ServiceLayerException;
 
+	/**
+	 * Get the items waiting to go live, filtered and paged
+	 *
+	 * @param site site identifier
+	 * @param sort sort field
+	 * @param ascending sort order
+	 * @param path only include this item and the items under it, all items if empty
+	 * @param offset index of the first item to return
+	 * @param limit maximum number of items to return, all items if not positive
+	 * @return go live items grouped by category, the total is the number of items before paging
+	 * @throws ServiceLayerException general service error
+	 */
+	Map<String, Object> getGoLiveItems(String site, String sort, boolean ascending, String path, int offset,
+									   int limit) throws ServiceLayerException;
+
 	Map<String, Object> getInProgressItems(String site, String sort, boolean ascending, boolean inProgressOnly)
 		throws ServiceLayerException;
 
+	/**
+	 * Get the items in progress, filtered and paged
+	 *
+	 * @param site site identifier
+	 * @param sort sort field
+	 * @param ascending sort order
+	 * @param inProgressOnly exclude submitted items
+	 * @param path only include this item and the items under it, all items if empty
+	 * @param offset index of the first item to return
+	 * @param limit maximum number of items to return, all items if not positive
+	 * @return items in progress grouped by category, the total is the number of items before paging
+	 * @throws ServiceLayerException general service error
+	 */
+	Map<String, Object> getInProgressItems(String site, String sort, boolean ascending, boolean inProgressOnly,
+										   String path, int offset, int limit) throws ServiceLayerException;
+
 	/**
 	 * cancel the workflow pending on the given item.
 	 *
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.api.v1.to;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Progress of a bulk publish. It is updated by the thread running the bulk publish and can be read at any time.
+ */
+public class BulkPublishStatusTO {
+
+    public enum State {
+        PLANNING, SUBMITTING, COMPLETED, CANCELLED, FAILED
+    }
+
+    private final String site;
+    private final String path;
+    private final String environment;
+    private final ZonedDateTime startDate;
+    private volatile State state = State.PLANNING;
+    private volatile int totalItems;
+    private volatile int submittedItems;
+    private volatile int totalPackages;
+    private volatile int submittedPackages;
+    private volatile int failedItems;
+    private volatile int failedPackages;
+    private volatile boolean cancelRequested;
+
+    public BulkPublishStatusTO(String site, String path, String environment, ZonedDateTime startDate) {
+        this.site = site;
+        this.path = path;
+        this.environment = environment;
+        this.startDate = startDate;
+    }
+
+    public String getSite() { return site; }
+
+    public String getPath() { return path; }
+
+    public String getEnvironment() { return environment; }
+
+    public ZonedDateTime getStartDate() { return startDate; }
+
+    public State getState() { return state; }
+    public void setState(State state) { this.state = state; }
+
+    public int getTotalItems() { return totalItems; }
+    public void setTotalItems(int totalItems) { this.totalItems = totalItems; }
+
+    public int getSubmittedItems() { return submittedItems; }
+    public void setSubmittedItems(int submittedItems) { this.submittedItems = submittedItems; }
+
+    public int getTotalPackages() { return totalPackages; }
+    public void setTotalPackages(int totalPackages) { this.totalPackages = totalPackages; }
+
+    public int getSubmittedPackages() { return submittedPackages; }
+    public void setSubmittedPackages(int submittedPackages) { this.submittedPackages = submittedPackages; }
+
+    public int getFailedItems() { return failedItems; }
+    public void setFailedItems(int failedItems) { this.failedItems = failedItems; }
+
+    public int getFailedPackages() { return failedPackages; }
+    public void setFailedPackages(int failedPackages) { this.failedPackages = failedPackages; }
+
+    public boolean isCancelRequested() { return cancelRequested; }
+    public void setCancelRequested(boolean cancelRequested) { this.cancelRequested = cancelRequested; }
+
+    public boolean isRunning() {
+        return state == State.PLANNING || state == State.SUBMITTING;
+    }
+}
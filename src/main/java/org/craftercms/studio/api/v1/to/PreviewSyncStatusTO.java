@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.api.v1.to;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How far behind the sandbox repository the preview deployer targets of a site are.
+ */
+public class PreviewSyncStatusTO {
+
+    private String site;
+    private String headCommitId;
+    private List<Target> targets = new ArrayList<>();
+
+    public String getSite() { return site; }
+    public void setSite(String site) { this.site = site; }
+
+    public String getHeadCommitId() { return headCommitId; }
+    public void setHeadCommitId(String headCommitId) { this.headCommitId = headCommitId; }
+
+    public List<Target> getTargets() { return targets; }
+    public void setTargets(List<Target> targets) { this.targets = targets; }
+
+    public boolean isUpToDate() {
+        return targets.stream().allMatch(Target::isUpToDate);
+    }
+
+    /**
+     * Sync status of a single deployer target.
+     */
+    public static class Target {
+
+        private String environment;
+        private String lastSyncedCommitId;
+        private ZonedDateTime lastSyncDate;
+        private boolean upToDate;
+        private long lagSeconds;
+
+        public String getEnvironment() { return environment; }
+        public void setEnvironment(String environment) { this.environment = environment; }
+
+        public String getLastSyncedCommitId() { return lastSyncedCommitId; }
+        public void setLastSyncedCommitId(String lastSyncedCommitId) { this.lastSyncedCommitId = lastSyncedCommitId; }
+
+        public ZonedDateTime getLastSyncDate() { return lastSyncDate; }
+        public void setLastSyncDate(ZonedDateTime lastSyncDate) { this.lastSyncDate = lastSyncDate; }
+
+        public boolean isUpToDate() { return upToDate; }
+        public void setUpToDate(boolean upToDate) { this.upToDate = upToDate; }
+
+        /**
+         * Seconds since the last successful sync while the target is behind, 0 when up to date and -1 when the
+         * target hasn't been synced since Studio started.
+         */
+        public long getLagSeconds() { return lagSeconds; }
+        public void setLagSeconds(long lagSeconds) { this.lagSeconds = lagSeconds; }
+
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v1.to;
+
+import java.io.Serializable;
+
+/**
+ * a page of the version history of an item
+ */
+public class VersionHistoryTO implements Serializable {
+
+    private static final long serialVersionUID = -1519382630470253561L;
+
+    protected VersionTO[] versions;
+    protected String nextCursor;
+
+    public VersionHistoryTO(VersionTO[] versions, String nextCursor) {
+        this.versions = versions;
+        this.nextCursor = nextCursor;
+    }
+
+    public VersionTO[] getVersions() {
+        return versions;
+    }
+
+    public void setVersions(VersionTO[] versions) {
+        this.versions = versions;
+    }
+
+    /**
+     * @return the cursor to request the next page, or null if there are no more versions
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
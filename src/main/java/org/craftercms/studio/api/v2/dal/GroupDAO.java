@@ -140,4 +140,28 @@ public interface GroupDAO {
      * @return Number of groups
      */
     Integer groupExists(Map params);
+
+    /**
+     * Create the groups that don't exist yet
+     *
+     * @param params SQL query parameters
+     * @return Number of affected rows in DB
+     */
+    Integer createGroups(Map params);
+
+    /**
+     * Get groups by group names
+     *
+     * @param params SQL query parameters
+     * @return List of groups
+     */
+    List<Group> getGroupsByNames(Map params);
+
+    /**
+     * Add a user to several groups
+     *
+     * @param params SQL query parameters
+     * @return Number of rows affected in DB
+     */
+    Integer addUserToGroups(Map params);
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.dal;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ItemHistoryDAO {
+
+    /**
+     * Get history entries for a path, newest first
+     *
+     * @param params SQL query parameters: siteId, path, limit and optionally beforeTime and beforeId to continue
+     *               after a previous page
+     * @return list of history entries
+     */
+    List<ItemHistoryEntry> getItemHistory(Map params);
+
+    /**
+     * Get history entry by id
+     *
+     * @param params SQL query parameters: siteId and id
+     * @return history entry
+     */
+    ItemHistoryEntry getItemHistoryEntry(Map params);
+
+    /**
+     * Insert history entries, entries already in the index are ignored
+     *
+     * @param params SQL query parameters: entries
+     */
+    void insertItemHistory(Map params);
+
+    /**
+     * Get the last commit included in the index of a site
+     *
+     * @param params SQL query parameters: siteId
+     * @return the commit id or null if the site hasn't been indexed
+     */
+    String getLastIndexedCommitId(Map params);
+
+    /**
+     * Set the last commit included in the index of a site
+     *
+     * @param params SQL query parameters: siteId and commitId
+     */
+    void setLastIndexedCommitId(Map params);
+
+    /**
+     * Delete the index of a site
+     *
+     * @param params SQL query parameters: siteId
+     */
+    void deleteItemHistoryForSite(Map params);
+
+    /**
+     * Delete the last indexed commit of a site
+     *
+     * @param params SQL query parameters: siteId
+     */
+    void deleteLastIndexedCommitId(Map params);
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.dal;
+
+import java.util.List;
+import java.util.Map;
+
+public interface RebuildMetadataDAO {
+
+    /**
+     * Get the commit of an unfinished metadata rebuild
+     *
+     * @param params SQL query parameters: siteId
+     * @return the commit id or null if there is no unfinished rebuild for the site
+     */
+    String getRebuildCommitId(Map params);
+
+    /**
+     * Get the chunks already completed by a metadata rebuild
+     *
+     * @param params SQL query parameters: siteId and commitId
+     * @return list of chunk numbers
+     */
+    List<Integer> getCompletedChunks(Map params);
+
+    /**
+     * Mark a chunk of a metadata rebuild as completed
+     *
+     * @param params SQL query parameters: siteId, commitId and chunk
+     */
+    void insertCompletedChunk(Map params);
+
+    /**
+     * Delete the progress of the metadata rebuild of a site
+     *
+     * @param params SQL query parameters: siteId
+     */
+    void deleteRebuildProgress(Map params);
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.api.v2.deployment;
+
+import org.craftercms.studio.api.v1.to.PreviewSyncStatusTO;
+
+/**
+ * Provides the sync status of the preview deployer targets of a site.
+ */
+public interface PreviewSyncStatusProvider {
+
+    /**
+     * Returns the last commit acknowledged by each preview deployer target of the site, compared to the current
+     * commit of the sandbox repository.
+     *
+     * @param site the site
+     * @return the sync status of the site
+     */
+    PreviewSyncStatusTO getPreviewSyncStatus(String site);
+
+}
@@ -18,6 +18,7 @@
 package org.craftercms.studio.api.v2.repository;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ContentRepository {
 
@@ -29,4 +30,34 @@ public interface ContentRepository {
      * @return list of item paths contained in the subtree
      */
     List<String> getSubtreeItems(String site, String path);
+
+    /**
+     * Get the id of the blob the given path points to in the last commit. Since blob ids are content hashes they
+     * can be used as cache keys or validators for the content of the path.
+     *
+     * @param site site identifier
+     * @param path path of the content
+     * @return the blob id, or null if the path doesn't exist or is not a file
+     */
+    String getContentBlobId(String site, String path);
+
+    /**
+     * Get the ids of the blobs the given paths point to in the last commit. All paths are resolved against the same
+     * commit, which makes this much cheaper than calling {@link #getContentBlobId(String, String)} for each path.
+     *
+     * @param site site identifier
+     * @param paths paths of the content
+     * @return map of path to blob id, the id is null if the path doesn't exist or is not a file
+     */
+    Map<String, String> getContentBlobIds(String site, List<String> paths);
+
+    /**
+     * Get the id of the tree the given folder points to in the last commit. The id changes whenever any file under
+     * the folder changes.
+     *
+     * @param site site identifier
+     * @param path path of the folder
+     * @return the tree id, or null if the path doesn't exist or is not a folder
+     */
+    String getContentTreeId(String site, String path);
 }
@@ -78,6 +78,26 @@ public interface ConfigurationService {
      */
     String getGlobalConfiguration(String path);
 
+    /**
+     * Get the id of the current version of the configuration file for given parameters. The id only changes when
+     * the file changes, so it can be used as an ETag for configuration reads.
+     *
+     * @param siteId site id to use
+     * @param module crafter CMS module
+     * @param path path of configuration file
+     * @param environment environment to use. if empty using default
+     * @return the id of the configuration file, or null if it doesn't exist
+     */
+    String getConfigurationId(String siteId, String module, String path, String environment);
+
+    /**
+     * Get the id of the current version of a configuration file from global repository
+     *
+     * @param path path of configuration file
+     * @return the id of the configuration file, or null if it doesn't exist
+     */
+    String getGlobalConfigurationId(String path);
+
     /**
      * Write configuration file for given parameters
      *
@@ -23,6 +23,7 @@ import org.craftercms.studio.api.v1.service.deployment.DeploymentException;
 import org.craftercms.studio.api.v2.dal.QuickCreateItem;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ContentService {
 
@@ -75,4 +76,24 @@ public interface ContentService {
      * @return true if success, otherwise false
      */
     boolean deleteContent(String siteId, List<String> paths) throws ServiceLayerException, AuthenticationException, DeploymentException;
+
+    /**
+     * Get the id of the current version of the content at the given path. The id only changes when the content
+     * changes, so it can be used as an ETag for content reads.
+     *
+     * @param siteId site identifier
+     * @param path path of the content
+     * @return the content id, or null if the content doesn't exist
+     */
+    String getContentId(String siteId, String path);
+
+    /**
+     * Get the content that changed since the given ids were obtained.
+     *
+     * @param siteId site identifier
+     * @param contentIds map of path to the content id known by the caller
+     * @return map of path to current content id, only for the paths that changed. The id is null if the content
+     *         was deleted
+     */
+    Map<String, String> getChangedContentIds(String siteId, Map<String, String> contentIds);
 }
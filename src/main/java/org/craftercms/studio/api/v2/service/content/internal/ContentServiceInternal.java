@@ -18,6 +18,7 @@
 package org.craftercms.studio.api.v2.service.content.internal;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ContentServiceInternal {
 
@@ -38,4 +39,23 @@ public interface ContentServiceInternal {
      * @return list of paths of subtree items
      */
     List<String> getSubtreeItems(String siteId, List<String> path);
+
+    /**
+     * Get the id of the current version of the content at the given path. The id is the git blob id, so it only
+     * changes when the content changes.
+     *
+     * @param siteId site identifier
+     * @param path path of the content
+     * @return the content id, or null if the content doesn't exist
+     */
+    String getContentId(String siteId, String path);
+
+    /**
+     * Get the ids of the current version of the content at the given paths.
+     *
+     * @param siteId site identifier
+     * @param paths paths of the content
+     * @return map of path to content id, the id is null if the content doesn't exist
+     */
+    Map<String, String> getContentIds(String siteId, List<String> paths);
 }
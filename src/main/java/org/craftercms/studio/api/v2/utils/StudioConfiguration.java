@@ -47,6 +47,15 @@ public interface StudioConfiguration {
     String REPO_PUBLISHED_STAGING = "studio.repo.published.staging";
     String REPO_SYNC_DB_COMMIT_MESSAGE_NO_PROCESSING = "studio.repo.syncDB.commitMessage.noProcessing";
     String REPO_CLEANUP_CRON = "studio.repo.cleanup.cron";
+    String REPO_MAINTENANCE_LOOSE_OBJECTS_THRESHOLD = "studio.repo.maintenance.looseObjectsThreshold";
+    String REPO_MAINTENANCE_PACK_FILES_THRESHOLD = "studio.repo.maintenance.packFilesThreshold";
+    String REPO_MAINTENANCE_LOOSE_REFS_THRESHOLD = "studio.repo.maintenance.looseRefsThreshold";
+    String REPO_MAINTENANCE_BITMAP_MAX_AGE = "studio.repo.maintenance.bitmapMaxAge";
+    String REPO_MAINTENANCE_MAX_CONCURRENCY = "studio.repo.maintenance.maxConcurrency";
+    String REPO_MAINTENANCE_TIME_BUDGET = "studio.repo.maintenance.timeBudget";
+    String REPO_HISTORY_INDEX_BATCH_SIZE = "studio.repo.history.index.batchSize";
+    String REPO_REBUILD_METADATA_CHUNK_SIZE = "studio.repo.rebuildMetadata.chunkSize";
+    String REPO_REBUILD_METADATA_MAX_CONCURRENCY = "studio.repo.rebuildMetadata.maxConcurrency";
     String REPO_CREATE_REPOSITORY_COMMIT_MESSAGE = "studio.repo.createRepository.commitMessage";
     String REPO_CREATE_SANDBOX_BRANCH_COMMIT_MESSAGE = "studio.repo.createSandboxBranch.commitMessage";
     String REPO_INITIAL_COMMIT_COMMIT_MESSAGE = "studio.repo.initialCommit.commitMessage";
@@ -129,10 +138,21 @@ public interface StudioConfiguration {
     String CONFIGURATION_SITE_DEFAULT_AUTHORING_URL = "studio.configuration.site.defaultAuthoringUrl";
     String CONFIGURATION_SITE_DEFAULT_GRAPHQL_SERVER_URL = "studio.configuration.site.defaultGraphqlServerUrl";
 
+    /** CMIS Data Sources */
+    String CMIS_SESSION_MAX_SESSIONS = "studio.cmis.session.maxSessions";
+    String CMIS_SESSION_IDLE_TIMEOUT = "studio.cmis.session.idleTimeout";
+    String CMIS_SESSION_HEALTH_CHECK_INTERVAL = "studio.cmis.session.healthCheckInterval";
+    String CMIS_FOLDER_LISTING_MAX_ENTRIES = "studio.cmis.folderListing.maxEntries";
+    String CMIS_FOLDER_LISTING_TTL = "studio.cmis.folderListing.ttl";
+
     /** Import Service */
     String IMPORT_ASSIGNEE = "studio.import.assignee";
     String IMPORT_XML_CHAIN_NAME = "studio.import.xmlChainName";
     String IMPORT_ASSET_CHAIN_NAME = "studio.import.assetChainName";
+    String IMPORT_BATCH_SIZE = "studio.import.batchSize";
+    String IMPORT_THREAD_POOL_SIZE = "studio.import.threadPoolSize";
+    String IMPORT_THROTTLE_LATENCY_RATIO = "studio.import.throttle.latencyRatio";
+    String IMPORT_THROTTLE_MAX_PAUSE = "studio.import.throttle.maxPause";
 
     /** Notification Service */
     String NOTIFICATION_CONFIGURATION_FILE = "studio.notification.configurationFile";
@@ -140,6 +160,7 @@ public interface StudioConfiguration {
 
     /** Workflow Service */
     String WORKFLOW_PUBLISHING_WITHOUT_DEPENDENCIES_ENABLED = "studio.workflow.publishingWithoutDependencies.enabled";
+    String WORKFLOW_DASHBOARD_PROJECTION_MAX_AGE = "studio.workflow.dashboard.projection.maxAge";
 
     /** Activity Service */
     String ACTIVITY_USERNAME_CASE_SENSITIVE = "studio.activity.user.name.caseSensitive";
@@ -172,6 +193,10 @@ public interface StudioConfiguration {
     String CONTENT_PROCESSOR_CONTENT_LIFE_CYCLE_SCRIPT_LOCATION =
             "studio.contentProcessor.contentLifeCycle.scriptLocation";
 
+    /** Content Item Tree */
+    String CONTENT_ITEM_TREE_MAX_NODES = "studio.content.itemTree.maxNodes";
+    String CONTENT_ITEM_TREE_DEFAULT_LIMIT = "studio.content.itemTree.defaultLimit";
+
     /** Email Service */
     String MAIL_FROM_DEFAULT = "studio.mail.from.default";
     String MAIL_HOST = "studio.mail.host";
@@ -202,6 +227,8 @@ public interface StudioConfiguration {
             "studio.job.deployContentToEnvironment.status.message.stopped.user";
     String JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_STARTED_USER =
             "studio.job.deployContentToEnvironment.status.message.started.user";
+    String JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_UPDATE_INTERVAL =
+            "studio.job.deployContentToEnvironment.status.message.updateInterval";
     String JOB_DEPLOYMENT_MASTER_PUBLISHING_NODE = "studio.job.deployment.masterPublishingNode";
 
     /** Content Types Filter Patterns */
@@ -217,6 +244,7 @@ public interface StudioConfiguration {
     String PREVIEW_DISABLE_DEPLOY_CRON = "studio.preview.disableDeployCron";
     String PREVIEW_TEMPLATE_NAME = "studio.preview.templateName";
     String PREVIEW_REPO_URL = "studio.preview.repoUrl";
+    String PREVIEW_SYNC_MAX_CHANGED_PATHS = "studio.preview.sync.maxChangedPaths";
 
     /** Authoring Deployer **/
     String AUTHORING_REPLACE = "studio.authoring.replace";
@@ -232,6 +260,7 @@ public interface StudioConfiguration {
     String PUBLISHING_MANAGER_INDEX_FILE = "studio.publishingManager.indexFile";
     String PUBLISHING_MANAGER_PUBLISHING_WITHOUT_DEPENDENCIES_ENABLED =
             "studio.publishingManager.publishingWithoutDependencies.enabled";
+    String PUBLISHING_MANAGER_STATE_UPDATE_BATCH_SIZE = "studio.publishingManager.stateUpdateBatchSize";
 
     /** Authentication Chain properties **/
     String AUTHENTICATION_CHAIN_PROVIDER_TYPE = "provider";
@@ -251,6 +280,11 @@ public interface StudioConfiguration {
     String AUTHENTICATION_CHAIN_PROVIDER_GROUP_NAME_LDAP_ATTRIBUTE = "groupNameLdapAttribute";
     String AUTHENTICATION_CHAIN_PROVIDER_GROUP_NAME_REGEX_LDAP_ATTRIBUTE = "groupNameLdapAttributeRegex";
     String AUTHENTICATION_CHAIN_PROVIDER_GROUP_NAME_MATCH_INDEX_LDAP_ATTRIBUTE = "groupNameLdapAttributeMatchIndex";
+    String AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_MAX_TOTAL = "ldapPoolMaxTotal";
+    String AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_MAX_IDLE = "ldapPoolMaxIdle";
+    String AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_MIN_IDLE = "ldapPoolMinIdle";
+    String AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_MAX_WAIT = "ldapPoolMaxWait";
+    String AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_VALIDATION_INTERVAL = "ldapPoolValidationInterval";
     /** HEADERS **/
     String AUTHENTICATION_CHAIN_PROVIDER_TYPE_HEADERS = "HEADERS";
     String AUTHENTICATION_CHAIN_PROVIDER_SECURE_KEY_HEADER = "secureKeyHeader";
@@ -267,6 +301,8 @@ public interface StudioConfiguration {
     String PUBLISHING_THREAD_POOL_NAME_PREFIX = "studio.publishing.threadPool.namePrefix";
     String PUBLISHING_THREAD_POOL_CORE_POOL_SIZE = "studio.publishing.threadPool.corePoolSize";
     String PUBLISHING_THREAD_POOL_MAX_POOL_SIZE = "studio.publishing.threadPool.maxPoolSize";
+    String PUBLISHING_BULK_QUERY_BATCH_SIZE = "studio.publishing.bulk.queryBatchSize";
+    String PUBLISHING_BULK_PACKAGE_SIZE = "studio.publishing.bulk.packageSize";
 
     /** Clustering **/
     String CLUSTERING_SYNC_URL_FORMAT = "studio.clustering.sync.urlFormat";
@@ -288,6 +324,28 @@ public interface StudioConfiguration {
 
     /** Asset processing **/
     String CONFIGURATION_ASSET_PROCESSING_TINIFY_API_KEY = "studio.configuration.asset.processing.tinify.apiKey";
+    String CONFIGURATION_ASSET_PROCESSING_THREAD_POOL_NAME_PREFIX =
+            "studio.configuration.asset.processing.threadPool.namePrefix";
+    String CONFIGURATION_ASSET_PROCESSING_THREAD_POOL_CORE_POOL_SIZE =
+            "studio.configuration.asset.processing.threadPool.corePoolSize";
+    String CONFIGURATION_ASSET_PROCESSING_THREAD_POOL_MAX_POOL_SIZE =
+            "studio.configuration.asset.processing.threadPool.maxPoolSize";
+    String CONFIGURATION_ASSET_PROCESSING_THREAD_POOL_QUEUE_CAPACITY =
+            "studio.configuration.asset.processing.threadPool.queueCapacity";
+    String CONFIGURATION_ASSET_PROCESSING_IMAGE_MAGICK_PATH =
+            "studio.configuration.asset.processing.imageMagick.path";
+    String CONFIGURATION_ASSET_PROCESSING_IMAGE_MAGICK_MAX_PROCESSES =
+            "studio.configuration.asset.processing.imageMagick.maxProcesses";
+    String CONFIGURATION_ASSET_PROCESSING_IMAGE_MAGICK_MAX_QUEUED_TRANSFORMATIONS =
+            "studio.configuration.asset.processing.imageMagick.maxQueuedTransformations";
+    String CONFIGURATION_ASSET_PROCESSING_IMAGE_MAGICK_QUEUE_TIMEOUT =
+            "studio.configuration.asset.processing.imageMagick.queueTimeout";
+    String CONFIGURATION_ASSET_PROCESSING_IMAGE_MAGICK_PROCESS_TIMEOUT =
+            "studio.configuration.asset.processing.imageMagick.processTimeout";
+    String CONFIGURATION_ASSET_PROCESSING_TRANSFORMATION_CACHE_PATH =
+            "studio.configuration.asset.processing.transformationCache.path";
+    String CONFIGURATION_ASSET_PROCESSING_TRANSFORMATION_CACHE_MAX_SIZE =
+            "studio.configuration.asset.processing.transformationCache.maxSize";
 
     /** Upgrade Configuration **/
     String UPGRADE_BRANCH_NAME = "studio.upgrade.branchName";
@@ -305,6 +363,7 @@ public interface StudioConfiguration {
     String UPGRADE_PIPELINE_BLUEPRINT = "studio.upgrade.pipeline.blueprint";
     String UPGRADE_PIPELINE_CONFIGURATIONS = "studio.upgrade.pipeline.configurations";
     String UPGRADE_SCRIPT_FOLDER = "studio.upgrade.scriptFolder";
+    String UPGRADE_SITE_MAX_CONCURRENCY = "studio.upgrade.site.maxConcurrency";
 
     /** Serverless Delivery Configuration **/
     String SERVERLESS_DELIVERY_ENABLED = "studio.serverless.delivery.enabled";
@@ -35,6 +35,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_GLOBAL_SYSTEM_SITE;
 import static org.craftercms.studio.controller.rest.v2.ResultConstants.RESULT_KEY_HISTORY;
@@ -51,9 +52,19 @@ public class ConfigurationController {
     public ResponseBody getConfiguration(@RequestParam(name = "siteId", required = true) String siteId,
                                          @RequestParam(name = "module", required = true) String module,
                                          @RequestParam(name = "path", required = true) String path,
-                                         @RequestParam(name = "environment", required = false) String environment) {
+                                         @RequestParam(name = "environment", required = false) String environment,
+                                         WebRequest webRequest) {
+        boolean global = StringUtils.equals(siteId, studioConfiguration.getProperty(CONFIGURATION_GLOBAL_SYSTEM_SITE));
+
+        // Answer with 304 when the client already has the current version of the file
+        String configurationId = global ? configurationService.getGlobalConfigurationId(path) :
+                configurationService.getConfigurationId(siteId, module, path, environment);
+        if (StringUtils.isNotEmpty(configurationId) && webRequest.checkNotModified(configurationId)) {
+            return null;
+        }
+
         String content = StringUtils.EMPTY;
-        if (StringUtils.equals(siteId, studioConfiguration.getProperty(CONFIGURATION_GLOBAL_SYSTEM_SITE))) {
+        if (global) {
             content = configurationService.getGlobalConfiguration(path);
         } else {
             content = configurationService.getConfigurationAsString(siteId, module, path, environment);
@@ -17,6 +17,7 @@
 
 package org.craftercms.studio.controller.rest.v2;
 
+import org.apache.commons.collections4.MapUtils;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v1.exception.security.AuthenticationException;
@@ -26,12 +27,15 @@ import org.craftercms.studio.api.v2.dal.QuickCreateItem;
 import org.craftercms.studio.api.v2.service.content.ContentService;
 import org.craftercms.studio.api.v2.service.dependency.DependencyService;
 import org.craftercms.studio.model.rest.ApiResponse;
+import org.craftercms.studio.model.rest.ChangedContentIdsRequest;
 import org.craftercms.studio.model.rest.ResponseBody;
 import org.craftercms.studio.model.rest.Result;
 import org.craftercms.studio.model.rest.ResultList;
 import org.craftercms.studio.model.rest.ResultOne;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -105,6 +109,25 @@ public class ContentController {
         return responseBody;
     }
 
+    @PostMapping("/changed_content_ids")
+    public ResponseBody getChangedContentIds(@RequestBody ChangedContentIdsRequest changedContentIdsRequest)
+            throws SiteNotFoundException {
+        String siteId = changedContentIdsRequest.getSiteId();
+        if (!siteService.exists(siteId)) {
+            throw new SiteNotFoundException(siteId);
+        }
+        Map<String, String> contentIds = changedContentIdsRequest.getContentIds();
+        Map<String, String> changedIds = MapUtils.isEmpty(contentIds) ? new HashMap<String, String>() :
+                contentService.getChangedContentIds(siteId, contentIds);
+
+        ResponseBody responseBody = new ResponseBody();
+        ResultOne<Map<String, String>> result = new ResultOne<Map<String, String>>();
+        result.setResponse(OK);
+        result.setEntity(RESULT_KEY_ITEMS, changedIds);
+        responseBody.setResult(result);
+        return responseBody;
+    }
+
     public ContentService getContentService() {
         return contentService;
     }
@@ -33,6 +33,8 @@ import org.craftercms.studio.api.v1.asset.processing.AssetProcessorPipeline;
 import org.craftercms.studio.api.v1.asset.processing.ProcessorConfiguration;
 import org.craftercms.studio.api.v1.asset.processing.ProcessorPipelineConfiguration;
 import org.craftercms.studio.api.v1.exception.AssetProcessingException;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
 
 /**
  * Default implementation of {@link AssetProcessorPipeline}.
@@ -41,6 +43,8 @@ import org.craftercms.studio.api.v1.exception.AssetProcessingException;
  */
 public class AssetProcessorPipelineImpl implements AssetProcessorPipeline {
 
+    private static final Logger logger = LoggerFactory.getLogger(AssetProcessorPipelineImpl.class);
+
     private AssetProcessorResolver processorFactory;
 
     public AssetProcessorPipelineImpl(AssetProcessorResolver processorFactory) {
@@ -60,7 +64,10 @@ public class AssetProcessorPipelineImpl implements AssetProcessorPipeline {
             }
 
             for (Map.Entry<ProcessorConfiguration, AssetProcessor> entry : processors.entrySet()) {
+                long start = System.currentTimeMillis();
                 Asset output = entry.getValue().processAsset(entry.getKey(), inputPatMatcher, input);
+                logger.debug("Asset processor of type {0} processed {1} in {2} ms", entry.getKey().getType(),
+                             input.getRepoPath(), System.currentTimeMillis() - start);
                 outputs.add(output);
 
                 input = output;
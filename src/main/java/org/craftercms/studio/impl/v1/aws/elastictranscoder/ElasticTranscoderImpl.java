@@ -41,7 +41,9 @@ import org.craftercms.studio.api.v1.aws.elastictranscoder.TranscoderJob;
 import org.craftercms.studio.api.v1.aws.elastictranscoder.TranscoderOutput;
 import org.craftercms.studio.api.v1.aws.elastictranscoder.TranscoderProfile;
 import org.craftercms.studio.api.v1.exception.AwsException;
+import org.craftercms.studio.impl.v1.service.aws.AwsClientRegistry;
 import org.craftercms.studio.impl.v1.service.aws.AwsUtils;
+import org.springframework.beans.factory.annotation.Required;
 
 /**
  * Default implementation of {@link ElasticTranscoder}. Just as indicated by the interface, the video file is first uploaded to the
@@ -55,6 +57,8 @@ public class ElasticTranscoderImpl implements ElasticTranscoder {
 
     protected int partSize;
 
+    protected AwsClientRegistry clientRegistry;
+
     public ElasticTranscoderImpl() {
         partSize = AwsUtils.MIN_PART_SIZE;
     }
@@ -63,6 +67,11 @@ public class ElasticTranscoderImpl implements ElasticTranscoder {
         this.partSize = partSize;
     }
 
+    @Required
+    public void setClientRegistry(final AwsClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
+    }
+
     @Override
     public TranscoderJob startJob(String filename, InputStream content, TranscoderProfile profile) throws AwsException {
         try {
@@ -72,7 +81,7 @@ public class ElasticTranscoderImpl implements ElasticTranscoder {
             String baseKey = FilenameUtils.removeExtension(filename) + "/" + UUID.randomUUID().toString();
             String inputKey = baseKey + "." + FilenameUtils.getExtension(filename);
 
-            uploadInput(inputKey, filename, content, pipeline, s3Client);
+            uploadInput(inputKey, filename, content, pipeline, profile, s3Client);
 
             CreateJobResult jobResult = createJob(inputKey, baseKey, profile, transcoderClient);
 
@@ -92,10 +101,10 @@ public class ElasticTranscoderImpl implements ElasticTranscoder {
     }
 
     protected void uploadInput(String inputKey, String filename, InputStream content, Pipeline pipeline,
-                               AmazonS3 s3Client) throws AwsException {
+                               TranscoderProfile profile, AmazonS3 s3Client) throws AwsException {
         String inputBucket = pipeline.getInputBucket();
 
-        AwsUtils.uploadStream(inputBucket, inputKey, s3Client, partSize, filename, content);
+        clientRegistry.uploadStream(profile, inputBucket, inputKey, s3Client, partSize, filename, content);
     }
 
     protected CreateJobResult createJob(String inputKey, String baseKey, TranscoderProfile profile,
@@ -116,14 +125,15 @@ public class ElasticTranscoderImpl implements ElasticTranscoder {
     }
 
     protected AmazonS3 getS3Client(TranscoderProfile profile) {
-        return S3Utils.createClient(profile);
+        return clientRegistry.getClient(profile, "s3", () -> S3Utils.createClient(profile));
     }
 
     protected AmazonElasticTranscoder getTranscoderClient(TranscoderProfile profile) {
-        return AmazonElasticTranscoderClientBuilder.standard()
-            .withCredentials(profile.getCredentialsProvider())
-            .withRegion(profile.getRegion())
-            .build();
+        return clientRegistry.getClient(profile, "elasticTranscoder",
+                                        () -> AmazonElasticTranscoderClientBuilder.standard()
+                                                .withCredentials(profile.getCredentialsProvider())
+                                                .withRegion(profile.getRegion())
+                                                .build());
     }
 
     protected CreateJobRequest getCreateJobRequest(String inputKey, String baseKey, TranscoderProfile profile) {
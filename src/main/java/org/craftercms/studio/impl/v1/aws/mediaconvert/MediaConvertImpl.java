@@ -25,7 +25,9 @@ import org.craftercms.studio.api.v1.aws.mediaconvert.MediaConvert;
 import org.craftercms.studio.api.v1.aws.mediaconvert.MediaConvertJob;
 import org.craftercms.studio.api.v1.aws.mediaconvert.MediaConvertProfile;
 import org.craftercms.studio.api.v1.exception.AwsException;
+import org.craftercms.studio.impl.v1.service.aws.AwsClientRegistry;
 import org.craftercms.studio.impl.v1.service.aws.AwsUtils;
+import org.springframework.beans.factory.annotation.Required;
 import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.mediaconvert.AWSMediaConvert;
 import com.amazonaws.services.mediaconvert.AWSMediaConvertClientBuilder;
@@ -48,17 +50,24 @@ public class MediaConvertImpl implements MediaConvert {
 
     protected int partSize = AwsUtils.MIN_PART_SIZE;
 
+    protected AwsClientRegistry clientRegistry;
+
     public void setPartSize(final int partSize) {
         this.partSize = partSize;
     }
 
+    @Required
+    public void setClientRegistry(final AwsClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
+    }
+
     /**
      * Creates an instance of {@link AmazonS3} to upload the files.
      * @param profile AWS profile
      * @return an S3 client
      */
     protected AmazonS3 getS3Client(MediaConvertProfile profile) {
-        return S3Utils.createClient(profile);
+        return clientRegistry.getClient(profile, "s3", () -> S3Utils.createClient(profile));
     }
 
     /**
@@ -67,11 +76,11 @@ public class MediaConvertImpl implements MediaConvert {
      * @return a MediaConvert client
      */
     protected AWSMediaConvert getMediaConvertClient(MediaConvertProfile profile) {
-        return AWSMediaConvertClientBuilder.standard()
+        return clientRegistry.getClient(profile, "mediaConvert", () -> AWSMediaConvertClientBuilder.standard()
                 .withCredentials(profile.getCredentialsProvider())
                 .withEndpointConfiguration(
                     new AwsClientBuilder.EndpointConfiguration(profile.getEndpoint(), profile.getRegion()))
-                .build();
+                .build());
     }
 
     /**
@@ -99,7 +108,7 @@ public class MediaConvertImpl implements MediaConvert {
         AmazonS3 s3Client = getS3Client(profile);
         AWSMediaConvert mediaConvertClient = getMediaConvertClient(profile);
 
-        AwsUtils.uploadStream(profile.getInputPath(), filename, s3Client, partSize, filename, content);
+        clientRegistry.uploadStream(profile, profile.getInputPath(), filename, s3Client, partSize, filename, content);
 
         String key = FilenameUtils.getBaseName(filename);
 
@@ -147,7 +147,10 @@ public class AssetDmContentProcessor extends FormDmContentProcessor {
                 parentExists = contentService.contentExists(site, path);
             }
             if (parentExists && parentContentItem.isFolder()) {
-                boolean exists = contentService.contentExists(site, path + FILE_SEPARATOR + assetName);
+                // assets written in a batch are committed before the chain runs, so the caller tells if they existed
+                String existsValue = content.getProperty(DmConstants.KEY_CONTENT_EXISTS);
+                boolean exists = StringUtils.isNotEmpty(existsValue) ? Boolean.parseBoolean(existsValue)
+                        : contentService.contentExists(site, path + FILE_SEPARATOR + assetName);
                 ContentItemTO contentItem = null;
                 if (exists) {
                     contentItem = contentService.getContentItem(site, path + FILE_SEPARATOR + assetName, 0);
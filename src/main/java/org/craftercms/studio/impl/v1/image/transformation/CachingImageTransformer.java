@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.impl.v1.image.transformation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.craftercms.studio.api.v1.exception.ImageTransformationException;
+import org.craftercms.studio.api.v1.image.transformation.ImageTransformer;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Required;
+
+/**
+ * {@link ImageTransformer} that keeps the results of another transformer in a local disk cache, keyed by the git blob
+ * id of the source image, the output format and the transformation parameters. Identical re-uploads or re-processing
+ * of the same image are copied from the cache instead of being transformed again. When the cache grows over
+ * {@code maxCacheSize} bytes the least recently used entries are removed.
+ */
+public class CachingImageTransformer implements ImageTransformer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingImageTransformer.class);
+
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+
+    private ImageTransformer actualTransformer;
+    private String transformerId;
+    private String cachePath;
+    private long maxCacheSize;
+
+    @Required
+    public void setActualTransformer(ImageTransformer actualTransformer) {
+        this.actualTransformer = actualTransformer;
+    }
+
+    @Required
+    public void setTransformerId(String transformerId) {
+        this.transformerId = transformerId;
+    }
+
+    @Required
+    public void setCachePath(String cachePath) {
+        this.cachePath = cachePath;
+    }
+
+    @Required
+    public void setMaxCacheSize(long maxCacheSize) {
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    @Override
+    public void transform(Path sourcePath, Path targetPath, Map<String, String> parameters) throws ImageTransformationException {
+        Path cacheDir = Paths.get(cachePath);
+        Path cachedFile;
+        try {
+            cachedFile = cacheDir.resolve(getCacheKey(sourcePath, targetPath, parameters));
+            if (Files.exists(cachedFile)) {
+                logger.debug("Using cached transformation {} for {}", cachedFile, sourcePath);
+
+                Files.copy(cachedFile, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                Files.setLastModifiedTime(cachedFile, FileTime.fromMillis(System.currentTimeMillis()));
+
+                return;
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to read transformation cache at " + cachePath + ", transforming " + sourcePath, e);
+
+            actualTransformer.transform(sourcePath, targetPath, parameters);
+
+            return;
+        }
+
+        actualTransformer.transform(sourcePath, targetPath, parameters);
+
+        try {
+            Files.createDirectories(cacheDir);
+
+            // Copy to a temp file first so other threads never see a partial entry
+            Path tmpFile = Files.createTempFile(cacheDir, cachedFile.getFileName().toString(), TMP_FILE_SUFFIX);
+            Files.copy(targetPath, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmpFile, cachedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            evictEntries(cacheDir);
+        } catch (IOException e) {
+            logger.warn("Unable to store transformation of " + sourcePath + " in cache " + cachePath, e);
+        }
+    }
+
+    protected String getCacheKey(Path sourcePath, Path targetPath, Map<String, String> parameters)
+            throws IOException {
+        String sourceId;
+        try (InputStream in = Files.newInputStream(sourcePath)) {
+            sourceId = new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, Files.size(sourcePath), in).name();
+        }
+
+        // The transformer picks the output format from the target extension
+        String format = FilenameUtils.getExtension(targetPath.getFileName().toString()).toLowerCase();
+
+        StringBuilder key = new StringBuilder(transformerId).append('\n').append(sourceId).append('\n').append(format);
+        if (MapUtils.isNotEmpty(parameters)) {
+            new TreeMap<>(parameters).forEach((name, value) -> key.append('\n').append(name).append('=').append(value));
+        }
+
+        return DigestUtils.sha256Hex(key.toString());
+    }
+
+    protected synchronized void evictEntries(Path cacheDir) throws IOException {
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            entries = files.filter(file -> Files.isRegularFile(file) &&
+                                           !file.getFileName().toString().endsWith(TMP_FILE_SUFFIX))
+                           .sorted(Comparator.comparing(this::getLastModifiedTime))
+                           .collect(Collectors.toList());
+        }
+
+        long size = 0;
+        for (Path entry : entries) {
+            size += getSize(entry);
+        }
+
+        for (int i = 0; size > maxCacheSize && i < entries.size(); i++) {
+            Path entry = entries.get(i);
+            long entrySize = getSize(entry);
+            if (Files.deleteIfExists(entry)) {
+                size -= entrySize;
+            }
+        }
+    }
+
+    private long getSize(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private FileTime getLastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+}
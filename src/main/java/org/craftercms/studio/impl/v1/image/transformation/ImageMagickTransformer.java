@@ -18,12 +18,18 @@ package org.craftercms.studio.impl.v1.image.transformation;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.collections4.MapUtils;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.studio.api.v1.exception.ImageTransformationException;
 import org.craftercms.studio.api.v1.image.transformation.ImageTransformer;
@@ -31,7 +37,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Transformer that calls ImageMagick from the command line with the options specified in the parameters.
+ * Transformer that calls ImageMagick from the command line with the options specified in the parameters. At most
+ * {@code maxProcesses} ImageMagick processes run at the same time, up to {@code maxQueuedTransformations} callers wait
+ * up to {@code queueTimeoutSecs} for a free slot and any other transformation is rejected right away.
  *
  * @author avasquez
  * @see <a href="https://www.imagemagick.org/script/index.php">ImageMagick</a>
@@ -42,15 +50,27 @@ public class ImageMagickTransformer implements ImageTransformer {
 
     private static final String DEFAULT_IMG_MGK_PATH = "convert";
     private static final int DEFAULT_PROCESS_TIMEOUT_SECS = 30;
+    private static final int DEFAULT_MAX_PROCESSES = 4;
+    private static final int DEFAULT_MAX_QUEUED_TRANSFORMATIONS = 50;
+    private static final int DEFAULT_QUEUE_TIMEOUT_SECS = 60;
 
     private static final String PARAM_OPTIONS = "options";
 
     private String imgMgkPath;
     private int processTimeoutSecs;
+    private int maxProcesses;
+    private int maxQueuedTransformations;
+    private int queueTimeoutSecs;
+
+    private Semaphore processPermits;
+    private final AtomicInteger pendingTransformations = new AtomicInteger();
 
     public ImageMagickTransformer() {
         imgMgkPath = DEFAULT_IMG_MGK_PATH;
         processTimeoutSecs = DEFAULT_PROCESS_TIMEOUT_SECS;
+        maxQueuedTransformations = DEFAULT_MAX_QUEUED_TRANSFORMATIONS;
+        queueTimeoutSecs = DEFAULT_QUEUE_TIMEOUT_SECS;
+        setMaxProcesses(DEFAULT_MAX_PROCESSES);
     }
 
     public void setImgMgkPath(String imgMgkPath) {
@@ -61,51 +81,97 @@ public class ImageMagickTransformer implements ImageTransformer {
         this.processTimeoutSecs = processTimeoutSecs;
     }
 
+    public void setMaxProcesses(int maxProcesses) {
+        this.maxProcesses = maxProcesses;
+        this.processPermits = new Semaphore(maxProcesses, true);
+    }
+
+    public void setMaxQueuedTransformations(int maxQueuedTransformations) {
+        this.maxQueuedTransformations = maxQueuedTransformations;
+    }
+
+    public void setQueueTimeoutSecs(int queueTimeoutSecs) {
+        this.queueTimeoutSecs = queueTimeoutSecs;
+    }
+
     public void transform(Path sourcePath, Path targetPath, Map<String, String> parameters) throws ImageTransformationException {
-        String cmdLine = createCmdLine(sourcePath, targetPath, parameters);
+        List<String> cmdLine = createCmdLine(sourcePath, targetPath, parameters);
+
+        try {
+            if (pendingTransformations.incrementAndGet() > maxProcesses + maxQueuedTransformations) {
+                throw new ImageTransformationException("Too many pending Image Magick transformations, rejecting " +
+                                                       "transformation of " + sourcePath);
+            }
+            if (!processPermits.tryAcquire(queueTimeoutSecs, TimeUnit.SECONDS)) {
+                throw new ImageTransformationException("Timed out after " + queueTimeoutSecs + " secs waiting for " +
+                                                       "an Image Magick process to transform " + sourcePath);
+            }
+            try {
+                runProcess(cmdLine);
+            } finally {
+                processPermits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
 
+            throw new ImageTransformationException("Interrupted while waiting for an Image Magick process", e);
+        } finally {
+            pendingTransformations.decrementAndGet();
+        }
+    }
+
+    private void runProcess(List<String> cmdLine) throws ImageTransformationException, InterruptedException {
+        Path outputFile = null;
         try {
             logger.info("Executing command: {}", cmdLine);
 
-            Process proc = Runtime.getRuntime().exec(cmdLine);
-            proc.waitFor(processTimeoutSecs, TimeUnit.SECONDS);
+            // Both streams go to a file so the process never blocks on a full pipe
+            outputFile = Files.createTempFile("img-mgk", ".log");
 
-            String stdOut = getProcessStdOut(proc);
-            String stdErr = getProcessStdErr(proc);
+            Process proc = new ProcessBuilder(cmdLine)
+                .redirectErrorStream(true)
+                .redirectOutput(outputFile.toFile())
+                .start();
+
+            if (!proc.waitFor(processTimeoutSecs, TimeUnit.SECONDS)) {
+                proc.destroyForcibly();
+
+                throw new ImageTransformationException("Image Magick process " + cmdLine + " didn't finish after " +
+                                                       processTimeoutSecs + " secs");
+            }
 
-            if (StringUtils.isNotEmpty(stdOut)) {
-                logger.info("Img Mgk stdout for [{}]: {}", cmdLine, stdOut);
+            String output = new String(Files.readAllBytes(outputFile), Charset.defaultCharset());
+            if (StringUtils.isNotEmpty(output)) {
+                logger.info("Img Mgk output for {}: {}", cmdLine, output);
             }
-            if (StringUtils.isNotEmpty(stdErr)) {
-                logger.info("Img Mgk stderr for [{}]: {}", cmdLine, stdErr);
+            if (proc.exitValue() != 0) {
+                throw new ImageTransformationException("Image Magick process " + cmdLine + " exited with code " +
+                                                       proc.exitValue());
             }
-        } catch (Exception e) {
+        } catch (IOException e) {
             throw new ImageTransformationException("Error while running Image Magick process from the command line", e);
+        } finally {
+            if (outputFile != null) {
+                FileUtils.deleteQuietly(outputFile.toFile());
+            }
         }
     }
 
+    private List<String> createCmdLine(Path sourcePath, Path targetPath, Map<String, String> parameters) {
+        List<String> cmdLine = new ArrayList<>();
 
-    private String createCmdLine(Path sourcePath, Path targetPath, Map<String, String> parameters) {
-        StringBuilder cmdLine = new StringBuilder(imgMgkPath);
-
-        cmdLine.append(" ").append(sourcePath.toAbsolutePath().toString());
+        cmdLine.add(imgMgkPath);
+        cmdLine.add(sourcePath.toAbsolutePath().toString());
 
         String options = MapUtils.getString(parameters, PARAM_OPTIONS);
         if (StringUtils.isNotEmpty(options)) {
-            cmdLine.append(" ").append(options);
+            // Same tokenization Runtime.exec used to do with the whole command line
+            cmdLine.addAll(Arrays.asList(StringUtils.split(options)));
         }
 
-        cmdLine.append(" ").append(targetPath.toAbsolutePath().toString());
-
-        return cmdLine.toString();
-    }
-
-    private String getProcessStdOut(Process proc) throws IOException {
-        return IOUtils.toString(proc.getInputStream(), Charset.defaultCharset());
-    }
+        cmdLine.add(targetPath.toAbsolutePath().toString());
 
-    private String getProcessStdErr(Process proc) throws IOException {
-        return IOUtils.toString(proc.getErrorStream(), Charset.defaultCharset());
+        return cmdLine;
     }
 
 }
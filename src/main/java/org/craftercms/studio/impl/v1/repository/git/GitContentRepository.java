@@ -34,23 +34,25 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import javax.servlet.ServletContext;
 
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.collections4.iterators.ReverseListIterator;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -58,9 +60,11 @@ import org.craftercms.commons.crypto.CryptoException;
 import org.craftercms.commons.crypto.TextEncryptor;
 import org.craftercms.commons.crypto.impl.PbkAesTextEncryptor;
 import org.craftercms.studio.api.v1.constant.GitRepositories;
+import org.craftercms.studio.api.v1.constant.RepoOperation;
 import org.craftercms.studio.api.v1.dal.DeploymentSyncHistory;
 import org.craftercms.studio.api.v1.dal.GitLog;
 import org.craftercms.studio.api.v1.dal.GitLogMapper;
+import org.craftercms.studio.api.v2.dal.ItemHistoryEntry;
 import org.craftercms.studio.api.v2.dal.RemoteRepository;
 import org.craftercms.studio.api.v2.dal.RemoteRepositoryDAO;
 import org.craftercms.studio.api.v1.dal.SiteFeedMapper;
@@ -76,6 +80,7 @@ import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.repository.ContentRepository;
+import org.craftercms.studio.api.v1.repository.RepoOperationIterator;
 import org.craftercms.studio.api.v1.repository.RepositoryItem;
 import org.craftercms.studio.api.v1.service.configuration.ServicesConfig;
 import org.craftercms.studio.api.v1.service.deployment.DeploymentException;
@@ -84,12 +89,14 @@ import org.craftercms.studio.api.v1.service.security.SecurityService;
 import org.craftercms.studio.api.v1.to.DeploymentItemTO;
 import org.craftercms.studio.api.v1.to.RemoteRepositoryInfoTO;
 import org.craftercms.studio.api.v1.to.RepoOperationTO;
+import org.craftercms.studio.api.v1.to.VersionHistoryTO;
 import org.craftercms.studio.api.v1.to.VersionTO;
 import org.craftercms.studio.api.v1.util.filter.DmFilterWrapper;
 import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.eclipse.jgit.api.AddCommand;
 import org.eclipse.jgit.api.CheckoutCommand;
+import org.eclipse.jgit.api.CommitCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.LsRemoteCommand;
 import org.eclipse.jgit.api.PullCommand;
@@ -105,15 +112,18 @@ import org.eclipse.jgit.api.errors.InvalidRemoteException;
 import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.eclipse.jgit.api.errors.RefNotFoundException;
 import org.eclipse.jgit.api.errors.TransportException;
+import org.eclipse.jgit.diff.DiffConfig;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
 import org.eclipse.jgit.internal.storage.file.LockFile;
 import org.eclipse.jgit.lib.Config;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
-import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.FollowFilter;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
@@ -133,10 +143,14 @@ import org.eclipse.jgit.transport.SshTransport;
 import org.eclipse.jgit.transport.Transport;
 import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
-import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.FS;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.web.context.ServletContextAware;
 
@@ -147,11 +161,6 @@ import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.craftercms.studio.api.v1.constant.GitRepositories.GLOBAL;
 import static org.craftercms.studio.api.v1.constant.GitRepositories.PUBLISHED;
 import static org.craftercms.studio.api.v1.constant.GitRepositories.SANDBOX;
-import static org.craftercms.studio.api.v1.constant.RepoOperation.COPY;
-import static org.craftercms.studio.api.v1.constant.RepoOperation.CREATE;
-import static org.craftercms.studio.api.v1.constant.RepoOperation.DELETE;
-import static org.craftercms.studio.api.v1.constant.RepoOperation.MOVE;
-import static org.craftercms.studio.api.v1.constant.RepoOperation.UPDATE;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.BOOTSTRAP_REPO_GLOBAL_PATH;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.BOOTSTRAP_REPO_PATH;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
@@ -171,6 +180,10 @@ import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_BASE_P
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_COMMIT_MESSAGE_POSTSCRIPT;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_COMMIT_MESSAGE_PROLOGUE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_COPY_CONTENT_COMMIT_MESSAGE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_MAINTENANCE_BITMAP_MAX_AGE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_MAINTENANCE_LOOSE_OBJECTS_THRESHOLD;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_MAINTENANCE_LOOSE_REFS_THRESHOLD;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_MAINTENANCE_PACK_FILES_THRESHOLD;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_CREATE_FOLDER_COMMIT_MESSAGE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_DELETE_CONTENT_COMMIT_MESSAGE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_INITIAL_COMMIT_COMMIT_MESSAGE;
@@ -190,6 +203,7 @@ import static org.eclipse.jgit.api.ListBranchCommand.ListMode.REMOTE;
 import static org.eclipse.jgit.api.ResetCommand.ResetType.HARD;
 import static org.eclipse.jgit.lib.Constants.DEFAULT_REMOTE_NAME;
 import static org.eclipse.jgit.lib.Constants.HEAD;
+import static org.eclipse.jgit.lib.Constants.OBJECT_ID_STRING_LENGTH;
 import static org.eclipse.jgit.lib.Constants.OBJ_TREE;
 import static org.eclipse.jgit.lib.Constants.R_HEADS;
 import static org.eclipse.jgit.lib.Constants.R_REMOTES;
@@ -208,6 +222,7 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
 
     private static final String IN_PROGRESS_BRANCH_NAME_SUFIX = "_in_progress";
     private static final String STUDIO_MANIFEST_LOCATION = "/META-INF/MANIFEST.MF";
+    private static final int HISTORY_PAGE_SIZE = 1000;
 
     protected ServletContext ctx;
     protected StudioConfiguration studioConfiguration;
@@ -217,6 +232,7 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
     protected UserServiceInternal userServiceInternal;
     protected SecurityService securityService;
     protected SiteFeedMapper siteFeedMapper;
+    protected GitItemHistoryIndex itemHistoryIndex;
 
     @Override
     public boolean contentExists(String site, String path) {
@@ -306,16 +322,12 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
             try {
 
                 if (repo != null) {
-                    if (helper.writeFile(repo, site, path, content)) {
-                        PersonIdent user = helper.getCurrentUserIdent();
-                        String username = securityService.getCurrentUser();
-                        String comment = helper.getCommitMessage(REPO_SANDBOX_WRITE_COMMIT_MESSAGE)
-                            .replace(REPO_COMMIT_MESSAGE_USERNAME_VAR, username)
-                            .replace(REPO_COMMIT_MESSAGE_PATH_VAR, path);
-                        commitId = helper.commitFile(repo, site, path, comment, user);
-                    } else {
-                        logger.error("Failed to write content site: " + site + " path: " + path);
-                    }
+                    PersonIdent user = helper.getCurrentUserIdent();
+                    String username = securityService.getCurrentUser();
+                    String comment = helper.getCommitMessage(REPO_SANDBOX_WRITE_COMMIT_MESSAGE)
+                        .replace(REPO_COMMIT_MESSAGE_USERNAME_VAR, username)
+                        .replace(REPO_COMMIT_MESSAGE_PATH_VAR, path);
+                    commitId = helper.writeAndCommitFile(repo, site, path, content, comment, user);
                 } else {
                     logger.error("Missing repository during write for site: " + site + " path: " + path);
                 }
@@ -327,6 +339,35 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         return commitId;
     }
 
+    @Override
+    public String writeContents(String site, Map<String, InputStream> contents) {
+        // Write all contents to git and commit them together
+        String commitId = null;
+        String paths = StringUtils.join(contents.keySet(), ", ");
+
+        synchronized (helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX)) {
+            Repository repo =
+                helper.getRepository(site, StringUtils.isEmpty(site)? GLOBAL: SANDBOX);
+
+            try {
+                if (repo != null) {
+                    PersonIdent user = helper.getCurrentUserIdent();
+                    String username = securityService.getCurrentUser();
+                    String comment = helper.getCommitMessage(REPO_SANDBOX_WRITE_COMMIT_MESSAGE)
+                        .replace(REPO_COMMIT_MESSAGE_USERNAME_VAR, username)
+                        .replace(REPO_COMMIT_MESSAGE_PATH_VAR, paths);
+                    commitId = helper.writeAndCommitFiles(repo, site, contents, comment, user);
+                } else {
+                    logger.error("Missing repository during write for site: " + site + " paths: " + paths);
+                }
+            } catch (ServiceLayerException | UserNotFoundException e) {
+                logger.error("Unknown service error during write for site: " + site + " paths: " + paths, e);
+            }
+        }
+
+        return commitId;
+    }
+
     @Override
     public String createFolder(String site, String path, String name) {
         // SJ: Git doesn't care about empty folders, so we will create the folders and put a 0 byte file in them
@@ -509,11 +550,14 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
                 Status gitStatus = git.status().addPath(gitToPath).call();
                 Set<String> changeSet = gitStatus.getAdded();
 
-                for (String pathToCommit : changeSet) {
-                    String pathRemoved = pathToCommit.replace(gitToPath, gitFromPath);
-                    RevCommit commit = git.commit()
-                            .setOnly(pathToCommit)
-                            .setOnly(pathRemoved)
+                // Commit the whole subtree at once instead of one commit per moved file
+                if (!changeSet.isEmpty()) {
+                    CommitCommand commitCommand = git.commit();
+                    for (String pathToCommit : changeSet) {
+                        commitCommand.setOnly(pathToCommit)
+                                .setOnly(pathToCommit.replace(gitToPath, gitFromPath));
+                    }
+                    RevCommit commit = commitCommand
                             .setAuthor(helper.getCurrentUserIdent())
                             .setCommitter(helper.getCurrentUserIdent())
                             .setMessage(helper.getCommitMessage(REPO_MOVE_CONTENT_COMMIT_MESSAGE)
@@ -522,7 +566,9 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
                                             (StringUtils.isNotEmpty(newName) ? newName : EMPTY)))
                             .call();
                     commitId = commit.getName();
-                    toRet.put(pathToCommit, commitId);
+                    for (String pathToCommit : changeSet) {
+                        toRet.put(pathToCommit, commitId);
+                    }
                 }
             } catch (IOException | GitAPIException | ServiceLayerException | UserNotFoundException e) {
                 logger.error("Error while moving content for site: " + site + " fromPath: " + fromPath +
@@ -663,38 +709,171 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
     @Override
     public VersionTO[] getContentVersionHistory(String site, String path) {
         List<VersionTO> versionHistory = new ArrayList<VersionTO>();
+        String cursor = null;
+        do {
+            VersionHistoryTO page = getContentVersionHistory(site, path, cursor, HISTORY_PAGE_SIZE, false);
+            versionHistory.addAll(Arrays.asList(page.getVersions()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
 
-        synchronized (helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX)) {
-            Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
+        VersionTO[] toRet = new VersionTO[versionHistory.size()];
+        return versionHistory.toArray(toRet);
+    }
 
-            try {
+    @Override
+    public VersionHistoryTO getContentVersionHistory(String site, String path, String cursor, int limit,
+                                                     boolean followRenames) {
+        List<VersionTO> versionHistory = new ArrayList<VersionTO>();
+        String nextCursor = null;
+
+        // Reading the history doesn't need the repository monitor, so saves are not blocked meanwhile.
+        // Cursors are index entry ids, or commit ids when the page was read from git
+        Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
+        boolean gitCursor = isGitHistoryCursor(cursor);
+        try (RevWalk revWalk = new RevWalk(repo)) {
+            String indexedCommitId = gitCursor ? null : itemHistoryIndex.getIndexedCommitId(site, repo);
+            if (indexedCommitId == null && (StringUtils.isEmpty(cursor) || gitCursor)) {
+                return getGitContentVersionHistory(repo, helper.getGitPath(path), cursor, limit, followRenames);
+            }
+            if (indexedCommitId != null) {
+                String indexPath = path;
+                Set<String> gitCommitIds = new HashSet<String>();
                 ObjectId head = repo.resolve(HEAD);
-                String gitPath = helper.getGitPath(path);
-                try (Git git = new Git(repo)) {
-                    Iterable<RevCommit> commits = git.log().add(head).addPath(gitPath).call();
-                    Iterator<RevCommit> iterator = commits.iterator();
-                    while (iterator.hasNext()) {
-                        RevCommit revCommit = iterator.next();
-                        VersionTO versionTO = new VersionTO();
-                        versionTO.setVersionNumber(revCommit.getName());
-                        versionTO.setLastModifier(revCommit.getAuthorIdent().getName());
-                        versionTO.setLastModifiedDate(
-                                Instant.ofEpochSecond(revCommit.getCommitTime()).atZone(UTC));
-                        versionTO.setComment(revCommit.getFullMessage());
-                        versionHistory.add(versionTO);
+                if (StringUtils.isEmpty(cursor) && head != null && !head.getName().equals(indexedCommitId)) {
+                    // The commits added since the last update of the index are read from git while it catches up
+                    revWalk.markStart(revWalk.parseCommit(head));
+                    revWalk.markUninteresting(revWalk.parseCommit(ObjectId.fromString(indexedCommitId)));
+                    setHistoryFilter(revWalk, repo, helper.getGitPath(path), followRenames);
+                    addVersions(revWalk, limit, versionHistory);
+                    String gitPath = getFollowedPath(revWalk, helper.getGitPath(path));
+                    indexPath = FILE_SEPARATOR + gitPath;
+                    for (VersionTO version : versionHistory) {
+                        gitCommitIds.add(version.getVersionNumber());
+                    }
+                    if (versionHistory.size() == limit) {
+                        if (revWalk.next() != null ||
+                                !itemHistoryIndex.getHistory(site, indexPath, null, 0, followRenames).isEmpty()) {
+                            nextCursor = createGitHistoryCursor(versionHistory.get(limit - 1), head);
+                        }
+                        indexPath = null;
+                    }
+                }
+                if (indexPath != null) {
+                    int remaining = limit - versionHistory.size();
+                    List<ItemHistoryEntry> entries = itemHistoryIndex.getHistory(site, indexPath, cursor,
+                            remaining + gitCommitIds.size(), followRenames);
+                    ItemHistoryEntry lastEntry = null;
+                    for (ItemHistoryEntry entry : entries) {
+                        if (gitCommitIds.contains(entry.getCommitId())) {
+                            // Indexed by the background update since the page started
+                            continue;
+                        }
+                        if (versionHistory.size() == limit) {
+                            nextCursor = String.valueOf(lastEntry.getId());
+                            break;
+                        }
+                        RevCommit revCommit = revWalk.parseCommit(ObjectId.fromString(entry.getCommitId()));
+                        versionHistory.add(createVersionTO(revCommit));
+                        lastEntry = entry;
                     }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to get history for site: " + site + " path: " + path, e);
+        }
 
-                    git.close();
-                } catch (IOException e) {
-                    logger.error("error while getting history for content item " + path);
+        VersionTO[] toRet = new VersionTO[versionHistory.size()];
+        return new VersionHistoryTO(versionHistory.toArray(toRet), nextCursor);
+    }
+
+    /**
+     * Reads a page of the history of the path straight from git.
+     *
+     * The cursor of a page has the id of its last commit and of the commit the walk started from. Every page walks
+     * again from the same start and skips up to the cursor, so commits from the other side of a merge that were
+     * still pending in the walk are not lost, and the renames followed are the same.
+     */
+    protected VersionHistoryTO getGitContentVersionHistory(Repository repo, String gitPath, String cursor, int limit,
+                                                           boolean followRenames) {
+        List<VersionTO> versionHistory = new ArrayList<VersionTO>();
+        String nextCursor = null;
+        try (RevWalk revWalk = new RevWalk(repo)) {
+            ObjectId start;
+            String lastCommitId = null;
+            if (isGitHistoryCursor(cursor)) {
+                lastCommitId = cursor.substring(0, OBJECT_ID_STRING_LENGTH);
+                start = ObjectId.fromString(cursor.substring(OBJECT_ID_STRING_LENGTH + 1));
+            } else {
+                start = repo.resolve(HEAD);
+            }
+            if (start != null) {
+                revWalk.markStart(revWalk.parseCommit(start));
+                setHistoryFilter(revWalk, repo, gitPath, followRenames);
+                if (lastCommitId != null) {
+                    RevCommit revCommit;
+                    while ((revCommit = revWalk.next()) != null && !revCommit.getName().equals(lastCommitId)) {
+                        // skip the pages already read
+                    }
+                }
+                addVersions(revWalk, limit, versionHistory);
+                if (versionHistory.size() == limit && revWalk.next() != null) {
+                    nextCursor = createGitHistoryCursor(versionHistory.get(limit - 1), start);
                 }
-            } catch (IOException | GitAPIException e) {
-                logger.error("Failed to create Git repo for site: " + site + " path: " + path, e);
             }
+        } catch (IOException e) {
+            logger.error("Failed to get history from git for path: " + gitPath, e);
         }
 
         VersionTO[] toRet = new VersionTO[versionHistory.size()];
-        return versionHistory.toArray(toRet);
+        return new VersionHistoryTO(versionHistory.toArray(toRet), nextCursor);
+    }
+
+    private void setHistoryFilter(RevWalk revWalk, Repository repo, String gitPath, boolean followRenames) {
+        if (followRenames) {
+            revWalk.setTreeFilter(FollowFilter.create(gitPath, repo.getConfig().get(DiffConfig.KEY)));
+        } else {
+            revWalk.setTreeFilter(AndTreeFilter.create(PathFilterGroup.createFromStrings(gitPath),
+                    TreeFilter.ANY_DIFF));
+        }
+    }
+
+    /**
+     * Adds the versions of the path found by the walk, up to the limit.
+     */
+    private void addVersions(RevWalk revWalk, int limit, List<VersionTO> versionHistory) throws IOException {
+        RevCommit revCommit;
+        while (versionHistory.size() < limit && (revCommit = revWalk.next()) != null) {
+            versionHistory.add(createVersionTO(revCommit));
+        }
+    }
+
+    /**
+     * @return the path the walk is at, the path it had before being renamed if a rename was followed
+     */
+    private String getFollowedPath(RevWalk revWalk, String gitPath) {
+        if (revWalk.getTreeFilter() instanceof FollowFilter) {
+            return ((FollowFilter) revWalk.getTreeFilter()).getPath();
+        }
+        return gitPath;
+    }
+
+    private boolean isGitHistoryCursor(String cursor) {
+        return StringUtils.length(cursor) == OBJECT_ID_STRING_LENGTH * 2 + 1 &&
+                ObjectId.isId(cursor.substring(0, OBJECT_ID_STRING_LENGTH)) &&
+                ObjectId.isId(cursor.substring(OBJECT_ID_STRING_LENGTH + 1));
+    }
+
+    private String createGitHistoryCursor(VersionTO version, ObjectId start) {
+        return version.getVersionNumber() + ":" + start.getName();
+    }
+
+    private VersionTO createVersionTO(RevCommit revCommit) {
+        VersionTO versionTO = new VersionTO();
+        versionTO.setVersionNumber(revCommit.getName());
+        versionTO.setLastModifier(revCommit.getAuthorIdent().getName());
+        versionTO.setLastModifiedDate(Instant.ofEpochSecond(revCommit.getCommitTime()).atZone(UTC));
+        versionTO.setComment(revCommit.getFullMessage());
+        return versionTO;
     }
 
     @Override
@@ -1330,144 +1509,149 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
     @Override
     public List<RepoOperationTO> getOperations(String site, String commitIdFrom, String commitIdTo) {
         List<RepoOperationTO> operations = new ArrayList<>();
-        Repository repository =
-                helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
-        if (repository != null) {
-            synchronized (repository) {
-                try {
-                    // Get the sandbox repo, and then get a reference to the commitId we received and another for head
-                    boolean fromEmptyRepo = StringUtils.isEmpty(commitIdFrom);
-                    String firstCommitId = getRepoFirstCommitId(site);
-                    if (fromEmptyRepo) {
-                        commitIdFrom = firstCommitId;
-                    }
-                    Repository repo = helper.getRepository(site, SANDBOX);
-                    ObjectId objCommitIdFrom = repo.resolve(commitIdFrom);
-                    ObjectId objCommitIdTo = repo.resolve(commitIdTo);
+        try (RepoOperationIterator iterator = iterateOperations(site, commitIdFrom, commitIdTo)) {
+            iterator.forEachRemaining(operations::add);
+        }
 
-                    ObjectId objFirstCommitId = repo.resolve(firstCommitId);
-                    boolean initialEqToCommit = StringUtils.equals(firstCommitId, commitIdTo);
-                    boolean initialEqFromCommit = StringUtils.equals(firstCommitId, commitIdFrom);
+        return operations;
+    }
 
-                    try (Git git = new Git(repo)) {
+    @Override
+    public RepoOperationIterator iterateOperations(String site, String commitIdFrom, String commitIdTo) {
+        Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
+        if (repo != null) {
+            try {
+                // Starting from an empty repo means diffing the first commit against the empty tree
+                ObjectId objCommitIdFrom = null;
+                if (StringUtils.isNotEmpty(commitIdFrom)) {
+                    objCommitIdFrom = repo.resolve(commitIdFrom);
+                }
+                ObjectId objCommitIdTo = repo.resolve(commitIdTo);
+                if (objCommitIdTo != null) {
+                    return new GitRepoOperationIterator(repo, objCommitIdFrom, objCommitIdTo,
+                            studioConfiguration.getProperty(REPO_SYNC_DB_COMMIT_MESSAGE_NO_PROCESSING),
+                            commitId -> markCommitNotProcessed(site, commitId));
+                }
+            } catch (IOException e) {
+                logger.error("Error getting operations for site " + site + " from commit ID: " + commitIdFrom +
+                        " to commit ID: " + commitIdTo, e);
+            }
+        }
 
-                        if (fromEmptyRepo) {
-                            try (RevWalk walk = new RevWalk(repo)) {
-                                RevCommit firstCommit = walk.parseCommit(objFirstCommitId);
-                                try (ObjectReader reader = repo.newObjectReader()) {
-                                    CanonicalTreeParser firstCommitTreeParser = new CanonicalTreeParser();
-                                    firstCommitTreeParser.reset();//reset(reader, firstCommitTree.getId());
-                                    // Diff the two commit Ids
-                                    List<DiffEntry> diffEntries = git.diff()
-                                            .setOldTree(firstCommitTreeParser)
-                                            .setNewTree(null)
-                                            .call();
-
-
-                                    // Now that we have a diff, let's itemize the file changes, pack them into a TO
-                                    // and add them to the list of RepoOperations to return to the caller
-                                    // also include date/time of commit by taking number of seconds and multiply by 1000 and
-                                    // convert to java date before sending over
-                                    operations.addAll(processDiffEntry(diffEntries, firstCommit.getId(),
-                                            firstCommit.getCommitterIdent().getName(),
-                                            Instant.ofEpochSecond(firstCommit.getCommitTime()).atZone(UTC)));
-                                }
-                            }
-                        }
+        return RepoOperationIterator.empty();
+    }
 
-                        // If the commitIdFrom is the same as commitIdTo, there is nothing to calculate, otherwise,
-                        // let's do it
-                        if (!objCommitIdFrom.equals(objCommitIdTo)) {
-                            // Compare HEAD with commitId we're given
-                            // Get list of commits between commitId and HEAD in chronological order
+    @Override
+    public List<String> getChangedPaths(String site, String commitIdFrom, String commitIdTo) {
+        Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
+        if (repo != null) {
+            try (DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+                RevTree treeFrom = helper.getTreeForCommit(repo, commitIdFrom);
+                RevTree treeTo = helper.getTreeForCommit(repo, commitIdTo);
+                if (treeFrom != null && treeTo != null) {
+                    diffFormatter.setRepository(repo);
+                    Set<String> paths = new LinkedHashSet<>();
+                    for (DiffEntry diffEntry : diffFormatter.scan(treeFrom, treeTo)) {
+                        if (!DiffEntry.DEV_NULL.equals(diffEntry.getOldPath())) {
+                            paths.add(FILE_SEPARATOR + diffEntry.getOldPath());
+                        }
+                        if (!DiffEntry.DEV_NULL.equals(diffEntry.getNewPath())) {
+                            paths.add(FILE_SEPARATOR + diffEntry.getNewPath());
+                        }
+                    }
+                    return new ArrayList<>(paths);
+                }
+            } catch (IOException e) {
+                logger.error("Error getting changed paths for site " + site + " from commit ID: " + commitIdFrom +
+                        " to commit ID: " + commitIdTo, e);
+            }
+        }
 
-                            // Get the log of all the commits between commitId and head
-                            Iterable<RevCommit> commits = git.log().addRange(objCommitIdFrom, objCommitIdTo).call();
+        return null;
+    }
 
-                            // Loop through through the commits and diff one from the next util head
-                            ObjectId prevCommitId = objCommitIdFrom;
-                            ObjectId nextCommitId = objCommitIdFrom;
-                            String author = EMPTY;
+    @Override
+    public List<RepoOperationTO> getSnapshotOperations(String site, String commitId) {
+        List<RepoOperationTO> operations = new ArrayList<>();
+        Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
+        if (repo != null) {
+            try (RevWalk walk = new RevWalk(repo);
+                 TreeWalk treeWalk = new TreeWalk(repo, walk.getObjectReader())) {
+                walk.setRetainBody(false);
+                ObjectId snapshotId = repo.resolve(commitId);
+                if (snapshotId == null) {
+                    logger.error("Commit {0} not found in site {1}", commitId, site);
+                    return operations;
+                }
+                RevCommit snapshot = walk.parseCommit(snapshotId);
+
+                // List every file in the snapshot
+                Set<String> pending = new HashSet<>();
+                treeWalk.setRecursive(true);
+                treeWalk.addTree(snapshot.getTree());
+                while (treeWalk.next()) {
+                    pending.add(treeWalk.getPathString());
+                }
 
-                            // Reverse orders of commits
-                            // TODO: DB: try to find better algorithm
-                            Iterator<RevCommit> iterator = commits.iterator();
-                            List<RevCommit> revCommits = new ArrayList<RevCommit>();
-                            while (iterator.hasNext()) {
+                // Walk back until the last commit that changed each file has been found
+                treeWalk.setFilter(TreeFilter.ANY_DIFF);
+                walk.markStart(snapshot);
+                RevCommit commit;
+                while (!pending.isEmpty() && (commit = walk.next()) != null) {
+                    treeWalk.reset();
+                    treeWalk.addTree(commit.getTree());
+                    if (commit.getParentCount() == 0) {
+                        treeWalk.addTree(new EmptyTreeIterator());
+                    } else {
+                        for (RevCommit parent : commit.getParents()) {
+                            treeWalk.addTree(walk.parseCommit(parent).getTree());
+                        }
+                    }
 
-                                RevCommit commit = iterator.next();
-                                revCommits.add(commit);
+                    while (treeWalk.next()) {
+                        // Merges only changed the files that are different from every parent
+                        boolean changed = treeWalk.getRawMode(0) != 0;
+                        for (int i = 1; changed && i < treeWalk.getTreeCount(); i++) {
+                            changed = !treeWalk.idEqual(0, i);
+                        }
+                        String path = treeWalk.getPathString();
+                        if (changed && pending.remove(path) && !path.endsWith(".keep")) {
+                            walk.parseBody(commit);
+                            String author = null;
+                            if (commit.getAuthorIdent() != null) {
+                                author = commit.getAuthorIdent().getName();
                             }
-
-                            ReverseListIterator<RevCommit> reverseIterator = new ReverseListIterator<RevCommit>(revCommits);
-                            while (reverseIterator.hasNext()) {
-
-                                RevCommit commit = reverseIterator.next();
-
-                                if (StringUtils.contains(commit.getFullMessage(),
-                                        studioConfiguration.getProperty(REPO_SYNC_DB_COMMIT_MESSAGE_NO_PROCESSING))) {
-                                    prevCommitId = commit.getId();
-                                    logger.debug("Skipping commitId: " + prevCommitId.getName() + " for site "
-                                            + site + " because it is marked not to be processed.");
-                                    GitLog gitLog = getGitLog(site, prevCommitId.getName());
-                                    if (gitLog != null) {
-                                        markGitLogVerifiedProcessed(site, prevCommitId.getName());
-                                    } else {
-                                        insertGitLog(site, prevCommitId.getName(), 1);
-                                    }
-                                    updateLastVerifiedGitlogCommitId(site, prevCommitId.getName());
-                                } else {
-                                    nextCommitId = commit.getId();
-                                    if (commit.getAuthorIdent() != null) {
-                                        author = commit.getAuthorIdent().getName();
-                                    }
-                                    if (StringUtils.isEmpty(author)) {
-                                        author = commit.getCommitterIdent().getName();
-                                    }
-
-                                    RevTree prevTree = helper.getTreeForCommit(repo, prevCommitId.getName());
-                                    RevTree nextTree = helper.getTreeForCommit(repo, nextCommitId.getName());
-                                    if (prevTree != null && nextTree != null) {
-                                        try (ObjectReader reader = repo.newObjectReader()) {
-                                            CanonicalTreeParser prevCommitTreeParser = new CanonicalTreeParser();
-                                            CanonicalTreeParser nextCommitTreeParser = new CanonicalTreeParser();
-                                            prevCommitTreeParser.reset(reader, prevTree.getId());
-                                            nextCommitTreeParser.reset(reader, nextTree.getId());
-
-                                            // Diff the two commit Ids
-                                            List<DiffEntry> diffEntries = git.diff()
-                                                    .setOldTree(prevCommitTreeParser)
-                                                    .setNewTree(nextCommitTreeParser)
-                                                    .call();
-
-
-                                            // Now that we have a diff, let's itemize the file changes, pack them into a TO
-                                            // and add them to the list of RepoOperations to return to the caller
-                                            // also include date/time of commit by taking number of seconds and multiply by 1000 and
-                                            // convert to java date before sending over
-                                            operations.addAll(processDiffEntry(diffEntries, nextCommitId, author,
-                                                    Instant.ofEpochSecond(commit.getCommitTime()).atZone(UTC)));
-                                            prevCommitId = nextCommitId;
-                                        }
-                                    }
-                                }
+                            if (StringUtils.isEmpty(author)) {
+                                author = commit.getCommitterIdent().getName();
                             }
-
+                            RepoOperationTO operation = new RepoOperationTO(RepoOperation.CREATE,
+                                    FILE_SEPARATOR + path, Instant.ofEpochSecond(commit.getCommitTime()).atZone(UTC),
+                                    null, commit.getName());
+                            operation.setAuthor(StringUtils.isEmpty(author) ? "N/A" : author);
+                            operations.add(operation);
                         }
-                    } catch (GitAPIException e) {
-                        logger.error("Error getting operations for site " + site + " from commit ID: " + commitIdFrom
-                                + " to commit ID: " + commitIdTo, e);
                     }
-                } catch (IOException e) {
-                    logger.error("Error getting operations for site " + site + " from commit ID: " + commitIdFrom +
-                            " to commit ID: " + commitIdTo, e);
+                    commit.disposeBody();
                 }
+            } catch (IOException e) {
+                logger.error("Error getting snapshot operations for site " + site + " at commit ID: " + commitId, e);
             }
         }
 
+        operations.sort(Comparator.comparing(RepoOperationTO::getPath));
         return operations;
     }
 
+    private void markCommitNotProcessed(String site, String commitId) {
+        GitLog gitLog = getGitLog(site, commitId);
+        if (gitLog != null) {
+            markGitLogVerifiedProcessed(site, commitId);
+        } else {
+            insertGitLog(site, commitId, 1);
+        }
+        updateLastVerifiedGitlogCommitId(site, commitId);
+    }
+
     private void updateLastVerifiedGitlogCommitId(String site, String commitId) {
         Map<String, Object> params = new HashMap<String, Object>();
         params.put("siteId", site);
@@ -1524,45 +1708,6 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         return toReturn;
     }
 
-    private List<RepoOperationTO> processDiffEntry(List<DiffEntry> diffEntries, ObjectId commitId, String author,
-                                                   ZonedDateTime commitTime) {
-        List<RepoOperationTO> toReturn = new ArrayList<RepoOperationTO>();
-
-        for (DiffEntry diffEntry : diffEntries) {
-
-            // Update the paths to have a preceding separator
-            String pathNew = FILE_SEPARATOR + diffEntry.getNewPath();
-            String pathOld = FILE_SEPARATOR + diffEntry.getOldPath();
-
-            RepoOperationTO repoOperation = null;
-            switch (diffEntry.getChangeType()) {
-                case ADD:
-                    repoOperation = new RepoOperationTO(CREATE, pathNew, commitTime, null, commitId.getName());
-                    break;
-                case MODIFY:
-                    repoOperation = new RepoOperationTO(UPDATE, pathNew, commitTime, null, commitId.getName());
-                    break;
-                case DELETE:
-                    repoOperation = new RepoOperationTO(DELETE, pathOld, commitTime, null, commitId.getName());
-                    break;
-                case RENAME:
-                    repoOperation = new RepoOperationTO(MOVE, pathOld, commitTime, pathNew, commitId.getName());
-                    break;
-                case COPY:
-                    repoOperation = new RepoOperationTO(COPY, pathNew, commitTime, null, commitId.getName());
-                    break;
-                default:
-                    logger.error("Error: Unknown git operation " + diffEntry.getChangeType());
-                    break;
-            }
-            if ((repoOperation != null) && (!repoOperation.getPath().endsWith(".keep"))) {
-                repoOperation.setAuthor(StringUtils.isEmpty(author) ? "N/A" : author);
-                toReturn.add(repoOperation);
-            }
-        }
-        return toReturn;
-    }
-
     @Override
     public List<DeploymentSyncHistory> getDeploymentHistory(String site, List<String> environmentNames,
                                                             ZonedDateTime fromDate, ZonedDateTime toDate,
@@ -1784,6 +1929,9 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         Map<String, Object> params = new HashMap<String, Object>();
         params.put("siteId", siteId);
         gitLogMapper.deleteGitLogForSite(params);
+
+        // The history index is derived from the git log as well, it will be rebuilt when needed
+        itemHistoryIndex.delete(siteId);
     }
 
     @Override
@@ -2443,27 +2591,34 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         helper.getRepository(siteId, SANDBOX);
     }
 
-    protected void cleanup(String siteId, GitRepositories repository) {
-        Repository sandbox = helper.getRepository(siteId, repository);
-        try (Git git = new Git(sandbox)) {
-            git.gc().call();
-        } catch (Exception e) {
-            logger.warn("Error cleaning up repository for site " + siteId, e);
-        }
-    }
-
     /**
      * {@inheritDoc}
      */
     @Override
-    public void cleanupRepositories(final String siteId) {
-        if(StringUtils.isEmpty(siteId)) {
-            logger.info("Cleaning up global repository");
-            cleanup(siteId, GLOBAL);
-        } else {
-            logger.info("Cleaning up repositories for site {0}", siteId);
-            cleanup(siteId, SANDBOX);
-            cleanup(siteId, PUBLISHED);
+    public void maintainRepository(String siteId, GitRepositories repository) {
+        Repository repo = helper.getRepository(siteId, repository);
+        if (!(repo instanceof FileRepository)) {
+            return;
+        }
+
+        GitRepositoryMaintenance maintenance = new GitRepositoryMaintenance(
+                studioConfiguration.getProperty(REPO_MAINTENANCE_LOOSE_OBJECTS_THRESHOLD, Integer.class, 1000),
+                studioConfiguration.getProperty(REPO_MAINTENANCE_PACK_FILES_THRESHOLD, Integer.class, 20),
+                studioConfiguration.getProperty(REPO_MAINTENANCE_LOOSE_REFS_THRESHOLD, Integer.class, 100),
+                TimeUnit.DAYS.toMillis(studioConfiguration.getProperty(REPO_MAINTENANCE_BITMAP_MAX_AGE,
+                                                                       Long.class, 7L)));
+        try {
+            GitRepositoryMaintenance.Action action = maintenance.getAction((FileRepository) repo);
+            if (action != GitRepositoryMaintenance.Action.NONE) {
+                long start = System.currentTimeMillis();
+                maintenance.execute((FileRepository) repo, action);
+                logger.info("Maintenance {0} of repository {1} for site {2} took {3}ms", action, repository, siteId,
+                            System.currentTimeMillis() - start);
+            } else {
+                logger.debug("Repository {0} for site {1} doesn't need maintenance", repository, siteId);
+            }
+        } catch (Exception e) {
+            logger.warn("Error running maintenance of repository " + repository + " for site " + siteId, e);
         }
     }
 
@@ -2528,4 +2683,12 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         this.siteFeedMapper = siteFeedMapper;
     }
 
+    public GitItemHistoryIndex getItemHistoryIndex() {
+        return itemHistoryIndex;
+    }
+
+    public void setItemHistoryIndex(GitItemHistoryIndex itemHistoryIndex) {
+        this.itemHistoryIndex = itemHistoryIndex;
+    }
+
 }
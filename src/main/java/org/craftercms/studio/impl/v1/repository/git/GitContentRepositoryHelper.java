@@ -53,11 +53,19 @@ import org.eclipse.jgit.api.errors.InvalidRemoteException;
 import org.eclipse.jgit.api.errors.TransportException;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEditor.PathEdit;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryCache;
 import org.eclipse.jgit.lib.StoredConfig;
@@ -72,6 +80,7 @@ import org.eclipse.jgit.transport.SshTransport;
 import org.eclipse.jgit.transport.Transport;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.util.FS;
 import org.springframework.core.io.ClassPathResource;
 
@@ -89,8 +98,10 @@ import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
@@ -831,6 +842,166 @@ public class GitContentRepositoryHelper {
         return commitId;
     }
 
+    /**
+     * Writes a file and commits it as the only change on top of HEAD. The content is streamed once into the working
+     * tree and the blob is inserted straight into the object database from that file, the commit tree is built from
+     * HEAD in memory and the index entry is updated with the new blob and the file stats, so the file is never
+     * re-hashed by {@code git add} or {@code git commit --only}.
+     *
+     * @param repo repository to write to
+     * @param site site id
+     * @param path path of the file
+     * @param content content to write
+     * @param comment commit message
+     * @param user author and committer of the commit
+     * @return the id of the new commit, or {@code null} if the content didn't change or there was an error
+     */
+    public String writeAndCommitFile(Repository repo, String site, String path, InputStream content, String comment,
+                                     PersonIdent user) {
+        return writeAndCommitFiles(repo, site, Collections.singletonMap(path, content), comment, user);
+    }
+
+    /**
+     * Writes several files and commits all of them in a single commit on top of HEAD, following the same streaming
+     * approach of {@link #writeAndCommitFile(Repository, String, String, InputStream, String, PersonIdent)}.
+     *
+     * @param repo repository to write to
+     * @param site site id
+     * @param contents content to write, by path
+     * @param comment commit message
+     * @param user author and committer of the commit
+     * @return the id of the new commit, or {@code null} if none of the files changed or there was an error
+     */
+    public String writeAndCommitFiles(Repository repo, String site, Map<String, InputStream> contents, String comment,
+                                      PersonIdent user) {
+        String commitId = null;
+        List<BlobPathEdit> edits = new ArrayList<>(contents.size());
+
+        try (ObjectInserter inserter = repo.newObjectInserter();
+             ObjectReader reader = repo.newObjectReader();
+             RevWalk revWalk = new RevWalk(reader)) {
+            ObjectId headId = repo.resolve(Constants.HEAD);
+            RevCommit headCommit = headId != null ? revWalk.parseCommit(headId) : null;
+            boolean changed = false;
+
+            for (Map.Entry<String, InputStream> entry : contents.entrySet()) {
+                String path = entry.getKey();
+                String gitPath = getGitPath(path);
+                File file = new File(repo.getDirectory().getParent(), path);
+
+                // Create parent folders
+                File folder = file.getParentFile();
+                if (folder != null && !folder.exists()) {
+                    folder.mkdirs();
+                }
+
+                // Single pass over the incoming stream, the object length must be known before inserting the blob
+                Files.copy(entry.getValue(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                long length = file.length();
+
+                ObjectId blobId;
+                try (InputStream in = Files.newInputStream(file.toPath())) {
+                    blobId = inserter.insert(Constants.OBJ_BLOB, length, in);
+                }
+                edits.add(new BlobPathEdit(gitPath, blobId, length, file.lastModified()));
+
+                ObjectId currentBlobId = null;
+                if (headCommit != null) {
+                    try (TreeWalk treeWalk = TreeWalk.forPath(reader, gitPath, headCommit.getTree())) {
+                        if (treeWalk != null) {
+                            currentBlobId = treeWalk.getObjectId(0);
+                        }
+                    }
+                }
+                changed |= !blobId.equals(currentBlobId);
+            }
+
+            if (changed) {
+                DirCache inCoreIndex = DirCache.newInCore();
+                DirCacheBuilder builder = inCoreIndex.builder();
+                if (headCommit != null) {
+                    builder.addTree(new byte[0], DirCacheEntry.STAGE_0, reader, headCommit.getTree());
+                }
+                builder.finish();
+
+                DirCacheEditor editor = inCoreIndex.editor();
+                edits.forEach(editor::add);
+                editor.finish();
+
+                CommitBuilder commitBuilder = new CommitBuilder();
+                commitBuilder.setTreeId(inCoreIndex.writeTree(inserter));
+                if (headId != null) {
+                    commitBuilder.setParentId(headId);
+                }
+                commitBuilder.setAuthor(user);
+                commitBuilder.setCommitter(user);
+                commitBuilder.setMessage(comment);
+                ObjectId newCommitId = inserter.insert(commitBuilder);
+                inserter.flush();
+
+                RefUpdate refUpdate = repo.updateRef(Constants.HEAD);
+                refUpdate.setNewObjectId(newCommitId);
+                refUpdate.setExpectedOldObjectId(headId != null ? headId : ObjectId.zeroId());
+                refUpdate.setRefLogIdent(user);
+                refUpdate.setRefLogMessage("commit: " + StringUtils.substringBefore(comment, "\n"), false);
+                RefUpdate.Result result = refUpdate.update(revWalk);
+                switch (result) {
+                    case NEW:
+                    case FAST_FORWARD:
+                        commitId = newCommitId.getName();
+                        break;
+                    default:
+                        logger.error("error updating HEAD after writing files: site: " + site + " paths: " +
+                                     contents.keySet() + " result: " + result);
+                        return null;
+                }
+            } else {
+                inserter.flush();
+            }
+
+            // Keep the on-disk index in sync so the working tree files are seen as clean without re-hashing them
+            DirCache index = repo.lockDirCache();
+            try {
+                DirCacheEditor indexEditor = index.editor();
+                edits.forEach(indexEditor::add);
+                indexEditor.commit();
+            } finally {
+                index.unlock();
+            }
+        } catch (IOException e) {
+            logger.error("error writing and committing files: site: " + site + " paths: " + contents.keySet(), e);
+            commitId = null;
+        }
+
+        return commitId;
+    }
+
+    /**
+     * {@link PathEdit} that points an index entry to an already inserted blob.
+     */
+    private static class BlobPathEdit extends PathEdit {
+
+        private final ObjectId blobId;
+        private final long length;
+        private final long lastModified;
+
+        BlobPathEdit(String path, ObjectId blobId, long length, long lastModified) {
+            super(path);
+            this.blobId = blobId;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public void apply(DirCacheEntry entry) {
+            entry.setFileMode(FileMode.REGULAR_FILE);
+            entry.setObjectId(blobId);
+            entry.setLength(length);
+            entry.setLastModified(lastModified);
+        }
+
+    }
+
     public String getCommitMessage(String commitMessageKey) {
         String prologue = studioConfiguration.getProperty(REPO_COMMIT_MESSAGE_PROLOGUE);
         String postscript = studioConfiguration.getProperty(REPO_COMMIT_MESSAGE_POSTSCRIPT);
@@ -0,0 +1,340 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.repository.git;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v2.dal.ItemHistoryDAO;
+import org.craftercms.studio.api.v2.dal.ItemHistoryEntry;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.core.task.TaskExecutor;
+
+import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_HISTORY_INDEX_BATCH_SIZE;
+import static org.eclipse.jgit.lib.Constants.HEAD;
+
+/**
+ * Index of the commits that changed each path of a repository, stored in the database so the version history of an
+ * item can be paged without walking the whole git log. The index of a site is built in the background the first time
+ * it's needed and is brought up to date in the background with the commits added since the last update every time
+ * it's used, so it includes commits from any source (Studio, pulls from remotes, cluster sync). Renames are recorded
+ * with the previous path so the history can follow them.
+ */
+public class GitItemHistoryIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitItemHistoryIndex.class);
+
+    private static final String KEEP_FILE = ".keep";
+
+    protected ItemHistoryDAO itemHistoryDAO;
+    protected StudioConfiguration studioConfiguration;
+    protected TaskExecutor taskExecutor;
+
+    protected final Set<String> sitesBeingUpdated = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Returns the last commit included in the index of the site, or null if the index can't be used yet because it's
+     * being built. If HEAD has commits that are not indexed the index is brought up to date in the background, the
+     * caller should read the history after the returned commit from git meanwhile.
+     */
+    public String getIndexedCommitId(String site, Repository repo) {
+        String lastCommitId = getLastIndexedCommitId(site);
+        try {
+            ObjectId head = repo.resolve(HEAD);
+            if (head == null || head.getName().equals(lastCommitId)) {
+                return lastCommitId;
+            }
+            scheduleUpdate(site, repo);
+            if (lastCommitId == null || !repo.hasObject(ObjectId.fromString(lastCommitId))) {
+                return null;
+            }
+            return lastCommitId;
+        } catch (IOException e) {
+            logger.error("Error checking the history index for site " + site, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the entries of the history of the given path, newest first.
+     *
+     * @param cursor the id of the last entry of the previous page, null for the first page
+     * @param limit the maximum number of entries
+     * @param followRenames if true, when the entries of the path run out the history continues with the path it had
+     *                      before being renamed
+     * @return the entries, one more than the limit if there are more entries after the page
+     */
+    public List<ItemHistoryEntry> getHistory(String site, String path, String cursor, int limit,
+                                             boolean followRenames) {
+        List<ItemHistoryEntry> entries = new ArrayList<>();
+        String currentPath = normalizePath(path);
+        ItemHistoryEntry last = null;
+        if (StringUtils.isNotEmpty(cursor)) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("siteId", site);
+            params.put("id", Long.parseLong(cursor));
+            last = itemHistoryDAO.getItemHistoryEntry(params);
+            if (last == null) {
+                // The index was rebuilt since the cursor was returned
+                return entries;
+            }
+            currentPath = last.getPath();
+        }
+
+        long followedEntryId = -1;
+        while (entries.size() <= limit) {
+            int pageSize = limit + 1 - entries.size();
+            Map<String, Object> params = new HashMap<>();
+            params.put("siteId", site);
+            params.put("path", currentPath);
+            params.put("limit", pageSize);
+            if (last != null) {
+                params.put("beforeTime", last.getCommitTime());
+                params.put("beforeId", last.getId());
+            }
+            List<ItemHistoryEntry> page = itemHistoryDAO.getItemHistory(params);
+            entries.addAll(page);
+            if (!page.isEmpty()) {
+                last = page.get(page.size() - 1);
+            }
+            if (page.size() == pageSize) {
+                continue;
+            }
+
+            // No more entries for this path, the oldest one tells if it was renamed from another path
+            if (followRenames && last != null && last.getPreviousPath() != null && last.getId() != followedEntryId) {
+                followedEntryId = last.getId();
+                currentPath = last.getPreviousPath();
+            } else {
+                break;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Deletes the index of a site, it will be built again the next time it's used.
+     */
+    public void delete(String site) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("siteId", site);
+        itemHistoryDAO.deleteLastIndexedCommitId(params);
+        itemHistoryDAO.deleteItemHistoryForSite(params);
+    }
+
+    protected void scheduleUpdate(String site, Repository repo) {
+        if (sitesBeingUpdated.add(site)) {
+            taskExecutor.execute(() -> {
+                try {
+                    update(site, repo);
+                } finally {
+                    sitesBeingUpdated.remove(site);
+                }
+            });
+        }
+    }
+
+    /**
+     * Brings the index of the site up to date with the HEAD of the repository. If the site has never been indexed,
+     * or the last indexed commit is gone because the history was rewritten, the index is built from scratch.
+     */
+    protected void update(String site, Repository repo) {
+        try {
+            ObjectId head = repo.resolve(HEAD);
+            String lastCommitId = getLastIndexedCommitId(site);
+            if (head == null || head.getName().equals(lastCommitId)) {
+                return;
+            }
+
+            if (lastCommitId != null) {
+                try {
+                    index(site, repo, head, ObjectId.fromString(lastCommitId));
+                    return;
+                } catch (MissingObjectException e) {
+                    logger.info("Last indexed commit {0} not found in site {1}, rebuilding the history index",
+                                lastCommitId, site);
+                    delete(site);
+                }
+            }
+
+            logger.info("Building the history index for site {0}", site);
+            long start = System.currentTimeMillis();
+            index(site, repo, head, null);
+            logger.info("History index for site {0} built in {1}ms", site, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Error updating the history index for site " + site, e);
+        }
+    }
+
+    /**
+     * Indexes all the commits reachable from {@code head} but not from {@code lastIndexed}. Commits are inserted
+     * oldest first, so the ids of the entries follow the order of the commits even for commits with the same time.
+     * Entries are inserted in batches and the new last indexed commit is only saved at the end, if the process is
+     * interrupted the next run starts again from the previous point and the duplicated entries are ignored.
+     */
+    protected void index(String site, Repository repo, ObjectId head, ObjectId lastIndexed) throws IOException {
+        int batchSize = studioConfiguration.getProperty(REPO_HISTORY_INDEX_BATCH_SIZE, Integer.class, 1000);
+        List<ItemHistoryEntry> batch = new ArrayList<>(batchSize);
+        int commits = 0;
+
+        try (RevWalk walk = new RevWalk(repo);
+             DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            diffFormatter.setRepository(repo);
+            diffFormatter.setDetectRenames(true);
+
+            walk.sort(RevSort.TOPO);
+            walk.sort(RevSort.REVERSE, true);
+            walk.markStart(walk.parseCommit(head));
+            if (lastIndexed != null) {
+                walk.markUninteresting(walk.parseCommit(lastIndexed));
+            }
+
+            for (RevCommit commit : walk) {
+                for (Map.Entry<String, String> change : getChanges(walk, diffFormatter, commit).entrySet()) {
+                    ItemHistoryEntry entry = new ItemHistoryEntry();
+                    entry.setSiteId(site);
+                    entry.setPath(change.getKey());
+                    entry.setPreviousPath(change.getValue());
+                    entry.setCommitId(commit.getName());
+                    entry.setCommitTime(commit.getCommitTime());
+                    batch.add(entry);
+
+                    if (batch.size() >= batchSize) {
+                        insertEntries(batch);
+                        batch.clear();
+                    }
+                }
+                commits++;
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            insertEntries(batch);
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("siteId", site);
+        params.put("commitId", head.getName());
+        itemHistoryDAO.setLastIndexedCommitId(params);
+
+        logger.debug("Indexed {0} commits of site {1}", commits, site);
+    }
+
+    /**
+     * Returns the paths changed by the commit, mapped to their previous path when renamed. Like {@code git log} does
+     * for a path, merge commits only include the paths that differ from every parent, otherwise every change merged
+     * from a remote would also be listed under the merge commit.
+     */
+    protected Map<String, String> getChanges(RevWalk walk, DiffFormatter diffFormatter, RevCommit commit)
+            throws IOException {
+        if (commit.getParentCount() == 0) {
+            return getChanges(diffFormatter.scan(null, commit.getTree()));
+        }
+
+        Map<String, String> changes = null;
+        for (RevCommit parent : commit.getParents()) {
+            walk.parseHeaders(parent);
+            Map<String, String> parentChanges = getChanges(diffFormatter.scan(parent.getTree(), commit.getTree()));
+            if (changes == null) {
+                changes = parentChanges;
+            } else {
+                changes.keySet().retainAll(parentChanges.keySet());
+            }
+            if (changes.isEmpty()) {
+                break;
+            }
+        }
+        return changes != null ? changes : Collections.emptyMap();
+    }
+
+    protected Map<String, String> getChanges(List<DiffEntry> diffEntries) {
+        Map<String, String> changes = new LinkedHashMap<>();
+        for (DiffEntry diffEntry : diffEntries) {
+            String path;
+            String previousPath = null;
+            switch (diffEntry.getChangeType()) {
+                case DELETE:
+                    path = FILE_SEPARATOR + diffEntry.getOldPath();
+                    break;
+                case RENAME:
+                    path = FILE_SEPARATOR + diffEntry.getNewPath();
+                    previousPath = FILE_SEPARATOR + diffEntry.getOldPath();
+                    break;
+                default:
+                    path = FILE_SEPARATOR + diffEntry.getNewPath();
+                    break;
+            }
+            if (!path.endsWith(KEEP_FILE)) {
+                changes.put(path, previousPath);
+            }
+        }
+        return changes;
+    }
+
+    protected void insertEntries(List<ItemHistoryEntry> entries) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("entries", entries);
+        itemHistoryDAO.insertItemHistory(params);
+    }
+
+    protected String getLastIndexedCommitId(String site) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("siteId", site);
+        return itemHistoryDAO.getLastIndexedCommitId(params);
+    }
+
+    protected String normalizePath(String path) {
+        return path.startsWith(FILE_SEPARATOR) ? path : FILE_SEPARATOR + path;
+    }
+
+    @Required
+    public void setItemHistoryDAO(ItemHistoryDAO itemHistoryDAO) {
+        this.itemHistoryDAO = itemHistoryDAO;
+    }
+
+    @Required
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+    @Required
+    public void setTaskExecutor(TaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.impl.v1.repository.git;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v1.repository.RepoOperationIterator;
+import org.craftercms.studio.api.v1.to.RepoOperationTO;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import static java.time.ZoneOffset.UTC;
+import static org.craftercms.studio.api.v1.constant.RepoOperation.COPY;
+import static org.craftercms.studio.api.v1.constant.RepoOperation.CREATE;
+import static org.craftercms.studio.api.v1.constant.RepoOperation.DELETE;
+import static org.craftercms.studio.api.v1.constant.RepoOperation.MOVE;
+import static org.craftercms.studio.api.v1.constant.RepoOperation.UPDATE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
+import static org.eclipse.jgit.revwalk.RevSort.REVERSE;
+import static org.eclipse.jgit.revwalk.RevSort.TOPO;
+
+/**
+ * Walks a commit range once, oldest commit first, and yields the operations of each commit as they are requested.
+ * Every commit is diffed against the previous processed commit using a single object reader, tree walk and rename
+ * detector, so only the operations of one commit are kept in memory at a time. Commits whose message contains the
+ * no processing marker are passed to the skipped commit handler and their changes are not reported.
+ */
+public class GitRepoOperationIterator implements RepoOperationIterator {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitRepoOperationIterator.class);
+
+    private final RevWalk revWalk;
+    private final TreeWalk treeWalk;
+    private final RenameDetector renameDetector;
+    private final String noProcessingMessage;
+    private final Consumer<String> skippedCommitHandler;
+    private final Deque<RepoOperationTO> pending = new ArrayDeque<>();
+
+    private ObjectId previousTreeId;
+    private boolean finished;
+
+    /**
+     * Creates the iterator for the given range.
+     *
+     * @param repo                  repository to walk
+     * @param commitIdFrom          commit to start after, or null to start from the empty tree
+     * @param commitIdTo            last commit to include
+     * @param noProcessingMessage   marker of the commits that should not be processed
+     * @param skippedCommitHandler  called with the id of every commit that is not processed
+     */
+    public GitRepoOperationIterator(Repository repo, ObjectId commitIdFrom, ObjectId commitIdTo,
+                                    String noProcessingMessage, Consumer<String> skippedCommitHandler)
+            throws IOException {
+        this.noProcessingMessage = noProcessingMessage;
+        this.skippedCommitHandler = skippedCommitHandler;
+
+        revWalk = new RevWalk(repo);
+        try {
+            // Bodies are parsed one commit at a time while iterating
+            revWalk.setRetainBody(false);
+            revWalk.sort(TOPO, true);
+            revWalk.sort(REVERSE, true);
+            revWalk.markStart(revWalk.parseCommit(commitIdTo));
+            if (commitIdFrom != null) {
+                RevCommit from = revWalk.parseCommit(commitIdFrom);
+                revWalk.markUninteresting(from);
+                previousTreeId = from.getTree().getId();
+            }
+
+            treeWalk = new TreeWalk(repo, revWalk.getObjectReader());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+
+            renameDetector = new RenameDetector(repo);
+        } catch (IOException | RuntimeException e) {
+            revWalk.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (pending.isEmpty() && !finished) {
+            try {
+                RevCommit commit = revWalk.next();
+                if (commit == null) {
+                    finished = true;
+                } else {
+                    processCommit(commit);
+                }
+            } catch (IOException e) {
+                logger.error("Error getting repository operations, no more operations will be returned", e);
+                finished = true;
+            }
+        }
+        return !pending.isEmpty();
+    }
+
+    @Override
+    public RepoOperationTO next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return pending.poll();
+    }
+
+    @Override
+    public void close() {
+        pending.clear();
+        finished = true;
+        treeWalk.close();
+        revWalk.close();
+    }
+
+    protected void processCommit(RevCommit commit) throws IOException {
+        revWalk.parseBody(commit);
+        try {
+            if (StringUtils.isNotEmpty(noProcessingMessage) &&
+                    StringUtils.contains(commit.getFullMessage(), noProcessingMessage)) {
+                logger.debug("Skipping commitId: " + commit.getName() + " because it is marked not to be processed.");
+                skippedCommitHandler.accept(commit.getName());
+            } else {
+                String author = null;
+                if (commit.getAuthorIdent() != null) {
+                    author = commit.getAuthorIdent().getName();
+                }
+                if (StringUtils.isEmpty(author)) {
+                    author = commit.getCommitterIdent().getName();
+                }
+
+                treeWalk.reset();
+                if (previousTreeId != null) {
+                    treeWalk.addTree(previousTreeId);
+                } else {
+                    treeWalk.addTree(new EmptyTreeIterator());
+                }
+                treeWalk.addTree(commit.getTree());
+
+                renameDetector.reset();
+                renameDetector.addAll(DiffEntry.scan(treeWalk));
+                List<DiffEntry> diffEntries =
+                        renameDetector.compute(revWalk.getObjectReader(), NullProgressMonitor.INSTANCE);
+
+                addOperations(diffEntries, commit.getName(), author,
+                        Instant.ofEpochSecond(commit.getCommitTime()).atZone(UTC));
+            }
+            previousTreeId = commit.getTree().getId();
+        } finally {
+            commit.disposeBody();
+        }
+    }
+
+    protected void addOperations(List<DiffEntry> diffEntries, String commitId, String author,
+                                 ZonedDateTime commitTime) {
+        for (DiffEntry diffEntry : diffEntries) {
+
+            // Update the paths to have a preceding separator
+            String pathNew = FILE_SEPARATOR + diffEntry.getNewPath();
+            String pathOld = FILE_SEPARATOR + diffEntry.getOldPath();
+
+            RepoOperationTO repoOperation = null;
+            switch (diffEntry.getChangeType()) {
+                case ADD:
+                    repoOperation = new RepoOperationTO(CREATE, pathNew, commitTime, null, commitId);
+                    break;
+                case MODIFY:
+                    repoOperation = new RepoOperationTO(UPDATE, pathNew, commitTime, null, commitId);
+                    break;
+                case DELETE:
+                    repoOperation = new RepoOperationTO(DELETE, pathOld, commitTime, null, commitId);
+                    break;
+                case RENAME:
+                    repoOperation = new RepoOperationTO(MOVE, pathOld, commitTime, pathNew, commitId);
+                    break;
+                case COPY:
+                    repoOperation = new RepoOperationTO(COPY, pathNew, commitTime, null, commitId);
+                    break;
+                default:
+                    logger.error("Error: Unknown git operation " + diffEntry.getChangeType());
+                    break;
+            }
+            if ((repoOperation != null) && (!repoOperation.getPath().endsWith(".keep"))) {
+                repoOperation.setAuthor(StringUtils.isEmpty(author) ? "N/A" : author);
+                pending.add(repoOperation);
+            }
+        }
+    }
+
+}
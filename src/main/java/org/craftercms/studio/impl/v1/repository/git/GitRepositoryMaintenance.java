@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.repository.git;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.internal.storage.pack.PackWriter;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Measures the state of a git repository and runs the cheapest maintenance action that keeps it healthy, instead of
+ * a full {@code git gc} every time:
+ * <ul>
+ *     <li>{@link Action#PACK_REFS} when only the number of loose refs is too high</li>
+ *     <li>{@link Action#INCREMENTAL_REPACK} when there are too many loose objects, they are written to a new pack
+ *     without touching the existing ones</li>
+ *     <li>{@link Action#FULL_GC} when there are too many packs or the bitmap index is missing or too old</li>
+ * </ul>
+ * Actions hold the repository monitor, the same lock commits and publishing take, so they never run at the same time
+ * as a write to the repository.
+ */
+public class GitRepositoryMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitRepositoryMaintenance.class);
+
+    private static final String PACK_DIR = "pack";
+    private static final String PACK_PREFIX = "pack-";
+    private static final String PACK_EXTENSION = ".pack";
+    private static final String INDEX_EXTENSION = ".idx";
+    private static final String BITMAP_EXTENSION = ".bitmap";
+
+    public enum Action {
+        NONE, PACK_REFS, INCREMENTAL_REPACK, FULL_GC
+    }
+
+    protected int looseObjectsThreshold;
+    protected int packFilesThreshold;
+    protected int looseRefsThreshold;
+    protected long bitmapMaxAge;
+
+    /**
+     * @param looseObjectsThreshold number of loose objects that triggers an incremental repack
+     * @param packFilesThreshold number of pack files that triggers a full gc
+     * @param looseRefsThreshold number of loose refs that triggers a pack-refs
+     * @param bitmapMaxAge age in milliseconds after which the bitmap index is rebuilt if there are new packs
+     */
+    public GitRepositoryMaintenance(int looseObjectsThreshold, int packFilesThreshold, int looseRefsThreshold,
+                                    long bitmapMaxAge) {
+        this.looseObjectsThreshold = looseObjectsThreshold;
+        this.packFilesThreshold = packFilesThreshold;
+        this.looseRefsThreshold = looseRefsThreshold;
+        this.bitmapMaxAge = bitmapMaxAge;
+    }
+
+    /**
+     * Decides which action, if any, the repository needs.
+     */
+    public Action getAction(FileRepository repository) throws IOException {
+        GC.RepoStatistics stats = new GC(repository).getStatistics();
+        long bitmapAge = System.currentTimeMillis() - getLastBitmapTime(repository);
+
+        logger.debug("Statistics for repository {0}: {1}, bitmap age {2}ms", repository.getDirectory(), stats,
+                     bitmapAge);
+
+        if (stats.numberOfPackFiles > packFilesThreshold || (stats.numberOfPackFiles > 1 && bitmapAge > bitmapMaxAge)) {
+            return Action.FULL_GC;
+        } else if (stats.numberOfLooseObjects > looseObjectsThreshold) {
+            return Action.INCREMENTAL_REPACK;
+        } else if (stats.numberOfLooseRefs > looseRefsThreshold) {
+            return Action.PACK_REFS;
+        } else {
+            return Action.NONE;
+        }
+    }
+
+    /**
+     * Runs the given action on the repository, waiting for any write in progress to finish first.
+     */
+    public void execute(FileRepository repository, Action action) throws IOException, GitAPIException {
+        synchronized (repository) {
+            switch (action) {
+                case PACK_REFS:
+                    packRefs(repository);
+                    break;
+                case INCREMENTAL_REPACK:
+                    repackLooseObjects(repository);
+                    if (new GC(repository).getStatistics().numberOfLooseRefs > looseRefsThreshold) {
+                        packRefs(repository);
+                    }
+                    break;
+                case FULL_GC:
+                    try (Git git = new Git(repository)) {
+                        git.gc().call();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    protected void packRefs(FileRepository repository) throws IOException {
+        new GC(repository).packRefs();
+    }
+
+    /**
+     * Writes all loose objects into a new pack and then deletes them, existing packs are left untouched.
+     */
+    protected void repackLooseObjects(FileRepository repository) throws IOException {
+        List<ObjectId> looseObjects = getLooseObjects(repository);
+        if (looseObjects.isEmpty()) {
+            return;
+        }
+
+        File packDir = new File(repository.getObjectsDirectory(), PACK_DIR);
+        File tmpPack = File.createTempFile("incremental_", PACK_EXTENSION + "_tmp", packDir);
+        File tmpIndex = File.createTempFile("incremental_", INDEX_EXTENSION + "_tmp", packDir);
+        try (ObjectReader reader = repository.newObjectReader();
+             RevWalk walk = new RevWalk(reader);
+             PackWriter writer = new PackWriter(repository, reader)) {
+
+            List<RevObject> objects = new ArrayList<>(looseObjects.size());
+            for (ObjectId id : looseObjects) {
+                objects.add(walk.parseAny(id));
+            }
+            writer.preparePack(objects.iterator());
+
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpPack))) {
+                writer.writePack(NullProgressMonitor.INSTANCE, NullProgressMonitor.INSTANCE, out);
+            }
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpIndex))) {
+                writer.writeIndex(out);
+            }
+
+            String name = PACK_PREFIX + writer.computeName().name();
+            File pack = new File(packDir, name + PACK_EXTENSION);
+            File index = new File(packDir, name + INDEX_EXTENSION);
+            if (!pack.exists()) {
+                // The pack must be in place before the index, that is what makes it visible to readers
+                Files.move(tmpPack.toPath(), pack.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                Files.move(tmpIndex.toPath(), index.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                pack.setReadOnly();
+                index.setReadOnly();
+            }
+
+            logger.debug("Packed {0} loose objects of repository {1} into {2}", objects.size(),
+                         repository.getDirectory(), pack.getName());
+        } finally {
+            Files.deleteIfExists(tmpPack.toPath());
+            Files.deleteIfExists(tmpIndex.toPath());
+        }
+
+        new GC(repository).prunePacked();
+    }
+
+    protected List<ObjectId> getLooseObjects(FileRepository repository) {
+        List<ObjectId> ids = new ArrayList<>();
+        File[] fanout = repository.getObjectsDirectory().listFiles();
+        if (fanout == null) {
+            return ids;
+        }
+        for (File dir : fanout) {
+            String prefix = dir.getName();
+            if (prefix.length() != 2 || !dir.isDirectory()) {
+                continue;
+            }
+            String[] entries = dir.list();
+            if (entries == null) {
+                continue;
+            }
+            for (String entry : entries) {
+                String id = prefix + entry;
+                if (ObjectId.isId(id)) {
+                    ids.add(ObjectId.fromString(id));
+                }
+            }
+        }
+        return ids;
+    }
+
+    protected long getLastBitmapTime(FileRepository repository) {
+        long lastBitmap = 0;
+        File[] bitmaps = new File(repository.getObjectsDirectory(), PACK_DIR)
+                .listFiles((dir, name) -> name.endsWith(BITMAP_EXTENSION));
+        if (bitmaps != null) {
+            for (File bitmap : bitmaps) {
+                lastBitmap = Math.max(lastBitmap, bitmap.lastModified());
+            }
+        }
+        return lastBitmap;
+    }
+
+}
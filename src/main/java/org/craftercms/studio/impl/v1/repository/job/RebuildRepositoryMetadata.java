@@ -17,25 +17,59 @@
 
 package org.craftercms.studio.impl.v1.repository.job;
 
+import org.apache.commons.collections4.ListUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v1.constant.DmConstants;
+import org.craftercms.studio.api.v1.dal.ItemMetadata;
+import org.craftercms.studio.api.v1.dal.ItemState;
 import org.craftercms.studio.api.v1.dal.PublishRequestMapper;
+import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v1.job.CronJobContext;
 import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.repository.ContentRepository;
+import org.craftercms.studio.api.v1.service.configuration.ServicesConfig;
 import org.craftercms.studio.api.v1.service.content.ContentService;
 import org.craftercms.studio.api.v1.service.content.ObjectMetadataManager;
 import org.craftercms.studio.api.v1.service.dependency.DependencyService;
+import org.craftercms.studio.api.v1.service.deployment.DeploymentService;
 import org.craftercms.studio.api.v1.service.objectstate.ObjectStateService;
+import org.craftercms.studio.api.v1.service.objectstate.State;
 import org.craftercms.studio.api.v1.service.security.SecurityService;
 import org.craftercms.studio.api.v1.service.site.SiteService;
+import org.craftercms.studio.api.v1.to.RepoOperationTO;
+import org.craftercms.studio.api.v2.dal.RebuildMetadataDAO;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.springframework.core.task.TaskExecutor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
-
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_REBUILD_METADATA_CHUNK_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_REBUILD_METADATA_MAX_CONCURRENCY;
+
+/**
+ * Rebuilds the item states, item metadata and dependencies of a site from the repository. The items of the last
+ * commit are split in chunks that are processed in parallel with bulk updates, and every completed chunk is
+ * checkpointed so an interrupted rebuild resumes where it stopped. Existing rows are updated in place and the ones for
+ * items that no longer exist are only removed at the end, so the site stays readable during the rebuild.
+ */
 public class RebuildRepositoryMetadata {
 
     private final static Logger logger = LoggerFactory.getLogger(RebuildRepositoryMetadata.class);
@@ -52,6 +86,11 @@ public class RebuildRepositoryMetadata {
     protected StudioConfiguration studioConfiguration;
     protected SiteService siteService;
     protected ContentRepository contentRepository;
+    protected RebuildMetadataDAO rebuildMetadataDAO;
+    protected ServicesConfig servicesConfig;
+    protected DeploymentService deploymentService;
+
+    protected Set<String> runningSites = ConcurrentHashMap.newKeySet();
 
     public void execute(String site) {
         if (taskLock.tryLock()) {
@@ -67,6 +106,45 @@ public class RebuildRepositoryMetadata {
         }
     }
 
+    /**
+     * Indicates if the site has a rebuild that was interrupted before it finished.
+     */
+    public boolean isRebuildPending(String site) {
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("siteId", site);
+        return rebuildMetadataDAO.getRebuildCommitId(params) != null;
+    }
+
+    /**
+     * Loads the state, metadata and dependencies of all the items of a site that was just created, walking the
+     * repository once and using bulk updates instead of replaying every commit.
+     *
+     * @param site the site
+     * @return true if all the items were loaded
+     */
+    public boolean initializeSite(String site) {
+        String commitId = contentRepository.getRepoLastCommitId(site);
+        List<RepoOperationTO> snapshot = contentRepository.getSnapshotOperations(site, commitId);
+        logger.info("Initializing repository metadata for site {0} with {1} items", site, snapshot.size());
+
+        boolean success = loadItems(site, snapshot, new HashSet<>(), null);
+        if (success) {
+            contentRepository.insertGitLog(site, commitId, 1);
+            siteService.updateLastCommitId(site, commitId);
+        } else {
+            logger.error("Some items failed to be initialized for site {0}, rebuild the site metadata to fix them",
+                    site);
+        }
+
+        try {
+            deploymentService.syncAllContentToPreview(site, false);
+        } catch (ServiceLayerException e) {
+            logger.error("Error synchronizing preview with repository for site: " + site, e);
+        }
+
+        return success;
+    }
+
     class RebuildRepositoryMetadataTask implements Runnable {
 
         private String site;
@@ -79,34 +157,33 @@ public class RebuildRepositoryMetadata {
 
         @Override
         public void run() {
+            if (!runningSites.add(site)) {
+                logger.info("Repository metadata is already being rebuilt for site " + site);
+                return;
+            }
             logger.debug("Start rebuilding repository metadata for site " + site);
             CronJobContext.setCurrent(securityContext);
-            logger.debug("Cleaning existing repository metadata for site " + site);
-            cleanOldMetadata(site);
-            logger.debug("Initiate rebuild metadata process for site " + site);
             try {
                 rebuildMetadata(site);
             } catch (SiteNotFoundException e) {
                 logger.error("Error while rebuilding metadata", e);
+            } finally {
+                CronJobContext.clear();
+                runningSites.remove(site);
             }
-            CronJobContext.clear();
             logger.debug("Finished rebuilding repository metadata for site " + site);
         }
     }
 
+    /**
+     * Deletes the data that is recreated from scratch when a rebuild starts. Item states, metadata and dependencies
+     * are kept until they are replaced.
+     */
     protected boolean cleanOldMetadata(String site) {
         logger.debug("Clean repository metadata for site " + site);
         Map<String, String> params = new HashMap<String, String>();
         params.put("site", site);
 
-        try {
-            // Delete all dependencies
-            logger.debug("Deleting dependencies for site " + site);
-            dependencyService.deleteSiteDependencies(site);
-        } catch (Exception error) {
-            logger.error("Failed to delete dependencies for site " + site);
-        }
-
         try {
             // Delete deployment queue
             logger.debug("Deleting deployment queue for site " + site);
@@ -116,35 +193,218 @@ public class RebuildRepositoryMetadata {
         }
 
         try {
-            // Delete content metadata
-            logger.debug("Deleting content metadata for site " + site);
-            objectMetadataManager.deleteObjectMetadataForSite(site);
+            logger.debug("Deleting git log data for site " + site);
+            contentRepository.deleteGitLogForSite(site);
         } catch (Exception error) {
-            logger.error("Failed to delete content metadata for site " + site);
+            logger.error("Failed to delete git log data for site " + site);
         }
 
-        try {
-            // Delete content workflow states data
-            logger.debug("Deleting workflow states data for site " + site);
-            objectStateService.deleteObjectStatesForSite(site);
-        } catch (Exception error) {
-            logger.error("Failed to delete workflow states data for site " + site);
+        return true;
+    }
+
+    protected boolean rebuildMetadata(String site) throws SiteNotFoundException {
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("siteId", site);
+
+        Set<Integer> completedChunks = new HashSet<>();
+        String commitId = rebuildMetadataDAO.getRebuildCommitId(params);
+        boolean resuming = commitId != null;
+        if (resuming) {
+            logger.info("Resuming repository metadata rebuild for site {0} at commit {1}", site, commitId);
+            params.put("commitId", commitId);
+            completedChunks.addAll(rebuildMetadataDAO.getCompletedChunks(params));
+        } else {
+            commitId = contentRepository.getRepoLastCommitId(site);
+            if (StringUtils.isEmpty(commitId)) {
+                logger.error("Unable to rebuild repository metadata for site {0}, no commits were found", site);
+                return false;
+            }
+            logger.info("Starting repository metadata rebuild for site {0} at commit {1}", site, commitId);
+            params.put("commitId", commitId);
+        }
+
+        List<RepoOperationTO> snapshot = contentRepository.getSnapshotOperations(site, commitId);
+        if (snapshot.isEmpty()) {
+            // Nothing would be left after removing the stale items, so don't touch the current data. The progress is
+            // dropped too, otherwise the same rebuild would be resumed on every start
+            logger.error("Unable to rebuild repository metadata for site {0}, no items were found at commit {1}",
+                    site, commitId);
+            rebuildMetadataDAO.deleteRebuildProgress(params);
+            return false;
         }
 
+        if (!resuming) {
+            cleanOldMetadata(site);
+        }
+
+        if (!loadItems(site, snapshot, completedChunks, params)) {
+            logger.error("Repository metadata rebuild for site {0} did not finish, it will resume from the completed " +
+                    "chunks the next time it runs", site);
+            return false;
+        }
+
+        removeStaleItems(site, snapshot);
+
+        // The rebuild is done, the sync brings in any commit that was done while it was running
+        contentRepository.insertGitLog(site, commitId, 1);
+        siteService.updateLastCommitId(site, commitId);
+        rebuildMetadataDAO.deleteRebuildProgress(params);
+        logger.info("Finished repository metadata rebuild for site {0} at commit {1}", site, commitId);
+
+        siteService.syncDatabaseWithRepo(site, commitId);
         try {
-            logger.debug("Deleting git log data for site " + site);
-            contentRepository.deleteGitLogForSite(site);
-        } catch (Exception error) {
-            logger.error("Failed to delete git log data for site " + site);
+            deploymentService.syncAllContentToPreview(site, false);
+        } catch (ServiceLayerException e) {
+            logger.error("Error synchronizing preview with repository for site: " + site, e);
         }
 
         return true;
     }
 
+    /**
+     * Loads the state, metadata and dependencies of the given items in parallel chunks.
+     *
+     * @param site              the site
+     * @param snapshot          create operations of every item in the site, sorted by path
+     * @param completedChunks   chunks that were already loaded by a previous run
+     * @param checkpointParams  siteId and commitId used to record the completed chunks, or null to not record them
+     * @return true if all the chunks were loaded
+     */
+    protected boolean loadItems(String site, List<RepoOperationTO> snapshot, Set<Integer> completedChunks,
+                                Map<String, Object> checkpointParams) {
+        int chunkSize = Math.max(1, studioConfiguration.getProperty(REPO_REBUILD_METADATA_CHUNK_SIZE, Integer.class,
+                500));
+        List<List<RepoOperationTO>> chunks = ListUtils.partition(snapshot, chunkSize);
+        Queue<Integer> pendingChunks = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            if (!completedChunks.contains(i)) {
+                pendingChunks.add(i);
+            }
+        }
+        logger.info("Loading repository metadata for site {0}: {1} items in {2} chunks, {3} already completed",
+                site, snapshot.size(), chunks.size(), chunks.size() - pendingChunks.size());
+
+        // Compile the template patterns once instead of for every item
+        List<Pattern> templatePatterns = new ArrayList<>();
+        List<String> templatePatternValues = servicesConfig.getRenderingTemplatePatterns(site);
+        if (templatePatternValues != null) {
+            templatePatternValues.forEach(pattern -> templatePatterns.add(Pattern.compile(pattern)));
+        }
+        CronJobContext securityContext = CronJobContext.getCurrent();
+        if (securityContext == null) {
+            securityContext = new CronJobContext(securityService.getCurrentToken(), securityService.getCurrentUser());
+        }
+        CronJobContext workerContext = securityContext;
+        AtomicBoolean failed = new AtomicBoolean(false);
+        int maxConcurrency = Math.max(1,
+                studioConfiguration.getProperty(REPO_REBUILD_METADATA_MAX_CONCURRENCY, Integer.class, 4));
 
-    protected boolean rebuildMetadata(String site) throws SiteNotFoundException {
-        siteService.syncDatabaseWithRepo(site, null);
-        return true;
+        ExecutorService executor = Executors.newFixedThreadPool(maxConcurrency);
+        try {
+            for (int i = 0; i < maxConcurrency; i++) {
+                executor.execute(() -> {
+                    CronJobContext.setCurrent(workerContext);
+                    try {
+                        Integer chunk;
+                        while (!failed.get() && (chunk = pendingChunks.poll()) != null) {
+                            try {
+                                rebuildChunk(site, chunks.get(chunk), templatePatterns);
+
+                                if (checkpointParams != null) {
+                                    Map<String, Object> chunkParams = new HashMap<String, Object>(checkpointParams);
+                                    chunkParams.put("chunk", chunk);
+                                    rebuildMetadataDAO.insertCompletedChunk(chunkParams);
+                                }
+                            } catch (RuntimeException e) {
+                                logger.error("Error loading repository metadata chunk " + chunk + " for site " +
+                                        site, e);
+                                failed.set(true);
+                            }
+                        }
+                    } finally {
+                        CronJobContext.clear();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try {
+            // Running chunks can't be interrupted safely, so wait for them to finish
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.debug("Waiting for repository metadata of site {0} to be loaded", site);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.set(true);
+        }
+
+        return !failed.get();
+    }
+
+    protected void rebuildChunk(String site, List<RepoOperationTO> chunk, List<Pattern> templatePatterns) {
+        List<String> paths = new ArrayList<>(chunk.size());
+        List<ItemMetadata> metadata = new ArrayList<>(chunk.size());
+        List<String> dependencyPaths = new ArrayList<>();
+        for (RepoOperationTO operation : chunk) {
+            String path = operation.getPath();
+            paths.add(path);
+
+            ItemMetadata item = new ItemMetadata();
+            item.setPath(path);
+            item.setModifier(operation.getAuthor());
+            item.setModified(operation.getDateTime());
+            item.setCommitId(operation.getCommitId());
+            metadata.add(item);
+
+            if (path.endsWith(DmConstants.XML_PATTERN) || path.endsWith(DmConstants.CSS_PATTERN) ||
+                    path.endsWith(DmConstants.JS_PATTERN) ||
+                    templatePatterns.stream().anyMatch(pattern -> pattern.matcher(path).matches())) {
+                dependencyPaths.add(path);
+            }
+        }
+
+        objectStateService.resetObjectStates(site, paths);
+        objectMetadataManager.resetObjectMetadata(site, metadata);
+
+        if (!dependencyPaths.isEmpty()) {
+            try {
+                dependencyService.upsertDependencies(site, dependencyPaths);
+            } catch (ServiceLayerException e) {
+                // A single failing item makes the whole batch fail, so find out which ones can be extracted
+                logger.debug("Error extracting dependencies in bulk for site " + site + ", extracting them one by one",
+                        e);
+                for (String path : dependencyPaths) {
+                    try {
+                        dependencyService.upsertDependencies(site, path);
+                    } catch (ServiceLayerException ex) {
+                        logger.error("Error extracting dependencies for site " + site + " file: " + path, ex);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the state, metadata and dependencies of the items that are no longer in the repository.
+     */
+    protected void removeStaleItems(String site, List<RepoOperationTO> snapshot) {
+        Set<String> paths = snapshot.stream().map(RepoOperationTO::getPath).collect(Collectors.toSet());
+        List<String> states = Stream.of(State.values()).map(State::name).collect(Collectors.toList());
+        for (ItemState itemState : objectStateService.getObjectStateByStates(site, states)) {
+            String path = itemState.getPath();
+            if (!paths.contains(path)) {
+                logger.debug("Removing metadata of stale item for site " + site + " path " + path);
+                objectStateService.deleteObjectStateForPath(site, path);
+                objectMetadataManager.deleteObjectMetadata(site, path);
+                try {
+                    dependencyService.deleteItemDependencies(site, path);
+                } catch (ServiceLayerException e) {
+                    logger.error("Error deleting dependencies for site " + site + " file: " + path, e);
+                }
+            }
+        }
     }
 
     public ObjectMetadataManager getObjectMetadataManager() {
@@ -226,4 +486,28 @@ public class RebuildRepositoryMetadata {
     public void setPublishRequestMapper(PublishRequestMapper publishRequestMapper) {
         this.publishRequestMapper = publishRequestMapper;
     }
+
+    public RebuildMetadataDAO getRebuildMetadataDAO() {
+        return rebuildMetadataDAO;
+    }
+
+    public void setRebuildMetadataDAO(RebuildMetadataDAO rebuildMetadataDAO) {
+        this.rebuildMetadataDAO = rebuildMetadataDAO;
+    }
+
+    public ServicesConfig getServicesConfig() {
+        return servicesConfig;
+    }
+
+    public void setServicesConfig(ServicesConfig servicesConfig) {
+        this.servicesConfig = servicesConfig;
+    }
+
+    public DeploymentService getDeploymentService() {
+        return deploymentService;
+    }
+
+    public void setDeploymentService(DeploymentService deploymentService) {
+        this.deploymentService = deploymentService;
+    }
 }
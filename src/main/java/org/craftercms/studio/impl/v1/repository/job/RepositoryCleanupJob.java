@@ -17,15 +17,38 @@
 
 package org.craftercms.studio.impl.v1.repository.job;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.craftercms.studio.api.v1.constant.GitRepositories;
 import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.repository.ContentRepository;
 import org.craftercms.studio.api.v1.service.site.SiteService;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.springframework.beans.factory.annotation.Required;
 
+import static org.craftercms.studio.api.v1.constant.GitRepositories.GLOBAL;
+import static org.craftercms.studio.api.v1.constant.GitRepositories.PUBLISHED;
+import static org.craftercms.studio.api.v1.constant.GitRepositories.SANDBOX;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_MAINTENANCE_MAX_CONCURRENCY;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_MAINTENANCE_TIME_BUDGET;
+
 /**
- * Triggers a cleanup for all repositories on all existing sites.
+ * Triggers the maintenance of all repositories on all existing sites. Only a limited number of repositories are
+ * maintained at the same time and the job stops starting new ones once its time budget is spent. Repositories that
+ * were not reached are maintained first on the next run.
  * @author joseross
  */
 public class RepositoryCleanupJob {
@@ -34,15 +57,77 @@ public class RepositoryCleanupJob {
 
     protected SiteService siteService;
     protected ContentRepository contentRepository;
+    protected StudioConfiguration studioConfiguration;
+
+    /**
+     * Repositories that were not reached on the previous run
+     */
+    protected final Set<Pair<String, GitRepositories>> deferred = ConcurrentHashMap.newKeySet();
 
     /**
-     * Performs a cleanup for all repositories on all existing sites.
+     * Performs the maintenance of all repositories on all existing sites.
      */
     public void cleanupAllRepositories() {
-        logger.info("Starting cleanup for global repo");
-        contentRepository.cleanupRepositories(StringUtils.EMPTY);
-        logger.info("Starting cleanup for all sites");
-        siteService.getAllAvailableSites().forEach(contentRepository::cleanupRepositories);
+        long deadline = System.currentTimeMillis() +
+                TimeUnit.MINUTES.toMillis(studioConfiguration.getProperty(REPO_MAINTENANCE_TIME_BUDGET, Long.class, 60L));
+
+        Set<Pair<String, GitRepositories>> all = new LinkedHashSet<>();
+        all.add(ImmutablePair.of(StringUtils.EMPTY, GLOBAL));
+        for (String siteId : siteService.getAllAvailableSites()) {
+            all.add(ImmutablePair.of(siteId, SANDBOX));
+            all.add(ImmutablePair.of(siteId, PUBLISHED));
+        }
+
+        // Repositories skipped on the previous run go first, as long as they still exist
+        Queue<Pair<String, GitRepositories>> repositories = new ConcurrentLinkedQueue<>();
+        deferred.stream().filter(all::contains).forEach(repositories::add);
+        all.stream().filter(repository -> !deferred.contains(repository)).forEach(repositories::add);
+        deferred.clear();
+
+        logger.info("Starting maintenance for {0} repositories", repositories.size());
+        maintainRepositories(repositories, deadline);
+        deferred.addAll(repositories);
+
+        if (!repositories.isEmpty()) {
+            logger.info("Repository maintenance finished with pending repositories, they will be checked on the " +
+                        "next run");
+        } else {
+            logger.info("Repository maintenance finished");
+        }
+    }
+
+    /**
+     * Maintains the given repositories until they are done or the deadline is reached, the repositories that were not
+     * reached are left in the queue.
+     */
+    protected void maintainRepositories(Queue<Pair<String, GitRepositories>> repositories, long deadline) {
+        int maxConcurrency = Math.max(1,
+                studioConfiguration.getProperty(REPO_MAINTENANCE_MAX_CONCURRENCY, Integer.class, 2));
+
+        ExecutorService executor = Executors.newFixedThreadPool(maxConcurrency);
+        try {
+            List<Runnable> workers = new ArrayList<>(maxConcurrency);
+            for (int i = 0; i < maxConcurrency; i++) {
+                workers.add(() -> {
+                    Pair<String, GitRepositories> repository;
+                    while (System.currentTimeMillis() < deadline && (repository = repositories.poll()) != null) {
+                        contentRepository.maintainRepository(repository.getLeft(), repository.getRight());
+                    }
+                });
+            }
+            workers.forEach(executor::execute);
+        } finally {
+            executor.shutdown();
+        }
+
+        try {
+            // Running actions can't be interrupted safely, so wait for them even after the deadline
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.debug("Waiting for running repository maintenance to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Required
@@ -54,5 +139,10 @@ public class RepositoryCleanupJob {
     public void setContentRepository(final ContentRepository contentRepository) {
         this.contentRepository = contentRepository;
     }
-    
+
+    @Required
+    public void setStudioConfiguration(final StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
 }
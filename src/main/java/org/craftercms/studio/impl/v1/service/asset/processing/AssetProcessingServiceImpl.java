@@ -29,16 +29,23 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 import org.craftercms.commons.lang.UrlUtils;
 import org.craftercms.studio.api.v1.asset.Asset;
 import org.craftercms.studio.api.v1.asset.processing.AssetProcessingConfigReader;
 import org.craftercms.studio.api.v1.asset.processing.AssetProcessorPipeline;
 import org.craftercms.studio.api.v1.asset.processing.AssetProcessorPipelineResolver;
+import org.craftercms.studio.api.v1.asset.processing.ProcessorConfiguration;
 import org.craftercms.studio.api.v1.asset.processing.ProcessorPipelineConfiguration;
 import org.craftercms.studio.api.v1.exception.AssetProcessingException;
 import org.craftercms.studio.api.v1.exception.ContentNotFoundException;
@@ -47,7 +54,9 @@ import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.service.asset.processing.AssetProcessingService;
 import org.craftercms.studio.api.v1.service.content.ContentService;
+import org.craftercms.studio.api.v2.repository.ContentRepository;
 import org.springframework.beans.factory.annotation.Required;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 /**
  * Default implementation of {@link AssetProcessingService}.
@@ -60,8 +69,16 @@ public class AssetProcessingServiceImpl implements AssetProcessingService {
 
     private String configPath;
     private ContentService contentService;
+    private ContentRepository contentRepository;
     private AssetProcessingConfigReader configReader;
     private AssetProcessorPipelineResolver pipelineResolver;
+    private AsyncTaskExecutor taskExecutor;
+
+    /**
+     * Parsed pipelines config per site, along with the blob id of the config file it was parsed from
+     */
+    private final Map<String, Pair<String, List<ProcessorPipelineConfiguration>>> configCache =
+        new ConcurrentHashMap<>();
 
     @Required
     public void setConfigPath(String configPath) {
@@ -73,6 +90,11 @@ public class AssetProcessingServiceImpl implements AssetProcessingService {
         this.contentService = contentService;
     }
 
+    @Required
+    public void setContentRepository(ContentRepository contentRepository) {
+        this.contentRepository = contentRepository;
+    }
+
     @Required
     public void setConfigReader(AssetProcessingConfigReader configReader) {
         this.configReader = configReader;
@@ -83,36 +105,31 @@ public class AssetProcessingServiceImpl implements AssetProcessingService {
         this.pipelineResolver = pipelineResolver;
     }
 
+    @Required
+    public void setTaskExecutor(AsyncTaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
     @Override
     public Map<String, Object> processAsset(String site, String folder, String assetName, InputStream in, String isImage,
                                             String allowedWidth, String allowedHeight, String allowLessSize, String draft,
                                             String unlock, String systemAsset){
         String repoPath = UrlUtils.concat(folder, assetName);
-        InputStream configIn;
 
         try {
-            try {
-                configIn = contentService.getContent(site, configPath);
-            } catch (ContentNotFoundException e) {
-                // Ignore if file couldn't be found
-                configIn = null;
-            }
+            List<ProcessorPipelineConfiguration> pipelinesConfig = getPipelinesConfig(site);
+            if (pipelinesConfig != null) {
+                List<ProcessorPipelineConfiguration> matchingConfig = getMatchingPipelines(pipelinesConfig, repoPath);
+                if (CollectionUtils.isNotEmpty(pipelinesConfig) && CollectionUtils.isEmpty(matchingConfig)) {
+                    // Avoid copying the input to a temp file when it's going to be written as is
+                    logger.debug("No pipeline matched for {0}. Skipping asset processing...", repoPath);
 
-            if (configIn != null) {
-                List<ProcessorPipelineConfiguration> pipelinesConfig = configReader.readConfig(configIn);
-                if (CollectionUtils.isNotEmpty(pipelinesConfig)) {
+                    return contentService.writeContentAsset(site, folder, assetName, in, isImage, allowedWidth,
+                                                            allowedHeight, allowLessSize, draft, unlock, systemAsset);
+                } else if (CollectionUtils.isNotEmpty(pipelinesConfig)) {
                     Asset input = createAssetFromInputStream(repoPath, in);
                     try {
-                        Set<Asset> finalOutputs = new LinkedHashSet<>();
-
-                        for (ProcessorPipelineConfiguration pipelineConfig : pipelinesConfig) {
-                            AssetProcessorPipeline pipeline = pipelineResolver.getPipeline(pipelineConfig);
-                            List<Asset> outputs = pipeline.processAsset(pipelineConfig, input);
-
-                            if (CollectionUtils.isNotEmpty(outputs)) {
-                                finalOutputs.addAll(outputs);
-                            }
-                        }
+                        Set<Asset> finalOutputs = runPipelines(matchingConfig, input);
 
                         if (CollectionUtils.isNotEmpty(finalOutputs)) {
                             List<Map<String, Object>> results = writeOutputs(site, finalOutputs, isImage, allowedWidth, allowedHeight,
@@ -168,6 +185,124 @@ public class AssetProcessingServiceImpl implements AssetProcessingService {
         }
     }
 
+    /**
+     * Returns the pipelines config of the site, which is only parsed again when the blob of the config file changes.
+     * Returns null if the site has no asset processing config.
+     */
+    private List<ProcessorPipelineConfiguration> getPipelinesConfig(String site) throws AssetProcessingException {
+        String blobId = contentRepository.getContentBlobId(site, configPath);
+        if (StringUtils.isEmpty(blobId)) {
+            configCache.remove(site);
+
+            return null;
+        }
+
+        Pair<String, List<ProcessorPipelineConfiguration>> cached = configCache.get(site);
+        if (cached != null && cached.getLeft().equals(blobId)) {
+            return cached.getRight();
+        }
+
+        try (InputStream configIn = contentService.getContent(site, configPath)) {
+            List<ProcessorPipelineConfiguration> pipelinesConfig = configReader.readConfig(configIn);
+            if (pipelinesConfig == null) {
+                pipelinesConfig = Collections.emptyList();
+            }
+
+            configCache.put(site, ImmutablePair.of(blobId, pipelinesConfig));
+
+            return pipelinesConfig;
+        } catch (ContentNotFoundException e) {
+            // Ignore if file couldn't be found
+            return null;
+        } catch (IOException e) {
+            throw new AssetProcessingException("Unable to read asset processing config of site " + site, e);
+        }
+    }
+
+    private List<ProcessorPipelineConfiguration> getMatchingPipelines(List<ProcessorPipelineConfiguration> pipelinesConfig,
+                                                                      String repoPath) {
+        List<ProcessorPipelineConfiguration> matchingConfig = new ArrayList<>();
+        for (ProcessorPipelineConfiguration pipelineConfig : pipelinesConfig) {
+            if (repoPath.matches(pipelineConfig.getInputPathPattern())) {
+                matchingConfig.add(pipelineConfig);
+            }
+        }
+
+        return matchingConfig;
+    }
+
+    /**
+     * Runs the pipelines on the executor. Pipelines that only read the input run concurrently, while a pipeline whose
+     * first processor overwrites the input waits for the previous ones and runs alone, so every pipeline sees the
+     * same input it would see if they were executed one after the other. Outputs are returned in config order.
+     */
+    private Set<Asset> runPipelines(List<ProcessorPipelineConfiguration> pipelinesConfig, Asset input)
+        throws AssetProcessingException {
+        Set<Asset> finalOutputs = new LinkedHashSet<>();
+        List<Future<List<Asset>>> pendingOutputs = new ArrayList<>();
+
+        for (ProcessorPipelineConfiguration pipelineConfig : pipelinesConfig) {
+            AssetProcessorPipeline pipeline = pipelineResolver.getPipeline(pipelineConfig);
+            if (isInputOverwritten(pipelineConfig)) {
+                collectOutputs(pendingOutputs, finalOutputs);
+                addOutputs(runPipeline(pipeline, pipelineConfig, input), finalOutputs);
+            } else {
+                pendingOutputs.add(taskExecutor.submit(() -> runPipeline(pipeline, pipelineConfig, input)));
+            }
+        }
+
+        collectOutputs(pendingOutputs, finalOutputs);
+
+        return finalOutputs;
+    }
+
+    private List<Asset> runPipeline(AssetProcessorPipeline pipeline, ProcessorPipelineConfiguration pipelineConfig,
+                                    Asset input) throws AssetProcessingException {
+        long start = System.currentTimeMillis();
+        List<Asset> outputs = pipeline.processAsset(pipelineConfig, input);
+
+        logger.debug("Asset processing pipeline for {0} processed {1} in {2} ms", pipelineConfig.getInputPathPattern(),
+                     input.getRepoPath(), System.currentTimeMillis() - start);
+
+        return outputs;
+    }
+
+    private boolean isInputOverwritten(ProcessorPipelineConfiguration pipelineConfig) {
+        List<ProcessorConfiguration> processorsConfig = pipelineConfig.getProcessorsConfig();
+
+        return CollectionUtils.isNotEmpty(processorsConfig) &&
+               StringUtils.isEmpty(processorsConfig.get(0).getOutputPathFormat());
+    }
+
+    private void collectOutputs(List<Future<List<Asset>>> pendingOutputs, Set<Asset> finalOutputs)
+        throws AssetProcessingException {
+        try {
+            for (Future<List<Asset>> pendingOutput : pendingOutputs) {
+                addOutputs(pendingOutput.get(), finalOutputs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new AssetProcessingException("Interrupted while waiting for asset processing pipelines", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AssetProcessingException) {
+                throw (AssetProcessingException) cause;
+            } else {
+                throw new AssetProcessingException("Error while executing asset processing pipeline", cause);
+            }
+        } finally {
+            pendingOutputs.forEach(pendingOutput -> pendingOutput.cancel(true));
+            pendingOutputs.clear();
+        }
+    }
+
+    private void addOutputs(List<Asset> outputs, Set<Asset> finalOutputs) {
+        if (CollectionUtils.isNotEmpty(outputs)) {
+            finalOutputs.addAll(outputs);
+        }
+    }
+
     private Asset createAssetFromInputStream(String repoPath, InputStream in) throws AssetProcessingException {
         try {
             Path tmpFile = Files.createTempFile(FilenameUtils.getBaseName(repoPath), "." + FilenameUtils.getExtension(repoPath));
@@ -187,25 +322,25 @@ public class AssetProcessingServiceImpl implements AssetProcessingService {
                                                    String systemAsset) throws AssetProcessingException {
         List<Map<String, Object>> results = new ArrayList<>();
 
-        for (Asset output : outputs) {
-            try {
-                try (InputStream in = Files.newInputStream(output.getFilePath())) {
-                    Map<String, Object> result = contentService.writeContentAsset(site,
-                                                                                  FilenameUtils.getFullPath(output.getRepoPath()),
-                                                                                  FilenameUtils.getName(output.getRepoPath()),
-                                                                                  in, isImage, allowedWidth, allowedHeight,
-                                                                                  allowLessSize, draft, unlock, systemAsset);
-                    if (MapUtils.isNotEmpty(result)) {
-                        if (result.containsKey("error")) {
-                            throw new AssetProcessingException("Error writing output " + output, (Exception)result.get("error"));
-                        } else {
-                            results.add(result);
-                        }
+        try {
+            // All outputs of the asset go in the same commit
+            List<Map<String, Object>> writeResults = contentService.writeContentAssets(site, outputs, isImage,
+                                                                                      allowedWidth, allowedHeight,
+                                                                                      allowLessSize, draft, unlock,
+                                                                                      systemAsset);
+            for (Map<String, Object> result : writeResults) {
+                if (MapUtils.isNotEmpty(result)) {
+                    if (result.containsKey("error")) {
+                        throw new AssetProcessingException("Error writing outputs " + outputs, (Exception)result.get("error"));
+                    } else {
+                        results.add(result);
                     }
                 }
-            } catch (IOException | ServiceLayerException e) {
-                throw new AssetProcessingException("Error writing output " + output, e);
             }
+        } catch (AssetProcessingException e) {
+            throw e;
+        } catch (ServiceLayerException e) {
+            throw new AssetProcessingException("Error writing outputs " + outputs, e);
         }
 
         return results;
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.aws;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import com.amazonaws.AmazonWebServiceClient;
+import com.amazonaws.services.s3.AmazonS3;
+import org.craftercms.commons.config.profiles.ConfigurationProfile;
+import org.craftercms.studio.api.v1.exception.AwsException;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.impl.v1.util.config.profiles.ProfileClientCache;
+
+/**
+ * Keeps the AWS clients created for each configuration profile, so all requests that use the same profile share the
+ * client and its connection pool instead of paying for a new connection and credentials resolution every time. The
+ * clients of a profile are shut down once it's replaced, see {@link ProfileClientCache}.
+ *
+ * The registry also owns the thread pool used to upload the parts of large files in parallel.
+ */
+public class AwsClientRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(AwsClientRegistry.class);
+
+    /**
+     * Number of threads used to upload parts, shared by all uploads
+     */
+    protected int uploadThreadPoolSize = 10;
+
+    /**
+     * Max number of parts of a single file uploaded at the same time
+     */
+    protected int maxParallelParts = 4;
+
+    protected ProfileClientCache<ConfigurationProfile, Map<String, Object>> clients;
+    protected ExecutorService uploadExecutor;
+
+    /**
+     * Profiles of the uploads in progress by upload, keeps them reachable so their clients are not shut down while
+     * the parts are being uploaded
+     */
+    protected Map<Object, ConfigurationProfile> uploadProfiles = new ConcurrentHashMap<>();
+
+    public void setUploadThreadPoolSize(int uploadThreadPoolSize) {
+        this.uploadThreadPoolSize = uploadThreadPoolSize;
+    }
+
+    public void setMaxParallelParts(int maxParallelParts) {
+        this.maxParallelParts = maxParallelParts;
+    }
+
+    public void init() {
+        clients = new ProfileClientCache<>(this::shutdownClients);
+        uploadExecutor = Executors.newFixedThreadPool(uploadThreadPoolSize);
+    }
+
+    public void destroy() {
+        clients.clear();
+        uploadExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the client with the given name for the profile, creating it if needed.
+     * @param profile the profile the client is configured with
+     * @param name name of the client, unique among the clients created for the same profile
+     * @param factory creates the client if the profile doesn't have one yet
+     * @param <T> the type of client
+     * @return the client
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getClient(ConfigurationProfile profile, String name, Supplier<T> factory) {
+        Map<String, Object> profileClients = clients.get(profile, p -> new ConcurrentHashMap<>());
+
+        return (T) profileClients.computeIfAbsent(name, n -> {
+            logger.debug("Creating AWS client {0}", name);
+            return factory.get();
+        });
+    }
+
+    /**
+     * Uploads a stream to S3, sending the parts of large files in parallel.
+     * @param profile the profile the client was created for
+     * @param inputBucket the bucket to upload to
+     * @param inputKey the key of the uploaded file
+     * @param s3Client the client to use
+     * @param partSize the size of each part
+     * @param filename the name of the file
+     * @param content the content of the file
+     * @throws AwsException if the upload fails
+     */
+    public void uploadStream(ConfigurationProfile profile, String inputBucket, String inputKey, AmazonS3 s3Client,
+                             int partSize, String filename, InputStream content) throws AwsException {
+        Object upload = new Object();
+        uploadProfiles.put(upload, profile);
+        try {
+            AwsUtils.uploadStream(inputBucket, inputKey, s3Client, partSize, filename, content, uploadExecutor,
+                                  maxParallelParts);
+        } finally {
+            uploadProfiles.remove(upload);
+        }
+    }
+
+    protected void shutdownClients(Map<String, Object> profileClients) {
+        logger.debug("Shutting down {0} AWS clients", profileClients.size());
+
+        profileClients.values().forEach(client -> {
+            if (client instanceof AmazonWebServiceClient) {
+                ((AmazonWebServiceClient) client).shutdown();
+            }
+        });
+    }
+
+}
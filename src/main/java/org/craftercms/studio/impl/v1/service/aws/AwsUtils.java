@@ -19,8 +19,12 @@ package org.craftercms.studio.impl.v1.service.aws;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import javax.activation.MimetypesFileTypeMap;
 
@@ -35,6 +39,7 @@ import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.UploadPartRequest;
 
 public abstract class AwsUtils {
@@ -43,51 +48,88 @@ public abstract class AwsUtils {
 
     public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
 
+    /**
+     * Uploads a stream of unknown length, sending up to {@code maxParallelParts} parts at the same time through the
+     * given executor, so at most {@code maxParallelParts + 1} parts are held in memory. Streams that fit in a single
+     * part are uploaded with a single put instead of a multipart upload.
+     */
     public static void uploadStream(String inputBucket, String inputKey, AmazonS3 s3Client, int partSize,
-                                    String filename, InputStream content) throws AwsException {
-      List<PartETag> etags = new LinkedList<>();
+                                    String filename, InputStream content, ExecutorService executor,
+                                    int maxParallelParts) throws AwsException {
+      List<Future<PartETag>> parts = new ArrayList<>();
       InitiateMultipartUploadResult initResult = null;
       try {
-        int partNumber = 1;
-        long totalBytes = 0;
-
         MimetypesFileTypeMap mimeMap = new MimetypesFileTypeMap();
         ObjectMetadata meta = new ObjectMetadata();
         meta.setContentType(mimeMap.getContentType(filename));
 
+        byte[] buffer = new byte[partSize];
+        int read = IOUtils.read(content, buffer);
+
+        if (read < partSize) {
+          logger.debug("Uploading file '{}' in a single request", filename);
+
+          meta.setContentLength(read);
+          s3Client.putObject(new PutObjectRequest(inputBucket, inputKey, new ByteArrayInputStream(buffer, 0, read),
+            meta));
+
+          logger.debug("Upload completed for file '{}'", filename);
+          return;
+        }
+
         InitiateMultipartUploadRequest initRequest = new InitiateMultipartUploadRequest(inputBucket, inputKey, meta);
         initResult = s3Client.initiateMultipartUpload(initRequest);
-        byte[] buffer = new byte[partSize];
-        int read;
+        String uploadId = initResult.getUploadId();
+        Semaphore permits = new Semaphore(maxParallelParts);
+        int partNumber = 1;
 
         logger.debug("Starting upload for file '{}'", filename);
 
-        while(0 < (read = IOUtils.read(content, buffer))) {
-          if(logger.isTraceEnabled()) {
-            totalBytes += read;
-            logger.trace("Uploading part {} with size {} - total: {}", partNumber, read, totalBytes);
-          }
-          ByteArrayInputStream bais = new ByteArrayInputStream(buffer, 0, read);
+        while (read > 0) {
+          permits.acquire();
+          checkFailedParts(parts);
+
+          // The next part is read first to know if this is the last one, even when the size is a multiple of the
+          // part size. The current buffer might still be uploading, so the next part needs its own
+          byte[] next = new byte[partSize];
+          int nextRead = IOUtils.read(content, next);
+
           UploadPartRequest uploadRequest = new UploadPartRequest()
-            .withUploadId(initResult.getUploadId())
+            .withUploadId(uploadId)
             .withBucketName(inputBucket)
             .withKey(inputKey)
-            .withInputStream(bais)
+            .withInputStream(new ByteArrayInputStream(buffer, 0, read))
             .withPartNumber(partNumber)
             .withPartSize(read)
-            .withLastPart(read < partSize);
-          etags.add(s3Client.uploadPart(uploadRequest).getPartETag());
+            .withLastPart(nextRead == 0);
+          logger.trace("Uploading part {} with size {}", partNumber, read);
+          parts.add(executor.submit(() -> {
+            try {
+              return s3Client.uploadPart(uploadRequest).getPartETag();
+            } finally {
+              permits.release();
+            }
+          }));
           partNumber++;
+
+          buffer = next;
+          read = nextRead;
         }
 
-        CompleteMultipartUploadRequest completeRequest = new CompleteMultipartUploadRequest(inputBucket,
-          inputKey, initResult.getUploadId(), etags);
+        List<PartETag> etags = new ArrayList<>(parts.size());
+        for (Future<PartETag> part : parts) {
+          etags.add(part.get());
+        }
 
-        s3Client.completeMultipartUpload(completeRequest);
+        s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(inputBucket, inputKey, uploadId, etags));
 
-        logger.debug("Upload completed for file '{}'", filename);
+        logger.debug("Upload completed for file '{}' in {} parts", filename, etags.size());
 
       } catch (Exception e) {
+        if (e instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+        parts.forEach(part -> part.cancel(true));
         if(initResult != null) {
           s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(inputBucket, inputKey,
             initResult.getUploadId()));
@@ -96,6 +138,18 @@ public abstract class AwsUtils {
       }
     }
 
+    /**
+     * Throws the error of the first part that failed to upload, if any, so the upload stops reading the stream
+     */
+    private static void checkFailedParts(List<Future<PartETag>> parts) throws ExecutionException,
+                                                                              InterruptedException {
+      for (Future<PartETag> part : parts) {
+        if (part.isDone()) {
+          part.get();
+        }
+      }
+    }
+
     public static String getS3Url(String bucket, String key) {
       return String.format("s3://%s/%s", bucket, key);
     }
@@ -26,6 +26,7 @@ import org.craftercms.studio.api.v1.aws.s3.S3Output;
 import org.craftercms.studio.api.v1.exception.AwsException;
 import org.craftercms.studio.api.v1.service.aws.AbstractAwsService;
 import org.craftercms.studio.api.v1.service.aws.S3Service;
+import org.springframework.beans.factory.annotation.Required;
 import com.amazonaws.services.s3.AmazonS3;
 
 /**
@@ -39,6 +40,8 @@ public class S3ServiceImpl extends AbstractAwsService<S3Profile> implements S3Se
 
     protected int partSize;
 
+    protected AwsClientRegistry clientRegistry;
+
     public S3ServiceImpl() {
         partSize = AwsUtils.MIN_PART_SIZE;
     }
@@ -47,8 +50,13 @@ public class S3ServiceImpl extends AbstractAwsService<S3Profile> implements S3Se
         this.partSize = partSize;
     }
 
+    @Required
+    public void setClientRegistry(final AwsClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
+    }
+
     protected AmazonS3 getS3Client(S3Profile profile) {
-        return S3Utils.createClient(profile);
+        return clientRegistry.getClient(profile, "s3", () -> S3Utils.createClient(profile));
     }
 
     @Override
@@ -61,7 +69,7 @@ public class S3ServiceImpl extends AbstractAwsService<S3Profile> implements S3Se
         String inputBucket = profile.getBucketName();
         String inputKey = filename;
 
-        AwsUtils.uploadStream(inputBucket, inputKey, s3Client, partSize, filename, content);
+        clientRegistry.uploadStream(profile, inputBucket, inputKey, s3Client, partSize, filename, content);
 
         S3Output output = new S3Output();
         output.setBucket(inputBucket);
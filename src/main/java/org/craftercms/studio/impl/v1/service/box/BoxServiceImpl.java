@@ -23,6 +23,7 @@ import org.craftercms.commons.config.ConfigurationException;
 import org.craftercms.commons.config.profiles.box.BoxProfile;
 import org.craftercms.studio.api.v1.exception.BoxException;
 import org.craftercms.studio.api.v1.service.box.BoxService;
+import org.craftercms.studio.impl.v1.util.config.profiles.ProfileClientCache;
 import org.craftercms.studio.impl.v1.util.config.profiles.SiteAwareConfigProfileLoader;
 import org.springframework.beans.factory.annotation.Required;
 
@@ -35,6 +36,11 @@ public class BoxServiceImpl implements BoxService {
 
     protected SiteAwareConfigProfileLoader<BoxProfile> profileLoader;
 
+    /**
+     * Connections by profile
+     */
+    protected ProfileClientCache<BoxProfile, BoxAPIConnection> connections = new ProfileClientCache<>();
+
     @Required
     public void setProfileLoader(SiteAwareConfigProfileLoader<BoxProfile> profileLoader) {
         this.profileLoader = profileLoader;
@@ -62,11 +68,13 @@ public class BoxServiceImpl implements BoxService {
 
     /**
      * {@inheritDoc}
+     * The connection of each profile is reused, and only requests a new token when the current one is about to
+     * expire.
      */
     @Override
     public String getAccessToken(final String site, final String profileId) throws BoxException {
         BoxProfile profile = getProfile(site, profileId);
-        BoxAPIConnection api = getConnection(profile);
+        BoxAPIConnection api = connections.get(profile, this::getConnection);
         return api.getAccessToken();
     }
 
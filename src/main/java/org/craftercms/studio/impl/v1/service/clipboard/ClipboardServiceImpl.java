@@ -30,7 +30,9 @@ import org.craftercms.studio.api.v1.service.clipboard.ClipboardService;
 import org.craftercms.studio.api.v1.service.workflow.WorkflowService;
 import org.craftercms.studio.api.v1.to.DmDependencyTO;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
 
@@ -102,7 +104,8 @@ implements ClipboardService {
     }
 
     /**
-     * Recursive paste operation on item and it's children
+     * Paste operation on items and their children. Cut items are moved one by one (each move takes the whole
+     * subtree), all copied items are pasted together in a single bulk copy
      * @param site site ID
      * @param destinationPath destination path for itme
      * @param clipOps ops to be pasted
@@ -110,30 +113,32 @@ implements ClipboardService {
      */
     protected void pasteItems(String site, String destinationPath, Set<ClipboardItem> clipOps, Set<String> pastedItems) 
     throws ServiceLayerException {
+        List<ClipboardItem> copyOps = new ArrayList<ClipboardItem>();
         for(ClipboardItem op : clipOps) {
-            try {
-                String newPath = null;
-                boolean cut = op.isCut;
-
-                if (cut) {
+            if (op.isCut) {
+                try {
                     // RDTMP_COPYPASTE
                     // CopyContent inteface is able to send status and new path yet
                     workflowService.cleanWorkflow(op.path, site, Collections.<DmDependencyTO>emptySet());
-                    newPath = contentService.moveContent(site, op.path, destinationPath);
+                    pastedItems.add(contentService.moveContent(site, op.path, destinationPath));
                 }
-                else {
-                    // RDTMP_COPYPASTE
-                    // CopyContent inteface is able to send status and new path yet
-                    newPath = contentService.copyContent(site, op.path, destinationPath);
-
-                    // recurse on copied children
-                    pasteItems(site, newPath, op.children, pastedItems);
+                catch(Exception err) {
+                    logger.error("Paste operation failed for item '{0}' to dest path `{1}', isCut: '{2}'", err,
+                            op.path, destinationPath, op.isCut);
                 }
+            }
+            else {
+                copyOps.add(op);
+            }
+        }
 
-                pastedItems.add(newPath);                
+        if (!copyOps.isEmpty()) {
+            try {
+                pastedItems.addAll(contentService.copyContents(site, destinationPath, copyOps));
             }
             catch(Exception err) {
-                logger.error("Paste operation failed for item '{0}' to dest path `{1}', isCut: '{2}'", err);
+                logger.error("Paste operation failed for {0} copied items to dest path `{1}'", err, copyOps.size(),
+                        destinationPath);
             }
         }
     }
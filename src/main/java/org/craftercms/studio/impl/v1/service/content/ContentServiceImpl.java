@@ -16,17 +16,24 @@
  */
 package org.craftercms.studio.impl.v1.service.content;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -58,6 +65,7 @@ import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.repository.ContentRepository;
 import org.craftercms.studio.api.v1.repository.RepositoryItem;
 import org.craftercms.studio.api.v1.service.GeneralLockService;
+import org.craftercms.studio.api.v1.service.clipboard.ClipboardService.ClipboardItem;
 import org.craftercms.studio.api.v1.service.configuration.ServicesConfig;
 import org.craftercms.studio.api.v1.service.content.ContentItemIdGenerator;
 import org.craftercms.studio.api.v1.service.content.ContentService;
@@ -82,6 +90,7 @@ import org.craftercms.studio.api.v1.to.DmOrderTO;
 import org.craftercms.studio.api.v1.to.GoLiveDeleteCandidates;
 import org.craftercms.studio.api.v1.to.RenderingTemplateTO;
 import org.craftercms.studio.api.v1.to.ResultTO;
+import org.craftercms.studio.api.v1.to.VersionHistoryTO;
 import org.craftercms.studio.api.v1.to.VersionTO;
 import org.craftercms.studio.api.v1.util.DebugUtils;
 import org.craftercms.studio.api.v2.dal.AuditLog;
@@ -101,6 +110,9 @@ import org.dom4j.DocumentException;
 
 import org.apache.commons.io.IOUtils;
 import org.springframework.core.io.Resource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 import org.xml.sax.SAXException;
 
 import javax.activation.MimetypesFileTypeMap;
@@ -133,6 +145,8 @@ import static org.craftercms.studio.api.v2.dal.AuditLogConstants.TARGET_TYPE_CON
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.TARGET_TYPE_FOLDER;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.TARGET_TYPE_REMOTE_REPOSITORY;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_GLOBAL_SYSTEM_SITE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONTENT_ITEM_TREE_DEFAULT_LIMIT;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONTENT_ITEM_TREE_MAX_NODES;
 
 /**
  * Content Services that other services may use
@@ -146,6 +160,12 @@ public class ContentServiceImpl implements ContentService {
 
     private static final String COPY_DEP_XPATH = "//*/text()[normalize-space(.)='{copyDep}']/parent::*";
     private static final String COPY_DEP = "{copyDep}";
+    private static final String FOLDER_PLACEHOLDER_FILE = ".keep";
+
+    /**
+     * Commit ids of the paths written by {@link #writeContentAssets} or {@link #writeContents} in the current thread
+     */
+    private final ThreadLocal<Map<String, String>> pendingBatchCommitIds = new ThreadLocal<>();
 
     private ContentRepository _contentRepository;
     protected ServicesConfig servicesConfig;
@@ -166,6 +186,7 @@ public class ContentServiceImpl implements ContentService {
     protected EntitlementValidator entitlementValidator;
     protected AuditServiceInternal auditServiceInternal;
     protected UserService userService;
+    protected PlatformTransactionManager transactionManager;
 
     /**
      * file and folder name patterns for copied files and folders
@@ -467,32 +488,34 @@ public class ContentServiceImpl implements ContentService {
                                                  InputStream in, String isImage, String allowedWidth,
                                                  String allowedHeight, String allowLessSize, String draft,
                                                  String unlock, String systemAsset) throws ServiceLayerException {
-
+        validateItemEntitlement(1);
         try {
-            entitlementValidator.validateEntitlement(EntitlementType.ITEM, 1);
-        } catch (EntitlementException e) {
-            throw new ServiceLayerException("Unable to complete request due to entitlement limits. Please contact your "
-                + "system administrator.");
+            validateAssetWrite(site, path + FILE_SEPARATOR + assetName, assetName);
+        } catch (ServiceLayerException e) {
+            logger.error("Error processing content", e);
+            return createAssetErrorResult(e);
         }
 
-        boolean isSystemAsset = Boolean.valueOf(systemAsset);
-
-        Map<String, String> params = new HashMap<String, String>();
-        params.put(DmConstants.KEY_SITE, site);
-        params.put(DmConstants.KEY_PATH, path);
-        params.put(DmConstants.KEY_FILE_NAME, assetName);
-        params.put(DmConstants.KEY_IS_IMAGE, isImage);
-        params.put(DmConstants.KEY_ALLOW_LESS_SIZE, allowLessSize);
-        params.put(DmConstants.KEY_ALLOWED_WIDTH, allowedWidth);
-        params.put(DmConstants.KEY_ALLOWED_HEIGHT, allowedHeight);
-        params.put(DmConstants.KEY_CONTENT_TYPE, "");
-        params.put(DmConstants.KEY_CREATE_FOLDERS, "true");
+        boolean exists = contentExists(site, path + FILE_SEPARATOR + assetName);
+        return writeContentAsset(site, path, assetName, in, isImage, allowedWidth, allowedHeight, allowLessSize,
+                                 draft, unlock, systemAsset, exists);
+    }
 
-        params.put(DmConstants.KEY_UNLOCK, unlock);
-        params.put(DmConstants.KEY_SYSTEM_ASSET, String.valueOf(isSystemAsset));
+    /**
+     * Write an asset through the asset chain, the asset must have been validated by
+     * {@link #validateAssetWrite(String, String, String)} first
+     *
+     * @param exists whether the asset existed before this write, assets written by {@link #writeContentAssets} are
+     *               already in the repository when the chain runs
+     */
+    private Map<String, Object> writeContentAsset(String site, String path, String assetName, InputStream in,
+                                                  String isImage, String allowedWidth, String allowedHeight,
+                                                  String allowLessSize, String draft, String unlock,
+                                                  String systemAsset, boolean exists) throws ServiceLayerException {
+        boolean isSystemAsset = Boolean.valueOf(systemAsset);
 
-        boolean exists = contentExists(site, path+ FILE_SEPARATOR + assetName);
-        params.put(DmConstants.KEY_ACTIVITY_TYPE, (exists ? OPERATION_UPDATE : OPERATION_CREATE));
+        Map<String, String> params = createAssetParams(site, path, assetName, isImage, allowedWidth, allowedHeight,
+                                                       allowLessSize, unlock, isSystemAsset, exists);
 
         String id = site + ":" + path + ":" + assetName + ":" + "";
         // processContent will close the input stream
@@ -501,24 +524,10 @@ public class ContentServiceImpl implements ContentService {
             path = path + FILE_SEPARATOR + assetName;
             item = getContentItem(site, path);
 
-            if (item != null) {
-                ItemState itemState = objectStateService.getObjectState(site, path);
-                if (itemState != null) {
-                    if (itemState.getSystemProcessing() != 0) {
-                        logger.error(String.format("Error Content %s is being processed " +
-                                "(Object State is SYSTEM_PROCESSING);", assetName));
-                        throw new RuntimeException(String.format("Content \"%s\" is being processed", assetName));
-                    }
-                    objectStateService.setSystemProcessing(site, path, true);
-                }
+            if (item != null && objectStateService.getObjectState(site, path) != null) {
+                objectStateService.setSystemProcessing(site, path, true);
             }
 
-            if (objectStateService.deletedPathExists(site, path) ||
-                    objectMetadataManager.movedPathExists(site, path)) {
-                throw new ServiceLayerException("Content " + path + " for site " + site + ", cannot be created because"
-                    + " this name/URL was in use by another content item that has been moved or deleted by "
-                    + "not yet published.");
-            }
             ResultTO result = processContent(id, in, false, params, DmConstants.CONTENT_CHAIN_ASSET);
             ContentAssetInfoTO assetInfoTO = (ContentAssetInfoTO)result.getItem();
             if (isSystemAsset) {
@@ -545,11 +554,7 @@ public class ContentServiceImpl implements ContentService {
             return toRet;
         } catch (Exception e) {
             logger.error("Error processing content", e);
-            Map<String, Object> toRet = new HashMap<String, Object>();
-            toRet.put("success", true);
-            toRet.put("message", e.getMessage());
-            toRet.put("error", e);
-            return toRet;
+            return createAssetErrorResult(e);
         } finally {
             if (item != null) {
                 objectStateService.setSystemProcessing(site, path, false);
@@ -557,6 +562,169 @@ public class ContentServiceImpl implements ContentService {
         }
     }
 
+    private Map<String, Object> createAssetErrorResult(Exception e) {
+        Map<String, Object> toRet = new HashMap<String, Object>();
+        toRet.put("success", true);
+        toRet.put("message", e.getMessage());
+        toRet.put("error", e);
+        return toRet;
+    }
+
+    private void validateItemEntitlement(int count) throws ServiceLayerException {
+        try {
+            entitlementValidator.validateEntitlement(EntitlementType.ITEM, count);
+        } catch (EntitlementException e) {
+            throw new ServiceLayerException("Unable to complete request due to entitlement limits. Please contact your "
+                + "system administrator.");
+        }
+    }
+
+    /**
+     * Check that an asset can be written to the given path: it can't be in the middle of being processed and the
+     * path can't belong to a moved or deleted item that hasn't been published yet
+     */
+    private void validateAssetWrite(String site, String path, String assetName) throws ServiceLayerException {
+        ItemState itemState = objectStateService.getObjectState(site, path);
+        if (itemState != null && itemState.getSystemProcessing() != 0) {
+            logger.error(String.format("Error Content %s is being processed " +
+                    "(Object State is SYSTEM_PROCESSING);", assetName));
+            throw new ServiceLayerException(String.format("Content \"%s\" is being processed", assetName));
+        }
+        validateNewPath(site, path);
+    }
+
+    private void validateNewPath(String site, String path) throws ServiceLayerException {
+        if (objectStateService.deletedPathExists(site, path) || objectMetadataManager.movedPathExists(site, path)) {
+            throw new ServiceLayerException("Content " + path + " for site " + site + ", cannot be created because"
+                + " this name/URL was in use by another content item that has been moved or deleted by "
+                + "not yet published.");
+        }
+    }
+
+    @Override
+    @ValidateParams
+    public List<Map<String, Object>> writeContentAssets(@ValidateStringParam(name = "site") String site,
+                                                        Collection<Asset> assets, String isImage,
+                                                        String allowedWidth, String allowedHeight,
+                                                        String allowLessSize, String draft, String unlock,
+                                                        String systemAsset) throws ServiceLayerException {
+        // The asset chain runs after the commit, so validate every asset and find out which ones are new first
+        validateItemEntitlement(assets.size());
+        boolean isSystemAsset = Boolean.valueOf(systemAsset);
+        Map<String, Boolean> existing = new HashMap<>();
+        for (Asset asset : assets) {
+            String path = FilenameUtils.getFullPathNoEndSeparator(asset.getRepoPath());
+            String assetName = FilenameUtils.getName(asset.getRepoPath());
+            validateAssetWrite(site, asset.getRepoPath(), assetName);
+            boolean exists = contentExists(site, asset.getRepoPath());
+            existing.put(asset.getRepoPath(), exists);
+
+            Map<String, String> params = createAssetParams(site, path, assetName, isImage, allowedWidth,
+                                                           allowedHeight, allowLessSize, unlock, isSystemAsset,
+                                                           exists);
+            try (InputStream in = Files.newInputStream(asset.getFilePath())) {
+                processContent(site + ":" + path + ":" + assetName + ":", in, false, params,
+                               DmConstants.CONTENT_CHAIN_ASSET_VALIDATION);
+            } catch (IOException e) {
+                throw new ServiceLayerException("Error reading asset " + asset, e);
+            }
+        }
+
+        Map<String, InputStream> contents = new LinkedHashMap<>();
+        String commitId;
+        try {
+            for (Asset asset : assets) {
+                contents.put(asset.getRepoPath(), Files.newInputStream(asset.getFilePath()));
+            }
+            commitId = _contentRepository.writeContents(site, contents);
+        } catch (IOException e) {
+            throw new ServiceLayerException("Error reading assets to write for site " + site, e);
+        } finally {
+            contents.values().forEach(ContentUtils::release);
+        }
+
+        // Run every asset through the regular asset chain, which will pick up the commit above when writing the
+        // content instead of creating one commit per asset
+        List<Map<String, Object>> results = new ArrayList<>();
+        Map<String, String> batchCommitIds = new HashMap<>();
+        if (StringUtils.isNotEmpty(commitId)) {
+            contents.keySet().forEach(path -> batchCommitIds.put(path, commitId));
+        }
+        pendingBatchCommitIds.set(batchCommitIds);
+        try {
+            for (Asset asset : assets) {
+                try (InputStream in = Files.newInputStream(asset.getFilePath())) {
+                    results.add(writeContentAsset(site, FilenameUtils.getFullPathNoEndSeparator(asset.getRepoPath()),
+                                                  FilenameUtils.getName(asset.getRepoPath()), in, isImage,
+                                                  allowedWidth, allowedHeight, allowLessSize, draft, unlock,
+                                                  systemAsset, existing.get(asset.getRepoPath())));
+                } catch (IOException e) {
+                    throw new ServiceLayerException("Error reading asset " + asset, e);
+                }
+            }
+        } finally {
+            pendingBatchCommitIds.remove();
+        }
+
+        if (StringUtils.isNotEmpty(commitId)) {
+            _contentRepository.insertGitLog(site, commitId, 1);
+            siteService.updateLastCommitId(site, commitId);
+        }
+
+        return results;
+    }
+
+    private Map<String, String> createAssetParams(String site, String path, String assetName, String isImage,
+                                                  String allowedWidth, String allowedHeight, String allowLessSize,
+                                                  String unlock, boolean isSystemAsset, boolean exists) {
+        Map<String, String> params = new HashMap<String, String>();
+        params.put(DmConstants.KEY_SITE, site);
+        params.put(DmConstants.KEY_PATH, path);
+        params.put(DmConstants.KEY_FILE_NAME, assetName);
+        params.put(DmConstants.KEY_IS_IMAGE, isImage);
+        params.put(DmConstants.KEY_ALLOW_LESS_SIZE, allowLessSize);
+        params.put(DmConstants.KEY_ALLOWED_WIDTH, allowedWidth);
+        params.put(DmConstants.KEY_ALLOWED_HEIGHT, allowedHeight);
+        params.put(DmConstants.KEY_CONTENT_TYPE, "");
+        params.put(DmConstants.KEY_CREATE_FOLDERS, "true");
+
+        params.put(DmConstants.KEY_UNLOCK, unlock);
+        params.put(DmConstants.KEY_SYSTEM_ASSET, String.valueOf(isSystemAsset));
+
+        params.put(DmConstants.KEY_CONTENT_EXISTS, String.valueOf(exists));
+        params.put(DmConstants.KEY_ACTIVITY_TYPE, (exists ? OPERATION_UPDATE : OPERATION_CREATE));
+        return params;
+    }
+
+    @Override
+    @ValidateParams
+    public String writeContents(@ValidateStringParam(name = "site") String site, Map<String, InputStream> contents,
+                                Consumer<String> action) throws ServiceLayerException {
+        String commitId;
+        try {
+            commitId = _contentRepository.writeContents(site, contents);
+        } finally {
+            contents.values().forEach(ContentUtils::release);
+        }
+        if (StringUtils.isEmpty(commitId)) {
+            throw new ServiceLayerException("Unable to write " + contents.size() + " files for site " + site);
+        }
+
+        Map<String, String> batchCommitIds = new HashMap<>();
+        contents.keySet().forEach(path -> batchCommitIds.put(path, commitId));
+        pendingBatchCommitIds.set(batchCommitIds);
+        try {
+            action.accept(commitId);
+        } finally {
+            pendingBatchCommitIds.remove();
+            // the files are committed even if processing them failed
+            _contentRepository.insertGitLog(site, commitId, 1);
+            siteService.updateLastCommitId(site, commitId);
+        }
+
+        return commitId;
+    }
+
     // This method is used for writing configuration files, this needs to be refactored in 3.1+
     @Override
     @ValidateParams
@@ -565,7 +733,16 @@ public class ContentServiceImpl implements ContentService {
             throws ServiceLayerException {
         boolean result;
 
-        String commitId = _contentRepository.writeContent(site, path, content);
+        // Content already committed by writeContentAssets, only the database needs to be updated
+        Map<String, String> batchCommitIds = pendingBatchCommitIds.get();
+        boolean batched = batchCommitIds != null && batchCommitIds.containsKey(path);
+        String commitId;
+        if (batched) {
+            commitId = batchCommitIds.get(path);
+            ContentUtils.release(content);
+        } else {
+            commitId = _contentRepository.writeContent(site, path, content);
+        }
 
         result = StringUtils.isNotEmpty(commitId);
 
@@ -575,8 +752,10 @@ public class ContentServiceImpl implements ContentService {
                 objectMetadataManager.insertNewObjectMetadata(site, path);
             }
             objectMetadataManager.updateCommitId(site, path, commitId);
-            _contentRepository.insertGitLog(site, commitId, 1);
-            siteService.updateLastCommitId(site, commitId);
+            if (!batched) {
+                _contentRepository.insertGitLog(site, commitId, 1);
+                siteService.updateLastCommitId(site, commitId);
+            }
         }
 
         return result;
@@ -848,6 +1027,330 @@ public class ContentServiceImpl implements ContentService {
         return retNewFileName;
     }
 
+    @Override
+    @ValidateParams
+    public List<String> copyContents(@ValidateStringParam(name = "site") String site,
+                                     @ValidateSecurePathParam(name = "toPath") String toPath,
+                                     Collection<ClipboardItem> items) throws ServiceLayerException {
+        List<String> copiedPaths = new ArrayList<String>();
+        CopyPlan plan = new CopyPlan();
+        try {
+            planCopy(site, toPath, items, plan, copiedPaths);
+            applyNavOrders(site, plan);
+            if (plan.contents.isEmpty()) {
+                return copiedPaths;
+            }
+
+            // Check every copy before the commit, a copy rejected after it is in git would be left without state
+            // and metadata
+            validateItemEntitlement(plan.contentTypes.size());
+            for (String path : plan.contentTypes.keySet()) {
+                validateNewPath(site, path);
+            }
+
+            logger.debug("Writing {0} copied files for site {1} in a single commit", plan.contents.size(), site);
+            String commitId = _contentRepository.writeContents(site, plan.contents);
+            if (StringUtils.isEmpty(commitId)) {
+                throw new ServiceLayerException("Unable to write copied content to " + toPath + " for site " + site);
+            }
+
+            updateDatabaseOnCopy(site, plan, commitId);
+        } finally {
+            plan.contents.values().forEach(ContentUtils::release);
+        }
+
+        PreviewEventContext context = new PreviewEventContext();
+        context.setSite(site);
+        eventService.publish(EVENT_PREVIEW_SYNC, context);
+
+        return copiedPaths;
+    }
+
+    protected void planCopy(String site, String toPath, Collection<ClipboardItem> items, CopyPlan plan,
+                            List<String> copiedPaths) throws ServiceLayerException {
+        for (ClipboardItem item : items) {
+            // Every pasted item gets its own copies of its dependencies, like copying it alone
+            String copyPath = planCopy(site, item.path, toPath, plan, new HashMap<String, String>());
+            if (copyPath != null) {
+                copiedPaths.add(copyPath);
+                if (CollectionUtils.isNotEmpty(item.children)) {
+                    planCopy(site, copyPath, item.children, plan, copiedPaths);
+                }
+            }
+        }
+    }
+
+    /**
+     * Same rules as {@link #copyContent(String, String, String, Set)} but instead of writing the copy it is added to
+     * the given plan, so the whole paste can be written at once
+     *
+     * @param copies new path of every item already copied for the same pasted item by source path
+     * @return the path of the copy, or null if the item could not be copied
+     */
+    protected String planCopy(String site, String fromPath, String toPath, CopyPlan plan, Map<String, String> copies)
+            throws ServiceLayerException {
+        // track what was already copied so we don't follow a circular dependency
+        String copyPath = copies.get(fromPath);
+        if (copyPath != null) {
+            return copyPath;
+        }
+
+        Map<String, String> copyPathMap = constructNewPathforCutCopy(site, fromPath, toPath, true,
+                plan.copyPaths);
+        copyPath = copyPathMap.get("FILE_PATH");
+
+        ContentItemTO fromItem = getContentItem(site, fromPath, 0);
+        if (fromItem == null) {
+            logger.debug("Content not found while copying content for site {0} from {1} to {2}", site, fromPath,
+                    toPath);
+            return null;
+        }
+        copies.put(fromPath, copyPath);
+        plan.copyPaths.add(copyPath);
+
+        if (fromItem.isFolder()) {
+            plan.contents.put(copyPath + FILE_SEPARATOR + FOLDER_PLACEHOLDER_FILE,
+                    new ByteArrayInputStream(new byte[0]));
+            plan.folders.add(copyPath);
+            return copyPath;
+        }
+
+        if (!contentExists(site, fromPath)) {
+            logger.debug("Content not found while copying content for site {0} from {1} to {2}", site, fromPath,
+                    toPath);
+            copies.remove(fromPath);
+            plan.copyPaths.remove(copyPath);
+            return null;
+        }
+        if (fromPath.endsWith(DmConstants.XML_PATTERN)) {
+            InputStream fromContent = getContent(site, fromPath);
+            try {
+                Document fromDocument = ContentUtils.convertStreamToXml(fromContent);
+                Map<String, String> fromPageIds = getContentIds(fromDocument);
+
+                logger.debug("planning copy for site {0} from {1} to {2}, new name is {3}", site, fromPath, toPath,
+                        copyPath);
+
+                // come up with a new object ID and group ID for the object
+                Map<String, String> copyObjectIds = contentItemIdGenerator.getIds();
+
+                Map<String, String> copyDependencies = getCopyDependencies(site, fromPath, fromPath);
+                copyDependencies = getItemSpecificDependencies(site, fromPath, fromDocument, copyDependencies);
+
+                // Duplicate the children
+                for (Map.Entry<String, String> dependency : copyDependencies.entrySet()) {
+                    String copyDepPath = dependency.getValue()
+                            .replaceAll(fromPageIds.get(DmConstants.KEY_PAGE_ID),
+                                    copyObjectIds.get(DmConstants.KEY_PAGE_ID))
+                            .replaceAll(fromPageIds.get(DmConstants.KEY_PAGE_GROUP_ID),
+                                    copyObjectIds.get(DmConstants.KEY_PAGE_GROUP_ID));
+
+                    ContentItemTO targetPathItem = getContentItem(site, copyDepPath);
+                    if (targetPathItem != null && targetPathItem.isFolder()) {
+                        copyDepPath = copyDepPath + FILE_SEPARATOR + FilenameUtils.getName(dependency.getKey());
+                        copyDepPath = copyDepPath.replaceAll(FILE_SEPARATOR + FILE_SEPARATOR, FILE_SEPARATOR);
+                    } else if (!copyDepPath.endsWith(DmConstants.XML_PATTERN)) {
+                        copyDepPath = ContentUtils.getParentUrl(copyDepPath);
+                    }
+
+                    String newCopyDepPath = planCopy(site, dependency.getKey(), copyDepPath, plan, copies);
+                    if (newCopyDepPath != null) {
+                        fromDocument = replaceCopyDependency(fromDocument, dependency.getKey(), newCopyDepPath);
+                    }
+                }
+
+                // update the file name / folder values
+                Document copyDocument = updateContentOnCopy(fromDocument, copyPathMap.get("FILE_NAME"),
+                        copyPathMap.get("FILE_FOLDER"), copyObjectIds, copyPathMap.get("MODIFIER"));
+                plan.documents.put(copyPath, copyDocument);
+            } catch (DocumentException e) {
+                logger.error("General Error while copying content for site {0} from {1} to {2}, new name is {3}", e,
+                        site, fromPath, toPath, copyPath);
+                copies.remove(fromPath);
+                plan.copyPaths.remove(copyPath);
+                return null;
+            } finally {
+                IOUtils.closeQuietly(fromContent);
+            }
+        } else {
+            plan.contents.put(copyPath, new CopiedContent(site, fromPath));
+        }
+
+        plan.contentTypes.put(copyPath, fromItem.getContentType());
+
+        return copyPath;
+    }
+
+    /**
+     * Sets the navigation order of the copied pages and adds them to the content to write. It's done once the whole
+     * paste was planned because getting a new navigation order updates the database
+     */
+    protected void applyNavOrders(String site, CopyPlan plan) {
+        for (Map.Entry<String, Document> document : plan.documents.entrySet()) {
+            String copyPath = document.getKey();
+            String copyPathOnly = copyPath.substring(0, copyPath.lastIndexOf(FILE_SEPARATOR));
+            dmPageNavigationOrderService.addNavOrder(site, copyPathOnly, document.getValue());
+            plan.contents.put(copyPath, ContentUtils.convertDocumentToStream(document.getValue(), CONTENT_ENCODING));
+        }
+    }
+
+    /**
+     * Register all the items written by a bulk copy: states, metadata and dependencies are updated in batches in a
+     * single transaction, then the audit log and the lifecycle scripts are run for every item
+     */
+    protected void updateDatabaseOnCopy(String site, CopyPlan plan, String commitId) throws ServiceLayerException {
+        String user = securityService.getCurrentUser();
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        List<String> paths = new ArrayList<String>(plan.contentTypes.keySet());
+        List<ItemMetadata> metadata = new ArrayList<ItemMetadata>(paths.size());
+        for (String path : paths) {
+            ItemMetadata item = new ItemMetadata();
+            item.setPath(path);
+            item.setName(FilenameUtils.getName(path));
+            item.setModified(now);
+            item.setModifier(user);
+            item.setOwner(user);
+            item.setCreator(user);
+            item.setCommitId(commitId);
+            metadata.add(item);
+        }
+
+        DefaultTransactionDefinition defaultTransactionDefinition = new DefaultTransactionDefinition();
+        defaultTransactionDefinition.setName("copyContents");
+        TransactionStatus txStatus = transactionManager.getTransaction(defaultTransactionDefinition);
+        try {
+            objectStateService.resetObjectStates(site, paths);
+            objectMetadataManager.resetObjectMetadata(site, metadata);
+            dependencyService.upsertDependencies(site, paths);
+            transactionManager.commit(txStatus);
+        } catch (Exception e) {
+            transactionManager.rollback(txStatus);
+            throw new ServiceLayerException("Failed to update the database for copied content on site " + site, e);
+        }
+
+        _contentRepository.insertGitLog(site, commitId, 1);
+        siteService.updateLastCommitId(site, commitId);
+
+        SiteFeed siteFeed = siteService.getSite(site);
+        for (String folder : plan.folders) {
+            AuditLog auditLog = auditServiceInternal.createAuditLogEntry();
+            auditLog.setOperation(OPERATION_CREATE);
+            auditLog.setSiteId(siteFeed.getId());
+            auditLog.setActorId(user);
+            auditLog.setPrimaryTargetId(site + ":" + folder);
+            auditLog.setPrimaryTargetType(TARGET_TYPE_FOLDER);
+            auditLog.setPrimaryTargetValue(folder);
+            auditServiceInternal.insertAuditLog(auditLog);
+        }
+        for (Map.Entry<String, String> item : plan.contentTypes.entrySet()) {
+            String path = item.getKey();
+            AuditLog auditLog = auditServiceInternal.createAuditLogEntry();
+            auditLog.setOperation(OPERATION_CREATE);
+            auditLog.setSiteId(siteFeed.getId());
+            auditLog.setActorId(user);
+            auditLog.setPrimaryTargetId(site + ":" + path);
+            auditLog.setPrimaryTargetType(TARGET_TYPE_CONTENT_ITEM);
+            auditLog.setPrimaryTargetValue(path);
+            auditLog.setPrimaryTargetSubtype(getContentTypeClass(site, path));
+            auditServiceInternal.insertAuditLog(auditLog);
+
+            if (path.endsWith(DmConstants.XML_PATTERN)) {
+                dmContentLifeCycleService.process(site, user, path, item.getValue(),
+                        DmContentLifeCycleService.ContentLifeCycleOperation.COPY, null);
+            }
+        }
+    }
+
+    /**
+     * Everything a bulk copy will write, collected before touching the repository
+     */
+    protected static class CopyPlan {
+
+        /**
+         * Content to write by new path, including the placeholder files of new folders. Assets are opened lazily
+         * when they are written
+         */
+        protected final Map<String, InputStream> contents = new LinkedHashMap<String, InputStream>();
+        /**
+         * Copied XML content by new path, added to the content to write once the navigation order is set
+         */
+        protected final Map<String, Document> documents = new LinkedHashMap<String, Document>();
+        /**
+         * Content type of every new item by path
+         */
+        protected final Map<String, String> contentTypes = new LinkedHashMap<String, String>();
+        /**
+         * New path of every copied item, so different items are not copied to the same path
+         */
+        protected final Set<String> copyPaths = new HashSet<String>();
+        protected final List<String> folders = new ArrayList<String>();
+
+    }
+
+    /**
+     * Content of a copied asset. It's only opened when the write reads it and closed as soon as it has been read, so
+     * a large paste doesn't keep a stream open for every asset until the commit
+     */
+    protected class CopiedContent extends InputStream {
+
+        protected final String site;
+        protected final String path;
+        protected InputStream content;
+        protected boolean closed;
+
+        protected CopiedContent(String site, String path) {
+            this.site = site;
+            this.path = path;
+        }
+
+        @Override
+        public int read() throws IOException {
+            InputStream in = open();
+            int b = in != null ? in.read() : -1;
+            if (b == -1) {
+                close();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            InputStream in = open();
+            int read = in != null ? in.read(b, off, len) : -1;
+            if (read == -1) {
+                close();
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            if (content != null) {
+                try {
+                    content.close();
+                } finally {
+                    content = null;
+                }
+            }
+        }
+
+        protected InputStream open() throws IOException {
+            if (content == null && !closed) {
+                try {
+                    content = getContent(site, path);
+                } catch (ContentNotFoundException e) {
+                    throw new IOException("Content " + path + " for site " + site + " not found", e);
+                }
+                if (content == null) {
+                    throw new IOException("Content " + path + " for site " + site + " not found");
+                }
+            }
+            return content;
+        }
+
+    }
+
     @SuppressWarnings("unchecked")
     protected Document replaceCopyDependency(Document document, String depPath, String copyDepPath) {
         Element root = document.getRootElement();
@@ -942,7 +1445,9 @@ public class ContentServiceImpl implements ContentService {
                 updateChildrenOnMove(site, fromPath, movePath);
                 for (Map.Entry<String, String> entry : commitIds.entrySet()) {
                     objectMetadataManager.updateCommitId(site, FILE_SEPARATOR + entry.getKey(), entry.getValue());
-                    _contentRepository.insertGitLog(site, entry.getValue(), 1);
+                }
+                for (String commitId : new HashSet<String>(commitIds.values())) {
+                    _contentRepository.insertGitLog(site, commitId, 1);
                 }
                 siteService.updateLastCommitId(site, _contentRepository.getRepoLastCommitId(site));
             }
@@ -1077,6 +1582,17 @@ public class ContentServiceImpl implements ContentService {
 
     protected Map<String, String> constructNewPathforCutCopy(String site, String fromPath, String toPath,
                                                              boolean adjustOnCollide) throws ServiceLayerException {
+        return constructNewPathforCutCopy(site, fromPath, toPath, adjustOnCollide, Collections.emptySet());
+    }
+
+    /**
+     * Same as {@link #constructNewPathforCutCopy(String, String, String, boolean)} but also treats the given paths,
+     * which are about to be written, as existing content
+     */
+    protected Map<String, String> constructNewPathforCutCopy(String site, String fromPath, String toPath,
+                                                             boolean adjustOnCollide,
+                                                             Collection<String> plannedPaths)
+            throws ServiceLayerException {
         Map<String, String> result = new HashMap<String, String>();
 
         // The following rules apply to content under the site folder
@@ -1109,7 +1625,7 @@ public class ContentServiceImpl implements ContentService {
         String proposedDestPath_folder = null;
         boolean targetPathExistsPriorToOp = false;
 
-        targetPathExistsPriorToOp = contentExists(site, toPath);
+        targetPathExistsPriorToOp = plannedPaths.contains(toPath) || contentExists(site, toPath);
 
         if(fromFileIsIndex && newFileIsIndex) {
             // Example MOVE LOCATION, INDEX FILES
@@ -1193,7 +1709,7 @@ public class ContentServiceImpl implements ContentService {
 
         if(adjustOnCollide == true) {
             // if adjustOnCollide is true we need to check, otherwise we don't
-            contentExists = contentExists(site, proposedDestPath);
+            contentExists = plannedPaths.contains(proposedDestPath) || contentExists(site, proposedDestPath);
         }
 
         if(adjustOnCollide && contentExists) {
@@ -1885,6 +2401,205 @@ public class ContentServiceImpl implements ContentService {
         return root;
     }
 
+    @Override
+    @ValidateParams
+    public ContentItemTO getContentItemTree(@ValidateStringParam(name = "site") String site,
+                                            @ValidateSecurePathParam(name = "path") String path,
+                                            @ValidateIntegerParam(name = "depth") int depth,
+                                            @ValidateIntegerParam(name = "offset") int offset,
+                                            @ValidateIntegerParam(name = "limit") int limit,
+                                            boolean includeMetadata, boolean includeWorkflow) {
+        logger.debug("Getting bounded content item tree for '{}':'{}' depth '{}' offset '{}' limit '{}'", site, path,
+                depth, offset, limit);
+
+        long startTime = System.currentTimeMillis();
+        int maxNodes = studioConfiguration.getProperty(CONTENT_ITEM_TREE_MAX_NODES, Integer.class, 1000);
+        if (limit <= 0) {
+            limit = studioConfiguration.getProperty(CONTENT_ITEM_TREE_DEFAULT_LIMIT, Integer.class, 100);
+        }
+        ContentItemTreeBounds bounds = new ContentItemTreeBounds(Math.min(limit, maxNodes), maxNodes,
+                includeMetadata, includeWorkflow);
+
+        String rootPath = path;
+        boolean isPages = (path.contains(FILE_SEPARATOR + "site" + FILE_SEPARATOR + "website"));
+        if (isPages && contentExists(site, path + FILE_SEPARATOR + DmConstants.INDEX_FILE)) {
+            rootPath = path + FILE_SEPARATOR + DmConstants.INDEX_FILE;
+        }
+        ContentItemTO root = getBoundedContentItem(site, rootPath, Math.max(depth, 1), Math.max(offset, 0), bounds);
+
+        long executionTime = System.currentTimeMillis() - startTime;
+        logger.debug("Bounded content item tree ['{}':'{}' depth '{}'] with '{}' items retrieved in '{}' " +
+                "milli-seconds", site, path, depth, bounds.nodes, executionTime);
+
+        return root;
+    }
+
+    /**
+     * Same as {@link #getContentItem(String, String, int)} but children are paged and the metadata & workflow
+     * properties are only populated when requested in the bounds.
+     */
+    protected ContentItemTO getBoundedContentItem(String site, String path, int depth, int offset,
+                                                  ContentItemTreeBounds bounds) {
+        ContentItemTO item = null;
+        try {
+            if (contentExists(site, path)) {
+                item = loadContentItem(site, path);
+                bounds.nodes++;
+                completeBoundedContentItem(site, item, depth, offset, bounds);
+            } else {
+                item = createDummyDmContentItemForDeletedNode(site, path);
+            }
+        } catch (Exception err) {
+            logger.debug("error constructing item for object at site '{}' path '{}'", err, site, path);
+        }
+        return item;
+    }
+
+    protected void completeBoundedContentItem(String site, ContentItemTO item, int depth, int offset,
+                                              ContentItemTreeBounds bounds) {
+        if (depth != 0) {
+            populateBoundedItemChildren(item, depth, offset, bounds);
+        }
+        if (bounds.includeMetadata) {
+            populateMetadata(site, item);
+        }
+        if (bounds.includeWorkflow) {
+            if (!item.isFolder() || item.isContainer()) {
+                populateWorkflowProperties(site, item);
+            } else {
+                item.setNew(!objectStateService.isFolderLive(site, item.getUri()));
+                item.isNew = item.isNew();
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #populateItemChildren(ContentItemTO, int)} but only the requested page of children is
+     * completed. Children are loaded without metadata, workflow or grandchildren to sort them, and only the ones in
+     * the page (and within the node budget) are completed, so the memory used is bounded by the size of a single
+     * level instead of the whole subtree.
+     */
+    protected ContentItemTO populateBoundedItemChildren(ContentItemTO item, int depth, int offset,
+                                                        ContentItemTreeBounds bounds) {
+        String contentPath = item.uri;
+
+        item.children = new ArrayList<ContentItemTO>();
+        item.numOfChildren = 0;
+
+        if (contentPath.indexOf(FILE_SEPARATOR + DmConstants.INDEX_FILE) != -1
+                || contentPath.indexOf(".") == -1 ) { // item.isFolder?
+
+            if (contentPath.indexOf(FILE_SEPARATOR + DmConstants.INDEX_FILE) != -1) {
+                contentPath = contentPath.replace(FILE_SEPARATOR + DmConstants.INDEX_FILE, "");
+            }
+
+            RepositoryItem[] childRepoItems = _contentRepository.getContentChildren(item.site, contentPath);
+            boolean indexFound = false;
+
+            if (childRepoItems != null) {
+                item.numOfChildren = childRepoItems.length;
+                if (item.numOfChildren != 0) {
+                    item.isContainer = true;
+                    item.container = true;
+                }
+
+                List<ContentItemTO> children = new ArrayList<>();
+                for (RepositoryItem childRepoItem : childRepoItems) {
+                    if (DmConstants.INDEX_FILE.equals(childRepoItem.name)) {
+                        if (!item.uri.contains(FILE_SEPARATOR + DmConstants.INDEX_FILE)) {
+                            item.path = item.uri;
+                            item.uri = item.uri + FILE_SEPARATOR + DmConstants.INDEX_FILE;
+                        }
+                        item.numOfChildren--;
+                        indexFound = true;
+                    } else if (depth > 1) {
+                        String childPath = childRepoItem.path + FILE_SEPARATOR + childRepoItem.name;
+                        if (childPath.startsWith(FILE_SEPARATOR + "site" + FILE_SEPARATOR + "website" +
+                                FILE_SEPARATOR) && childRepoItem.isFolder &&
+                                contentExists(item.site, childPath + FILE_SEPARATOR + DmConstants.INDEX_FILE)) {
+                            childPath = childPath + FILE_SEPARATOR + DmConstants.INDEX_FILE;
+                        }
+                        if (contentExists(item.site, childPath)) {
+                            children.add(loadContentItem(item.site, childPath));
+                        }
+                    }
+                }
+
+                if (!indexFound && _contentRepository.isFolder(item.site, contentPath)) {
+                    // ITEM IS A FOLDER
+                    item.folder = true;
+                    item.isContainer = true;
+                    item.container = true;
+
+                    item.page = false;
+                    item.asset = false;
+                    item.component = false;
+                    item.previewable = false;
+                    item.isPreviewable = false;
+
+                    item.internalName = item.name;
+                    item.contentType = "folder";
+                    item.path = item.uri;
+                }
+
+                Comparator<ContentItemTO> comparator =
+                        new ContentItemOrderComparator("default", true, true, true);
+                Collections.sort(children, comparator);
+
+                // Only the requested page is kept, the rest of the level is released right away
+                int fromIndex = Math.min(offset, children.size());
+                int toIndex = Math.min(fromIndex + bounds.limit, children.size());
+                List<ContentItemTO> page = new ArrayList<>(children.subList(fromIndex, toIndex));
+                children.clear();
+
+                for (ContentItemTO child : page) {
+                    if (bounds.nodes >= bounds.maxNodes) {
+                        logger.debug("Maximum number of items '{}' reached for tree at site '{}' path '{}'",
+                                bounds.maxNodes, item.site, item.uri);
+                        break;
+                    }
+                    bounds.nodes++;
+                    completeBoundedContentItem(item.site, child, depth - 1, 0, bounds);
+                    children.add(child);
+                }
+                item.children = children;
+
+            } else {
+                // ITEM HAS NO CHILDREN
+                item.isContainer = true;
+                item.container = true;
+            }
+        } else {
+            // ITEM IS A STAND-ALONE XML
+            item.isContainer = false;
+            item.container = false;
+        }
+
+        if (item.internalName == null) item.internalName = item.name;
+
+        return item;
+    }
+
+    /**
+     * Limits and counters shared by all the levels of a single bounded tree request.
+     */
+    protected static class ContentItemTreeBounds {
+
+        protected final int limit;
+        protected final int maxNodes;
+        protected final boolean includeMetadata;
+        protected final boolean includeWorkflow;
+        protected int nodes;
+
+        protected ContentItemTreeBounds(int limit, int maxNodes, boolean includeMetadata, boolean includeWorkflow) {
+            this.limit = limit;
+            this.maxNodes = maxNodes;
+            this.includeMetadata = includeMetadata;
+            this.includeWorkflow = includeWorkflow;
+        }
+
+    }
+
     @Override
     @ValidateParams
     public VersionTO[] getContentItemVersionHistory(@ValidateStringParam(name = "site") String site,
@@ -1893,6 +2608,16 @@ public class ContentServiceImpl implements ContentService {
         return _contentRepository.getContentVersionHistory(site, path);
     }
 
+    @Override
+    @ValidateParams
+    public VersionHistoryTO getContentItemVersionHistory(@ValidateStringParam(name = "site") String site,
+                                                         @ValidateSecurePathParam(name = "path") String path,
+                                                         String cursor,
+                                                         @ValidateIntegerParam(name = "limit") int limit,
+                                                         boolean followRenames) {
+        return _contentRepository.getContentVersionHistory(site, path, cursor, limit, followRenames);
+    }
+
     @Override
     @ValidateParams
     public boolean revertContentItem(@ValidateStringParam(name = "site") String site,
@@ -2660,4 +3385,12 @@ public class ContentServiceImpl implements ContentService {
     public void setUserService(UserService userService) {
         this.userService = userService;
     }
-}
\ No newline at end of file
+
+    public PlatformTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+}
@@ -43,8 +43,13 @@ import org.dom4j.DocumentException;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_SITE_CONTENT_TYPES_CONFIG_BASE_PATH;
@@ -63,6 +68,9 @@ public class ContentTypeServiceImpl implements ContentTypeService {
     protected SecurityService securityService;
     protected ContentRepository contentRepository;
     protected StudioConfiguration studioConfiguration;
+    protected org.craftercms.studio.api.v2.repository.ContentRepository contentRepositoryV2;
+
+    private final Map<String, ContentTypeRegistry> registries = new ConcurrentHashMap<>();
 
     @Override
     @ValidateParams
@@ -148,35 +156,12 @@ public class ContentTypeServiceImpl implements ContentTypeService {
             throws ServiceLayerException {
         String user = securityService.getCurrentUser();
         Set<String> userRoles = securityService.getUserRoles(site, user);
-        List<ContentTypeConfigTO> allContentTypes = getAllContentTypes(site);
+        ContentTypeRegistry registry = getRegistry(site);
 
-        if (CollectionUtils.isNotEmpty(allContentTypes)) {
+        if (CollectionUtils.isNotEmpty(registry.getContentTypes())) {
             List<ContentTypeConfigTO> contentTypes = new ArrayList<ContentTypeConfigTO>();
-            for (ContentTypeConfigTO contentTypeConfig : allContentTypes) {
-                // check if the path matches one of includes paths
-                if (CollectionUtils.isNotEmpty(contentTypeConfig.getPathIncludes())){
-                    for (String pathIncludes : contentTypeConfig.getPathIncludes()) {
-                        if (relativePath.matches(pathIncludes)) {
-                            logger.debug(relativePath + " matches " + pathIncludes);
-                            boolean isMatch = true;
-                            if (contentTypeConfig.getPathExcludes() != null) {
-                                for (String excludePath : contentTypeConfig.getPathExcludes()) {
-                                    if (relativePath.matches(excludePath)) {
-                                        logger.debug(relativePath + " matches an exclude path: " + excludePath);
-                                        isMatch = false;
-                                        break;
-                                    }
-                                }
-                            }
-                            if (isMatch) {
-                                // if a match is found, populate the content type information
-                                addContentTypes(site, userRoles, contentTypeConfig, contentTypes);
-                            }
-                        }
-                    }
-                } else if (CollectionUtils.isEmpty(contentTypeConfig.getPathExcludes())) {
-                    addContentTypes(site, userRoles, contentTypeConfig, contentTypes);
-                }
+            for (ContentTypeConfigTO contentTypeConfig : registry.getContentTypesForPath(relativePath)) {
+                addContentTypes(site, userRoles, contentTypeConfig, contentTypes);
             }
             return contentTypes;
         } else {
@@ -222,6 +207,32 @@ public class ContentTypeServiceImpl implements ContentTypeService {
     }
 
     protected List<ContentTypeConfigTO> getAllContentTypes(String site) {
+        return new ArrayList<>(getRegistry(site).getContentTypes());
+    }
+
+    /**
+     * Returns the content type registry of the site, which is only built again when something under the content
+     * types folder changes in the repository.
+     */
+    protected ContentTypeRegistry getRegistry(String site) {
+        String contentTypesRootPath = getConfigPath().replaceAll(StudioConstants.PATTERN_SITE, site);
+        String treeId = contentRepositoryV2.getContentTreeId(site, contentTypesRootPath);
+        if (StringUtils.isEmpty(treeId)) {
+            registries.remove(site);
+            return new ContentTypeRegistry(null, Collections.emptyList());
+        }
+
+        ContentTypeRegistry registry = registries.get(site);
+        if (registry == null || !treeId.equals(registry.getTreeId())) {
+            logger.debug("Building content type registry for site {0} from tree {1}", site, treeId);
+
+            registry = new ContentTypeRegistry(treeId, loadAllContentTypes(site));
+            registries.put(site, registry);
+        }
+        return registry;
+    }
+
+    protected List<ContentTypeConfigTO> loadAllContentTypes(String site) {
         String contentTypesRootPath = getConfigPath().replaceAll(StudioConstants.PATTERN_SITE, site);
 
         RepositoryItem[] folders = contentRepository.getContentChildren(site, contentTypesRootPath);
@@ -250,6 +261,7 @@ public class ContentTypeServiceImpl implements ContentTypeService {
     @Override
     @ValidateParams
     public void reloadConfiguration(@ValidateStringParam(name = "site") String site) {
+        registries.remove(site);
         String contentTypesRootPath = getConfigPath().replaceAll(StudioConstants.PATTERN_SITE, site);
         RepositoryItem[] folders = contentRepository.getContentChildren(site, contentTypesRootPath);
         List<ContentTypeConfigTO> contentTypes = new ArrayList<>();
@@ -301,6 +313,96 @@ public class ContentTypeServiceImpl implements ContentTypeService {
         }
     }
 
+    /**
+     * Content types of a site parsed from one version of the content types folder, with their path patterns compiled
+     * and the content types that apply to each path memoized.
+     */
+    protected static class ContentTypeRegistry {
+
+        private static final int MAX_MEMOIZED_PATHS = 10000;
+
+        private final String treeId;
+        private final List<ContentTypeConfigTO> contentTypes;
+        private final Map<ContentTypeConfigTO, List<Pattern>> pathIncludes = new HashMap<>();
+        private final Map<ContentTypeConfigTO, List<Pattern>> pathExcludes = new HashMap<>();
+        private final Map<String, List<ContentTypeConfigTO>> contentTypesByPath = new ConcurrentHashMap<>();
+
+        public ContentTypeRegistry(String treeId, List<ContentTypeConfigTO> contentTypes) {
+            this.treeId = treeId;
+            this.contentTypes = Collections.unmodifiableList(contentTypes);
+
+            for (ContentTypeConfigTO contentType : contentTypes) {
+                pathIncludes.put(contentType, compilePatterns(contentType.getName(), contentType.getPathIncludes()));
+                pathExcludes.put(contentType, compilePatterns(contentType.getName(), contentType.getPathExcludes()));
+            }
+        }
+
+        public String getTreeId() {
+            return treeId;
+        }
+
+        public List<ContentTypeConfigTO> getContentTypes() {
+            return contentTypes;
+        }
+
+        public List<ContentTypeConfigTO> getContentTypesForPath(String path) {
+            List<ContentTypeConfigTO> matches = contentTypesByPath.get(path);
+            if (matches == null) {
+                matches = matchContentTypes(path);
+                if (contentTypesByPath.size() >= MAX_MEMOIZED_PATHS) {
+                    contentTypesByPath.clear();
+                }
+                contentTypesByPath.put(path, matches);
+            }
+            return matches;
+        }
+
+        protected List<ContentTypeConfigTO> matchContentTypes(String path) {
+            List<ContentTypeConfigTO> matches = new ArrayList<>();
+            for (ContentTypeConfigTO contentType : contentTypes) {
+                List<Pattern> includes = pathIncludes.get(contentType);
+                List<Pattern> excludes = pathExcludes.get(contentType);
+                // check if the path matches one of includes paths
+                if (CollectionUtils.isNotEmpty(contentType.getPathIncludes())) {
+                    for (Pattern include : includes) {
+                        if (include.matcher(path).matches()) {
+                            logger.debug(path + " matches " + include);
+                            boolean isMatch = true;
+                            for (Pattern exclude : excludes) {
+                                if (exclude.matcher(path).matches()) {
+                                    logger.debug(path + " matches an exclude path: " + exclude);
+                                    isMatch = false;
+                                    break;
+                                }
+                            }
+                            if (isMatch) {
+                                matches.add(contentType);
+                            }
+                        }
+                    }
+                } else if (CollectionUtils.isEmpty(contentType.getPathExcludes())) {
+                    matches.add(contentType);
+                }
+            }
+            return Collections.unmodifiableList(matches);
+        }
+
+        private static List<Pattern> compilePatterns(String contentType, List<String> patterns) {
+            List<Pattern> compiled = new ArrayList<>();
+            if (patterns != null) {
+                for (String pattern : patterns) {
+                    try {
+                        compiled.add(Pattern.compile(pattern));
+                    } catch (PatternSyntaxException e) {
+                        logger.error("Invalid path pattern " + pattern + " in content type " + contentType, e);
+                    }
+                }
+            }
+            return compiled;
+        }
+
+    }
+
     public String getConfigPath() {
         return studioConfiguration.getProperty(CONFIGURATION_SITE_CONTENT_TYPES_CONFIG_BASE_PATH);
     }
@@ -349,6 +451,14 @@ public class ContentTypeServiceImpl implements ContentTypeService {
         this.contentRepository = contentRepository;
     }
 
+    public org.craftercms.studio.api.v2.repository.ContentRepository getContentRepositoryV2() {
+        return contentRepositoryV2;
+    }
+
+    public void setContentRepositoryV2(org.craftercms.studio.api.v2.repository.ContentRepository contentRepositoryV2) {
+        this.contentRepositoryV2 = contentRepositoryV2;
+    }
+
     public StudioConfiguration getStudioConfiguration() {
         return studioConfiguration;
     }
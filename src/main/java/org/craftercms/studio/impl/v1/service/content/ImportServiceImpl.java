@@ -21,7 +21,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.craftercms.commons.validation.annotations.param.ValidateParams;
 import org.craftercms.commons.validation.annotations.param.ValidateSecurePathParam;
 import org.craftercms.studio.api.v1.constant.DmConstants;
-import org.craftercms.studio.api.v1.dal.ItemState;
+import org.craftercms.studio.api.v1.dal.ItemMetadata;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v1.log.Logger;
@@ -29,13 +29,13 @@ import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.repository.ContentRepository;
 import org.craftercms.studio.api.v1.service.content.ContentService;
 import org.craftercms.studio.api.v1.service.content.ImportService;
+import org.craftercms.studio.api.v1.service.content.ObjectMetadataManager;
 import org.craftercms.studio.api.v1.service.deployment.DmPublishService;
 import org.craftercms.studio.api.v1.service.objectstate.ObjectStateService;
 import org.craftercms.studio.api.v1.service.objectstate.TransitionEvent;
 import org.craftercms.studio.api.v1.service.security.SecurityService;
 import org.craftercms.studio.api.v1.service.site.SiteService;
 import org.craftercms.studio.api.v1.service.workflow.context.MultiChannelPublishingContext;
-import org.craftercms.studio.api.v1.to.ContentItemTO;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.impl.v1.util.ContentFormatUtils;
 import org.craftercms.studio.impl.v1.util.ContentUtils;
@@ -47,19 +47,31 @@ import org.dom4j.Node;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.IMPORT_ASSET_CHAIN_NAME;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.IMPORT_ASSIGNEE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.IMPORT_BATCH_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.IMPORT_THREAD_POOL_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.IMPORT_THROTTLE_LATENCY_RATIO;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.IMPORT_THROTTLE_MAX_PAUSE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.IMPORT_XML_CHAIN_NAME;
 
 public class ImportServiceImpl implements ImportService {
@@ -71,6 +83,7 @@ public class ImportServiceImpl implements ImportService {
     protected ContentRepository contentRepository;
     protected ContentService contentService;
     protected ObjectStateService objectStateService;
+    protected ObjectMetadataManager objectMetadataManager;
     protected DmPublishService dmPublishService;
     protected StudioConfiguration studioConfiguration;
 
@@ -79,15 +92,6 @@ public class ImportServiceImpl implements ImportService {
      */
     private boolean inProgress = false;
 
-    /** going to pause import process? **/
-    private boolean pauseEanbeld = false;
-    /** next pause time **/
-    private long nextStop;
-    /** import delay interval **/
-    private long currentDelayInterval;
-    /** import delay time **/
-    private long currentDelayLength;
-
     @Override
     @SuppressWarnings("unchecked")
     @ValidateParams
@@ -109,15 +113,13 @@ public class ImportServiceImpl implements ImportService {
                             ? Integer.valueOf(publishSize) : -1;
                     Node foldersNode = siteNode.selectSingleNode("folders");
                     String sourceLocation = buildDataLocation + FILE_SEPARATOR + name;
-                    String delayIntervalStr = siteNode.valueOf("delay-interval");
-                    int delayInterval = (!StringUtils.isEmpty(delayIntervalStr) && StringUtils.isNumeric(delayIntervalStr))
-                            ? Integer.valueOf(delayIntervalStr) : -1;
+                    // delay-length is the longest pause allowed when throttling, delay-interval is not used anymore
                     String delayLengthStr = siteNode.valueOf("delay-length");
-                    int delayLength = (!StringUtils.isEmpty(delayLengthStr) && StringUtils.isNumeric(delayLengthStr))
-                            ? Integer.valueOf(delayLengthStr) : -1;
+                    long maxPause = (!StringUtils.isEmpty(delayLengthStr) && StringUtils.isNumeric(delayLengthStr))
+                            ? Long.valueOf(delayLengthStr) * 1000 : getThrottleMaxPause();
 
                     importFromConfigNode(name, publishingChannelGroup, foldersNode, sourceLocation, FILE_SEPARATOR,
-                            publish, chunkSize, delayInterval, delayLength);
+                            publish, chunkSize, maxPause);
                 }
             }
         }
@@ -146,38 +148,38 @@ public class ImportServiceImpl implements ImportService {
     @SuppressWarnings("unchecked")
     private void importFromConfigNode(final String site, String publishChannelGroup, final Node node,
                                       final String fileRoot, final String targetRoot,
-                                      boolean publish, int chunkSize, int delayInterval, int delayLength)
+                                      boolean publish, int chunkSize, long maxPause)
             throws SiteNotFoundException {
         if (!inProgress) {
             inProgress = true;
-            if (delayInterval > 0) pauseEanbeld = true;
-            this.currentDelayInterval = delayInterval * 1000;
-            this.currentDelayLength = delayLength * 1000;
             final Set<String> importedPaths = new HashSet<String>();
             final List<String> importedFullPaths = new ArrayList<String>();
+            ImportBatch batch = new ImportBatch(site, targetRoot, importedPaths, importedFullPaths, maxPause);
             logger.info("[IMPORT] started importing in " + site
-                    + ", pause enabled: " + pauseEanbeld
-                    + ", delay interval: " + this.currentDelayInterval
-                    + ", delay length: " + this.currentDelayLength);
+                    + ", batch size: " + batch.batchSize
+                    + ", threads: " + getThreadPoolSize()
+                    + ", max pause: " + maxPause);
 
             boolean overWrite = ContentFormatUtils.getBooleanValue(node.valueOf("@over-write"));
             final List<Node> folderNodes = node.selectNodes("folder");
-            if (publish) {
-                String user = securityService.getCurrentUser();
-                logger.debug("[IMPORT] publishing user: " + user);
-
-                this.nextStop = System.currentTimeMillis() + this.currentDelayInterval;
-                createFolders(site, importedPaths, importedFullPaths, folderNodes, fileRoot, targetRoot, "",
-                        overWrite, user);
-                logger.info("Starting Publish of Imported Files (Total " + importedFullPaths.size()
-                        + " On chunkSize of " + chunkSize + " )");
-                publish(site, publishChannelGroup, targetRoot, importedFullPaths, chunkSize);
-            } else {
-                this.nextStop = System.currentTimeMillis() + this.currentDelayInterval;
-                createFolders(site, importedPaths, importedFullPaths, folderNodes, fileRoot, targetRoot, "",
-                        overWrite, null);
+            try {
+                if (publish) {
+                    String user = securityService.getCurrentUser();
+                    logger.debug("[IMPORT] publishing user: " + user);
+
+                    createFolders(site, batch, folderNodes, fileRoot, targetRoot, "", overWrite, user);
+                    batch.flush();
+                    logger.info("Starting Publish of Imported Files (Total " + importedFullPaths.size()
+                            + " On chunkSize of " + chunkSize + " )");
+                    publish(site, publishChannelGroup, targetRoot, importedFullPaths, chunkSize);
+                } else {
+                    createFolders(site, batch, folderNodes, fileRoot, targetRoot, "", overWrite, null);
+                    batch.flush();
+                }
+            } finally {
+                batch.close();
+                inProgress = false;
             }
-            inProgress = false;
         } else {
             logger.info("[IMPORT] an import process is currently running.");
         }
@@ -189,9 +191,8 @@ public class ImportServiceImpl implements ImportService {
      *
      * @param site
      *            site name
-     * @param importedPaths
-     *            a list of imported files
-     * @param importedFullPaths
+     * @param batch
+     *            the batch collecting the files to import
      * @param nodes
      *            nodes representing folders
      * @param fileRoot
@@ -206,9 +207,8 @@ public class ImportServiceImpl implements ImportService {
      *
      */
     @SuppressWarnings("unchecked")
-    private void createFolders(String site, Set<String> importedPaths, List<String> importedFullPaths,
-                               List<Node> nodes, String fileRoot, String targetRoot, String parentPath,
-                               boolean overWrite, String user) throws SiteNotFoundException {
+    private void createFolders(String site, ImportBatch batch, List<Node> nodes, String fileRoot, String targetRoot,
+                               String parentPath, boolean overWrite, String user) throws SiteNotFoundException {
         logger.info("[IMPORT] createFolders : site[" + site + "] " + "] fileRoot [" + fileRoot + "] targetRoot [ "
                 + targetRoot + "] parentPath [" + parentPath + "] overwrite[" + overWrite + "]");
 
@@ -229,18 +229,18 @@ public class ImportServiceImpl implements ImportService {
                     }
                     boolean importAll = ContentFormatUtils.getBooleanValue(node.valueOf("@import-all"));
                     if (importAll) {
-                        importRootFileList(site, importedPaths, importedFullPaths, fileRoot + FILE_SEPARATOR + name,
-                                targetRoot, currentPath, folderOverWrite, user);
+                        importRootFileList(site, batch, fileRoot + FILE_SEPARATOR + name, targetRoot, currentPath,
+                                folderOverWrite, user);
 
                     } else {
                         // create child folders
                         List<Node> childFolders = node.selectNodes("folder");
-                        createFolders(site, importedPaths, importedFullPaths, childFolders, currentFilePath,
-                                targetRoot, currentPath, folderOverWrite, user);
-                        // create child fiimportedPathsles
+                        createFolders(site, batch, childFolders, currentFilePath, targetRoot, currentPath,
+                                folderOverWrite, user);
+                        // create child files
                         List<Node> childFiles = node.selectNodes("file");
-                        createFiles(site, importedPaths, importedFullPaths, childFiles, currentFilePath,
-                                targetRoot, currentPath, folderOverWrite, user);
+                        createFiles(site, batch, childFiles, currentFilePath, targetRoot, currentPath,
+                                folderOverWrite, user);
                     }
                 }
             }
@@ -251,8 +251,7 @@ public class ImportServiceImpl implements ImportService {
      * import all files from the given file root
      *
      * @param site
-     * @param importedPaths
-     * @param importedFullPaths
+     * @param batch
      * @param fileRoot
      * @param targetRoot
      *            the target location root
@@ -261,9 +260,9 @@ public class ImportServiceImpl implements ImportService {
      * @param overWrite
      * @param user
      */
-    protected void importRootFileList(String site, Set<String> importedPaths, List<String> importedFullPaths,
-                                      String fileRoot, String targetRoot, String parentPath, boolean overWrite,
-                                      String user) throws SiteNotFoundException {
+    protected void importRootFileList(String site, ImportBatch batch, String fileRoot, String targetRoot,
+                                      String parentPath, boolean overWrite, String user)
+            throws SiteNotFoundException {
         URL resourceUrl = getResourceUrl(fileRoot);
         if (resourceUrl != null) {
             String resourcePath = resourceUrl.getFile();
@@ -281,12 +280,11 @@ public class ImportServiceImpl implements ImportService {
                             }
                             logger.info("[IMPORT] Importing " + parentPath + FILE_SEPARATOR + childName);
 
-                            importFileList(site, importedPaths, importedFullPaths, fileRoot + FILE_SEPARATOR + childName,
-                                    targetRoot, parentPath + FILE_SEPARATOR + childName, overWrite, user);
+                            importFileList(site, batch, fileRoot + FILE_SEPARATOR + childName, targetRoot,
+                                    parentPath + FILE_SEPARATOR + childName, overWrite, user);
                             logger.info("[IMPORT] Finished Importing " + parentPath + FILE_SEPARATOR + childName);
                         } else {
-                            writeContentInTransaction(site, importedPaths, importedFullPaths, fileRoot,
-                                    targetRoot, parentPath, childName, overWrite, user);
+                            batch.add(fileRoot, parentPath, childName, overWrite);
                         }
                     }
                 }
@@ -316,8 +314,7 @@ public class ImportServiceImpl implements ImportService {
      * import files and folders at the given fileRoot path
      *
      * @param site
-     * @param importedPaths
-     * @param importedFullPaths
+     * @param batch
      * @param fileRoot
      * @param targetRoot
      *            the target location root
@@ -326,9 +323,8 @@ public class ImportServiceImpl implements ImportService {
      * @param overWrite
      * @param user
      */
-    protected void importFileList(String site, Set<String> importedPaths, List<String> importedFullPaths,
-                                  String fileRoot, String targetRoot, String parentPath, boolean overWrite, String user)
-            throws SiteNotFoundException {
+    protected void importFileList(String site, ImportBatch batch, String fileRoot, String targetRoot,
+                                  String parentPath, boolean overWrite, String user) throws SiteNotFoundException {
         logger.info("[IMPORT] importFileList: fileRoot [" + fileRoot + "] name [" + targetRoot + "] overwrite["
                 + overWrite + "]");
         URL resourceUrl = getResourceUrl(fileRoot);
@@ -346,12 +342,10 @@ public class ImportServiceImpl implements ImportService {
                             if (!folderExists) {
                                 contentService.createFolder(site, parentPath, childName);
                             }
-                            importFileList(site, importedPaths, importedFullPaths, fileRoot + FILE_SEPARATOR
-                                            + childName, targetRoot, parentPath + FILE_SEPARATOR + childName,
-                                    overWrite, user);
+                            importFileList(site, batch, fileRoot + FILE_SEPARATOR + childName, targetRoot,
+                                    parentPath + FILE_SEPARATOR + childName, overWrite, user);
                         } else {
-                            writeContentInTransaction(site, importedPaths, importedFullPaths, fileRoot,
-                                    targetRoot, parentPath, childName, overWrite, user);
+                            batch.add(fileRoot, parentPath, childName, overWrite);
                         }
                     }
                 }
@@ -362,103 +356,138 @@ public class ImportServiceImpl implements ImportService {
     }
 
     /**
-     * write content
+     * check if the given file should be imported, runs in the import thread pool
      *
-     * @param site
-     * @param importedPaths
-     * @param importedFullPaths
-     * @param fileRoot
-     * @param parentPath
-     * @param name
-     * @param overWrite
-     * @param user
+     * @param batch
+     * @param item
+     * @return the item if it should be imported, null otherwise
      */
-    protected void writeContentInTransaction(final String site, final Set<String> importedPaths,
-                                             final List<String> importedFullPaths, final String fileRoot,
-                                             final String targetRoot, final String parentPath, final String name,
-                                             final boolean overWrite, final String user) {
-        long startTimeWrite = System.currentTimeMillis();
-        logger.debug("[IMPORT] writing file in transaction: " + parentPath + FILE_SEPARATOR + name);
-        writeContent(site, importedPaths, importedFullPaths, fileRoot, targetRoot, parentPath, name,
-                        overWrite);
-        logger.debug("[IMPORT] done writing file in transaction: " + parentPath + FILE_SEPARATOR + name
-                        + ", time: " + (System.currentTimeMillis() - startTimeWrite));
-        pause();
+    protected ImportItem prepareContent(ImportBatch batch, ImportItem item) {
+        String site = batch.site;
+        if (!item.file.exists()) {
+            logger.warn("[IMPORT] " + item.path + " does not exist.");
+            return null;
+        }
+        item.exists = contentService.contentExists(site, item.path);
+        // write content only it is new or overwrite is set to true for existing
+        if (item.exists && !item.overWrite) {
+            logger.debug("[IMPORT] " + item.path + " exists and set to not to overrwite. skipping this file.");
+            return null;
+        }
+        if (item.isXml) {
+            // parse the content here so invalid files don't make it into the commit
+            try (InputStream in = new FileInputStream(item.file)) {
+                ContentUtils.convertStreamToXml(in);
+            } catch (IOException | DocumentException e) {
+                logger.error("[IMPORT] failed to parse " + item.path, e);
+                return null;
+            }
+        } else {
+            // the asset chain only runs after the commit, so invalid assets are rejected here
+            Map<String, String> params = createParams(site, false, batch.targetRoot, item.parentPath, item.name,
+                    item.exists);
+            String id = site + ":" + item.path + ":" + item.name;
+            try (InputStream in = new FileInputStream(item.file)) {
+                contentService.processContent(id, in, false, params, DmConstants.CONTENT_CHAIN_ASSET_VALIDATION);
+            } catch (Exception e) {
+                logger.error("[IMPORT] failed to validate " + item.path, e);
+                return null;
+            }
+        }
+        return item;
     }
 
     /**
-     * write content
+     * write all files of a batch in a single commit, run each of them through its process chain and update the
+     * object states in bulk
      *
-     * @param site
-     * @param importedPaths
-     * @param importedFullPaths
-     * @param fileRoot
-     * @param parentPath
-     * @param name
-     * @param overWrite
+     * @param batch
+     * @param items
      */
-    protected void writeContent(String site, Set<String> importedPaths, List<String> importedFullPaths,
-                                String fileRoot, String targetRoot, String parentPath, String name, boolean overWrite) {
-        boolean isXml = true;
-        String processChain = getXmlChainName();
-        if (!name.endsWith(".xml")) {
-            isXml = false;
-            processChain = getAssetChainName();
+    protected void writeContents(ImportBatch batch, List<ImportItem> items) {
+        String site = batch.site;
+        List<String> paths = new ArrayList<String>(items.size());
+        List<String> newPaths = new ArrayList<String>();
+        List<String> existingPaths = new ArrayList<String>();
+        for (ImportItem item : items) {
+            paths.add(item.path);
+            (item.exists ? existingPaths : newPaths).add(item.path);
         }
-        InputStream in = null;
-        String filePath = parentPath + FILE_SEPARATOR + name;
-        String fileSystemPath = fileRoot + FILE_SEPARATOR + name;
-        logger.info("[IMPORT] writeContent: fileRoot [" + fileRoot + "] fullPath [" + filePath + "] overwrite["
-                + overWrite + "] process chain [ " + processChain + "]");
-        long startTimeWrite = System.currentTimeMillis();
-        logger.debug("[IMPORT] writing file: " + parentPath + FILE_SEPARATOR + name);
+        logger.info("[IMPORT] writing " + items.size() + " files in " + site + " in a single commit");
+        objectStateService.setSystemProcessingBulk(site, paths, true);
 
+        Map<String, InputStream> contents = new LinkedHashMap<String, InputStream>();
         try {
-            File file = new File(fileSystemPath);
-            if (file.exists()) {
-                in = new FileInputStream(file);
-                String currentPath = parentPath + FILE_SEPARATOR + name;
-                boolean contentExists = contentService.contentExists(site, currentPath);
-                // create parameters
-                Map<String, String> params = createParams(site, isXml, targetRoot, parentPath, name);
-                String id = site + ":" + filePath + ":" + name;
-                // write content only it is new or overwrite is set to true for
-                // existing
-                if (!contentExists || overWrite) {
-                    String fullPath = targetRoot + filePath;
-                    objectStateService.setSystemProcessing(site, currentPath, true);
-                    // write the content
-                    contentService.processContent(id, in, isXml, params, processChain);
-                    ContentItemTO item = contentService.getContentItem(site, currentPath);
-                    // update state
-                    if (item != null) {
-                        objectStateService.transition(site, item, TransitionEvent.SAVE);
-                        objectStateService.setSystemProcessing(site, currentPath, false);
-                    } else {
-                        ItemState state = objectStateService.getObjectState(site, currentPath);
-                        if (state == null) {
-                            objectStateService.insertNewEntry(site, currentPath);
-                        }
-                    }
-
-                    importedPaths.add(filePath);
-                    importedFullPaths.add(fullPath);
-                } else {
-                    logger.debug("[IMPORT] " + filePath
-                                + " exists and set to not to overrwite. skipping this file.");
-
+            try {
+                for (ImportItem item : items) {
+                    contents.put(item.path, new FileInputStream(item.file));
                 }
+                contentService.writeContents(site, contents, commitId -> processContents(batch, items, commitId));
+            } catch (FileNotFoundException | ServiceLayerException e) {
+                logger.error("[IMPORT] failed to import " + items.size() + " files in " + site, e);
+                contents.values().forEach(ContentUtils::release);
+                return;
             }
-        } catch (FileNotFoundException e) {
-            logger.warn("[IMPORT] " + filePath + " does not exist.");
 
-        } catch (ServiceLayerException e) {
-            logger.error("[IMPORT] failed to import " + filePath, e);
+            // update state
+            objectStateService.resetObjectStates(site, newPaths);
+            for (String path : existingPaths) {
+                objectStateService.transition(site, path, TransitionEvent.SAVE);
+            }
         } finally {
-            ContentUtils.release(in);
+            objectStateService.setSystemProcessingBulk(site, paths, false);
+        }
+
+        for (ImportItem item : items) {
+            batch.importedPaths.add(item.path);
+            batch.importedFullPaths.add(batch.targetRoot + item.path);
+        }
+    }
+
+    /**
+     * run every file of a batch through its process chain, the files have already been committed
+     *
+     * @param batch
+     * @param items
+     * @param commitId
+     */
+    protected void processContents(ImportBatch batch, List<ImportItem> items, String commitId) {
+        String site = batch.site;
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        List<ItemMetadata> metadata = new ArrayList<ItemMetadata>();
+        for (ImportItem item : items) {
+            if (!item.exists) {
+                ItemMetadata entry = new ItemMetadata();
+                entry.setPath(item.path);
+                entry.setName(item.name);
+                entry.setModified(now);
+                entry.setModifier(getAssignee());
+                entry.setOwner(getAssignee());
+                entry.setCreator(getAssignee());
+                entry.setCommitId(commitId);
+                metadata.add(entry);
+            } else if (item.isXml) {
+                // assets get their commit id from the process chain
+                if (!objectMetadataManager.metadataExist(site, item.path)) {
+                    objectMetadataManager.insertNewObjectMetadata(site, item.path);
+                }
+                objectMetadataManager.updateCommitId(site, item.path, commitId);
+            }
+        }
+        objectMetadataManager.resetObjectMetadata(site, metadata);
+
+        for (ImportItem item : items) {
+            String processChain = item.isXml ? getXmlChainName() : getAssetChainName();
+            logger.debug("[IMPORT] processing " + item.path + " with process chain [ " + processChain + "]");
+            Map<String, String> params = createParams(site, item.isXml, batch.targetRoot, item.parentPath,
+                    item.name, item.exists);
+            String id = site + ":" + item.path + ":" + item.name;
+            try (InputStream in = new FileInputStream(item.file)) {
+                contentService.processContent(id, in, item.isXml, params, processChain);
+            } catch (Exception e) {
+                logger.error("[IMPORT] failed to import " + item.path, e);
+            }
         }
-        logger.debug("[IMPORT] done writing file: " + parentPath + FILE_SEPARATOR + name
-                + ", time: " + (System.currentTimeMillis() - startTimeWrite));
     }
 
     /**
@@ -469,10 +498,11 @@ public class ImportServiceImpl implements ImportService {
      * @param targetRoot
      * @param parentPath
      * @param name
+     * @param exists
      * @return
      */
     private Map<String, String> createParams(String site, boolean isXml, String targetRoot, String parentPath,
-                                             String name) {
+                                             String name, boolean exists) {
         Map<String, String> params = new HashMap<String, String>();
         String filePath = parentPath + FILE_SEPARATOR + name;
         String path = (isXml) ? filePath : parentPath;
@@ -484,34 +514,16 @@ public class ImportServiceImpl implements ImportService {
         params.put(DmConstants.KEY_USER, getAssignee());
         params.put(DmConstants.KEY_CREATE_FOLDERS, "true");
         params.put(DmConstants.KEY_UNLOCK, "true");
+        params.put(DmConstants.KEY_CONTENT_EXISTS, String.valueOf(exists));
         logger.debug("[IMPORT] creating/updating " + filePath);
         return params;
     }
 
-    /**
-     * pause the process if it reached the interval
-     */
-    protected void pause() {
-        if (this.pauseEanbeld) {
-            if (System.currentTimeMillis() >= this.nextStop) {
-                logger.debug("[IMPORT] pausing import process.");
-                try {
-                    Thread.sleep(this.currentDelayLength);
-                    this.nextStop = System.currentTimeMillis() + this.currentDelayInterval;
-                } catch (InterruptedException e) {
-                    logger.error("[IMPORT] error while pausing import process.", e);
-                }
-                logger.debug("[IMPORT] done pausing import process.");
-            }
-        }
-    }
-
     /**
      * create files from a list
      *
      * @param site
-     * @param importedPaths
-     * @param importedFullPaths
+     * @param batch
      * @param nodes
      * @param fileRoot
      * @param targetRoot
@@ -521,9 +533,8 @@ public class ImportServiceImpl implements ImportService {
      * @param overWrite
      * @param user
      */
-    protected void createFiles(String site, Set<String> importedPaths, List<String> importedFullPaths,
-                               List<Node> nodes, String fileRoot, String targetRoot, String parentPath,
-                               boolean overWrite, String user) {
+    protected void createFiles(String site, ImportBatch batch, List<Node> nodes, String fileRoot, String targetRoot,
+                               String parentPath, boolean overWrite, String user) {
         logger.info("[IMPORT] createFiles: fileRoot [" + fileRoot + "] parentFullPath [" + parentPath
                     + "] overwrite[" + overWrite + "]");
         if (nodes != null) {
@@ -533,8 +544,7 @@ public class ImportServiceImpl implements ImportService {
                 boolean fileOverwrite = (StringUtils.isEmpty(value)) ? overWrite : ContentFormatUtils
                         .getBooleanValue(value);
                 if (!StringUtils.isEmpty(name)) {
-                    writeContentInTransaction(site, importedPaths, importedFullPaths, fileRoot, targetRoot,
-                            parentPath, name, fileOverwrite, user);
+                    batch.add(fileRoot, parentPath, name, fileOverwrite);
                 }
             }
         }
@@ -641,6 +651,14 @@ public class ImportServiceImpl implements ImportService {
         this.objectStateService = objectStateService;
     }
 
+    public ObjectMetadataManager getObjectMetadataManager() {
+        return objectMetadataManager;
+    }
+
+    public void setObjectMetadataManager(ObjectMetadataManager objectMetadataManager) {
+        this.objectMetadataManager = objectMetadataManager;
+    }
+
     public DmPublishService getDmPublishService() {
         return dmPublishService;
     }
@@ -669,6 +687,152 @@ public class ImportServiceImpl implements ImportService {
         return studioConfiguration.getProperty(IMPORT_ASSET_CHAIN_NAME);
     }
 
+    public int getBatchSize() {
+        return studioConfiguration.getProperty(IMPORT_BATCH_SIZE, Integer.class, 100);
+    }
+
+    public int getThreadPoolSize() {
+        return studioConfiguration.getProperty(IMPORT_THREAD_POOL_SIZE, Integer.class, 4);
+    }
+
+    public double getThrottleLatencyRatio() {
+        return studioConfiguration.getProperty(IMPORT_THROTTLE_LATENCY_RATIO, Double.class, 2.0);
+    }
+
+    public long getThrottleMaxPause() {
+        return studioConfiguration.getProperty(IMPORT_THROTTLE_MAX_PAUSE, Long.class, 30000L);
+    }
+
+    /**
+     * Files found by an import run that are waiting to be written. Files are checked and parsed in the import thread
+     * pool as soon as they are found, once the batch is full they are written in a single commit. The time taken by
+     * each batch is used to pause the import when the repository or the database become slower than usual.
+     */
+    protected class ImportBatch {
+
+        protected final String site;
+        protected final String targetRoot;
+        protected final Set<String> importedPaths;
+        protected final List<String> importedFullPaths;
+        protected final long maxPause;
+        protected final int batchSize;
+        protected final double latencyRatio;
+        protected final ExecutorService executor;
+
+        /**
+         * files being prepared, the walk blocks once there is a full batch so this is never bigger than batchSize
+         */
+        protected List<Future<ImportItem>> pending = new ArrayList<Future<ImportItem>>();
+
+        /**
+         * lowest time per file in ms seen for a batch, used as the reference for the expected latency
+         */
+        protected double baselineLatency = -1;
+
+        public ImportBatch(String site, String targetRoot, Set<String> importedPaths, List<String> importedFullPaths,
+                           long maxPause) {
+            this.site = site;
+            this.targetRoot = targetRoot;
+            this.importedPaths = importedPaths;
+            this.importedFullPaths = importedFullPaths;
+            this.maxPause = maxPause;
+            this.batchSize = Math.max(1, getBatchSize());
+            this.latencyRatio = getThrottleLatencyRatio();
+            this.executor = Executors.newFixedThreadPool(Math.max(1, getThreadPoolSize()));
+        }
+
+        public void add(String fileRoot, String parentPath, String name, boolean overWrite) {
+            ImportItem item = new ImportItem(fileRoot, parentPath, name, overWrite);
+            pending.add(executor.submit(() -> prepareContent(this, item)));
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        public void flush() {
+            List<ImportItem> items = new ArrayList<ImportItem>(pending.size());
+            try {
+                for (Future<ImportItem> future : pending) {
+                    try {
+                        ImportItem item = future.get();
+                        if (item != null) {
+                            items.add(item);
+                        }
+                    } catch (ExecutionException e) {
+                        logger.error("[IMPORT] failed to prepare file for import", e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                logger.error("[IMPORT] interrupted while preparing files for import", e);
+                pending.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                pending = new ArrayList<Future<ImportItem>>();
+            }
+
+            if (!items.isEmpty()) {
+                long startTime = System.currentTimeMillis();
+                writeContents(this, items);
+                throttle(System.currentTimeMillis() - startTime, items.size());
+            }
+        }
+
+        /**
+         * pause the process when writing the last batch was slower than the baseline by more than the configured
+         * ratio, for as long as the extra time it took
+         */
+        protected void throttle(long elapsed, int count) {
+            double latency = (double) elapsed / count;
+            if (baselineLatency < 0 || latency < baselineLatency) {
+                baselineLatency = latency;
+            } else if (latency > baselineLatency * latencyRatio) {
+                long pauseLength = Math.min(maxPause, elapsed - Math.round(baselineLatency * count));
+                logger.debug("[IMPORT] pausing import process for " + pauseLength + " ms, time per file: "
+                        + latency + " ms, expected: " + baselineLatency + " ms");
+                try {
+                    Thread.sleep(pauseLength);
+                } catch (InterruptedException e) {
+                    logger.error("[IMPORT] error while pausing import process.", e);
+                    Thread.currentThread().interrupt();
+                }
+                logger.debug("[IMPORT] done pausing import process.");
+            }
+        }
+
+        public void close() {
+            executor.shutdownNow();
+        }
+
+    }
+
+    /**
+     * a single file to import
+     */
+    protected static class ImportItem {
+
+        protected final String parentPath;
+        protected final String name;
+        protected final String path;
+        protected final File file;
+        protected final boolean overWrite;
+        protected final boolean isXml;
+        /**
+         * does the content already exist in the site?
+         */
+        protected boolean exists;
+
+        public ImportItem(String fileRoot, String parentPath, String name, boolean overWrite) {
+            this.parentPath = parentPath;
+            this.name = name;
+            this.path = parentPath + FILE_SEPARATOR + name;
+            this.file = new File(fileRoot + FILE_SEPARATOR + name);
+            this.overWrite = overWrite;
+            this.isXml = name.endsWith(".xml");
+        }
+
+    }
+
     /**
      * publishing channel
      * @author hyanghee
@@ -26,8 +26,11 @@ import org.craftercms.studio.api.v1.dal.ItemMetadataMapper;
 import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.service.content.ObjectMetadataManager;
+import org.craftercms.studio.impl.v1.service.workflow.DashboardProjection;
 import org.springframework.dao.DuplicateKeyException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +40,7 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
     private final static Logger logger = LoggerFactory.getLogger(ObjectMetadataManagerImpl.class);
 
     protected ItemMetadataMapper itemMetadataMapper;
+    protected DashboardProjection dashboardProjection;
 
     @Override
     @ValidateParams
@@ -52,6 +56,7 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
             logger.debug("Failed to insert metadata for site: " + site + " and path: " + path +
                     " into item_metadata table, because it is duplicate entry.");
         }
+        dashboardProjection.invalidate(site, path);
     }
 
     @Override
@@ -65,6 +70,7 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
         params.put("path", path);
         params.putAll(properties);
         itemMetadataMapper.setProperties(params);
+        dashboardProjection.invalidate(site, path);
     }
 
     @Override
@@ -77,11 +83,13 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
         params.put("commitId", commitId);
         params.putAll(properties);
         itemMetadataMapper.setPropertiesForCommit(params);
+        dashboardProjection.invalidateSite(site);
     }
 
     @Override
     public void updateObjectMetadata(ItemMetadata itemMetadata) {
         itemMetadataMapper.updateObjectMetadata(itemMetadata);
+        dashboardProjection.invalidate(itemMetadata.getSite(), itemMetadata.getPath());
     }
 
     @Override
@@ -95,6 +103,22 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
         return itemMetadataMapper.getProperties(params);
     }
 
+    @Override
+    @ValidateParams
+    public List<ItemMetadata> getProperties(@ValidateStringParam(name = "site") String site, List<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            return new ArrayList<>(0);
+        }
+        List<String> cleanPaths = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            cleanPaths.add(FilenameUtils.normalize(path, true));
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("site", site);
+        params.put("paths", cleanPaths);
+        return itemMetadataMapper.getPropertiesForPaths(params);
+    }
+
     @Override
     @ValidateParams
     public boolean metadataExist(@ValidateStringParam(name = "site") String site,
@@ -153,6 +177,7 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
         params.put("path", path);
         params.put("lockOwner", lockOwner);
         itemMetadataMapper.setLockOwner(params);
+        dashboardProjection.invalidate(site, path);
     }
 
     @Override
@@ -168,6 +193,7 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
         params.put("path", path);
         params.put("lockOwner", null);
         itemMetadataMapper.setLockOwner(params);
+        dashboardProjection.invalidate(site, path);
     }
 
     @Override
@@ -176,6 +202,24 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
         Map<String, String> params = new HashMap<>();
         params.put("site", site);
         itemMetadataMapper.deleteObjectMetadataForSite(params);
+        dashboardProjection.invalidateSite(site);
+    }
+
+    @Override
+    @ValidateParams
+    public void resetObjectMetadata(@ValidateStringParam(name = "site") String site, List<ItemMetadata> items) {
+        if (items != null && !items.isEmpty()) {
+            List<String> paths = new ArrayList<>(items.size());
+            for (ItemMetadata item : items) {
+                item.setSite(site);
+                item.setPath(FilenameUtils.normalize(item.getPath(), true));
+                paths.add(item.getPath());
+            }
+            Map<String, Object> params = new HashMap<>();
+            params.put("entries", items);
+            itemMetadataMapper.resetEntries(params);
+            dashboardProjection.invalidate(site, paths);
+        }
     }
 
     @Override
@@ -187,6 +231,7 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
         params.put("site", site);
         params.put("path", path);
         itemMetadataMapper.deleteEntry(params);
+        dashboardProjection.invalidate(site, path);
     }
 
     @Override
@@ -198,6 +243,7 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
         params.put("site", site);
         params.put("path", path + "/%");
         itemMetadataMapper.deleteFolder(params);
+        dashboardProjection.invalidateFolder(site, path);
     }
 
     @Override
@@ -212,6 +258,7 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
         params.put("oldPath", oldPath);
         params.put("newPath", newPath);
         itemMetadataMapper.updateObjectPath(params);
+        dashboardProjection.invalidate(site, Arrays.asList(oldPath, newPath));
     }
 
     @Override
@@ -223,6 +270,7 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
         params.put("renamed", false);
         params.put(ItemMetadata.PROP_OLD_URL, "");
         setObjectMetadata(site, path, params);
+        dashboardProjection.invalidate(site, path);
     }
 
     @Override
@@ -236,6 +284,7 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
         params.put("path", path);
         params.put("commitId", commitId);
         itemMetadataMapper.updateCommitId(params);
+        dashboardProjection.invalidate(site, path);
     }
 
     @Override
@@ -258,6 +307,18 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
         return itemMetadataMapper.getSameCommitItems(params);
     }
 
+    @Override
+    @ValidateParams
+    public List<String> getSameCommitItems(@ValidateStringParam(name = "site") String site, List<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            return new ArrayList<String>();
+        }
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("siteId", site);
+        params.put("paths", paths);
+        return itemMetadataMapper.getSameCommitItemsForPaths(params);
+    }
+
     @Override
     @ValidateParams
     public int countAllItems() {
@@ -272,4 +333,12 @@ public class ObjectMetadataManagerImpl implements ObjectMetadataManager {
     public void setItemMetadataMapper(ItemMetadataMapper itemMetadataMapper) {
         this.itemMetadataMapper = itemMetadataMapper;
     }
+
+    public DashboardProjection getDashboardProjection() {
+        return dashboardProjection;
+    }
+
+    public void setDashboardProjection(DashboardProjection dashboardProjection) {
+        this.dashboardProjection = dashboardProjection;
+    }
 }
@@ -53,8 +53,10 @@ import org.craftercms.studio.api.v1.service.event.EventService;
 import org.craftercms.studio.api.v1.service.objectstate.ObjectStateService;
 import org.craftercms.studio.api.v1.service.security.SecurityService;
 import org.craftercms.studio.api.v1.service.site.SiteService;
+import org.craftercms.studio.api.v1.to.BulkPublishStatusTO;
 import org.craftercms.studio.api.v1.to.ContentItemTO;
 import org.craftercms.studio.api.v1.to.DmDeploymentTaskTO;
+import org.craftercms.studio.api.v1.to.PreviewSyncStatusTO;
 import org.craftercms.studio.api.v1.to.PublishStatus;
 import org.craftercms.studio.api.v1.to.PublishingChannelTO;
 import org.craftercms.studio.api.v1.to.PublishingTargetTO;
@@ -62,6 +64,7 @@ import org.craftercms.studio.api.v1.to.RepoOperationTO;
 import org.craftercms.studio.api.v1.util.DmContentItemComparator;
 import org.craftercms.studio.api.v1.util.filter.DmFilterWrapper;
 import org.craftercms.studio.api.v2.dal.AuditLog;
+import org.craftercms.studio.api.v2.deployment.PreviewSyncStatusProvider;
 import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
 import org.craftercms.studio.api.v2.service.notification.NotificationService;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
@@ -122,6 +125,7 @@ public class DeploymentServiceImpl implements DeploymentService {
     protected StudioConfiguration studioConfiguration;
     protected PublishRequestMapper publishRequestMapper;
     protected AuditServiceInternal auditServiceInternal;
+    protected PreviewSyncStatusProvider previewSyncStatusProvider;
 
     @Override
     @ValidateParams
@@ -800,9 +804,20 @@ public class DeploymentServiceImpl implements DeploymentService {
             throws ServiceLayerException {
         PreviewEventContext context = new PreviewEventContext(waitTillDone);
         context.setSite(site);
+        context.setForce(true);
         eventService.publish(EVENT_PREVIEW_SYNC, context);
     }
 
+    @Override
+    @ValidateParams
+    public PreviewSyncStatusTO getPreviewSyncStatus(@ValidateStringParam(name = "site") String site)
+            throws SiteNotFoundException {
+        if (!siteService.exists(site)) {
+            throw new SiteNotFoundException();
+        }
+        return previewSyncStatusProvider.getPreviewSyncStatus(site);
+    }
+
     @Override
     @ValidateParams
     public void bulkGoLive(@ValidateStringParam(name = "site") String site,
@@ -812,6 +827,18 @@ public class DeploymentServiceImpl implements DeploymentService {
         dmPublishService.bulkGoLive(site, environment, path, comment);
     }
 
+    @Override
+    @ValidateParams
+    public BulkPublishStatusTO getBulkPublishStatus(@ValidateStringParam(name = "site") String site) {
+        return dmPublishService.getBulkPublishStatus(site);
+    }
+
+    @Override
+    @ValidateParams
+    public boolean cancelBulkPublish(@ValidateStringParam(name = "site") String site) {
+        return dmPublishService.cancelBulkPublish(site);
+    }
+
     @Override
     @ValidateParams
     public PublishStatus getPublishStatus(@ValidateStringParam(name = "site") String site)
@@ -1123,4 +1150,12 @@ public class DeploymentServiceImpl implements DeploymentService {
     public void setAuditServiceInternal(AuditServiceInternal auditServiceInternal) {
         this.auditServiceInternal = auditServiceInternal;
     }
+
+    public PreviewSyncStatusProvider getPreviewSyncStatusProvider() {
+        return previewSyncStatusProvider;
+    }
+
+    public void setPreviewSyncStatusProvider(PreviewSyncStatusProvider previewSyncStatusProvider) {
+        this.previewSyncStatusProvider = previewSyncStatusProvider;
+    }
 }
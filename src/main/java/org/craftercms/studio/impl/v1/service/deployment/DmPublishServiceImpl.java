@@ -19,11 +19,13 @@ package org.craftercms.studio.impl.v1.service.deployment;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.commons.validation.annotations.param.ValidateParams;
 import org.craftercms.commons.validation.annotations.param.ValidateSecurePathParam;
@@ -45,9 +47,13 @@ import org.craftercms.studio.api.v1.service.objectstate.ObjectStateService;
 import org.craftercms.studio.api.v1.service.security.SecurityService;
 import org.craftercms.studio.api.v1.service.site.SiteService;
 import org.craftercms.studio.api.v1.service.workflow.context.MultiChannelPublishingContext;
+import org.craftercms.studio.api.v1.to.BulkPublishStatusTO;
 import org.craftercms.studio.api.v1.to.PublishingTargetTO;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PUBLISHING_BULK_PACKAGE_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PUBLISHING_BULK_QUERY_BATCH_SIZE;
 
 public class DmPublishServiceImpl extends AbstractRegistrableService implements DmPublishService {
 
@@ -61,6 +67,10 @@ public class DmPublishServiceImpl extends AbstractRegistrableService implements
     protected ObjectMetadataManager objectMetadataManager;
     protected ObjectStateService objectStateService;
     protected DependencyService dependencyService;
+    protected StudioConfiguration studioConfiguration;
+
+    protected final Map<String, BulkPublishStatusTO> bulkPublishStatuses =
+            new ConcurrentHashMap<String, BulkPublishStatusTO>();
 
     @Override
     public void register() {
@@ -147,53 +157,126 @@ public class DmPublishServiceImpl extends AbstractRegistrableService implements
                            @ValidateStringParam String environment,
                            @ValidateSecurePathParam(name = "path") String path,
                            String comment) throws ServiceLayerException {
+        BulkPublishStatusTO status = new BulkPublishStatusTO(site, path, environment, ZonedDateTime.now(ZoneOffset.UTC));
+        BulkPublishStatusTO current = bulkPublishStatuses.compute(site, (key, previous) ->
+                previous != null && previous.isRunning() ? previous : status);
+        if (current != status) {
+            throw new ServiceLayerException("Bulk Publish for site " + site + " is already running for path " +
+                    current.getPath());
+        }
+
         logger.info("Starting Bulk Publish to '" + environment + "' for path " + path + " site " + site);
+        try {
+            List<String> pathsToPublish = planBulkGoLive(site, path, status);
+            if (status.isCancelRequested()) {
+                status.setState(BulkPublishStatusTO.State.CANCELLED);
+                logger.info("Bulk Publish to '" + environment + "' for path " + path + " site " + site +
+                        " cancelled while calculating the items to publish");
+                return;
+            }
 
+            String approver = securityService.getCurrentUser();
+            if (StringUtils.isEmpty(comment)) {
+                comment = "Bulk Publish invoked by " + approver;
+            }
+            int packageSize = studioConfiguration.getProperty(PUBLISHING_BULK_PACKAGE_SIZE, Integer.class, 1000);
+            List<List<String>> packages = ListUtils.partition(pathsToPublish, Math.max(packageSize, 1));
+            status.setTotalPackages(packages.size());
+            status.setState(BulkPublishStatusTO.State.SUBMITTING);
+
+            ZonedDateTime launchDate = ZonedDateTime.now(ZoneOffset.UTC);
+            for (List<String> pkg : packages) {
+                // Packages already submitted stay in the publishing queue, cancelling only stops the next ones
+                if (status.isCancelRequested()) {
+                    status.setState(BulkPublishStatusTO.State.CANCELLED);
+                    logger.info("Bulk Publish to '" + environment + "' for path " + path + " site " + site +
+                            " cancelled after " + status.getSubmittedPackages() + " of " + packages.size() +
+                            " packages");
+                    return;
+                }
+                logger.info("Deploying package of " + pkg.size() + " items to '" + environment + "' for site " +
+                        site + " path " + path);
+                try {
+                    deploymentService.deploy(site, environment, new ArrayList<String>(pkg), launchDate, approver,
+                            comment, true);
+                    status.setSubmittedItems(status.getSubmittedItems() + pkg.size());
+                    status.setSubmittedPackages(status.getSubmittedPackages() + 1);
+                } catch (DeploymentException e) {
+                    // A failed package doesn't affect the others, keep submitting them
+                    status.setFailedItems(status.getFailedItems() + pkg.size());
+                    status.setFailedPackages(status.getFailedPackages() + 1);
+                    logger.error("Error deploying package of " + pkg.size() + " items to '" + environment +
+                            "' for site " + site + " path " + path, e);
+                }
+            }
+            if (status.getFailedPackages() > 0) {
+                status.setState(BulkPublishStatusTO.State.FAILED);
+                logger.error("Bulk Publish to '" + environment + "' for path " + path + " site " + site + " failed " +
+                        "to submit " + status.getFailedPackages() + " of " + packages.size() + " packages");
+            } else {
+                status.setState(BulkPublishStatusTO.State.COMPLETED);
+            }
+        } catch (ServiceLayerException | RuntimeException e) {
+            status.setState(BulkPublishStatusTO.State.FAILED);
+            throw e;
+        }
+        logger.info("Finished Bulk Publish to '" + environment + "' for path " + path + " site " + site);
+    }
+
+    /**
+     * Calculates the full, deduplicated list of items to publish for the subtree: the change set, the items
+     * changed in the same commits and their publishing dependencies. Queries are done for batches of paths
+     * instead of one path at a time.
+     */
+    protected List<String> planBulkGoLive(String site, String path, BulkPublishStatusTO status)
+            throws ServiceLayerException {
         String queryPath = path;
         if (queryPath.startsWith(FILE_SEPARATOR + DmConstants.INDEX_FILE)) {
             queryPath = queryPath.replace(FILE_SEPARATOR + DmConstants.INDEX_FILE, "");
         }
 
         logger.debug("Get change set for subtree for site: " + site + " root path: " + queryPath);
-        List<String> childrenPaths = new ArrayList<String>();
-
-        childrenPaths = objectStateService.getChangeSetForSubtree(site, queryPath);
-
+        List<String> childrenPaths = objectStateService.getChangeSetForSubtree(site, queryPath);
         logger.debug("Collected " + childrenPaths.size() + " content items for site " + site + " and root path "
                 + queryPath);
-        Set<String> processedPaths = new HashSet<String>();
-        ZonedDateTime launchDate = ZonedDateTime.now(ZoneOffset.UTC);
-        for (String childPath : childrenPaths) {
-            String childHash = DigestUtils.md2Hex(childPath);
-            logger.debug("Processing dependencies for site " + site + " path " + childPath);
-            if (processedPaths.add(childHash)) {
-                List<String> pathsToPublish = new ArrayList<String>();
-                List<String> candidatesToPublish = new ArrayList<String>();
-                pathsToPublish.add(childPath);
-                candidatesToPublish.addAll(objectMetadataManager.getSameCommitItems(site, childPath));
-                candidatesToPublish.addAll(dependencyService.getPublishingDependencies(site, childPath));
-                for (String pathToAdd : candidatesToPublish) {
-                    String hash = DigestUtils.md2Hex(pathToAdd);
-                    if (processedPaths.add(hash)) {
-                        pathsToPublish.add(pathToAdd);
-                    }
-                }
-                String aprover = securityService.getCurrentUser();
-                if (StringUtils.isEmpty(comment)) {
-                    comment = "Bulk Publish invoked by " + aprover;
-                }
-                logger.info("Deploying package of " + pathsToPublish.size() + " items to '" + environment +
-                        "' for site" + site + " path " + childPath);
-                try {
-                    deploymentService.deploy(site, environment, pathsToPublish, launchDate, aprover, comment, true);
-                } catch (DeploymentException e) {
-                    logger.error("Error while running Bulk Publish operation", e);
-                } finally {
-                    logger.debug("Finished processing deployment package for path " + childPath + " site " + site);
-                }
+
+        int batchSize = studioConfiguration.getProperty(PUBLISHING_BULK_QUERY_BATCH_SIZE, Integer.class, 1000);
+        Set<String> pathsToPublish = new LinkedHashSet<String>(childrenPaths);
+        for (List<String> batch : ListUtils.partition(childrenPaths, Math.max(batchSize, 1))) {
+            if (status.isCancelRequested()) {
+                break;
             }
+            pathsToPublish.addAll(objectMetadataManager.getSameCommitItems(site, batch));
+            status.setTotalItems(pathsToPublish.size());
         }
-        logger.info("Finished Bulk Publish to '" + environment + "' for path " + path + " site " + site);
+
+        // Dependencies of the items added by same commit lookup need to be published too
+        List<String> candidates = new ArrayList<String>(pathsToPublish);
+        for (List<String> batch : ListUtils.partition(candidates, Math.max(batchSize, 1))) {
+            if (status.isCancelRequested()) {
+                break;
+            }
+            pathsToPublish.addAll(dependencyService.getPublishingDependencies(site, batch));
+            status.setTotalItems(pathsToPublish.size());
+        }
+
+        return new ArrayList<String>(pathsToPublish);
+    }
+
+    @Override
+    public BulkPublishStatusTO getBulkPublishStatus(String site) {
+        return bulkPublishStatuses.get(site);
+    }
+
+    @Override
+    public boolean cancelBulkPublish(String site) {
+        BulkPublishStatusTO status = bulkPublishStatuses.get(site);
+        if (status == null || !status.isRunning()) {
+            return false;
+        }
+        logger.info("Cancelling Bulk Publish for path " + status.getPath() + " site " + site);
+        status.setCancelRequested(true);
+        return true;
     }
 
     public void setDeploymentService(DeploymentService deploymentService) {
@@ -255,4 +338,12 @@ public class DmPublishServiceImpl extends AbstractRegistrableService implements
     public void setDependencyService(DependencyService dependencyService) {
         this.dependencyService = dependencyService;
     }
+
+    public StudioConfiguration getStudioConfiguration() {
+        return studioConfiguration;
+    }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
 }
@@ -21,10 +21,14 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.commons.validation.annotations.param.ValidateParams;
 import org.craftercms.commons.validation.annotations.param.ValidateStringParam;
@@ -32,6 +36,7 @@ import org.craftercms.studio.api.v1.constant.DmConstants;
 import org.craftercms.studio.api.v1.dal.PublishRequest;
 import org.craftercms.studio.api.v1.dal.PublishRequestMapper;
 import org.craftercms.studio.api.v1.dal.ItemMetadata;
+import org.craftercms.studio.api.v1.dal.ItemState;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v1.log.Logger;
@@ -47,6 +52,7 @@ import org.craftercms.studio.api.v1.service.deployment.DeploymentHistoryProvider
 import org.craftercms.studio.api.v1.service.deployment.DeploymentService;
 import org.craftercms.studio.api.v1.service.deployment.PublishingManager;
 import org.craftercms.studio.api.v1.service.objectstate.ObjectStateService;
+import org.craftercms.studio.api.v1.service.objectstate.State;
 import org.craftercms.studio.api.v1.service.objectstate.TransitionEvent;
 import org.craftercms.studio.api.v1.service.site.SiteService;
 import org.craftercms.studio.api.v1.to.ContentItemTO;
@@ -63,6 +69,7 @@ import static org.craftercms.studio.api.v2.dal.QueryParameterNames.READY_STATE;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PUBLISHING_MANAGER_INDEX_FILE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PUBLISHING_MANAGER_PUBLISHING_WITHOUT_DEPENDENCIES_ENABLED;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PUBLISHING_MANAGER_STATE_UPDATE_BATCH_SIZE;
 
 public class PublishingManagerImpl implements PublishingManager {
 
@@ -257,10 +264,7 @@ public class PublishingManagerImpl implements PublishingManager {
     public void markItemsCompleted(@ValidateStringParam(name = "site") String site,
                                    @ValidateStringParam(name = "environment") String environment,
                                    List<PublishRequest> processedItems) throws DeploymentException {
-        for (PublishRequest item : processedItems) {
-            item.setState(PublishRequest.State.COMPLETED);
-            publishRequestMapper.updateItemDeploymentState(item);
-        }
+        updateItemsState(processedItems, PublishRequest.State.COMPLETED);
     }
 
     @Override
@@ -268,10 +272,7 @@ public class PublishingManagerImpl implements PublishingManager {
     public void markItemsProcessing(@ValidateStringParam(name = "site") String site,
                                     @ValidateStringParam(name = "environment") String environment,
                                     List<PublishRequest> itemsToDeploy) throws DeploymentException {
-        for (PublishRequest item : itemsToDeploy) {
-            item.setState(PublishRequest.State.PROCESSING);
-            publishRequestMapper.updateItemDeploymentState(item);
-        }
+        updateItemsState(itemsToDeploy, PublishRequest.State.PROCESSING);
     }
 
     @Override
@@ -279,10 +280,7 @@ public class PublishingManagerImpl implements PublishingManager {
     public void markItemsReady(@ValidateStringParam(name = "site") String site,
                                @ValidateStringParam(name = "environment") String environment,
                                List<PublishRequest> copyToEnvironmentItems) throws DeploymentException {
-        for (PublishRequest item : copyToEnvironmentItems) {
-            item.setState(READY_FOR_LIVE);
-            publishRequestMapper.updateItemDeploymentState(item);
-        }
+        updateItemsState(copyToEnvironmentItems, READY_FOR_LIVE);
     }
 
     @Override
@@ -290,75 +288,187 @@ public class PublishingManagerImpl implements PublishingManager {
     public void markItemsBlocked(@ValidateStringParam(name = "site") String site,
                                  @ValidateStringParam(name = "environment") String environment,
                                  List<PublishRequest> copyToEnvironmentItems) throws DeploymentException {
-        for (PublishRequest item : copyToEnvironmentItems) {
-            item.setState(PublishRequest.State.BLOCKED);
-            publishRequestMapper.updateItemDeploymentState(item);
+        updateItemsState(copyToEnvironmentItems, PublishRequest.State.BLOCKED);
+    }
+
+    /**
+     * Updates the state of the given items with one statement per batch instead of one per item.
+     */
+    protected void updateItemsState(List<PublishRequest> items, String state) {
+        if (CollectionUtils.isEmpty(items)) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(items.size());
+        for (PublishRequest item : items) {
+            item.setState(state);
+            ids.add(item.getId());
+        }
+
+        int batchSize = studioConfiguration.getProperty(PUBLISHING_MANAGER_STATE_UPDATE_BATCH_SIZE, Integer.class, 500);
+        for (List<Long> batch : ListUtils.partition(ids, batchSize)) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("ids", batch);
+            params.put("state", state);
+            publishRequestMapper.updateItemsDeploymentState(params);
         }
     }
 
     @Override
-    public List<DeploymentItemTO> processMandatoryDependencies(PublishRequest item,
-                                                               Set<String> pathsToDeploy,
-                                                               Set<String> missingDependenciesPaths)
-            throws DeploymentException, ServiceLayerException {
-        List<DeploymentItemTO> mandatoryDependencies = new ArrayList<DeploymentItemTO>();
-        String site = item.getSite();
-        String path = item.getPath();
+    @ValidateParams
+    public List<PublishRequest> planMandatoryDependencies(@ValidateStringParam(name = "site") String site,
+                                                          List<PublishRequest> items)
+            throws ServiceLayerException {
+        Map<String, PublishRequest> plan = new LinkedHashMap<>();
+        Set<String> visitedPaths = new HashSet<>();
+        List<PublishRequest> pending = new ArrayList<>();
+        for (PublishRequest item : items) {
+            visitedPaths.add(item.getPath());
+            if (isNewOrMoved(item)) {
+                pending.add(item);
+            }
+        }
 
-        if (StringUtils.equals(item.getAction(), PublishRequest.Action.NEW) ||
-                StringUtils.equals(item.getAction(), PublishRequest.Action.MOVE)) {
-            if (ContentUtils.matchesPatterns(path, servicesConfig.getPagePatterns(site))) {
-                String helpPath = path.replace(FILE_SEPARATOR + getIndexFile(), "");
-                int idx = helpPath.lastIndexOf(FILE_SEPARATOR);
-                String parentPath = helpPath.substring(0, idx) + FILE_SEPARATOR + getIndexFile();
-                if (objectStateService.isNew(site, parentPath) || objectMetadataManager.isRenamed(site, parentPath)) {
-                    if (!missingDependenciesPaths.contains(parentPath) && !pathsToDeploy.contains(parentPath)) {
-                        deploymentService.cancelWorkflow(site, parentPath);
-                        missingDependenciesPaths.add(parentPath);
-                        PublishRequest parentItem = createMissingItem(site, parentPath, item);
-                        DeploymentItemTO parentDeploymentItem = processItem(parentItem);
-                        mandatoryDependencies.add(parentDeploymentItem);
-                        mandatoryDependencies.addAll(
-                                processMandatoryDependencies(parentItem, pathsToDeploy, missingDependenciesPaths));
+        List<String> pagePatterns = servicesConfig.getPagePatterns(site);
+        boolean withDependencies = !isEnablePublishingWithoutDependencies();
+        while (!pending.isEmpty()) {
+            // Candidate path -> item that requires it, parents go first like in the item by item resolution
+            Map<String, PublishRequest> candidates = new LinkedHashMap<>();
+            for (PublishRequest item : pending) {
+                if (ContentUtils.matchesPatterns(item.getPath(), pagePatterns)) {
+                    String parentPath = getParentPagePath(item.getPath());
+                    if (!visitedPaths.contains(parentPath)) {
+                        candidates.putIfAbsent(parentPath, item);
                     }
                 }
             }
-
-            if (!isEnablePublishingWithoutDependencies()) {
-                Set<String> dependentPaths = dependencyService.getPublishingDependencies(site, path);
-                for (String dependentPath : dependentPaths) {
-                    // TODO: SJ: This bypasses the Content Service, fix
-                    if (objectStateService.isNew(site, dependentPath) ||
-                            objectMetadataManager.isRenamed(site, dependentPath)) {
-                        if (!missingDependenciesPaths.contains(dependentPath) &&
-                                !pathsToDeploy.contains(dependentPath)) {
-                            deploymentService.cancelWorkflow(site, dependentPath);
-                            missingDependenciesPaths.add(dependentPath);
-                            PublishRequest dependentItem = createMissingItem(site, dependentPath, item);
-                            DeploymentItemTO dependentDeploymentItem = processItem(dependentItem);
-                            mandatoryDependencies.add(dependentDeploymentItem);
-                            mandatoryDependencies.addAll(
-                                    processMandatoryDependencies(dependentItem, pathsToDeploy, missingDependenciesPaths));
+            if (withDependencies) {
+                // Missing items inherit the package of the item that requires them, so resolve per package
+                Map<String, List<PublishRequest>> packages = new LinkedHashMap<>();
+                for (PublishRequest item : pending) {
+                    packages.computeIfAbsent(StringUtils.defaultString(item.getPackageId()), k -> new ArrayList<>())
+                            .add(item);
+                }
+                for (List<PublishRequest> packageItems : packages.values()) {
+                    List<String> paths = new ArrayList<>(packageItems.size());
+                    for (PublishRequest item : packageItems) {
+                        paths.add(item.getPath());
+                    }
+                    for (String dependentPath : dependencyService.getPublishingDependencies(site, paths)) {
+                        if (!visitedPaths.contains(dependentPath)) {
+                            candidates.putIfAbsent(dependentPath, packageItems.get(0));
                         }
                     }
                 }
             }
+            visitedPaths.addAll(candidates.keySet());
+
+            pending = new ArrayList<>();
+            if (!candidates.isEmpty()) {
+                List<String> candidatePaths = new ArrayList<>(candidates.keySet());
+                Set<String> newPaths = getNewPaths(site, candidatePaths);
+                Map<String, ItemMetadata> metadata = getMetadata(site, candidatePaths);
+                for (Map.Entry<String, PublishRequest> candidate : candidates.entrySet()) {
+                    String path = candidate.getKey();
+                    boolean isNew = newPaths.contains(path);
+                    ItemMetadata itemMetadata = metadata.get(path);
+                    if (isNew || (itemMetadata != null && itemMetadata.getRenamed() > 0)) {
+                        PublishRequest missingItem =
+                                createMissingItem(site, path, candidate.getValue(), isNew, itemMetadata);
+                        plan.put(path, missingItem);
+                        pending.add(missingItem);
+                    }
+                }
+            }
         }
 
+        LOGGER.debug("Found {0} mandatory dependencies for {1} items in site {2}", plan.size(), items.size(), site);
+        return new ArrayList<>(plan.values());
+    }
+
+    @Override
+    @ValidateParams
+    public List<DeploymentItemTO> processMandatoryDependencies(@ValidateStringParam(name = "site") String site,
+                                                               List<PublishRequest> plan)
+            throws DeploymentException, ServiceLayerException {
+        List<DeploymentItemTO> mandatoryDependencies = new ArrayList<>(plan.size());
+        if (plan.isEmpty()) {
+            return mandatoryDependencies;
+        }
+
+        List<String> paths = new ArrayList<>(plan.size());
+        for (PublishRequest missingItem : plan) {
+            paths.add(missingItem.getPath());
+        }
+        for (List<String> batch : ListUtils.partition(paths, getBulkQuerySize())) {
+            deploymentService.cancelWorkflowBulk(site, new HashSet<>(batch));
+        }
+
+        for (PublishRequest missingItem : plan) {
+            DeploymentItemTO deploymentItem = processItem(missingItem);
+            if (deploymentItem != null) {
+                mandatoryDependencies.add(deploymentItem);
+            }
+        }
         return mandatoryDependencies;
     }
 
-    private PublishRequest createMissingItem(String site, String itemPath, PublishRequest item) {
+    private boolean isNewOrMoved(PublishRequest item) {
+        return StringUtils.equals(item.getAction(), PublishRequest.Action.NEW) ||
+                StringUtils.equals(item.getAction(), PublishRequest.Action.MOVE);
+    }
+
+    private String getParentPagePath(String path) {
+        String helpPath = path.replace(FILE_SEPARATOR + getIndexFile(), "");
+        int idx = helpPath.lastIndexOf(FILE_SEPARATOR);
+        return helpPath.substring(0, idx) + FILE_SEPARATOR + getIndexFile();
+    }
+
+    private Set<String> getNewPaths(String site, List<String> paths) {
+        Set<String> newPaths = new HashSet<>();
+        Set<String> foundPaths = new HashSet<>();
+        for (List<String> batch : ListUtils.partition(paths, getBulkQuerySize())) {
+            for (ItemState state : objectStateService.getObjectStatesForPaths(site, batch)) {
+                foundPaths.add(state.getPath());
+                if (State.isNew(State.valueOf(state.getState()))) {
+                    newPaths.add(state.getPath());
+                }
+            }
+        }
+        // Items without a state get one created from the repository
+        for (String path : paths) {
+            if (!foundPaths.contains(path) && objectStateService.isNew(site, path)) {
+                newPaths.add(path);
+            }
+        }
+        return newPaths;
+    }
+
+    private Map<String, ItemMetadata> getMetadata(String site, List<String> paths) {
+        Map<String, ItemMetadata> metadata = new HashMap<>();
+        for (List<String> batch : ListUtils.partition(paths, getBulkQuerySize())) {
+            for (ItemMetadata itemMetadata : objectMetadataManager.getProperties(site, batch)) {
+                metadata.put(itemMetadata.getPath(), itemMetadata);
+            }
+        }
+        return metadata;
+    }
+
+    private int getBulkQuerySize() {
+        return studioConfiguration.getProperty(PUBLISHING_MANAGER_STATE_UPDATE_BATCH_SIZE, Integer.class, 500);
+    }
+
+    private PublishRequest createMissingItem(String site, String itemPath, PublishRequest item, boolean isNew,
+                                             ItemMetadata metadata) {
         PublishRequest missingItem = new PublishRequest();
         missingItem.setSite(site);
         missingItem.setEnvironment(item.getEnvironment());
         missingItem.setPath(itemPath);
         missingItem.setScheduledDate(item.getScheduledDate());
         missingItem.setState(item.getState());
-        if (objectStateService.isNew(site, itemPath)) {
+        if (isNew) {
             missingItem.setAction(PublishRequest.Action.NEW);
         }
-        ItemMetadata metadata = objectMetadataManager.getProperties(site, itemPath);
         if (metadata != null) {
             if (metadata.getRenamed() != 0) {
                 String oldPath = metadata.getOldUrl();
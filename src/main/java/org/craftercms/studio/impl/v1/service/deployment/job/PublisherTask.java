@@ -53,6 +53,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
@@ -65,6 +66,7 @@ import static org.craftercms.studio.api.v2.utils.StudioConfiguration.JOB_DEPLOY_
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_QUEUED;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_READY;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_STOPPED_ERROR;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_UPDATE_INTERVAL;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_BASE_PATH;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SITES_REPOS_PATH;
 
@@ -73,6 +75,7 @@ public class PublisherTask implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(PublisherTask.class);
 
     protected static final Map<String, ReentrantLock> singleWorkerLockMap = new HashMap<String, ReentrantLock>();
+    protected static final Map<String, Long> lastProgressStatusMessages = new ConcurrentHashMap<>();
 
     private String site;
     private StudioConfiguration studioConfiguration;
@@ -235,17 +238,24 @@ public class PublisherTask implements Runnable {
             String author = itemsToDeploy.get(0).getUser();
             StringBuilder sbComment = new StringBuilder();
             List<DeploymentItemTO> completeDeploymentItemList = new ArrayList<DeploymentItemTO>();
-            Set<String> processedPaths = new HashSet<String>();
             SimpleDateFormat sdf =
                     new SimpleDateFormat(StudioConstants.DATE_PATTERN_WORKFLOW_WITH_TZ);
             String messagePath = StringUtils.EMPTY;
             String currentPackageId = StringUtils.EMPTY;
+            // Always show the first progress message of a new publishing cycle
+            lastProgressStatusMessages.remove(site);
             try {
+                // Resolve the missing dependencies of the whole batch before any item is processed
+                List<PublishRequest> mandatoryDependencies = new ArrayList<PublishRequest>();
+                if (isMandatoryDependenciesCheckEnabled()) {
+                    logger.debug("Resolving mandatory dependencies for site \"{0}\"", site);
+                    mandatoryDependencies = publishingManager.planMandatoryDependencies(site, itemsToDeploy);
+                }
+
                 logger.debug("Mark items as processing for site \"{0}\"", site);
                 Set<String> packageIds = new HashSet<String>();
                 for (PublishRequest item : itemsToDeploy) {
-                    processPublishingRequest(site, environment, item,
-                            completeDeploymentItemList, processedPaths);
+                    processPublishingRequest(site, environment, item, completeDeploymentItemList);
                     if (!StringUtils.equals(currentPackageId, item.getPackageId())) {
                         currentPackageId = item.getPackageId();
                         statusMessage = studioConfiguration.getProperty
@@ -254,12 +264,18 @@ public class PublisherTask implements Runnable {
                                 statusMessage.replace("{package_id}", currentPackageId)
                                         .replace("{datetime}", ZonedDateTime.now(ZoneOffset.UTC)
                                                 .format(DateTimeFormatter.ofPattern(sdf.toPattern())));
-                        siteService.updatePublishingStatusMessage(site, statusMessage);
+                        updateProgressStatusMessage(site, statusMessage);
                     }
                     if (packageIds.add(item.getPackageId())) {
                         sbComment.append(item.getSubmissionComment()).append("\n");
                     }
                 }
+                if (!mandatoryDependencies.isEmpty()) {
+                    logger.debug("Processing {0} mandatory dependencies for site \"{1}\"",
+                            mandatoryDependencies.size(), site);
+                    completeDeploymentItemList.addAll(
+                            publishingManager.processMandatoryDependencies(site, mandatoryDependencies));
+                }
                 deploy(site, environment, completeDeploymentItemList, author,
                         sbComment.toString());
                 StringBuilder sbPackIds = new StringBuilder("Package(s): ");
@@ -321,17 +337,14 @@ public class PublisherTask implements Runnable {
     }
 
     private void processPublishingRequest(String site, String environment, PublishRequest item,
-            List<DeploymentItemTO> completeDeploymentItemList,
-            Set<String> processedPaths)
+            List<DeploymentItemTO> completeDeploymentItemList)
     throws ServiceLayerException, DeploymentException {
-        List<DeploymentItemTO> missingDependencies = new ArrayList<DeploymentItemTO>();
-        Set<String> missingDependenciesPaths = new HashSet<String>();
         SimpleDateFormat sdf = new SimpleDateFormat(StudioConstants.DATE_PATTERN_WORKFLOW_WITH_TZ);
         String messagePath = item.getPath();
         String statusMessage = studioConfiguration.getProperty(JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_BUSY);
         statusMessage = statusMessage.replace("{item_path}", messagePath).replace("{datetime}",
                 ZonedDateTime.now(ZoneOffset.UTC).format(DateTimeFormatter.ofPattern(sdf.toPattern())));
-        siteService.updatePublishingStatusMessage(site, statusMessage);
+        updateProgressStatusMessage(site, statusMessage);
         try {
             List<DeploymentItemTO> deploymentItemList = new ArrayList<DeploymentItemTO>();
 
@@ -345,15 +358,6 @@ public class PublisherTask implements Runnable {
             logger.debug("Processing COMPLETE [{0}] content item for site \"{1}\"",
                     item.getPath(), site);
 
-            if (isMandatoryDependenciesCheckEnabled()) {
-                logger.debug("Processing Mandatory Deps [{0}] content item for site "
-                        + "\"{1}\"", item.getPath(), site);
-                missingDependencies.addAll(publishingManager
-                        .processMandatoryDependencies(item, processedPaths, missingDependenciesPaths));
-                logger.debug("Processing Mandatory Dependencies COMPLETE [{0}]"
-                        + " content item for site \"{1}\"", item.getPath(), site);
-            }
-            deploymentItemList.addAll(missingDependencies);
             completeDeploymentItemList.addAll(deploymentItemList);
         } catch (DeploymentException err) {
             logger.error("Error while executing deployment to environment store for site \"{0}\",", err, site);
@@ -379,6 +383,21 @@ public class PublisherTask implements Runnable {
         }
     }
 
+    /**
+     * Writes a progress status message unless another one was written for the site within the configured interval.
+     * Status messages that end a publishing cycle are always written.
+     */
+    private void updateProgressStatusMessage(String site, String statusMessage) throws SiteNotFoundException {
+        long now = System.currentTimeMillis();
+        long interval = studioConfiguration.getProperty(
+                JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_UPDATE_INTERVAL, Long.class, 5000L);
+        Long lastUpdate = lastProgressStatusMessages.get(site);
+        if (lastUpdate == null || now - lastUpdate >= interval) {
+            lastProgressStatusMessages.put(site, now);
+            siteService.updatePublishingStatusMessage(site, statusMessage);
+        }
+    }
+
     private void deploy(String site, String environment, List<DeploymentItemTO> items, String author, String comment)
             throws DeploymentException, SiteNotFoundException {
         logger.debug("Deploying " + items.size() + " item(s)");
@@ -33,8 +33,10 @@ import org.craftercms.studio.api.v1.service.objectstate.State;
 import org.craftercms.studio.api.v1.service.objectstate.TransitionEvent;
 import org.craftercms.studio.api.v1.to.ContentItemTO;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.impl.v1.service.workflow.DashboardProjection;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +54,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
     protected ItemStateMapper itemStateMapper;
 
     protected GeneralLockService generalLockService;
+    protected DashboardProjection dashboardProjection;
     protected ContentService contentService;
     protected StudioConfiguration studioConfiguration;
 
@@ -104,6 +107,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
         params.put("systemProcessing", isSystemProcessing);
         logger.debug("Updating system processing in DB: {0}:{1} - {2}", site, cleanPath, isSystemProcessing);
         itemStateMapper.setSystemProcessingBySiteAndPath(params);
+        dashboardProjection.invalidate(site, path);
     }
 
     @Override
@@ -125,6 +129,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
                 setSystemProcessingBulkPartial(site, part, isSystemProcessing);
             }
         }
+        dashboardProjection.invalidate(site, paths);
     }
 
     private void setSystemProcessingBulkPartial(String site, List<String> paths, boolean isSystemProcessing) {
@@ -197,6 +202,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
             generalLockService.unlock(lockKey);
         }
         logger.debug("Transition finished for " + event.name() + " on object " + lockKey);
+        dashboardProjection.invalidate(site, path);
     }
 
     @Override
@@ -208,6 +214,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
         params.put("commitId", commitId);
         params.put("state", State.EXISTING_UNEDITED_UNLOCKED.name());
         itemStateMapper.deployCommitId(params);
+        dashboardProjection.invalidateSite(site);
     }
 
     @Override
@@ -238,6 +245,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
         } finally {
             generalLockService.unlock(lockKey);
         }
+        dashboardProjection.invalidate(site, item.getUri());
     }
 
     @Override
@@ -265,6 +273,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
         } finally {
             generalLockService.unlock(lockKey);
         }
+        dashboardProjection.invalidate(site, path);
     }
 
     @Override
@@ -293,6 +302,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
         params.put("oldPath", oldPath);
         params.put("newPath", newPath);
         itemStateMapper.updateObjectPath(params);
+        dashboardProjection.invalidate(site, Arrays.asList(oldPath, newPath));
     }
 
     @Override
@@ -415,6 +425,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
     @ValidateParams
     public void deleteObjectState(@ValidateStringParam(name = "objectId") String objectId) {
         itemStateMapper.deleteObjectState(objectId);
+        dashboardProjection.invalidateAll();
     }
 
     @Override
@@ -426,6 +437,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
         params.put("site", site);
         params.put("path", path);
         itemStateMapper.deleteObjectStateForSiteAndPath(params);
+        dashboardProjection.invalidate(site, path);
     }
 
     @Override
@@ -437,6 +449,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
         params.put("site", site);
         params.put("path", path + "/%");
         itemStateMapper.deleteObjectStateForSiteAndFolder(params);
+        dashboardProjection.invalidateFolder(site, path);
     }
 
     @Override
@@ -478,6 +491,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
                 }
             }
         }
+        dashboardProjection.invalidate(site, paths);
     }
     
     /**
@@ -498,6 +512,24 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
         }
     }
 
+    @Override
+    @ValidateParams
+    public List<ItemState> getObjectStatesForPaths(@ValidateStringParam(name = "site") String site,
+                                                   List<String> paths) {
+        if (paths != null && !paths.isEmpty()) {
+            List<String> cleanPaths = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                cleanPaths.add(FilenameUtils.normalize(path, true));
+            }
+            Map<String, Object> params = new HashMap<String, Object>();
+            params.put("site", site);
+            params.put("paths", cleanPaths);
+            return itemStateMapper.getObjectStateForSiteAndPaths(params);
+        } else {
+            return new ArrayList<>(0);
+        }
+    }
+
     @Override
     @ValidateParams
     public String setObjectState(@ValidateStringParam(name = "site") String site,
@@ -515,6 +547,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
         objectState.setState(state);
         objectState.setSystemProcessing(systemProcessing ? 1 : 0);
         itemStateMapper.setObjectState(objectState);
+        dashboardProjection.invalidate(site, path);
         return "Success";
     }
 
@@ -524,6 +557,28 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
         Map<String, String> params = new HashMap<String, String>();
         params.put("site", site);
         itemStateMapper.deleteObjectStatesForSite(params);
+        dashboardProjection.invalidateSite(site);
+    }
+
+    @Override
+    @ValidateParams
+    public void resetObjectStates(@ValidateStringParam(name = "site") String site, List<String> paths) {
+        if (paths != null && !paths.isEmpty()) {
+            List<ItemState> entries = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                ItemState entry = new ItemState();
+                entry.setObjectId(UUID.randomUUID().toString());
+                entry.setSite(site);
+                entry.setPath(FilenameUtils.normalize(path, true));
+                entry.setSystemProcessing(0);
+                entry.setState(State.NEW_UNPUBLISHED_UNLOCKED.name());
+                entries.add(entry);
+            }
+            Map<String, Object> params = new HashMap<String, Object>();
+            params.put("entries", entries);
+            itemStateMapper.resetEntries(params);
+        }
+        dashboardProjection.invalidate(site, paths);
     }
 
     public int getBulkOperationBatchSize() {
@@ -538,6 +593,7 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
         params.put("siteId", site);
         params.put("state", state.name());
         itemStateMapper.setStateForSiteContent(params);
+        dashboardProjection.invalidateSite(site);
     }
 
     @Override
@@ -606,6 +662,14 @@ public class ObjectStateServiceImpl extends AbstractRegistrableService implement
         this.generalLockService = generalLockService;
     }
 
+    public DashboardProjection getDashboardProjection() {
+        return dashboardProjection;
+    }
+
+    public void setDashboardProjection(DashboardProjection dashboardProjection) {
+        this.dashboardProjection = dashboardProjection;
+    }
+
     public ContentService getContentService() {
         return contentService;
     }
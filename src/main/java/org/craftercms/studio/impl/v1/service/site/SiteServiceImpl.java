@@ -28,17 +28,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpStatus;
@@ -66,7 +64,6 @@ import org.craftercms.studio.api.v1.dal.SiteFeed;
 import org.craftercms.studio.api.v1.dal.SiteFeedMapper;
 import org.craftercms.studio.api.v1.ebus.PreviewEventContext;
 import org.craftercms.studio.api.v1.exception.BlueprintNotFoundException;
-import org.craftercms.studio.api.v1.exception.ContentNotFoundException;
 import org.craftercms.studio.api.v1.exception.DeployerTargetException;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteAlreadyExistsException;
@@ -82,6 +79,7 @@ import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.repository.ContentRepository;
+import org.craftercms.studio.api.v1.repository.RepoOperationIterator;
 import org.craftercms.studio.api.v1.repository.RepositoryItem;
 import org.craftercms.studio.api.v1.service.GeneralLockService;
 import org.craftercms.studio.api.v1.service.configuration.ServicesConfig;
@@ -492,8 +490,8 @@ public class SiteServiceImpl implements SiteService {
                 logger.info("Reload site configuration");
                 reloadSiteConfiguration(siteId);
 
-                logger.info("Syncing database with repository.");
-                syncDatabaseWithRepo(siteId, contentRepository.getRepoFirstCommitId(siteId), true);
+                logger.info("Initializing database from repository for site " + siteId);
+                rebuildRepositoryMetadata.initializeSite(siteId);
 
                 // initial deployment
                 logger.info("Performing initial deployment");
@@ -578,88 +576,6 @@ public class SiteServiceImpl implements SiteService {
         contentRepository.writeContent(site, path, contentToWrite);
     }
 
-	protected void createObjectStatesforNewSite(String site) {
-		createObjectStateNewSiteObjectFolder(site, FILE_SEPARATOR);
-	}
-
-	protected void createObjectStateNewSiteObjectFolder(String site, String path) {
-		RepositoryItem[] children = contentRepository.getContentChildren(site, path);
-		for (RepositoryItem child : children) {
-			if (child.isFolder) {
-				createObjectStateNewSiteObjectFolder(site, child.path + FILE_SEPARATOR + child.name);
-			} else {
-				objectStateService.insertNewEntry(site, child.path + FILE_SEPARATOR + child.name);
-			}
-		}
-	}
-
-    protected void createObjectMetadataforNewSite(String site, String lastCommitId) {
-        createObjectMetadataNewSiteObjectFolder(site, FILE_SEPARATOR, lastCommitId);
-    }
-
-    protected void createObjectMetadataNewSiteObjectFolder(String site, String path, String lastCommitId) {
-        RepositoryItem[] children = contentRepository.getContentChildren(site, path);
-        for (RepositoryItem child : children) {
-            if (child.isFolder) {
-                createObjectMetadataNewSiteObjectFolder(site, child.path + FILE_SEPARATOR + child.name,
-                        lastCommitId);
-            } else {
-                objectMetadataManager.insertNewObjectMetadata(site, child.path + FILE_SEPARATOR + child.name);
-                objectMetadataManager.updateCommitId(site, child.path + FILE_SEPARATOR + child.name,
-                        lastCommitId);
-            }
-        }
-    }
-
-	protected void extractDependenciesForNewSite(String site) {
-        Map<String, Set<String>> globalDeps = new HashMap<String, Set<String>>();
-        extractDependenciesItemForNewSite(site, FILE_SEPARATOR, globalDeps);
-	}
-
-    private void extractDependenciesItemForNewSite(String site, String fullPath, Map<String, Set<String>> globalDeps) {
-        RepositoryItem[] children = contentRepository.getContentChildren(site, fullPath);
-        for (RepositoryItem child : children) {
-            if (child.isFolder) {
-                extractDependenciesItemForNewSite(site, child.path + FILE_SEPARATOR + child.name, globalDeps);
-            } else {
-                String childPath = child.path + FILE_SEPARATOR + child.name;
-
-                if (childPath.endsWith(DmConstants.XML_PATTERN)) {
-                    try {
-                        dependencyService.upsertDependencies(site, childPath);
-                    } catch (ContentNotFoundException e) {
-                        logger.error("Failed to extract dependencies for document: site " + site + " path " +
-                                childPath, e);
-                    } catch (ServiceLayerException e) {
-                        logger.error("Failed to extract dependencies for document: site " + site + " path " +
-                                childPath, e);
-                    }
-                } else {
-
-                    boolean isCss = childPath.endsWith(DmConstants.CSS_PATTERN);
-                    boolean isJs = childPath.endsWith(DmConstants.JS_PATTERN);
-                    List<String> templatePatterns = servicesConfig.getRenderingTemplatePatterns(site);
-                    boolean isTemplate = false;
-                    for (String templatePattern : templatePatterns) {
-                        Pattern pattern = Pattern.compile(templatePattern);
-                        Matcher matcher = pattern.matcher(childPath);
-                        if (matcher.matches()) {
-                            isTemplate = true;
-                            break;
-                        }
-                    }
-                    try {
-                        if (isCss || isJs || isTemplate) {
-                            dependencyService.upsertDependencies(site, childPath);
-                        }
-                    } catch (ServiceLayerException e) {
-                        logger.error("Failed to extract dependencies for: site " + site + " path " + childPath, e);
-                    }
-                }
-            }
-        }
-    }
-
     private void addDefaultGroupsForNewSite(String siteId) {
         List<String> defaultGroups = getDefaultGroups();
         for (String group : defaultGroups) {
@@ -832,8 +748,8 @@ public class SiteServiceImpl implements SiteService {
                 logger.info("Loading configuration for site " + siteId);
                 reloadSiteConfiguration(siteId);
 
-                logger.info("Sync database with repository for site " + siteId);
-                syncDatabaseWithRepo(siteId, contentRepository.getRepoFirstCommitId(siteId), true);
+                logger.info("Initializing database from repository for site " + siteId);
+                rebuildRepositoryMetadata.initializeSite(siteId);
 
                 // initial deployment
                 logger.info("Executing initial deployement for site " + siteId);
@@ -994,8 +910,8 @@ public class SiteServiceImpl implements SiteService {
                     logger.info("Loading configuration for site " + siteId);
                     reloadSiteConfiguration(siteId);
 
-                    logger.info("Sync database with repository for site " + siteId);
-                    syncDatabaseWithRepo(siteId, contentRepository.getRepoFirstCommitId(siteId), true);
+                    logger.info("Initializing database from repository for site " + siteId);
+                    rebuildRepositoryMetadata.initializeSite(siteId);
 
                     // initial deployment
                     logger.info("Executing initial deployement for site " + siteId);
@@ -1237,7 +1153,10 @@ public class SiteServiceImpl implements SiteService {
 			Map<String, Object> params = new HashMap<String, Object>();
 			params.put("siteId", site);
 			String lastDbCommitId = siteFeedMapper.getLastCommitId(params);
-			if (lastDbCommitId != null) {
+			if (rebuildRepositoryMetadata.isRebuildPending(site)) {
+				// Finish the interrupted rebuild, it also syncs the commits done after it started
+				rebuildDatabase(site);
+			} else if (lastDbCommitId != null) {
                 syncDatabaseWithRepository.execute(site, lastDbCommitId);
 			} else {
 				rebuildDatabase(site);
@@ -1281,10 +1200,19 @@ public class SiteServiceImpl implements SiteService {
     public boolean syncDatabaseWithRepo(@ValidateStringParam(name = "site") String site,
                                         @ValidateStringParam(name = "fromCommitId") String fromCommitId,
                                         boolean generateAuditLog) throws SiteNotFoundException {
-		boolean toReturn = true;
         String repoLastCommitId = contentRepository.getRepoLastCommitId(site);
-        List<RepoOperationTO> repoOperations = contentRepository.getOperations(site, fromCommitId, repoLastCommitId);
-        if (CollectionUtils.isEmpty(repoOperations)) {
+        // Operations are read from the repository as they are processed, so large ranges are not held in memory
+        try (RepoOperationIterator repoOperations =
+                     contentRepository.iterateOperations(site, fromCommitId, repoLastCommitId)) {
+            return syncDatabaseWithRepo(site, fromCommitId, generateAuditLog, repoLastCommitId, repoOperations);
+        }
+    }
+
+    protected boolean syncDatabaseWithRepo(String site, String fromCommitId, boolean generateAuditLog,
+                                           String repoLastCommitId, Iterator<RepoOperationTO> repoOperations)
+            throws SiteNotFoundException {
+		boolean toReturn = true;
+        if (!repoOperations.hasNext()) {
             logger.debug("Database is up to date with repository for site: " + site);
             contentRepository.markGitLogVerifiedProcessed(site, fromCommitId);
             return toReturn;
@@ -1292,10 +1220,6 @@ public class SiteServiceImpl implements SiteService {
 
         logger.info("Syncing database with repository for site: " + site + " fromCommitId = " +
                 (StringUtils.isEmpty(fromCommitId) ? "Empty repo" : fromCommitId));
-        logger.debug("Operations to sync: ");
-	    for (RepoOperationTO repoOperation: repoOperations) {
-	    	logger.debug("\tOperation: " + repoOperation.getOperation().toString() + " " + repoOperation.getPath());
-	    }
 
 	    boolean diverged = false;
 	    GitLog current = null;
@@ -1303,7 +1227,8 @@ public class SiteServiceImpl implements SiteService {
 	    boolean isPreviewSyncNeeded = !StringUtils.equals(repoLastCommitId, siteFeed.getLastCommitId());
 
 	    // Process all operations and track if one or more have failed
-	    for (RepoOperationTO repoOperation: repoOperations) {
+	    while (repoOperations.hasNext()) {
+            RepoOperationTO repoOperation = repoOperations.next();
             boolean gitLogProcessed = false;
             logger.debug("Verifying repo opertation " + repoOperation.getOperation().toString() + " " +
                     repoOperation.getPath());
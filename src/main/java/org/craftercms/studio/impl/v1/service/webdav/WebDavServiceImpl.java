@@ -37,13 +37,16 @@ import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.service.webdav.WebDavService;
 import org.craftercms.studio.api.v1.webdav.WebDavItem;
+import org.craftercms.studio.impl.v1.util.config.profiles.ProfileClientCache;
 import org.craftercms.studio.impl.v1.util.config.profiles.SiteAwareConfigProfileLoader;
 import org.springframework.beans.factory.annotation.Required;
+import org.springframework.http.HttpStatus;
 import org.springframework.util.MimeType;
 import org.springframework.web.util.UriUtils;
 import com.github.sardine.DavResource;
 import com.github.sardine.Sardine;
 import com.github.sardine.SardineFactory;
+import com.github.sardine.impl.SardineException;
 
 import static com.github.sardine.util.SardineUtil.DEFAULT_NAMESPACE_PREFIX;
 import static com.github.sardine.util.SardineUtil.DEFAULT_NAMESPACE_URI;
@@ -80,12 +83,19 @@ public class WebDavServiceImpl implements WebDavService {
      */
     protected Set<QName> properties;
 
+    /**
+     * Clients by profile, shut down once the profile is replaced.
+     */
+    protected ProfileClientCache<WebDavProfile, Sardine> clients;
+
     public WebDavServiceImpl() {
         charset = Charset.defaultCharset();
         properties = new HashSet<>();
         properties.add(new QName(DEFAULT_NAMESPACE_URI, PROPERTY_DISPLAY_NAME, DEFAULT_NAMESPACE_PREFIX));
         properties.add(new QName(DEFAULT_NAMESPACE_URI, PROPERTY_CONTENT_TYPE, DEFAULT_NAMESPACE_PREFIX));
         properties.add(new QName(DEFAULT_NAMESPACE_URI, PROPERTY_RESOURCE_TYPE, DEFAULT_NAMESPACE_PREFIX));
+
+        clients = new ProfileClientCache<>(this::shutdownClient);
     }
 
     @Required
@@ -93,6 +103,22 @@ public class WebDavServiceImpl implements WebDavService {
         this.profileLoader = profileLoader;
     }
 
+    public void destroy() {
+        clients.clear();
+    }
+
+    protected Sardine getClient(WebDavProfile profile) {
+        return clients.get(profile, p -> SardineFactory.begin(p.getUsername(), p.getPassword()));
+    }
+
+    protected void shutdownClient(Sardine sardine) {
+        try {
+            sardine.shutdown();
+        } catch (Exception e) {
+            logger.debug("Error shutting down WebDAV client: {0}", e.getMessage());
+        }
+    }
+
     protected WebDavProfile getProfile(String site, String profileId) throws WebDavException  {
         try {
             return profileLoader.loadProfile(site, profileId);
@@ -112,7 +138,7 @@ public class WebDavServiceImpl implements WebDavService {
         WebDavProfile profile = getProfile(site, profileId);
         String listPath = StringUtils.appendIfMissing(profile.getBaseUrl(),"/");
         MimeType filterType;
-        Sardine sardine = SardineFactory.begin(profile.getUsername(), profile.getPassword());
+        Sardine sardine = getClient(profile);
         try {
             if(StringUtils.isEmpty(type) || type.equals(FILTER_ALL_ITEMS)) {
                 filterType = MimeType.valueOf(ALL_VALUE);
@@ -129,16 +155,22 @@ public class WebDavServiceImpl implements WebDavService {
                 }
             }
 
-            if (!sardine.exists(listPath)) {
-                logger.debug("Folder {0} doesn't exist", listPath);
-                return Collections.emptyList();
-            }
             String basePath = new URL(profile.getBaseUrl()).getPath();
             String baseDomain = profile.getBaseUrl();
             String deliveryUrl = profile.getDeliveryBaseUrl();
             logger.debug("Listing resources at {0}", listPath);
-            List<DavResource> resources = sardine.propfind(listPath, 1, properties);
-            logger.debug("Found {0} resources at {0}", resources.size(), listPath);
+            List<DavResource> resources;
+            try {
+                resources = sardine.propfind(listPath, 1, properties);
+            } catch (SardineException e) {
+                // Missing folders are detected from the response instead of checking first, to save a round trip
+                if (e.getStatusCode() != HttpStatus.NOT_FOUND.value()) {
+                    throw e;
+                }
+                logger.debug("Folder {0} doesn't exist", listPath);
+                return Collections.emptyList();
+            }
+            logger.debug("Found {0} resources at {1}", resources.size(), listPath);
             return resources.stream()
                 .skip(1) // to avoid repeating the folder being listed
                 .filter(r -> r.isDirectory() || filterType.includes(MimeType.valueOf(r.getContentType())))
@@ -185,7 +217,7 @@ public class WebDavServiceImpl implements WebDavService {
         WebDavProfile profile = getProfile(site, profileId);
         String uploadUrl = StringUtils.appendIfMissing(profile.getBaseUrl(), "/");
         try {
-            Sardine sardine = SardineFactory.begin(profile.getUsername(), profile.getPassword());
+            Sardine sardine = getClient(profile);
 
             if(StringUtils.isNotEmpty(path)) {
                 String[] folders = StringUtils.split(path, "/");
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.workflow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v1.service.content.ContentService;
+import org.craftercms.studio.api.v1.to.ContentItemTO;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.WORKFLOW_DASHBOARD_PROJECTION_MAX_AGE;
+
+/**
+ * Per site snapshot of the content items shown in the Go Live and In Progress dashboards. Items are loaded from the
+ * content service the first time a dashboard needs them and kept until the object state or metadata of the item
+ * changes, so dashboard polls only query the item states instead of building every item again.
+ *
+ * Callers invalidate items after writing the new state. Every invalidation bumps the generation counter of the site
+ * and items loaded while the generation of their site changed are returned but not cached, so a load that read the old
+ * state can't put it back after the invalidation. When the write runs inside a transaction all its invalidations are
+ * repeated once after the commit.
+ */
+public class DashboardProjection {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardProjection.class);
+
+    protected Map<String, Map<String, Entry>> sites = new ConcurrentHashMap<>();
+    protected Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    protected ContentService contentService;
+    protected StudioConfiguration studioConfiguration;
+
+    /**
+     * Returns a copy of the dashboard item for the given path, or null if the content doesn't exist
+     */
+    public ContentItemTO getItem(String site, String path) {
+        String cleanPath = FilenameUtils.normalize(path, true);
+        Map<String, Entry> items = sites.computeIfAbsent(site, k -> new ConcurrentHashMap<>());
+        Entry entry = items.get(cleanPath);
+        long now = System.currentTimeMillis();
+        if (entry == null || now - entry.created > getMaxAge()) {
+            AtomicLong generation = getGeneration(site);
+            long loadGeneration = generation.get();
+            ContentItemTO item = null;
+            if (contentService.contentExists(site, cleanPath)) {
+                item = contentService.getContentItem(site, cleanPath, 0);
+            }
+            if (item == null) {
+                items.remove(cleanPath);
+                return null;
+            }
+            entry = new Entry(item, now);
+            if (generation.get() == loadGeneration) {
+                items.put(cleanPath, entry);
+                logger.debug("Loaded dashboard item {0}:{1}", site, cleanPath);
+            } else {
+                items.remove(cleanPath);
+                logger.debug("Dashboard item {0}:{1} changed while loading, not caching it", site, cleanPath);
+            }
+        }
+        // Dashboards add children and change dates on the items they return
+        return new ContentItemTO(entry.item);
+    }
+
+    public void invalidate(String site, String path) {
+        if (path != null) {
+            String cleanPath = FilenameUtils.normalize(path, true);
+            invalidate(site, () -> {
+                Map<String, Entry> items = sites.get(site);
+                if (items != null) {
+                    items.remove(cleanPath);
+                }
+            });
+        }
+    }
+
+    public void invalidate(String site, Collection<String> paths) {
+        if (paths != null) {
+            for (String path : paths) {
+                invalidate(site, path);
+            }
+        }
+    }
+
+    public void invalidateFolder(String site, String folderPath) {
+        if (folderPath != null) {
+            String prefix = StringUtils.appendIfMissing(FilenameUtils.normalize(folderPath, true), FILE_SEPARATOR);
+            invalidate(site, () -> {
+                Map<String, Entry> items = sites.get(site);
+                if (items != null) {
+                    items.keySet().removeIf(path -> path.startsWith(prefix));
+                }
+            });
+        }
+    }
+
+    public void invalidateSite(String site) {
+        invalidate(site, () -> sites.remove(site));
+    }
+
+    public void invalidateAll() {
+        invalidate(null, sites::clear);
+    }
+
+    /**
+     * Runs the eviction now and, inside a transaction, again after the commit
+     *
+     * @param site the site of the items evicted, null for all sites
+     */
+    protected void invalidate(String site, Runnable eviction) {
+        evict(site, eviction);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingInvalidations pending =
+                    (PendingInvalidations) TransactionSynchronizationManager.getResource(this);
+            if (pending == null) {
+                pending = new PendingInvalidations();
+                TransactionSynchronizationManager.bindResource(this, pending);
+                TransactionSynchronizationManager.registerSynchronization(pending);
+            }
+            pending.add(site, eviction);
+        }
+    }
+
+    protected void evict(String site, Runnable eviction) {
+        if (site != null) {
+            getGeneration(site).incrementAndGet();
+        } else {
+            generations.values().forEach(AtomicLong::incrementAndGet);
+        }
+        eviction.run();
+    }
+
+    protected AtomicLong getGeneration(String site) {
+        return generations.computeIfAbsent(site, k -> new AtomicLong());
+    }
+
+    protected long getMaxAge() {
+        return TimeUnit.SECONDS.toMillis(
+                studioConfiguration.getProperty(WORKFLOW_DASHBOARD_PROJECTION_MAX_AGE, Long.class, 300L));
+    }
+
+    @Required
+    public void setContentService(ContentService contentService) {
+        this.contentService = contentService;
+    }
+
+    @Required
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+    /**
+     * Invalidations made during a transaction, run again after it commits
+     */
+    protected class PendingInvalidations extends TransactionSynchronizationAdapter {
+
+        protected final List<Runnable> evictions = new ArrayList<>();
+        protected final Set<String> sites = new HashSet<>();
+        protected boolean allSites;
+
+        protected void add(String site, Runnable eviction) {
+            evictions.add(eviction);
+            if (site != null) {
+                sites.add(site);
+            } else {
+                allSites = true;
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            if (allSites) {
+                generations.values().forEach(AtomicLong::incrementAndGet);
+            } else {
+                sites.forEach(site -> getGeneration(site).incrementAndGet());
+            }
+            evictions.forEach(Runnable::run);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DashboardProjection.this);
+        }
+
+    }
+
+    protected static class Entry {
+
+        protected final ContentItemTO item;
+        protected final long created;
+
+        protected Entry(ContentItemTO item, long created) {
+            this.item = item;
+            this.created = created;
+        }
+
+    }
+
+}
@@ -27,18 +27,35 @@ import org.craftercms.studio.impl.v1.service.workflow.operation.SubmitLifeCycleO
 
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Executes workflow submissions. Items being submitted are tracked per site and submissions are serialized per site,
+ * so submissions on different sites never wait for each other.
+ */
 public class WorkflowProcessor {
 
     private static final Logger logger = LoggerFactory.getLogger(WorkflowProcessor.class);
 
     protected static final int PRIORITY = 3;
 
-    protected Set<String> inflightItems = new HashSet<String>();
+    protected Map<String, Set<String>> inflightItems = new ConcurrentHashMap<String, Set<String>>();
 
+    protected Map<String, ReentrantLock> siteLocks = new ConcurrentHashMap<String, ReentrantLock>();
 
-    public synchronized boolean isInFlight(String path) {
-        return inflightItems.contains(path);
+    public boolean isInFlight(String site, String path) {
+        Set<String> siteItems = inflightItems.get(site);
+        return siteItems != null && siteItems.contains(path);
+    }
+
+    public boolean isInFlight(String path) {
+        for (Set<String> siteItems : inflightItems.values()) {
+            if (siteItems.contains(path)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -51,11 +68,25 @@ public class WorkflowProcessor {
      * @param operation
      * @param approvedBy
      */
-    public synchronized void addToWorkflow(String site, List<String> paths, ZonedDateTime launchDate,
-                                           String label, SubmitLifeCycleOperation operation, String approvedBy, MultiChannelPublishingContext mcpContext) {
-        inflightItems.addAll(paths);
+    public void addToWorkflow(String site, List<String> paths, ZonedDateTime launchDate,
+                              String label, SubmitLifeCycleOperation operation, String approvedBy, MultiChannelPublishingContext mcpContext) {
+        getSiteInFlightItems(site).addAll(paths);
         WorkflowBatch workflowBatch = createBatch(paths, launchDate,  label, operation, approvedBy, mcpContext);
-        execute(site, workflowBatch);
+        executeForSite(site, workflowBatch);
+    }
+
+    protected void executeForSite(String site, WorkflowBatch workflowBatch) {
+        ReentrantLock siteLock = siteLocks.computeIfAbsent(site, k -> new ReentrantLock());
+        siteLock.lock();
+        try {
+            execute(site, workflowBatch);
+        } finally {
+            siteLock.unlock();
+        }
+    }
+
+    protected Set<String> getSiteInFlightItems(String site) {
+        return inflightItems.computeIfAbsent(site, k -> ConcurrentHashMap.newKeySet());
     }
 
     protected WorkflowBatch createBatch(Collection<String> paths, ZonedDateTime launchDate, String label,
@@ -68,8 +99,8 @@ public class WorkflowProcessor {
     }
 
     protected void execute(String site, WorkflowBatch workflowBatch) {
-        String currentUser = securityService.getCurrentUser();
         logger.debug("[WORKFLOW] executing Go Live Processor for " + site);
+        Set<String> siteItems = getSiteInFlightItems(site);
 
         try {
 
@@ -85,15 +116,14 @@ public class WorkflowProcessor {
                 }
 
             } finally {
-                this.inflightItems.removeAll(workflowBatch.getPaths());
+                siteItems.removeAll(workflowBatch.getPaths());
             }
         } catch (Exception e) {
-            this.inflightItems.removeAll(workflowBatch.getPaths());
+            siteItems.removeAll(workflowBatch.getPaths());
             logger.debug("Rolling Back states of "+workflowBatch.getPaths());
             rollbackOnError(site,workflowBatch.getPaths());
             logger.error("[WORKFLOW] Error submitting workflow", e);
         }
-        //AuthenticationUtil.setFullyAuthenticatedUser(currentUser);
         logger.debug("[WORKFLOW] exiting Go Live Processor for " + site);
 
     }
@@ -111,8 +141,14 @@ public class WorkflowProcessor {
 		}
 	}
 
+    public void removeInFlightItem(String site, String path) {
+        getSiteInFlightItems(site).remove(path);
+    }
+
     public void removeInFlightItem(String path) {
-        this.inflightItems.remove(path);
+        for (Set<String> siteItems : inflightItems.values()) {
+            siteItems.remove(path);
+        }
     }
 
     protected WorkflowService workflowService;
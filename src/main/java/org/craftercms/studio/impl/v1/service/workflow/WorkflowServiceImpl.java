@@ -150,6 +150,7 @@ public class WorkflowServiceImpl implements WorkflowService {
     protected SecurityService securityService;
     protected SiteService siteService;
     protected WorkflowProcessor workflowProcessor;
+    protected DashboardProjection dashboardProjection;
     protected ObjectMetadataManager objectMetadataManager;
     protected NotificationService notificationService;
     protected StudioConfiguration studioConfiguration;
@@ -369,14 +370,25 @@ public class WorkflowServiceImpl implements WorkflowService {
     public Map<String, Object> getGoLiveItems(@ValidateStringParam(name = "site") String site,
                                               @ValidateStringParam(name = "sort") String sort, boolean ascending)
             throws ServiceLayerException {
+        return getGoLiveItems(site, sort, ascending, null, 0, 0);
+    }
+
+    @Override
+    @ValidateParams
+    public Map<String, Object> getGoLiveItems(@ValidateStringParam(name = "site") String site,
+                                              @ValidateStringParam(name = "sort") String sort, boolean ascending,
+                                              String path, int offset,
+                                              int limit)
+            throws ServiceLayerException {
         DmContentItemComparator comparator = new DmContentItemComparator(sort, ascending, false, false);
-        List<ContentItemTO> items = getGoLiveItems(site, comparator);
+        List<ContentItemTO> items = getGoLiveItems(site, comparator, path);
 
         int total = 0;
         if (items != null) {
             for (ContentItemTO item : items) {
                 total += item.getNumOfChildren();
             }
+            items = getPage(items, offset, limit);
         }
         Map<String, Object> result = new HashMap<>();
         result.put(StudioConstants.PROPERTY_TOTAL, total);
@@ -386,12 +398,13 @@ public class WorkflowServiceImpl implements WorkflowService {
         return result;
     }
 
-    protected List<ContentItemTO> getGoLiveItems(final String site, final DmContentItemComparator comparator)
+    protected List<ContentItemTO> getGoLiveItems(final String site, final DmContentItemComparator comparator,
+                                                 final String path)
             throws ServiceLayerException {
         List<String> displayPatterns = servicesConfig.getDisplayInWidgetPathPatterns(site);
         List<ContentItemTO> categoryItems = getCategoryItems(site);
         GoLiveQueue queue = new GoLiveQueue();
-        fillQueue(site, queue, null);
+        fillQueue(site, queue, null, path);
 
         Set<ContentItemTO> queueItems = queue.getQueue();
         ContentItemTO.ChildFilter childFilter = new GoLiveQueueChildFilter(queue);
@@ -406,6 +419,42 @@ public class WorkflowServiceImpl implements WorkflowService {
         return categoryItems;
     }
 
+    /**
+     * Keeps only the items of the requested page, items are counted across categories in the order they are sorted.
+     * Categories without items in the page are removed.
+     *
+     * @param categoryItems sorted category items
+     * @param offset index of the first item
+     * @param limit maximum number of items, no paging is applied if offset and limit are not positive
+     */
+    protected List<ContentItemTO> getPage(List<ContentItemTO> categoryItems, int offset, int limit) {
+        if (offset <= 0 && limit <= 0) {
+            return categoryItems;
+        }
+        int end = limit > 0 ? offset + limit : Integer.MAX_VALUE;
+        int index = 0;
+        List<ContentItemTO> page = new ArrayList<>();
+        for (ContentItemTO categoryItem : categoryItems) {
+            List<ContentItemTO> children = categoryItem.getChildren();
+            if (children == null || children.isEmpty()) {
+                continue;
+            }
+            List<ContentItemTO> pageChildren = new ArrayList<>();
+            for (ContentItemTO child : children) {
+                if (index >= offset && index < end) {
+                    pageChildren.add(child);
+                }
+                index++;
+            }
+            if (!pageChildren.isEmpty()) {
+                categoryItem.setChildren(pageChildren);
+                categoryItem.setNumOfChildren(pageChildren.size());
+                page.add(categoryItem);
+            }
+        }
+        return page;
+    }
+
     /**
      * get the top category items that to be displayed in UI
      *
@@ -450,26 +499,37 @@ public class WorkflowServiceImpl implements WorkflowService {
     @ValidateParams
     public void fillQueue(@ValidateStringParam(name = "site") String site, GoLiveQueue goLiveQueue,
                           GoLiveQueue inProcessQueue) throws ServiceLayerException {
+        fillQueue(site, goLiveQueue, inProcessQueue, null);
+    }
+
+    protected void fillQueue(String site, GoLiveQueue goLiveQueue, GoLiveQueue inProcessQueue, String path)
+            throws ServiceLayerException {
         List<ItemState> changeSet = objectStateService.getSubmittedItems(site);
         // TODO: implement list changed all
 
         // the category item to add all other items that do not belong to
         // regular categories specified in the configuration
         if (changeSet != null) {
+            String currentUser = securityService.getCurrentUser();
             // add all content items from each task if task is the review task
             for (ItemState state : changeSet) {
+                if (!isInPath(state.getPath(), path)) {
+                    continue;
+                }
                 try {
-                    if (contentService.contentExists( state.getSite(), state.getPath())) {
-                        ContentItemTO item = contentService.getContentItem(state.getSite(), state.getPath(), 0);
+                    ContentItemTO item = dashboardProjection.getItem(state.getSite(), state.getPath());
+                    if (item != null) {
                         Set<String> permissions = securityService.getUserPermissions(site, item.getUri(),
-                                securityService.getCurrentUser(), Collections.<String>emptyList());
+                                currentUser, Collections.<String>emptyList());
                         if (permissions.contains(StudioConstants.PERMISSION_VALUE_PUBLISH)) {
                             addToQueue(site, goLiveQueue, inProcessQueue, item, state);
                         }
-                    } else {
+                    } else if (!contentService.contentExists(state.getSite(), state.getPath())) {
                         _cancelWorkflow(site, state.getPath());
                         objectStateService.deleteObjectStateForPath(site, state.getPath());
                         objectMetadataManager.deleteObjectMetadata(site, state.getPath());
+                    } else {
+                        addToQueue(site, goLiveQueue, inProcessQueue, null, state);
                     }
                 } catch (Exception e) {
                     logger.error("Could not warm cache for [" + state.getSite() + " : " + state.getPath() + "] "
@@ -479,6 +539,18 @@ public class WorkflowServiceImpl implements WorkflowService {
         }
     }
 
+    /**
+     * @return true if no path filter is given or the item is the given path or one of its descendants
+     */
+    protected boolean isInPath(String itemPath, String path) {
+        if (StringUtils.isEmpty(path)) {
+            return true;
+        }
+        String folderPath = path.replace(FILE_SEPARATOR + DmConstants.INDEX_FILE, "");
+        return StringUtils.equals(itemPath, path) || StringUtils.equals(itemPath, folderPath) ||
+                StringUtils.startsWith(itemPath, StringUtils.appendIfMissing(folderPath, FILE_SEPARATOR));
+    }
+
     protected void addToQueue(String site, GoLiveQueue queue, GoLiveQueue inProcessQueue, ContentItemTO item,
                               ItemState itemState) throws ServiceLayerException {
         if (item != null) {
@@ -504,17 +576,27 @@ public class WorkflowServiceImpl implements WorkflowService {
     public Map<String, Object> getInProgressItems(@ValidateStringParam(name = "site") String site,
                                                   @ValidateStringParam(name = "sort") String sort, boolean ascending,
                                                   boolean inProgressOnly) throws ServiceLayerException {
+        return getInProgressItems(site, sort, ascending, inProgressOnly, null, 0, 0);
+    }
+
+    @Override
+    @ValidateParams
+    public Map<String, Object> getInProgressItems(@ValidateStringParam(name = "site") String site,
+                                                  @ValidateStringParam(name = "sort") String sort, boolean ascending,
+                                                  boolean inProgressOnly,
+                                                  String path, int offset,
+                                                  int limit) throws ServiceLayerException {
         DmContentItemComparator comparator =
                 new DmContentItemComparator(sort, ascending, true, true);
         comparator.setSecondLevelCompareRequired(true);
         comparator.setSecondLevelSortBy(DmContentItemComparator.SORT_PATH);
-        List<ContentItemTO> items = getInProgressItems(site, comparator, inProgressOnly);
-        JSONObject jsonObject = new JSONObject();
+        List<ContentItemTO> items = getInProgressItems(site, comparator, inProgressOnly, path);
         int total = 0;
         if (items != null) {
             for (ContentItemTO item : items) {
                 total += item.getNumOfChildren();
             }
+            items = getPage(items, offset, limit);
         }
         Map<String, Object> result = new HashMap<>();
         result.put(StudioConstants.PROPERTY_TOTAL, total);
@@ -525,7 +607,8 @@ public class WorkflowServiceImpl implements WorkflowService {
     }
 
     protected List<ContentItemTO> getInProgressItems(final String site, final DmContentItemComparator comparator,
-                                                     final boolean inProgressOnly) throws ServiceLayerException {
+                                                     final boolean inProgressOnly, final String path)
+            throws ServiceLayerException {
         final List<ContentItemTO> categoryItems = new ArrayList<>();
 
         List<ContentItemTO>categoryItems1 = getCategoryItems(site);
@@ -545,9 +628,10 @@ public class WorkflowServiceImpl implements WorkflowService {
             List<String> displayPatterns = servicesConfig.getDisplayInWidgetPathPatterns(site);
             //List<String> inProgressItems = new FastList<String>();
             for (ItemState state : changeSet) {
-                if (contentService.contentExists(state.getSite(), state.getPath())) {
-                    if (ContentUtils.matchesPatterns(state.getPath(), displayPatterns)) {
-                        ContentItemTO item = contentService.getContentItem(state.getSite(), state.getPath(), 0);
+                if (isInPath(state.getPath(), path) &&
+                        ContentUtils.matchesPatterns(state.getPath(), displayPatterns)) {
+                    ContentItemTO item = dashboardProjection.getItem(state.getSite(), state.getPath());
+                    if (item != null) {
                         addInProgressItems(site, item, categoryItems, comparator, inProgressOnly);
                     }
                 }
@@ -2425,6 +2509,14 @@ public class WorkflowServiceImpl implements WorkflowService {
         this.siteService = siteService;
     }
 
+    public DashboardProjection getDashboardProjection() {
+        return dashboardProjection;
+    }
+
+    public void setDashboardProjection(DashboardProjection dashboardProjection) {
+        this.dashboardProjection = dashboardProjection;
+    }
+
     public WorkflowProcessor getWorkflowProcessor() {
         return workflowProcessor;
     }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.util.config.profiles;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+
+/**
+ * Keeps the client created for each configuration profile, so all requests that use the same profile share it.
+ *
+ * Profiles are held weakly and compared by identity. {@link SiteAwareConfigProfileLoader} returns the same profile
+ * instance while the site configuration doesn't change, so once a configuration change replaces a profile and no
+ * request is using the old instance anymore, its client is removed and closed.
+ *
+ * @param <P> the type of profile
+ * @param <C> the type of client
+ */
+public class ProfileClientCache<P, C> {
+
+    protected final Cache<P, C> clients;
+
+    /**
+     * Creates a cache for clients that don't need to be closed
+     */
+    public ProfileClientCache() {
+        this(null);
+    }
+
+    /**
+     * Creates a cache that closes the clients when they are removed
+     *
+     * @param closer closes a client, can be null
+     */
+    public ProfileClientCache(Consumer<C> closer) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().weakKeys();
+        if (closer != null) {
+            RemovalListener<P, C> listener = notification -> {
+                if (notification.getValue() != null) {
+                    closer.accept(notification.getValue());
+                }
+            };
+            clients = builder.removalListener(listener).build();
+        } else {
+            clients = builder.build();
+        }
+    }
+
+    /**
+     * Returns the client of the profile, creating it if needed
+     *
+     * @param profile the profile
+     * @param factory creates the client if the profile doesn't have one yet
+     * @return the client
+     */
+    public C get(P profile, Function<P, C> factory) {
+        return clients.asMap().computeIfAbsent(profile, factory);
+    }
+
+    /**
+     * Removes and closes all the clients
+     */
+    public void clear() {
+        clients.invalidateAll();
+    }
+
+}
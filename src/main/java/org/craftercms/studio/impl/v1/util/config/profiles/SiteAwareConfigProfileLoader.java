@@ -17,17 +17,25 @@
 
 package org.craftercms.studio.impl.v1.util.config.profiles;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 import org.craftercms.commons.config.ConfigurationException;
 import org.craftercms.commons.config.ConfigurationMapper;
 import org.craftercms.commons.config.profiles.ConfigurationProfile;
 import org.craftercms.studio.api.v1.service.content.ContentService;
+import org.craftercms.studio.api.v2.repository.ContentRepository;
 import org.springframework.beans.factory.annotation.Required;
 
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Reads a configuration profiles file for a specific site and loads a specific {@link ConfigurationProfile}.
+ * Loaded profiles are kept until the blob of the profiles file changes, so the same instance is returned for a site
+ * and profile id while the configuration stays the same.
  *
  * @author avasquez
  */
@@ -36,6 +44,12 @@ public class SiteAwareConfigProfileLoader<T extends ConfigurationProfile> {
     private String profilesPath;
     private ConfigurationMapper<T> profileMapper;
     private ContentService contentService;
+    private ContentRepository contentRepository;
+
+    /**
+     * Loaded profiles by site and profile id, with the blob id of the profiles file they were read from
+     */
+    private final Map<String, Pair<String, T>> profiles = new ConcurrentHashMap<>();
 
     @Required
     public void setProfilesPath(String profilesPath) {
@@ -52,7 +66,31 @@ public class SiteAwareConfigProfileLoader<T extends ConfigurationProfile> {
         this.contentService = contentService;
     }
 
+    @Required
+    public void setContentRepository(ContentRepository contentRepository) {
+        this.contentRepository = contentRepository;
+    }
+
     public T loadProfile(String site, String profileId) throws ConfigurationException {
+        String key = site + ":" + profileId;
+        String blobId = contentRepository.getContentBlobId(site, profilesPath);
+        if (StringUtils.isEmpty(blobId)) {
+            profiles.remove(key);
+            return readProfile(site, profileId);
+        }
+
+        Pair<String, T> cached = profiles.get(key);
+        if (cached != null && cached.getLeft().equals(blobId)) {
+            return cached.getRight();
+        }
+
+        T profile = readProfile(site, profileId);
+        profiles.put(key, ImmutablePair.of(blobId, profile));
+
+        return profile;
+    }
+
+    protected T readProfile(String site, String profileId) throws ConfigurationException {
         try (InputStream is = contentService.getContent(site, profilesPath)) {
             return profileMapper.readConfig(is, StandardCharsets.UTF_8.name(), profileId);
         } catch (Exception e) {
@@ -16,13 +16,17 @@
  */
 package org.craftercms.studio.impl.v2.deployment;
 
+import org.apache.commons.lang3.StringUtils;
 import org.craftercms.commons.plugin.model.SearchEngines;
 import org.craftercms.commons.rest.RestServiceException;
 import org.craftercms.studio.api.v1.ebus.EventListener;
 import org.craftercms.studio.api.v1.ebus.PreviewEventContext;
 import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v1.repository.ContentRepository;
 import org.craftercms.studio.api.v1.service.event.EventService;
+import org.craftercms.studio.api.v1.to.PreviewSyncStatusTO;
+import org.craftercms.studio.api.v2.deployment.PreviewSyncStatusProvider;
 import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.http.MediaType;
@@ -31,8 +35,14 @@ import org.springframework.web.client.RestClientException;
 
 import java.lang.reflect.Method;
 import java.net.URI;
-import java.util.Collections;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONFIG_SITEENV_VARIABLE;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONFIG_SITENAME_VARIABLE;
@@ -46,6 +56,7 @@ import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PREVIEW_DEF
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PREVIEW_DISABLE_DEPLOY_CRON;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PREVIEW_REPLACE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PREVIEW_REPO_URL;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PREVIEW_SYNC_MAX_CHANGED_PATHS;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PREVIEW_TEMPLATE_NAME;
 
 /**
@@ -58,24 +69,40 @@ import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PREVIEW_TEM
  *     <li>Issues deployments to the authoirng and preview target on a preview sync event</li>
  * </ul>
  *
+ * The last commit acknowledged by each target is remembered, so a preview sync is skipped when the sandbox hasn't
+ * changed since and otherwise carries the commit range and the changed paths. A target acknowledges a commit by
+ * returning it as {@code to_commit_id} in the response, targets that don't are always sent a full deployment.
+ *
  * @author avasquez
  */
-public class PreviewDeployer extends AbstractDeployer implements BeanNameAware {
+public class PreviewDeployer extends AbstractDeployer implements BeanNameAware, PreviewSyncStatusProvider {
 
     private final static Logger logger = LoggerFactory.getLogger(PreviewDeployer.class);
 
     private final static String METHOD_PREVIEW_SYNC_LISTENER = "onPreviewSync";
     private final static String ENV_PREVIEW = "preview";
     private final static String ENV_AUTHORING = "authoring";
+    private final static String TO_COMMIT_ID = "to_commit_id";
 
     protected EventService eventService;
+    protected ContentRepository contentRepository;
     protected String beanName;
 
+    /**
+     * Last commit acknowledged by each target, by site and environment
+     */
+    protected final Map<String, SyncState> syncStates = new ConcurrentHashMap<>();
+
     @Required
     public void setEventService(EventService eventService) {
         this.eventService = eventService;
     }
 
+    @Required
+    public void setContentRepository(ContentRepository contentRepository) {
+        this.contentRepository = contentRepository;
+    }
+
     @Override
     public void setBeanName(String beanName) {
         this.beanName = beanName;
@@ -93,25 +120,82 @@ public class PreviewDeployer extends AbstractDeployer implements BeanNameAware {
 
     @EventListener(EVENT_PREVIEW_SYNC)
     public void onPreviewSync(PreviewEventContext context) {
-        doDeployment(context.getSite(), ENV_AUTHORING, false);
-        doDeployment(context.getSite(), ENV_PREVIEW, context.isWaitTillDeploymentIsDone());
+        String headCommitId = contentRepository.getRepoLastCommitId(context.getSite());
+
+        doDeployment(context.getSite(), ENV_AUTHORING, false, headCommitId, context.isForce());
+        doDeployment(context.getSite(), ENV_PREVIEW, context.isWaitTillDeploymentIsDone(), headCommitId,
+                     context.isForce());
+    }
+
+    @Override
+    public PreviewSyncStatusTO getPreviewSyncStatus(String site) {
+        PreviewSyncStatusTO status = new PreviewSyncStatusTO();
+        status.setSite(site);
+        status.setHeadCommitId(contentRepository.getRepoLastCommitId(site));
+
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        for (String environment : Arrays.asList(ENV_AUTHORING, ENV_PREVIEW)) {
+            SyncState syncState = syncStates.get(getSyncStateKey(site, environment));
+            PreviewSyncStatusTO.Target target = new PreviewSyncStatusTO.Target();
+            target.setEnvironment(environment);
+            if (syncState == null) {
+                target.setUpToDate(false);
+                target.setLagSeconds(-1);
+            } else {
+                target.setLastSyncedCommitId(syncState.commitId);
+                target.setLastSyncDate(syncState.date);
+                target.setUpToDate(StringUtils.equals(syncState.commitId, status.getHeadCommitId()));
+                target.setLagSeconds(target.isUpToDate() ? 0 : Duration.between(syncState.date, now).getSeconds());
+            }
+            status.getTargets().add(target);
+        }
+
+        return status;
     }
 
     @Override
     public void createTargets(String site, String searchEngine) throws RestClientException {
+        syncStates.remove(getSyncStateKey(site, ENV_AUTHORING));
+        syncStates.remove(getSyncStateKey(site, ENV_PREVIEW));
+
         doCreateAuthTarget(site);
         doCreatePreviewTarget(site, searchEngine);
     }
 
     @Override
     public void deleteTargets(String site) throws RestClientException {
+        syncStates.remove(getSyncStateKey(site, ENV_AUTHORING));
+        syncStates.remove(getSyncStateKey(site, ENV_PREVIEW));
+
         doDeleteTarget(site, ENV_AUTHORING);
         doDeleteTarget(site, ENV_PREVIEW);
     }
 
-    protected void doDeployment(String site, String environment, boolean waitTillDone) {
+    protected void doDeployment(String site, String environment, boolean waitTillDone, String headCommitId,
+                                boolean force) {
+        String syncStateKey = getSyncStateKey(site, environment);
+        SyncState lastSync = syncStates.get(syncStateKey);
+        String fromCommitId = lastSync != null && !force ? lastSync.commitId : null;
+
+        if (StringUtils.isNotEmpty(headCommitId) && headCommitId.equals(fromCommitId)) {
+            logger.debug("Skipping preview sync for site {0} environment {1}, commit {2} was already deployed",
+                         site, environment, headCommitId);
+            return;
+        }
+
         String requestUrl = getDeployTargetUrl(site, environment);
-        Map<String, Object> requestBody = Collections.singletonMap("wait_till_done", waitTillDone);
+        Map<String, Object> requestBody = new LinkedHashMap<>();
+        requestBody.put("wait_till_done", waitTillDone);
+        if (StringUtils.isNotEmpty(headCommitId)) {
+            requestBody.put(TO_COMMIT_ID, headCommitId);
+            if (StringUtils.isNotEmpty(fromCommitId)) {
+                requestBody.put("from_commit_id", fromCommitId);
+                List<String> changedPaths = getChangedPaths(site, fromCommitId, headCommitId);
+                if (changedPaths != null) {
+                    requestBody.put("changed_paths", changedPaths);
+                }
+            }
+        }
 
         try {
             RequestEntity<Map<String, Object>> requestEntity = RequestEntity.post(new URI(requestUrl))
@@ -120,7 +204,15 @@ public class PreviewDeployer extends AbstractDeployer implements BeanNameAware {
 
             logger.debug("Calling deployment API: {0}", requestEntity);
 
-            restTemplate.exchange(requestEntity, Map.class);
+            Map<?, ?> response = restTemplate.exchange(requestEntity, Map.class).getBody();
+
+            // Only a target that confirms the commit can be skipped next time, otherwise it gets full deployments
+            if (StringUtils.isNotEmpty(headCommitId) && response != null &&
+                    headCommitId.equals(response.get(TO_COMMIT_ID))) {
+                syncStates.put(syncStateKey, new SyncState(headCommitId, ZonedDateTime.now(ZoneOffset.UTC)));
+            } else {
+                syncStates.remove(syncStateKey);
+            }
         } catch (RestServiceException e) {
             logger.error("Preview sync request for site " + site + " returned error response: " + e);
         } catch (Exception e) {
@@ -148,6 +240,24 @@ public class PreviewDeployer extends AbstractDeployer implements BeanNameAware {
         doCreateTarget(site, ENV_PREVIEW, searchEngine, template, replace, disableCron, null, repoUrl, null);
     }
 
+    /**
+     * Returns the paths changed between the given commits, or null if they can't be compared or there are too many of
+     * them to be sent to the deployer
+     */
+    protected List<String> getChangedPaths(String site, String fromCommitId, String toCommitId) {
+        int maxChangedPaths = studioConfiguration.getProperty(PREVIEW_SYNC_MAX_CHANGED_PATHS, Integer.class, 1000);
+        List<String> changedPaths = contentRepository.getChangedPaths(site, fromCommitId, toCommitId);
+        if (changedPaths == null || changedPaths.size() > maxChangedPaths) {
+            return null;
+        }
+
+        return changedPaths;
+    }
+
+    protected String getSyncStateKey(String site, String environment) {
+        return site + ":" + environment;
+    }
+
     protected String getDeployTargetUrl(String site, String environment) {
         // TODO: DB: implement deployer agent configuration for preview
         // TODO: SJ: Pseudo code: check if site configuration has a Preview Deployer URL, if so, return it, if not
@@ -175,4 +285,19 @@ public class PreviewDeployer extends AbstractDeployer implements BeanNameAware {
                                   .replaceAll(CONFIG_SITEENV_VARIABLE, environment);
     }
 
+    /**
+     * Commit acknowledged by a target and when
+     */
+    protected static class SyncState {
+
+        protected final String commitId;
+        protected final ZonedDateTime date;
+
+        protected SyncState(String commitId, ZonedDateTime date) {
+            this.commitId = commitId;
+            this.date = date;
+        }
+
+    }
+
 }
@@ -25,14 +25,18 @@ import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v2.repository.ContentRepository;
 import org.craftercms.studio.api.v2.utils.GitRepositoryHelper;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.treewalk.TreeWalk;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.craftercms.studio.api.v1.constant.GitRepositories.GLOBAL;
 import static org.craftercms.studio.api.v1.constant.GitRepositories.SANDBOX;
@@ -114,6 +118,63 @@ public class GitContentRepository implements ContentRepository {
         return retItems;
     }
 
+    @Override
+    public String getContentBlobId(String site, String path) {
+        return getObjectId(site, path, false);
+    }
+
+    @Override
+    public Map<String, String> getContentBlobIds(String site, List<String> paths) {
+        Map<String, String> blobIds = new LinkedHashMap<String, String>();
+        try {
+            GitRepositoryHelper helper = GitRepositoryHelper.getHelper(studioConfiguration);
+            Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
+
+            RevTree lastCommitTree = helper.getTreeForLastCommit(repo);
+            try (ObjectReader reader = repo.newObjectReader()) {
+                for (String path : paths) {
+                    String blobId = null;
+                    if (lastCommitTree != null) {
+                        try (TreeWalk tw = TreeWalk.forPath(reader, helper.getGitPath(path), lastCommitTree)) {
+                            if (tw != null && tw.getRawMode(0) != FileMode.TREE.getBits()) {
+                                blobId = tw.getObjectId(0).getName();
+                            }
+                        }
+                    }
+                    blobIds.put(path, blobId);
+                }
+            }
+        } catch (IOException | CryptoException e) {
+            logger.error("Error while getting blob ids for site: " + site + " paths: " + paths, e);
+        }
+        return blobIds;
+    }
+
+    @Override
+    public String getContentTreeId(String site, String path) {
+        return getObjectId(site, path, true);
+    }
+
+    private String getObjectId(String site, String path, boolean tree) {
+        String objectId = null;
+        try {
+            GitRepositoryHelper helper = GitRepositoryHelper.getHelper(studioConfiguration);
+            Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
+
+            RevTree lastCommitTree = helper.getTreeForLastCommit(repo);
+            if (lastCommitTree != null) {
+                try (TreeWalk tw = TreeWalk.forPath(repo, helper.getGitPath(path), lastCommitTree)) {
+                    if (tw != null && (tw.getRawMode(0) == FileMode.TREE.getBits()) == tree) {
+                        objectId = tw.getObjectId(0).getName();
+                    }
+                }
+            }
+        } catch (IOException | CryptoException e) {
+            logger.error("Error while getting object id for site: " + site + " path: " + path, e);
+        }
+        return objectId;
+    }
+
 
     public StudioConfiguration getStudioConfiguration() {
         return studioConfiguration;
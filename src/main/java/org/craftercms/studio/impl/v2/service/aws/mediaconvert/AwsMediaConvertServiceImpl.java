@@ -33,6 +33,7 @@ import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.service.aws.AbstractAwsService;
 import org.craftercms.studio.api.v2.service.aws.mediaconvert.AwsMediaConvertService;
+import org.craftercms.studio.impl.v1.service.aws.AwsClientRegistry;
 import org.craftercms.studio.impl.v1.service.aws.AwsUtils;
 import org.craftercms.studio.model.aws.mediaconvert.MediaConvertResult;
 import org.springframework.beans.factory.annotation.Required;
@@ -94,6 +95,11 @@ public class AwsMediaConvertServiceImpl extends AbstractAwsService<MediaConvertP
      */
     protected String smoothExtension;
 
+    /**
+     * The registry that keeps the clients of each profile
+     */
+    protected AwsClientRegistry clientRegistry;
+
     public void setPartSize(final int partSize) {
         this.partSize = partSize;
     }
@@ -123,13 +129,18 @@ public class AwsMediaConvertServiceImpl extends AbstractAwsService<MediaConvertP
         this.smoothExtension = smoothExtension;
     }
 
+    @Required
+    public void setClientRegistry(final AwsClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
+    }
+
     /**
      * Creates an instance of {@link AmazonS3} to upload the files.
      * @param profile AWS profile
      * @return an S3 client
      */
     protected AmazonS3 getS3Client(MediaConvertProfile profile) {
-        return S3Utils.createClient(profile, false);
+        return clientRegistry.getClient(profile, "mediaConvertS3", () -> S3Utils.createClient(profile, false));
     }
 
     /**
@@ -138,11 +149,11 @@ public class AwsMediaConvertServiceImpl extends AbstractAwsService<MediaConvertP
      * @return a MediaConvert client
      */
     protected AWSMediaConvert getMediaConvertClient(MediaConvertProfile profile) {
-        return AWSMediaConvertClientBuilder.standard()
+        return clientRegistry.getClient(profile, "mediaConvert", () -> AWSMediaConvertClientBuilder.standard()
             .withCredentials(profile.getCredentialsProvider())
             .withEndpointConfiguration(
                 new AWSMediaConvertClientBuilder.EndpointConfiguration(profile.getEndpoint(), profile.getRegion()))
-            .build();
+            .build());
     }
 
     /**
@@ -160,7 +171,7 @@ public class AwsMediaConvertServiceImpl extends AbstractAwsService<MediaConvertP
         AWSMediaConvert mediaConvertClient = getMediaConvertClient(profile);
 
         logger.info("Starting upload of file {0} for site {1}", filename, site);
-        AwsUtils.uploadStream(profile.getInputPath(), filename, s3Client, partSize, filename, content);
+        clientRegistry.uploadStream(profile, profile.getInputPath(), filename, s3Client, partSize, filename, content);
         logger.info("Upload of file {0} for site {1} complete", filename, site);
 
         String originalName = FilenameUtils.getBaseName(filename);
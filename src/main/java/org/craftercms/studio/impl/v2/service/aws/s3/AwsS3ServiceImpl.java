@@ -31,6 +31,7 @@ import org.craftercms.commons.validation.annotations.param.ValidateStringParam;
 import org.craftercms.studio.api.v1.exception.AwsException;
 import org.craftercms.studio.api.v1.service.aws.AbstractAwsService;
 import org.craftercms.studio.api.v2.service.aws.s3.AwsS3Service;
+import org.craftercms.studio.impl.v1.service.aws.AwsClientRegistry;
 import org.craftercms.studio.impl.v1.service.aws.AwsUtils;
 import org.craftercms.studio.model.aws.s3.S3Item;
 import org.springframework.beans.factory.annotation.Required;
@@ -64,7 +65,12 @@ public class AwsS3ServiceImpl extends AbstractAwsService<S3Profile> implements A
      * The URL pattern for the generated files
      */
     protected String urlPattern;
-    
+
+    /**
+     * The registry that keeps the S3 clients of each profile
+     */
+    protected AwsClientRegistry clientRegistry;
+
     public void setPartSize(final int partSize) {
         this.partSize = partSize;
     }
@@ -79,11 +85,16 @@ public class AwsS3ServiceImpl extends AbstractAwsService<S3Profile> implements A
         this.urlPattern = urlPattern;
     }
 
+    @Required
+    public void setClientRegistry(final AwsClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
+    }
+
     /**
     * Add withEndpointConfiguration() to direct requests to a S3 compatible storage service
     */
     protected AmazonS3 getS3Client(S3Profile profile) {
-        return S3Utils.createClient(profile);
+        return clientRegistry.getClient(profile, "s3", () -> S3Utils.createClient(profile));
     }
 
     /**
@@ -101,7 +112,7 @@ public class AwsS3ServiceImpl extends AbstractAwsService<S3Profile> implements A
         String inputBucket = profile.getBucketName();
         String key = StringUtils.isNotEmpty(path)? StringUtils.appendIfMissing(path, delimiter) + filename : filename;
 
-        AwsUtils.uploadStream(inputBucket, key, s3Client, partSize, filename, content);
+        clientRegistry.uploadStream(profile, inputBucket, key, s3Client, partSize, filename, content);
 
         return new S3Item(filename, createUrl(profileId, key), false);
     }
@@ -20,6 +20,7 @@ package org.craftercms.studio.impl.v2.service.cmis;
 import org.apache.chemistry.opencmis.client.api.CmisObject;
 import org.apache.chemistry.opencmis.client.api.Folder;
 import org.apache.chemistry.opencmis.client.api.ItemIterable;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
 import org.apache.chemistry.opencmis.client.api.QueryResult;
 import org.apache.chemistry.opencmis.client.api.Repository;
 import org.apache.chemistry.opencmis.client.api.Session;
@@ -45,15 +46,16 @@ import org.craftercms.studio.api.v1.exception.StudioPathNotFoundException;
 import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.service.content.ContentService;
-import org.craftercms.studio.api.v1.to.CmisContentItemTO;
 import org.craftercms.studio.api.v2.dal.CmisContentItem;
 import org.craftercms.studio.api.v2.dal.DataSourceRepository;
+import org.craftercms.studio.api.v2.repository.ContentRepository;
 import org.craftercms.studio.api.v2.service.cmis.CmisService;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.model.rest.CmisUploadItem;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
 import org.dom4j.Node;
+import org.springframework.beans.factory.annotation.Required;
 
 import javax.activation.MimetypesFileTypeMap;
 import javax.net.ssl.HostnameVerifier;
@@ -73,6 +75,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import static org.apache.chemistry.opencmis.commons.PropertyIds.NAME;
 import static org.apache.chemistry.opencmis.commons.PropertyIds.OBJECT_ID;
@@ -86,10 +94,22 @@ import static org.apache.chemistry.opencmis.commons.enums.BaseTypeId.CMIS_DOCUME
 import static org.apache.chemistry.opencmis.commons.enums.BaseTypeId.CMIS_FOLDER;
 import static org.apache.chemistry.opencmis.commons.enums.BindingType.ATOMPUB;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CMIS_FOLDER_LISTING_MAX_ENTRIES;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CMIS_FOLDER_LISTING_TTL;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CMIS_SESSION_HEALTH_CHECK_INTERVAL;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CMIS_SESSION_IDLE_TIMEOUT;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CMIS_SESSION_MAX_SESSIONS;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_SITE_DATA_SOURCES_CONFIG_LOCATION;
 import static org.craftercms.studio.permissions.PermissionResolverImpl.PATH_RESOURCE_ID;
 import static org.craftercms.studio.permissions.PermissionResolverImpl.SITE_ID_RESOURCE_ID;
 
+/**
+ * Default implementation of {@link CmisService}. CMIS sessions are created once per site, repository and version of
+ * the data sources config, and reused until they are idle for too long. A session that hasn't been used for a while
+ * is checked against the repository before being handed out again, and is dropped and reconnected if the check or a
+ * read fails with a connection error. Folder listings are kept in memory for a short time so browsing the same
+ * folders again doesn't hit the repository.
+ */
 public class CmisServiceImpl implements CmisService {
 
     private static final Logger logger = LoggerFactory.getLogger(CmisServiceImpl.class);
@@ -117,49 +137,90 @@ public class CmisServiceImpl implements CmisService {
 
     protected StudioConfiguration studioConfiguration;
     protected ContentService contentService;
+    protected ContentRepository contentRepository;
+    protected SessionFactory sessionFactory = SessionFactoryImpl.newInstance();
+
+    /**
+     * Open sessions by site, repository id and data sources config version
+     */
+    protected Cache<String, CmisSessionEntry> sessions;
+
+    /**
+     * Recent folder listings by session key and folder path
+     */
+    protected Cache<String, List<CmisContentItem>> folderListings;
+
+    protected long healthCheckIntervalMillis;
+
+    public void init() {
+        int maxSessions = studioConfiguration.getProperty(CMIS_SESSION_MAX_SESSIONS, Integer.class, 100);
+        long idleTimeout = studioConfiguration.getProperty(CMIS_SESSION_IDLE_TIMEOUT, Long.class, 1800L);
+        int maxListings = studioConfiguration.getProperty(CMIS_FOLDER_LISTING_MAX_ENTRIES, Integer.class, 1000);
+        long listingTtl = studioConfiguration.getProperty(CMIS_FOLDER_LISTING_TTL, Long.class, 30L);
+
+        healthCheckIntervalMillis = TimeUnit.SECONDS.toMillis(
+                studioConfiguration.getProperty(CMIS_SESSION_HEALTH_CHECK_INTERVAL, Long.class, 60L));
+        sessions = CacheBuilder.newBuilder()
+                               .maximumSize(maxSessions)
+                               .expireAfterAccess(idleTimeout, TimeUnit.SECONDS)
+                               .build();
+        folderListings = CacheBuilder.newBuilder()
+                                     .maximumSize(maxListings)
+                                     .expireAfterWrite(listingTtl, TimeUnit.SECONDS)
+                                     .build();
+    }
 
     @Override
     @HasPermission(type = DefaultPermission.class, action = "list_cmis")
     public List<CmisContentItem> list(@ProtectedResourceId(SITE_ID_RESOURCE_ID) String siteId,
                                       String cmisRepo, String path)
             throws CmisRepositoryNotFoundException, CmisUnavailableException, CmisTimeoutException {
+        List<CmisContentItem> items = readWithReconnect(siteId, cmisRepo, entry -> {
+            String contentPath = Paths.get(entry.config.getBasePath(), path).toString();
+            String listingKey = getFolderListingKey(entry, contentPath);
+            List<CmisContentItem> listing = folderListings.getIfPresent(listingKey);
+            if (listing == null) {
+                listing = listFolder(entry.session, contentPath);
+                folderListings.put(listingKey, listing);
+            } else {
+                logger.debug("Using cached listing of CMIS folder {0} for site {1}", contentPath, siteId);
+            }
+            return listing;
+        });
+        return items != null ? new ArrayList<CmisContentItem>(items) : new ArrayList<CmisContentItem>();
+    }
+
+    private List<CmisContentItem> listFolder(Session session, String contentPath) {
         List<CmisContentItem> items = new ArrayList<CmisContentItem>();
-        DataSourceRepository repositoryConfig = getConfiguration(siteId, cmisRepo);
-        if (repositoryConfig != null) {
-            Session session = createCMISSession(repositoryConfig);
-            if (session != null) {
-                String contentPath = Paths.get(repositoryConfig.getBasePath(), path).toString();
-                CmisObject cmisObject = session.getObjectByPath(contentPath);
-                if (cmisObject != null) {
-                    if (CMIS_FOLDER.equals(cmisObject.getBaseTypeId())) {
-                        Folder folder = (Folder)cmisObject;
-                        Iterable<CmisObject> iterable = folder.getChildren();
-                        Iterator<CmisObject> iterator = iterable.iterator();
-                        while (iterator.hasNext()) {
-                            CmisContentItem item = new CmisContentItem();
-                            CmisObject cmisItem = iterator.next();
-                            item.setItemName(cmisItem.getName());
-                            if (CMIS_DOCUMENT.equals(cmisItem.getBaseTypeId())) {
-                                org.apache.chemistry.opencmis.client.api.Document cmisDoc =
-                                        (org.apache.chemistry.opencmis.client.api.Document)cmisItem;
-                                item.setItemPath(cmisDoc.getPaths().get(0));
-                                item.setMimeType(cmisDoc.getContentStreamMimeType());
-                                String contentId = cmisDoc.getId();
-                                StringTokenizer st = new StringTokenizer(contentId, ";");
-                                if (st.hasMoreTokens()) {
-                                    item.setItemId(st.nextToken());
-                                }
-                                item.setSize(cmisDoc.getContentStreamLength());
-                                items.add(item);
-                            } else if (CMIS_FOLDER.equals(cmisItem.getBaseTypeId())) {
-                                Folder cmisFolder = (Folder)cmisItem;
-                                item.setItemId(cmisFolder.getId());
-                                item.setItemPath(cmisFolder.getPath());
-                                item.setMimeType(MIME_TYPE_FOLDER);
-                                item.setSize(-1);
-                                items.add(item);
-                            }
+        CmisObject cmisObject = session.getObjectByPath(contentPath);
+        if (cmisObject != null) {
+            if (CMIS_FOLDER.equals(cmisObject.getBaseTypeId())) {
+                Folder folder = (Folder)cmisObject;
+                Iterable<CmisObject> iterable = folder.getChildren();
+                Iterator<CmisObject> iterator = iterable.iterator();
+                while (iterator.hasNext()) {
+                    CmisContentItem item = new CmisContentItem();
+                    CmisObject cmisItem = iterator.next();
+                    item.setItemName(cmisItem.getName());
+                    if (CMIS_DOCUMENT.equals(cmisItem.getBaseTypeId())) {
+                        org.apache.chemistry.opencmis.client.api.Document cmisDoc =
+                                (org.apache.chemistry.opencmis.client.api.Document)cmisItem;
+                        item.setItemPath(cmisDoc.getPaths().get(0));
+                        item.setMimeType(cmisDoc.getContentStreamMimeType());
+                        String contentId = cmisDoc.getId();
+                        StringTokenizer st = new StringTokenizer(contentId, ";");
+                        if (st.hasMoreTokens()) {
+                            item.setItemId(st.nextToken());
                         }
+                        item.setSize(cmisDoc.getContentStreamLength());
+                        items.add(item);
+                    } else if (CMIS_FOLDER.equals(cmisItem.getBaseTypeId())) {
+                        Folder cmisFolder = (Folder)cmisItem;
+                        item.setItemId(cmisFolder.getId());
+                        item.setItemPath(cmisFolder.getPath());
+                        item.setMimeType(MIME_TYPE_FOLDER);
+                        item.setSize(-1);
+                        items.add(item);
                     }
                 }
             }
@@ -167,6 +228,88 @@ public class CmisServiceImpl implements CmisService {
         return items;
     }
 
+    /**
+     * Returns the open session for the given site and repository, creating it if there's none or the cached one
+     * failed its health check. Returns null if the repository config couldn't be read.
+     */
+    protected CmisSessionEntry getSession(String siteId, String cmisRepo)
+            throws CmisRepositoryNotFoundException, CmisUnavailableException, CmisTimeoutException {
+        String configVersion = contentRepository.getContentBlobId(siteId, getConfigLocation());
+        String key = siteId + ":" + cmisRepo + ":" + configVersion;
+
+        CmisSessionEntry entry = sessions.getIfPresent(key);
+        if (entry != null) {
+            if (isHealthy(entry)) {
+                return entry;
+            }
+            logger.info("CMIS session for site {0} repository {1} failed its health check, reconnecting",
+                        siteId, cmisRepo);
+            invalidateSession(entry);
+        }
+
+        DataSourceRepository repositoryConfig = getConfiguration(siteId, cmisRepo);
+        if (repositoryConfig == null) {
+            return null;
+        }
+
+        logger.debug("Create new CMIS session for site {0} repository {1}", siteId, cmisRepo);
+        entry = new CmisSessionEntry(key, repositoryConfig, createCMISSession(repositoryConfig));
+        if (StringUtils.isNotEmpty(configVersion)) {
+            sessions.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Runs a read against the session of the given site and repository. If the session lost its connection it's
+     * dropped and the read is retried once with a new one. Returns null if the repository config couldn't be read.
+     */
+    protected <T> T readWithReconnect(String siteId, String cmisRepo, Function<CmisSessionEntry, T> read)
+            throws CmisRepositoryNotFoundException, CmisUnavailableException, CmisTimeoutException {
+        CmisSessionEntry entry = getSession(siteId, cmisRepo);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return read.apply(entry);
+        } catch (CmisConnectionException e) {
+            logger.info("CMIS session for site {0} repository {1} lost its connection, reconnecting",
+                        siteId, cmisRepo);
+            invalidateSession(entry);
+            entry = getSession(siteId, cmisRepo);
+            return entry != null ? read.apply(entry) : null;
+        }
+    }
+
+    protected boolean isHealthy(CmisSessionEntry entry) {
+        long now = System.currentTimeMillis();
+        if (now - entry.lastChecked < healthCheckIntervalMillis) {
+            return true;
+        }
+        try {
+            OperationContext context = entry.session.createOperationContext();
+            context.setCacheEnabled(false);
+            context.setFilterString(OBJECT_ID);
+            entry.session.getObject(entry.session.getRepositoryInfo().getRootFolderId(), context);
+            entry.lastChecked = now;
+            return true;
+        } catch (CmisBaseException e) {
+            logger.debug("Health check of CMIS session {0} failed: {1}", entry.key, e.getMessage());
+            return false;
+        }
+    }
+
+    protected void invalidateSession(CmisSessionEntry entry) {
+        sessions.invalidate(entry.key);
+        folderListings.invalidateAll(folderListings.asMap().keySet().stream()
+                                                   .filter(key -> key.startsWith(entry.key + ":"))
+                                                   .collect(Collectors.toList()));
+    }
+
+    private String getFolderListingKey(CmisSessionEntry entry, String contentPath) {
+        return entry.key + ":" + contentPath;
+    }
+
     private DataSourceRepository getConfiguration(String site, String cmisRepo) throws CmisRepositoryNotFoundException {
         String configPath = Paths.get(getConfigLocation()).toString();
         Document document =  null;
@@ -218,8 +361,7 @@ public class CmisServiceImpl implements CmisService {
             }
         }
 
-        // Create a SessionFactory and set up the SessionParameter map
-        SessionFactory sessionFactory = SessionFactoryImpl.newInstance();
+        // Set up the SessionParameter map
         Map<String, String> parameter = new HashMap<String, String>();
         parameter.put(USER, config.getUsername());
         parameter.put(PASSWORD, config.getPassword());
@@ -278,39 +420,39 @@ public class CmisServiceImpl implements CmisService {
     public List<CmisContentItem> search(@ProtectedResourceId(SITE_ID_RESOURCE_ID) String siteId, String cmisRepo,
                                         String searchTerm, String path)
             throws CmisRepositoryNotFoundException, CmisUnavailableException, CmisTimeoutException {
+        List<CmisContentItem> toRet = readWithReconnect(siteId, cmisRepo, entry -> {
+            String contentPath = Paths.get(entry.config.getBasePath(), path).toString();
+            return searchFolder(entry.session, contentPath, searchTerm);
+        });
+        return toRet != null ? toRet : new ArrayList<CmisContentItem>();
+    }
+
+    private List<CmisContentItem> searchFolder(Session session, String contentPath, String searchTerm) {
         List<CmisContentItem> toRet = new ArrayList<CmisContentItem>();
-        DataSourceRepository repositoryConfig = getConfiguration(siteId, cmisRepo);
-        if (repositoryConfig != null) {
-            Session session = createCMISSession(repositoryConfig);
-            if (session != null) {
-                String contentPath = Paths.get(repositoryConfig.getBasePath(), path).toString();
-                CmisObject cmisObject = session.getObjectByPath(contentPath);
-                if (cmisObject != null) {
-                    if (CMIS_FOLDER.equals(cmisObject.getBaseTypeId())) {
-                        String queryString = CMIS_SEARCH_QUERY.replace(CMIS_SEARCH_QUERY_FOLDER_ID_VARIABLE,
-                                cmisObject.getId()).replace(CMIS_SEARCH_QUERY_SEARCH_TERM_VARIABLE, searchTerm);
-                        ItemIterable<QueryResult> result = session.query(queryString, false);
-                        Iterator<QueryResult> iterator = result.iterator();
-                        int count = 0;
-                        while (iterator.hasNext()) {
-                            CmisContentItem item = new CmisContentItem();
-                            QueryResult qr = iterator.next();
-
-                            String contentId = qr.getPropertyById(OBJECT_ID).getFirstValue().toString();
-                            StringTokenizer st = new StringTokenizer(contentId, ";");
-                            if (st.hasMoreTokens()) {
-                                item.setItemId(st.nextToken());
-                            }
-                            CmisObject qrObject = session.getObject(item.getItemId());
-                            org.apache.chemistry.opencmis.client.api.Document cmisDoc =
-                                    (org.apache.chemistry.opencmis.client.api.Document)qrObject;
-                            item.setItemName(cmisDoc.getName());
-                            item.setItemPath(cmisDoc.getPaths().get(0));
-                            item.setMimeType(cmisDoc.getContentStreamMimeType());
-                            item.setSize(cmisDoc.getContentStreamLength());
-                            toRet.add(item);
-                        }
+        CmisObject cmisObject = session.getObjectByPath(contentPath);
+        if (cmisObject != null) {
+            if (CMIS_FOLDER.equals(cmisObject.getBaseTypeId())) {
+                String queryString = CMIS_SEARCH_QUERY.replace(CMIS_SEARCH_QUERY_FOLDER_ID_VARIABLE,
+                        cmisObject.getId()).replace(CMIS_SEARCH_QUERY_SEARCH_TERM_VARIABLE, searchTerm);
+                ItemIterable<QueryResult> result = session.query(queryString, false);
+                Iterator<QueryResult> iterator = result.iterator();
+                while (iterator.hasNext()) {
+                    CmisContentItem item = new CmisContentItem();
+                    QueryResult qr = iterator.next();
+
+                    String contentId = qr.getPropertyById(OBJECT_ID).getFirstValue().toString();
+                    StringTokenizer st = new StringTokenizer(contentId, ";");
+                    if (st.hasMoreTokens()) {
+                        item.setItemId(st.nextToken());
                     }
+                    CmisObject qrObject = session.getObject(item.getItemId());
+                    org.apache.chemistry.opencmis.client.api.Document cmisDoc =
+                            (org.apache.chemistry.opencmis.client.api.Document)qrObject;
+                    item.setItemName(cmisDoc.getName());
+                    item.setItemPath(cmisDoc.getPaths().get(0));
+                    item.setMimeType(cmisDoc.getContentStreamMimeType());
+                    item.setSize(cmisDoc.getContentStreamLength());
+                    toRet.add(item);
                 }
             }
         }
@@ -325,15 +467,23 @@ public class CmisServiceImpl implements CmisService {
         if (!contentService.contentExists(siteId, studioPath))
             throw new StudioPathNotFoundException("Studio repository path does not exist for site " + siteId +
                     " (path: " + studioPath + ")");
-        List<CmisContentItemTO> toRet = new ArrayList<CmisContentItemTO>();
-        DataSourceRepository repositoryConfig = getConfiguration(siteId, cmisRepoId);
-        if (repositoryConfig != null) {
-            logger.debug("Create new CMIS session");
-            Session session = createCMISSession(repositoryConfig);
+        CmisSessionEntry entry = getSession(siteId, cmisRepoId);
+        if (entry != null) {
+            DataSourceRepository repositoryConfig = entry.config;
+            Session session = entry.session;
             if (session != null) {
                 String contentPath = Paths.get(repositoryConfig.getBasePath(), cmisPath).toString();
                 logger.debug("Find object for CMIS path: " + contentPath);
-                CmisObject cmisObject = session.getObjectByPath(contentPath);
+                // The session is shared, so skip its cache to always clone the latest version of the document
+                OperationContext context = session.createOperationContext();
+                context.setCacheEnabled(false);
+                CmisObject cmisObject;
+                try {
+                    cmisObject = session.getObjectByPath(contentPath, context);
+                } catch (CmisConnectionException e) {
+                    invalidateSession(entry);
+                    throw e;
+                }
                 if (cmisObject != null) {
                     if (BaseTypeId.CMIS_FOLDER.equals(cmisObject.getBaseTypeId())) {
                         throw new CmisPathNotFoundException();
@@ -362,15 +512,21 @@ public class CmisServiceImpl implements CmisService {
                               String filename, InputStream content)
             throws CmisUnavailableException, CmisTimeoutException, CmisRepositoryNotFoundException,
             CmisPathNotFoundException {
-        DataSourceRepository repositoryConfig = getConfiguration(siteId, cmisRepoId);
+        CmisSessionEntry entry = getSession(siteId, cmisRepoId);
         CmisUploadItem cmisUploadItem = new CmisUploadItem();
-        if (repositoryConfig != null) {
-            logger.debug("Create new CMIS session");
-            Session session = createCMISSession(repositoryConfig);
+        if (entry != null) {
+            DataSourceRepository repositoryConfig = entry.config;
+            Session session = entry.session;
             if (session != null) {
                 String contentPath = Paths.get(repositoryConfig.getBasePath(), cmisPath).toString();
                 logger.debug("Find object for CMIS path: " + contentPath);
-                CmisObject cmisObject = session.getObjectByPath(contentPath);
+                CmisObject cmisObject;
+                try {
+                    cmisObject = session.getObjectByPath(contentPath);
+                } catch (CmisConnectionException e) {
+                    invalidateSession(entry);
+                    throw e;
+                }
                 if (cmisObject != null) {
                     if (BaseTypeId.CMIS_FOLDER.equals(cmisObject.getBaseTypeId())) {
                         CmisObject docObject = null;
@@ -414,7 +570,7 @@ public class CmisServiceImpl implements CmisService {
                                         st.nextToken()));
                             }
                         }
-                        session.clear();
+                        folderListings.invalidate(getFolderListingKey(entry, contentPath));
                     } else if (CMIS_DOCUMENT.equals(cmisObject.getBaseTypeId())) {
                         throw new CmisPathNotFoundException();
                     }
@@ -428,6 +584,25 @@ public class CmisServiceImpl implements CmisService {
         return cmisUploadItem;
     }
 
+    /**
+     * An open CMIS session and the repository config it was created with
+     */
+    protected static class CmisSessionEntry {
+
+        protected final String key;
+        protected final DataSourceRepository config;
+        protected final Session session;
+        protected volatile long lastChecked;
+
+        protected CmisSessionEntry(String key, DataSourceRepository config, Session session) {
+            this.key = key;
+            this.config = config;
+            this.session = session;
+            this.lastChecked = System.currentTimeMillis();
+        }
+
+    }
+
     private String getConfigLocation() {
         return studioConfiguration.getProperty(CONFIGURATION_SITE_DATA_SOURCES_CONFIG_LOCATION);
     }
@@ -447,4 +622,13 @@ public class CmisServiceImpl implements CmisService {
     public void setContentService(ContentService contentService) {
         this.contentService = contentService;
     }
+
+    @Required
+    public void setContentRepository(ContentRepository contentRepository) {
+        this.contentRepository = contentRepository;
+    }
+
+    public void setSessionFactory(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
 }
@@ -44,6 +44,7 @@ import org.craftercms.studio.api.v2.dal.ContentItemVersion;
 import org.craftercms.studio.api.v2.exception.ConfigurationException;
 import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
 import org.craftercms.studio.api.v2.service.config.ConfigurationService;
+import org.craftercms.studio.api.v2.service.content.internal.ContentServiceInternal;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.model.rest.ConfigurationHistory;
 import org.dom4j.Document;
@@ -99,6 +100,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
     public static final String PLACEHOLDER_NAME = "name";
 
     private ContentService contentService;
+    private ContentServiceInternal contentServiceInternal;
     private StudioConfiguration studioConfiguration;
     private AuditServiceInternal auditServiceInternal;
     private SiteService siteService;
@@ -204,14 +206,26 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         return contentService.getContentAsString(StringUtils.EMPTY, path);
     }
 
-    private String getDefaultConfiguration(String siteId, String module, String path) {
+    @Override
+    public String getConfigurationId(@ProtectedResourceId(SITE_ID_RESOURCE_ID) String siteId, String module,
+                                     String path, String environment) {
+        return contentServiceInternal.getContentId(siteId,
+                getEnvironmentConfigurationPath(siteId, module, path, environment));
+    }
+
+    @Override
+    @HasPermission(type = DefaultPermission.class, action = "write_global_configuration")
+    public String getGlobalConfigurationId(@ProtectedResourceId(PATH_RESOURCE_ID) String path) {
+        return contentServiceInternal.getContentId(StringUtils.EMPTY, path);
+    }
+
+    private String getDefaultConfigurationPath(String module, String path) {
         String configBasePath = studioConfiguration.getProperty(CONFIGURATION_SITE_CONFIG_BASE_PATH_PATTERN)
                 .replaceAll(PATTERN_MODULE, module);
-        String configPath = Paths.get(configBasePath, path).toString();
-        return contentService.getContentAsString(siteId, configPath);
+        return Paths.get(configBasePath, path).toString();
     }
 
-    private String getEnvironmentConfiguration(String siteId, String module, String path, String environment) {
+    private String getEnvironmentConfigurationPath(String siteId, String module, String path, String environment) {
         if (!StringUtils.isEmpty(environment)) {
             String configBasePath =
                     studioConfiguration.getProperty(CONFIGURATION_SITE_MUTLI_ENVIRONMENT_CONFIG_BASE_PATH_PATTERN)
@@ -220,10 +234,15 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             String configPath =
                     Paths.get(configBasePath, path).toString();
             if (contentService.contentExists(siteId, configPath)) {
-                return contentService.getContentAsString(siteId, configPath);
+                return configPath;
             }
         }
-        return getDefaultConfiguration(siteId, module, path);
+        return getDefaultConfigurationPath(module, path);
+    }
+
+    private String getEnvironmentConfiguration(String siteId, String module, String path, String environment) {
+        return contentService.getContentAsString(siteId,
+                getEnvironmentConfigurationPath(siteId, module, path, environment));
     }
 
     @Override
@@ -370,6 +389,11 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         this.studioConfiguration = studioConfiguration;
     }
 
+    @Required
+    public void setContentServiceInternal(ContentServiceInternal contentServiceInternal) {
+        this.contentServiceInternal = contentServiceInternal;
+    }
+
     @Required
     public void setServicesConfig(final ServicesConfig servicesConfig) {
         this.servicesConfig = servicesConfig;
@@ -17,6 +17,7 @@
 
 package org.craftercms.studio.impl.v2.service.content;
 
+import org.apache.commons.lang3.StringUtils;
 import org.craftercms.commons.security.permissions.DefaultPermission;
 import org.craftercms.commons.security.permissions.annotations.HasPermission;
 import org.craftercms.commons.security.permissions.annotations.ProtectedResourceId;
@@ -42,7 +43,9 @@ import org.craftercms.studio.model.AuthenticatedUser;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.OPERATION_APPROVE;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.TARGET_TYPE_CONTENT_ITEM;
@@ -116,6 +119,24 @@ public class ContentServiceImpl implements ContentService {
         return true;
     }
 
+    @Override
+    public String getContentId(String siteId, String path) {
+        return contentServiceInternal.getContentId(siteId, path);
+    }
+
+    @Override
+    public Map<String, String> getChangedContentIds(String siteId, Map<String, String> contentIds) {
+        Map<String, String> changedIds = new LinkedHashMap<String, String>();
+        Map<String, String> currentIds =
+                contentServiceInternal.getContentIds(siteId, new ArrayList<String>(contentIds.keySet()));
+        currentIds.forEach((path, currentId) -> {
+            if (!StringUtils.equals(contentIds.get(path), currentId)) {
+                changedIds.put(path, currentId);
+            }
+        });
+        return changedIds;
+    }
+
     private void insertDeleteContentApprovedActivity(String siteId, String aprover, List<String> contentToDelete)
             throws SiteNotFoundException {
         SiteFeed siteFeed = siteService.getSite(siteId);
@@ -22,6 +22,7 @@ import org.craftercms.studio.api.v2.service.content.internal.ContentServiceInter
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class ContentServiceInternalImpl implements ContentServiceInternal {
 
@@ -41,6 +42,16 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
         return subtreeItems;
     }
 
+    @Override
+    public String getContentId(String siteId, String path) {
+        return contentRepository.getContentBlobId(siteId, path);
+    }
+
+    @Override
+    public Map<String, String> getContentIds(String siteId, List<String> paths) {
+        return contentRepository.getContentBlobIds(siteId, paths);
+    }
+
     public ContentRepository getContentRepository() {
         return contentRepository;
     }
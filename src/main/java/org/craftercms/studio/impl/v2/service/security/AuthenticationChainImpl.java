@@ -33,6 +33,7 @@ import org.craftercms.studio.api.v2.service.security.AuthenticationChain;
 import org.craftercms.studio.api.v2.service.security.AuthenticationProvider;
 import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.springframework.beans.factory.DisposableBean;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -71,6 +72,18 @@ public class AuthenticationChainImpl implements AuthenticationChain {
         });
     }
 
+    public void destroy() {
+        for (AuthenticationProvider provider : authenticationChain) {
+            if (provider instanceof DisposableBean) {
+                try {
+                    ((DisposableBean) provider).destroy();
+                } catch (Exception e) {
+                    logger.error("Error releasing resources of authentication provider", e);
+                }
+            }
+        }
+    }
+
     @Override
     public boolean doAuthenticate(HttpServletRequest request, HttpServletResponse response, String username,
                                   String password) throws Exception {
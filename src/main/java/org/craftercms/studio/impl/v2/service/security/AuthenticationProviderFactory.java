@@ -34,6 +34,11 @@ import static org.craftercms.studio.api.v2.utils.StudioConfiguration.AUTHENTICAT
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.AUTHENTICATION_CHAIN_PROVIDER_LAST_NAME_LDAP_ATTRIBUTE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.AUTHENTICATION_CHAIN_PROVIDER_LDAP_BASE_CONTEXT;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.AUTHENTICATION_CHAIN_PROVIDER_LDAP_PASSWORD;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_MAX_IDLE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_MAX_TOTAL;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_MAX_WAIT;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_MIN_IDLE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_VALIDATION_INTERVAL;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.AUTHENTICATION_CHAIN_PROVIDER_LDAP_URL;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.AUTHENTICATION_CHAIN_PROVIDER_LDAP_USERNAME;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.AUTHENTICATION_CHAIN_PROVIDER_LOGOUT_ENABLED;
@@ -93,6 +98,17 @@ public class AuthenticationProviderFactory {
         provider.setGroupNameLdapAttributeRegex(providerConfig.getString(AUTHENTICATION_CHAIN_PROVIDER_GROUP_NAME_REGEX_LDAP_ATTRIBUTE));
         provider.setGroupNameLdapAttributeMatchIndex(
                 Integer.parseInt(providerConfig.getString(AUTHENTICATION_CHAIN_PROVIDER_GROUP_NAME_MATCH_INDEX_LDAP_ATTRIBUTE)));
+        provider.setPoolMaxTotal(
+                providerConfig.getInt(AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_MAX_TOTAL, provider.getPoolMaxTotal()));
+        provider.setPoolMaxIdle(
+                providerConfig.getInt(AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_MAX_IDLE, provider.getPoolMaxIdle()));
+        provider.setPoolMinIdle(
+                providerConfig.getInt(AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_MIN_IDLE, provider.getPoolMinIdle()));
+        provider.setPoolMaxWaitMillis(
+                providerConfig.getLong(AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_MAX_WAIT, provider.getPoolMaxWaitMillis()));
+        provider.setPoolValidationIntervalMillis(
+                providerConfig.getLong(AUTHENTICATION_CHAIN_PROVIDER_LDAP_POOL_VALIDATION_INTERVAL,
+                                       provider.getPoolValidationIntervalMillis()));
         return provider;
     }
 
@@ -17,6 +17,7 @@
 
 package org.craftercms.studio.impl.v2.service.security;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.studio.api.v1.dal.SiteFeed;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
@@ -39,27 +40,36 @@ import org.craftercms.studio.api.v2.service.security.BaseAuthenticationProvider;
 import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.model.AuthenticationType;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.ldap.AuthenticationException;
 import org.springframework.ldap.CommunicationException;
 import org.springframework.ldap.core.AuthenticatedLdapEntryContextMapper;
+import org.springframework.ldap.core.ContextSource;
 import org.springframework.ldap.core.DirContextOperations;
 import org.springframework.ldap.core.LdapTemplate;
 import org.springframework.ldap.core.support.DefaultDirObjectFactory;
 import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.pool2.factory.PoolConfig;
+import org.springframework.ldap.pool2.factory.PooledContextSource;
+import org.springframework.ldap.pool2.validation.DefaultDirContextValidator;
 import org.springframework.ldap.query.LdapQuery;
 
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 import javax.naming.directory.Attribute;
 import javax.naming.directory.Attributes;
+import javax.naming.directory.DirContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -69,19 +79,24 @@ import static org.craftercms.studio.api.v2.dal.AuditLogConstants.OPERATION_CREAT
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.OPERATION_UPDATE;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.TARGET_TYPE_USER;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.GROUP_DESCRIPTION;
-import static org.craftercms.studio.api.v2.dal.QueryParameterNames.GROUP_ID;
-import static org.craftercms.studio.api.v2.dal.QueryParameterNames.GROUP_NAME;
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.GROUP_IDS;
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.GROUP_NAMES;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.ORG_ID;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.USERNAME;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.USER_ID;
-import static org.craftercms.studio.api.v2.dal.QueryParameterNames.USER_IDS;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_GLOBAL_SYSTEM_SITE;
 import static org.springframework.ldap.query.LdapQueryBuilder.query;
 
-public class LdapAuthenticationProvider extends BaseAuthenticationProvider {
+public class LdapAuthenticationProvider extends BaseAuthenticationProvider implements DisposableBean {
 
     private final static Logger logger = LoggerFactory.getLogger(LdapAuthenticationProvider.class);
 
+    private static final int DEFAULT_POOL_MAX_TOTAL = 20;
+    private static final int DEFAULT_POOL_MAX_IDLE = 8;
+    private static final int DEFAULT_POOL_MIN_IDLE = 0;
+    private static final long DEFAULT_POOL_MAX_WAIT_MILLIS = 10000;
+    private static final long DEFAULT_POOL_VALIDATION_INTERVAL_MILLIS = 60000;
+
     private String ldapUrl;
     private String ldapPassword;
     private String ldapUsername;
@@ -92,22 +107,26 @@ public class LdapAuthenticationProvider extends BaseAuthenticationProvider {
     private String lastNameLdapAttribute;
     private String groupNameLdapAttribute;
     private String groupNameLdapAttributeRegex;
+    private Pattern groupNameLdapAttributePattern;
     private int groupNameLdapAttributeMatchIndex;
     private String emailLdapAttribute;
 
+    private int poolMaxTotal = DEFAULT_POOL_MAX_TOTAL;
+    private int poolMaxIdle = DEFAULT_POOL_MAX_IDLE;
+    private int poolMinIdle = DEFAULT_POOL_MIN_IDLE;
+    private long poolMaxWaitMillis = DEFAULT_POOL_MAX_WAIT_MILLIS;
+    private long poolValidationIntervalMillis = DEFAULT_POOL_VALIDATION_INTERVAL_MILLIS;
+
+    private volatile LdapTemplate ldapTemplate;
+    private PooledContextSource pooledContextSource;
+    private final Map<String, String> syncHashes = new ConcurrentHashMap<>();
+
     @Override
     public boolean doAuthenticate(HttpServletRequest request, HttpServletResponse response,
                                   AuthenticationChain authenticationChain, String username, String password)
             throws AuthenticationSystemException, BadCredentialsException {
 
-        LdapContextSource lcs = new LdapContextSource();
-        lcs.setUrl(ldapUrl);
-        lcs.setUserDn(ldapUsername);
-        lcs.setPassword(ldapPassword);
-        lcs.setBase(ldapBaseContext);
-        lcs.setDirObjectFactory(DefaultDirObjectFactory.class);
-        lcs.afterPropertiesSet();
-        LdapTemplate ldapTemplate = new LdapTemplate(lcs);
+        LdapTemplate ldapTemplate = getLdapTemplate();
 
         // Mapper for user data if user is successfully authenticated
         AuthenticatedLdapEntryContextMapper<User> mapper = (dirContext, ldapEntryIdentification) -> {
@@ -187,41 +206,52 @@ public class LdapAuthenticationProvider extends BaseAuthenticationProvider {
             AuditServiceInternal auditServiceInternal = authenticationChain.getAuditServiceInternal();
             StudioConfiguration studioConfiguration = authenticationChain.getStudioConfiguration();
             SiteService siteService = authenticationChain.getSiteService();
+            String syncHash = getSyncHash(user);
             try {
-                SiteFeed siteFeed = siteService.getSite(studioConfiguration.getProperty(CONFIGURATION_GLOBAL_SYSTEM_SITE));
-                if (userServiceInternal.userExists(-1, username)) {
-                    try {
-                        userServiceInternal.updateUser(user);
-                    } catch (UserNotFoundException e) {
-                        // Shouldn't happen
-                        throw new IllegalStateException(e);
-                    }
-
-                    AuditLog auditLog = auditServiceInternal.createAuditLogEntry();
-                    auditLog.setOperation(OPERATION_UPDATE);
-                    auditLog.setSiteId(siteFeed.getId());
-                    auditLog.setActorId(user.getUsername());
-                    auditLog.setPrimaryTargetId(user.getUsername());
-                    auditLog.setPrimaryTargetType(TARGET_TYPE_USER);
-                    auditLog.setPrimaryTargetValue(user.getUsername());
-                    auditServiceInternal.insertAuditLog(auditLog);
-
+                boolean userExists = userServiceInternal.userExists(-1, username);
+                if (userExists && StringUtils.equals(syncHash, syncHashes.get(username))) {
+                    logger.debug("LDAP data for user " + username + " hasn't changed since last login, skipping sync");
                 } else {
-                    try {
-                        userServiceInternal.createUser(user);
+                    SiteFeed siteFeed =
+                            siteService.getSite(studioConfiguration.getProperty(CONFIGURATION_GLOBAL_SYSTEM_SITE));
+                    if (userExists) {
+                        try {
+                            userServiceInternal.updateUser(user);
+                        } catch (UserNotFoundException e) {
+                            // Shouldn't happen
+                            throw new IllegalStateException(e);
+                        }
+
                         AuditLog auditLog = auditServiceInternal.createAuditLogEntry();
-                        auditLog.setOperation(OPERATION_CREATE);
+                        auditLog.setOperation(OPERATION_UPDATE);
                         auditLog.setSiteId(siteFeed.getId());
                         auditLog.setActorId(user.getUsername());
                         auditLog.setPrimaryTargetId(user.getUsername());
                         auditLog.setPrimaryTargetType(TARGET_TYPE_USER);
                         auditLog.setPrimaryTargetValue(user.getUsername());
                         auditServiceInternal.insertAuditLog(auditLog);
-                    } catch (UserAlreadyExistsException e) {
-                        logger.debug("Error adding user " + username + " from external authentication provider",
-                                     e);
-                        throw new AuthenticationSystemException("Error adding user " + username +
-                                " from external authentication provider", e);
+
+                    } else {
+                        try {
+                            userServiceInternal.createUser(user);
+                            AuditLog auditLog = auditServiceInternal.createAuditLogEntry();
+                            auditLog.setOperation(OPERATION_CREATE);
+                            auditLog.setSiteId(siteFeed.getId());
+                            auditLog.setActorId(user.getUsername());
+                            auditLog.setPrimaryTargetId(user.getUsername());
+                            auditLog.setPrimaryTargetType(TARGET_TYPE_USER);
+                            auditLog.setPrimaryTargetValue(user.getUsername());
+                            auditServiceInternal.insertAuditLog(auditLog);
+                        } catch (UserAlreadyExistsException e) {
+                            logger.debug("Error adding user " + username + " from external authentication provider",
+                                         e);
+                            throw new AuthenticationSystemException("Error adding user " + username +
+                                    " from external authentication provider", e);
+                        }
+                    }
+
+                    if (syncUserGroups(user, siteFeed, authenticationChain)) {
+                        syncHashes.put(username, syncHash);
                     }
                 }
             } catch (ServiceLayerException e) {
@@ -230,10 +260,6 @@ public class LdapAuthenticationProvider extends BaseAuthenticationProvider {
                 throw  new AuthenticationSystemException("Unknown service error" , e);
             }
 
-            for (UserGroup userGroup : user.getGroups()) {
-                upsertUserGroup(userGroup.getGroup().getGroupName(), user.getUsername(), authenticationChain);
-            }
-
             String token = createToken(user, authenticationChain);
             storeAuthentication(new Authentication(username, token, AuthenticationType.LDAP));
 
@@ -264,8 +290,7 @@ public class LdapAuthenticationProvider extends BaseAuthenticationProvider {
     }
 
     private String extractGroupNameFromAttributeValue(String groupAttributeValue) {
-        Pattern pattern = Pattern.compile(groupNameLdapAttributeRegex);
-        Matcher matcher = pattern.matcher(groupAttributeValue);
+        Matcher matcher = groupNameLdapAttributePattern.matcher(groupAttributeValue);
         if (matcher.matches()) {
             return matcher.group(groupNameLdapAttributeMatchIndex);
         }
@@ -287,52 +312,189 @@ public class LdapAuthenticationProvider extends BaseAuthenticationProvider {
         user.getGroups().add(userGroup);
     }
 
-    protected boolean upsertUserGroup(String groupName, String username, AuthenticationChain authenticationChain) {
+    /**
+     * Returns the template used to talk to the LDAP server, created on first use. Searches go through a pool of
+     * connections bound with the configured user, which are validated when borrowed and while idle. Binds with the
+     * credentials of the users being authenticated are never pooled.
+     */
+    protected LdapTemplate getLdapTemplate() {
+        LdapTemplate template = ldapTemplate;
+        if (template == null) {
+            synchronized (this) {
+                template = ldapTemplate;
+                if (template == null) {
+                    LdapContextSource lcs = new LdapContextSource();
+                    lcs.setUrl(ldapUrl);
+                    lcs.setUserDn(ldapUsername);
+                    lcs.setPassword(ldapPassword);
+                    lcs.setBase(ldapBaseContext);
+                    lcs.setDirObjectFactory(DefaultDirObjectFactory.class);
+                    lcs.afterPropertiesSet();
+
+                    PoolConfig poolConfig = new PoolConfig();
+                    poolConfig.setMaxTotal(poolMaxTotal);
+                    poolConfig.setMaxTotalPerKey(poolMaxTotal);
+                    poolConfig.setMaxIdlePerKey(poolMaxIdle);
+                    poolConfig.setMinIdlePerKey(poolMinIdle);
+                    poolConfig.setMaxWaitMillis(poolMaxWaitMillis);
+                    poolConfig.setTestOnBorrow(true);
+                    poolConfig.setTestWhileIdle(true);
+                    poolConfig.setTimeBetweenEvictionRunsMillis(poolValidationIntervalMillis);
+
+                    PooledContextSource pooledContextSource = new PooledContextSource(poolConfig);
+                    pooledContextSource.setContextSource(lcs);
+                    pooledContextSource.setDirContextValidator(new DefaultDirContextValidator());
+
+                    template = new LdapTemplate(new UserBindingContextSource(pooledContextSource, lcs));
+                    this.pooledContextSource = pooledContextSource;
+                    ldapTemplate = template;
+                }
+            }
+        }
+
+        return template;
+    }
+
+    /**
+     * Closes the pooled connections, if the pool was ever created.
+     */
+    @Override
+    public synchronized void destroy() throws Exception {
+        if (pooledContextSource != null) {
+            try {
+                pooledContextSource.destroy();
+            } finally {
+                pooledContextSource = null;
+                ldapTemplate = null;
+            }
+        }
+    }
+
+    /**
+     * Hash of the user data and group membership reported by LDAP, used to skip the DB sync when nothing changed.
+     */
+    private String getSyncHash(User user) {
+        StringBuilder data = new StringBuilder()
+                .append(user.getEmail()).append('\n')
+                .append(user.getFirstName()).append('\n')
+                .append(user.getLastName());
+        getGroupNames(user).forEach(groupName -> data.append('\n').append(groupName));
+
+        return DigestUtils.sha256Hex(data.toString());
+    }
+
+    private Set<String> getGroupNames(User user) {
+        Set<String> groupNames = new TreeSet<>();
+        if (user.getGroups() != null) {
+            for (UserGroup userGroup : user.getGroups()) {
+                groupNames.add(userGroup.getGroup().getGroupName());
+            }
+        }
+
+        return groupNames;
+    }
+
+    /**
+     * Adds the user to the LDAP groups it's not a member of yet, creating the missing groups. Everything is done
+     * with one statement per step instead of one per group.
+     *
+     * @return true if the groups were synced successfully
+     */
+    protected boolean syncUserGroups(User user, SiteFeed siteFeed, AuthenticationChain authenticationChain) {
         UserDAO userDao = authenticationChain.getUserDao();
         GroupDAO groupDao = authenticationChain.getGroupDao();
         AuditServiceInternal auditServiceInternal = authenticationChain.getAuditServiceInternal();
-        SiteService siteService = authenticationChain.getSiteService();
-        StudioConfiguration studioConfiguration = authenticationChain.getStudioConfiguration();
+
+        Set<String> missingGroupNames = getGroupNames(user);
+        if (missingGroupNames.isEmpty()) {
+            return true;
+        }
+
         try {
             Map<String, Object> params = new HashMap<>();
+            params.put(USER_ID, -1);
+            params.put(USERNAME, user.getUsername());
+            for (Group group : userDao.getUserGroups(params)) {
+                missingGroupNames.remove(group.getGroupName());
+            }
+            if (missingGroupNames.isEmpty()) {
+                return true;
+            }
+
+            List<String> groupNames = new ArrayList<>(missingGroupNames);
+            params = new HashMap<>();
             params.put(ORG_ID, DEFAULT_ORGANIZATION_ID);
-            params.put(GROUP_NAME, groupName);
-            params.put(GROUP_DESCRIPTION, "Externally managed group - " + groupName);
-            groupDao.createGroup(params);
-        } catch (Exception e) {
-            logger.warn("Error creating group", e);
-        }
-        Map<String, Object> params = new HashMap<String, Object>();
-        params.put(GROUP_NAME, groupName);
-        Group group = groupDao.getGroupByName(params);
-        if (group != null) {
+            params.put(GROUP_NAMES, groupNames);
+            params.put(GROUP_DESCRIPTION, "Externally managed group - ");
+            groupDao.createGroups(params);
+
+            params = new HashMap<>();
+            params.put(GROUP_NAMES, groupNames);
+            List<Group> groups = groupDao.getGroupsByNames(params);
+
             params = new HashMap<>();
             params.put(USER_ID, -1);
-            params.put(USERNAME, username);
-            User user = userDao.getUserByIdOrUsername(params);
-            List<Long> users = new ArrayList<Long>();
-            users.add(user.getId());
+            params.put(USERNAME, user.getUsername());
+            User dbUser = userDao.getUserByIdOrUsername(params);
+
+            List<Long> groupIds = new ArrayList<>();
+            for (Group group : groups) {
+                groupIds.add(group.getId());
+            }
 
             params = new HashMap<>();
-            params.put(USER_IDS, users);
-            params.put(GROUP_ID, group.getId());
-            try {
-                groupDao.addGroupMembers(params);
-                SiteFeed siteFeed =
-                        siteService.getSite(studioConfiguration.getProperty(CONFIGURATION_GLOBAL_SYSTEM_SITE));
+            params.put(USER_ID, dbUser.getId());
+            params.put(GROUP_IDS, groupIds);
+            groupDao.addUserToGroups(params);
+
+            for (Group group : groups) {
                 AuditLog auditLog = auditServiceInternal.createAuditLogEntry();
                 auditLog.setOperation(OPERATION_ADD_MEMBERS);
-                auditLog.setActorId(user.getUsername());
+                auditLog.setActorId(dbUser.getUsername());
                 auditLog.setSiteId(siteFeed.getId());
-                auditLog.setPrimaryTargetId(group.getGroupName() + ":" + user.getUsername());
+                auditLog.setPrimaryTargetId(group.getGroupName() + ":" + dbUser.getUsername());
                 auditLog.setPrimaryTargetType(TARGET_TYPE_USER);
-                auditLog.setPrimaryTargetValue(user.getUsername());
+                auditLog.setPrimaryTargetValue(dbUser.getUsername());
                 auditServiceInternal.insertAuditLog(auditLog);
-            } catch (Exception e) {
-                logger.debug("Unknown database error", e);
             }
+
+            return true;
+        } catch (Exception e) {
+            logger.debug("Unknown database error", e);
+
+            return false;
+        }
+    }
+
+    /**
+     * Gets the read only and read write contexts from the pool, and the contexts bound with other credentials (used
+     * to authenticate users) from the non pooled source.
+     */
+    private static class UserBindingContextSource implements ContextSource {
+
+        private final ContextSource pooledContextSource;
+        private final ContextSource userContextSource;
+
+        UserBindingContextSource(ContextSource pooledContextSource, ContextSource userContextSource) {
+            this.pooledContextSource = pooledContextSource;
+            this.userContextSource = userContextSource;
+        }
+
+        @Override
+        public DirContext getReadOnlyContext() {
+            return pooledContextSource.getReadOnlyContext();
+        }
+
+        @Override
+        public DirContext getReadWriteContext() {
+            return pooledContextSource.getReadWriteContext();
+        }
+
+        @Override
+        public DirContext getContext(String principal, String credentials) {
+            return userContextSource.getContext(principal, credentials);
         }
-        return true;
+
     }
 
     public String getLdapUrl() {
@@ -405,6 +567,7 @@ public class LdapAuthenticationProvider extends BaseAuthenticationProvider {
 
     public void setGroupNameLdapAttributeRegex(String groupNameLdapAttributeRegex) {
         this.groupNameLdapAttributeRegex = groupNameLdapAttributeRegex;
+        this.groupNameLdapAttributePattern = Pattern.compile(groupNameLdapAttributeRegex);
     }
 
     public int getGroupNameLdapAttributeMatchIndex() {
@@ -422,4 +585,44 @@ public class LdapAuthenticationProvider extends BaseAuthenticationProvider {
     public void setEmailLdapAttribute(String emailLdapAttribute) {
         this.emailLdapAttribute = emailLdapAttribute;
     }
+
+    public int getPoolMaxTotal() {
+        return poolMaxTotal;
+    }
+
+    public void setPoolMaxTotal(int poolMaxTotal) {
+        this.poolMaxTotal = poolMaxTotal;
+    }
+
+    public int getPoolMaxIdle() {
+        return poolMaxIdle;
+    }
+
+    public void setPoolMaxIdle(int poolMaxIdle) {
+        this.poolMaxIdle = poolMaxIdle;
+    }
+
+    public int getPoolMinIdle() {
+        return poolMinIdle;
+    }
+
+    public void setPoolMinIdle(int poolMinIdle) {
+        this.poolMinIdle = poolMinIdle;
+    }
+
+    public long getPoolMaxWaitMillis() {
+        return poolMaxWaitMillis;
+    }
+
+    public void setPoolMaxWaitMillis(long poolMaxWaitMillis) {
+        this.poolMaxWaitMillis = poolMaxWaitMillis;
+    }
+
+    public long getPoolValidationIntervalMillis() {
+        return poolValidationIntervalMillis;
+    }
+
+    public void setPoolValidationIntervalMillis(long poolValidationIntervalMillis) {
+        this.poolValidationIntervalMillis = poolValidationIntervalMillis;
+    }
 }
@@ -22,6 +22,7 @@ import java.net.URI;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.apache.commons.io.FilenameUtils;
@@ -38,17 +39,23 @@ import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.webdav.WebDavItem;
 import org.craftercms.studio.api.v2.service.webdav.WebDavService;
+import org.craftercms.studio.impl.v1.util.config.profiles.ProfileClientCache;
 import org.craftercms.studio.impl.v1.util.config.profiles.SiteAwareConfigProfileLoader;
+import org.springframework.http.HttpStatus;
 import org.springframework.util.MimeType;
 import org.springframework.web.util.UriUtils;
 import com.github.sardine.DavResource;
 import com.github.sardine.Sardine;
+import com.github.sardine.impl.SardineException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import static org.craftercms.commons.file.stores.WebDavUtils.createClient;
 import static org.springframework.util.MimeTypeUtils.ALL_VALUE;
 
 /**
- * Default implementation of {@link WebDavService}.
+ * Default implementation of {@link WebDavService}. The client of each profile is reused until the profile changes,
+ * so requests share its connection pool, and folder listings can be cached for a short time.
  * @author joseross
  * @since 3.1.4
  */
@@ -70,9 +77,51 @@ public class WebDavServiceImpl implements WebDavService {
      */
     protected Charset charset = Charset.defaultCharset();
 
+    /**
+     * Clients by profile, shut down once the profile is replaced.
+     */
+    protected ProfileClientCache<WebDavProfile, Sardine> clients;
+
+    /**
+     * Recent folder listings by site, profile and folder URL, null if listings are not cached.
+     */
+    protected Cache<String, List<DavResource>> listings;
+
     public WebDavServiceImpl(final String urlPattern, final SiteAwareConfigProfileLoader<WebDavProfile> profileLoader) {
         this.urlPattern = urlPattern;
         this.profileLoader = profileLoader;
+
+        this.clients = new ProfileClientCache<>(this::shutdownClient);
+    }
+
+    /**
+     * Sets the time in seconds a folder listing is cached, 0 to disable the cache.
+     */
+    public void setListingCacheTtl(final long listingCacheTtl) {
+        if (listingCacheTtl > 0) {
+            listings = CacheBuilder.newBuilder()
+                                   .maximumSize(1000)
+                                   .expireAfterWrite(listingCacheTtl, TimeUnit.SECONDS)
+                                   .build();
+        } else {
+            listings = null;
+        }
+    }
+
+    public void destroy() {
+        clients.clear();
+    }
+
+    protected Sardine getClient(WebDavProfile profile) {
+        return clients.get(profile, p -> createClient(p));
+    }
+
+    protected void shutdownClient(Sardine sardine) {
+        try {
+            sardine.shutdown();
+        } catch (Exception e) {
+            logger.debug("Error shutting down WebDAV client: {0}", e.getMessage());
+        }
     }
 
     protected WebDavProfile getProfile(String site, String profileId) throws WebDavException  {
@@ -97,7 +146,7 @@ public class WebDavServiceImpl implements WebDavService {
         WebDavProfile profile = getProfile(siteId, profileId);
         String listPath = StringUtils.appendIfMissing(profile.getBaseUrl(),"/");
         MimeType filterType;
-        Sardine sardine = createClient(profile);
+        Sardine sardine = getClient(profile);
         try {
             if(StringUtils.isEmpty(type) || type.equals(FILTER_ALL_ITEMS)) {
                 filterType = MimeType.valueOf(ALL_VALUE);
@@ -114,13 +163,10 @@ public class WebDavServiceImpl implements WebDavService {
                 }
             }
 
-            if (!sardine.exists(listPath)) {
-                logger.debug("Folder {0} doesn't exist", listPath);
+            List<DavResource> resources = listResources(sardine, siteId, profileId, listPath);
+            if (resources.isEmpty()) {
                 return Collections.emptyList();
             }
-            logger.debug("Listing resources at {0}", listPath);
-            List<DavResource> resources = sardine.list(listPath, 1, true);
-            logger.debug("Found {0} resources at {0}", resources.size(), listPath);
             return resources.stream()
                 .skip(1) // to avoid repeating the folder being listed
                 .filter(r -> r.isDirectory() || filterType.includes(MimeType.valueOf(r.getContentType())))
@@ -131,6 +177,40 @@ public class WebDavServiceImpl implements WebDavService {
         }
     }
 
+    /**
+     * Lists the given folder, or returns an empty list if it doesn't exist. Missing folders are detected from the
+     * response instead of checking first, to save a round trip.
+     */
+    protected List<DavResource> listResources(Sardine sardine, String siteId, String profileId, String listPath)
+        throws Exception {
+        String key = siteId + ":" + profileId + ":" + listPath;
+        if (listings != null) {
+            List<DavResource> cached = listings.getIfPresent(key);
+            if (cached != null) {
+                logger.debug("Using cached listing of {0}", listPath);
+                return cached;
+            }
+        }
+
+        List<DavResource> resources;
+        try {
+            logger.debug("Listing resources at {0}", listPath);
+            resources = sardine.list(listPath, 1, true);
+            logger.debug("Found {0} resources at {1}", resources.size(), listPath);
+        } catch (SardineException e) {
+            if (e.getStatusCode() != HttpStatus.NOT_FOUND.value()) {
+                throw e;
+            }
+            logger.debug("Folder {0} doesn't exist", listPath);
+            resources = Collections.emptyList();
+        }
+
+        if (listings != null) {
+            listings.put(key, resources);
+        }
+        return resources;
+    }
+
     protected String getUrl(DavResource resource, String profileId, WebDavProfile profile) {
         String relativePath = StringUtils.removeFirst(resource.getPath(), URI.create(profile.getBaseUrl()).getPath());
         if(resource.isDirectory()) {
@@ -175,7 +255,7 @@ public class WebDavServiceImpl implements WebDavService {
         WebDavProfile profile = getProfile(siteId, profileId);
         String uploadUrl = StringUtils.appendIfMissing(profile.getBaseUrl(), "/");
         try {
-            Sardine sardine = createClient(profile);
+            Sardine sardine = getClient(profile);
 
             if(StringUtils.isNotEmpty(path)) {
                 String[] folders = StringUtils.split(path, "/");
@@ -203,6 +283,11 @@ public class WebDavServiceImpl implements WebDavService {
             sardine.put(fileUrl, content);
             logger.debug("Upload complete for file {0}", fileUrl);
 
+            if (listings != null) {
+                String keyPrefix = siteId + ":" + profileId + ":";
+                listings.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+            }
+
             return new WebDavItem(filename, String.format(urlPattern, profileId, path, filename), false);
         } catch (Exception e ) {
             throw new WebDavException("Error uploading file", e);
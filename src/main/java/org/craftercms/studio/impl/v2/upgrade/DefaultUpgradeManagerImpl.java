@@ -20,6 +20,9 @@ package org.craftercms.studio.impl.v2.upgrade;
 import java.io.InputStream;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import javax.sql.DataSource;
 
 import org.apache.commons.configuration2.HierarchicalConfiguration;
@@ -76,6 +79,11 @@ public class DefaultUpgradeManagerImpl implements UpgradeManager, ApplicationCon
     protected DbIntegrityValidator integrityValidator;
     protected ContentRepository contentRepository;
 
+    /**
+     * Max number of sites to upgrade at the same time.
+     */
+    protected int siteMaxConcurrency = 1;
+
     /**
      * {@inheritDoc}
      */
@@ -161,10 +169,32 @@ public class DefaultUpgradeManagerImpl implements UpgradeManager, ApplicationCon
             sites = jdbcTemplate.queryForList(SQL_QUERY_SITES, String.class);
         }
 
-        for(String site : sites) {
-            if (checkIfSiteRepoExists(site)) {
-                upgradeSite(site);
+        // Each site uses its own repository & pipeline instances so they can be upgraded concurrently
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, siteMaxConcurrency));
+        try {
+            for (String site : sites) {
+                if (checkIfSiteRepoExists(site)) {
+                    executor.execute(() -> {
+                        try {
+                            upgradeSite(site);
+                        } catch (Exception e) {
+                            logger.error("Error during upgrade for site " + site, e);
+                        }
+                    });
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try {
+            // Running upgrades can't be interrupted safely, so wait for all of them to finish
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.info("Waiting for site upgrades to finish");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpgradeException("Interrupted while waiting for site upgrades to finish", e);
         }
     }
 
@@ -259,6 +289,10 @@ public class DefaultUpgradeManagerImpl implements UpgradeManager, ApplicationCon
         this.siteVersionFilePath = siteVersionFilePath;
     }
 
+    public void setSiteMaxConcurrency(final int siteMaxConcurrency) {
+        this.siteMaxConcurrency = siteMaxConcurrency;
+    }
+
     @Required
     public void setBpPipelineFactory(final UpgradePipelineFactory bpPipelineFactory) {
         this.bpPipelineFactory = bpPipelineFactory;
@@ -25,8 +25,10 @@ import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.configuration2.HierarchicalConfiguration;
@@ -69,32 +71,58 @@ public abstract class AbstractContentUpgradeOperation extends AbstractUpgradeOpe
     @Override
     public void execute(final String site) throws UpgradeException {
         try {
-            List<Path> includedPaths = findIncludedPaths(site);
+            execute(site, listRepositoryFiles(site));
+        } catch (IOException e) {
+            throw new UpgradeException("Error reading content for site " + site, e);
+        }
+    }
+
+    /**
+     * Performs the upgrade using a list of files already collected from the repository, this allows consecutive
+     * content operations for the same site to share a single walk of the repository.
+     * @param site the site id
+     * @param repositoryFiles all files in the repository, as returned by {@link #listRepositoryFiles(String)}
+     * @throws UpgradeException if there is any error performing the upgrade
+     */
+    public void execute(final String site, final List<Path> repositoryFiles) throws UpgradeException {
+        try {
+            List<Path> includedPaths = findIncludedPaths(site, repositoryFiles);
             List<Path> filteredPaths = filterPaths(site, includedPaths);
             if (CollectionUtils.isNotEmpty(filteredPaths)) {
                 for (Path file : filteredPaths) {
                     updateFile(site, file);
                 }
             }
-        } catch (IOException e) {
-            throw new UpgradeException("Error reading content for site " + site, e);
         } finally {
             commitAllChanges(site);
         }
     }
 
+    /**
+     * Lists all files in the working tree of the given site, the git folder is not included
+     * @param site the site id
+     * @return the list of files
+     * @throws IOException if there is any error listing the files
+     */
+    public List<Path> listRepositoryFiles(final String site) throws IOException {
+        Path repo = getRepositoryPath(site).getParent();
+        ListFileVisitor fileVisitor = new ListFileVisitor(getRepositoryPath(site));
+        Files.walkFileTree(repo, fileVisitor);
+        return fileVisitor.getMatchedPaths();
+    }
+
     /**
      * Finds all files in the given site that match any of the given patterns
      * @param site the site id
+     * @param repositoryFiles all files in the repository
      * @return the list of matching files
-     * @throws IOException if there is any error finding the files
      */
-    protected List<Path> findIncludedPaths(final String site) throws IOException {
+    protected List<Path> findIncludedPaths(final String site, final List<Path> repositoryFiles) {
         if(CollectionUtils.isNotEmpty(includedPaths)) {
             Path repo = getRepositoryPath(site).getParent();
-            ListFileVisitor fileVisitor = new ListFileVisitor(repo, includedPaths);
-            Files.walkFileTree(repo, fileVisitor);
-            return fileVisitor.getMatchedPaths();
+            return repositoryFiles.stream()
+                .filter(file -> RegexUtils.matchesAny(repo.relativize(file).toString(), includedPaths))
+                .collect(Collectors.toList());
         }
         return null;
     }
@@ -167,29 +195,23 @@ public abstract class AbstractContentUpgradeOperation extends AbstractUpgradeOpe
     }
 
     /**
-     * Implementation of {@link FileVisitor} that collects files matching any of the given patterns
+     * Implementation of {@link FileVisitor} that collects all files in the working tree of a repository
      * @author joseross
      */
     public class ListFileVisitor implements FileVisitor<Path> {
 
         /**
-         * Starting path that should be ignored for checking the patterns
+         * Git folder of the repository that should be skipped
          */
-        protected Path rootPath;
+        protected Path gitPath;
 
         /**
-         * List of patterns to check the files
+         * List of files found in the working tree
          */
-        protected List<String> includedPaths;
+        protected List<Path> matchedPaths = new ArrayList<>();
 
-        /**
-         * List of files that match any of the patterns
-         */
-        protected List<Path> matchedPaths = new LinkedList<>();
-
-        public ListFileVisitor(final Path rootPath, final List<String> includedPaths) {
-            this.rootPath = rootPath;
-            this.includedPaths = includedPaths;
+        public ListFileVisitor(final Path gitPath) {
+            this.gitPath = gitPath;
         }
 
         public List<Path> getMatchedPaths() {
@@ -198,15 +220,12 @@ public abstract class AbstractContentUpgradeOperation extends AbstractUpgradeOpe
 
         @Override
         public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
-            return FileVisitResult.CONTINUE;
+            return dir.equals(gitPath)? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
         }
 
         @Override
         public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
-            String relativePath = rootPath.relativize(file).toString();
-            if(RegexUtils.matchesAny(relativePath, includedPaths)) {
-                matchedPaths.add(file);
-            }
+            matchedPaths.add(file);
             return FileVisitResult.CONTINUE;
         }
 
@@ -17,13 +17,17 @@
 
 package org.craftercms.studio.impl.v2.upgrade.pipeline;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 
+import org.apache.commons.collections.CollectionUtils;
 import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v2.exception.UpgradeException;
 import org.craftercms.studio.api.v2.upgrade.UpgradePipeline;
 import org.craftercms.studio.api.v2.upgrade.UpgradeOperation;
+import org.craftercms.studio.impl.v2.upgrade.operations.site.AbstractContentUpgradeOperation;
 import org.springframework.util.StopWatch;
 
 /**
@@ -66,18 +70,39 @@ public class DefaultUpgradePipelineImpl implements UpgradePipeline {
      */
     @Override
     public void execute(final String site) throws UpgradeException {
-        if(isEmpty()) {
+        execute(site, operations);
+    }
+
+    /**
+     * Executes the given operations, consecutive content operations share a single walk of the site repository.
+     * @param site the name of the site
+     * @param operations the operations to execute
+     * @throws UpgradeException if there is any error performing the upgrade
+     */
+    protected void execute(final String site, final List<UpgradeOperation> operations) throws UpgradeException {
+        if(CollectionUtils.isEmpty(operations)) {
             return;
         }
         StopWatch watch = new StopWatch(name + " pipeline");
         logger.info("============================================================");
         logger.info("Starting execution of upgrade pipeline: {0}", name);
+        List<Path> repositoryFiles = null;
         for(UpgradeOperation operation : operations) {
             String operationName = operation.getClass().getSimpleName();
             logger.info("------- Starting execution of operation {0} -------", operationName);
             watch.start(operationName);
             try {
-                operation.execute(site);
+                if (operation instanceof AbstractContentUpgradeOperation) {
+                    AbstractContentUpgradeOperation contentOperation = (AbstractContentUpgradeOperation) operation;
+                    if (repositoryFiles == null) {
+                        repositoryFiles = listRepositoryFiles(site, contentOperation);
+                    }
+                    contentOperation.execute(site, repositoryFiles);
+                } else {
+                    // Any other operation can add or remove files
+                    repositoryFiles = null;
+                    operation.execute(site);
+                }
             } catch (UpgradeException e) {
                 if (continueOnError) {
                     logger.error("Execution of operation {0} failed", e, operationName);
@@ -97,6 +122,15 @@ public class DefaultUpgradePipelineImpl implements UpgradePipeline {
         }
     }
 
+    protected List<Path> listRepositoryFiles(String site, AbstractContentUpgradeOperation operation)
+        throws UpgradeException {
+        try {
+            return operation.listRepositoryFiles(site);
+        } catch (IOException e) {
+            throw new UpgradeException("Error reading content for site " + site, e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -18,6 +18,7 @@
 package org.craftercms.studio.impl.v2.upgrade.pipeline;
 
 import java.io.IOException;
+import java.util.LinkedList;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -31,8 +32,10 @@ import org.craftercms.studio.api.v1.service.security.SecurityService;
 import org.craftercms.studio.api.v1.service.site.SiteService;
 import org.craftercms.studio.api.v2.exception.UpgradeException;
 import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
+import org.craftercms.studio.api.v2.upgrade.UpgradeOperation;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryHelper;
+import org.craftercms.studio.impl.v2.upgrade.operations.site.SiteVersionUpgradeOperation;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Ref;
@@ -98,6 +101,26 @@ public class SiteRepositoryUpgradePipelineImpl extends DefaultUpgradePipelineImp
         git.branchDelete().setBranchNames(siteUpgradeBranch).call();
     }
 
+    /**
+     * Splits the operations in groups that end with a {@link SiteVersionUpgradeOperation}
+     * @return the list of releases
+     */
+    protected List<List<UpgradeOperation>> splitReleases() {
+        List<List<UpgradeOperation>> releases = new LinkedList<>();
+        List<UpgradeOperation> release = new LinkedList<>();
+        for (UpgradeOperation operation : operations) {
+            release.add(operation);
+            if (operation instanceof SiteVersionUpgradeOperation) {
+                releases.add(release);
+                release = new LinkedList<>();
+            }
+        }
+        if (!release.isEmpty()) {
+            releases.add(release);
+        }
+        return releases;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -116,13 +139,16 @@ public class SiteRepositoryUpgradePipelineImpl extends DefaultUpgradePipelineImp
                     if (!StringUtils.isEmpty(siteFeed.getSandboxBranch())) {
                         sandboxBranch = siteFeed.getSandboxBranch();
                     }
-                    createTemporaryBranch(site, git);
-                    checkoutBranch(siteUpgradeBranch, git);
-                    super.execute(site);
-                    checkoutBranch(sandboxBranch, git);
-                    mergeTemporaryBranch(repository, git);
-                    deleteTemporaryBranch(git);
-
+                    // Merge each release on its own so the site version file in the sandbox always reflects the
+                    // completed releases, if Studio is restarted the upgrade resumes from the last merged one
+                    for (List<UpgradeOperation> release : splitReleases()) {
+                        createTemporaryBranch(site, git);
+                        checkoutBranch(siteUpgradeBranch, git);
+                        super.execute(site, release);
+                        checkoutBranch(sandboxBranch, git);
+                        mergeTemporaryBranch(repository, git);
+                        deleteTemporaryBranch(git);
+                    }
                 }
             } catch (GitAPIException | IOException | SiteNotFoundException e) {
                 throw new UpgradeException("Error branching or merging upgrade branch for site " + site, e);
@@ -105,7 +105,7 @@ CREATE TABLE _meta (
   PRIMARY KEY (`version`)
 ) ;
 
-INSERT INTO _meta (version, studio_id) VALUES ('3.1.4.18', UUID()) ;
+INSERT INTO _meta (version, studio_id) VALUES ('3.1.4.21', UUID()) ;
 
 CREATE TABLE IF NOT EXISTS `audit` (
   `id`                        BIGINT(20)    NOT NULL AUTO_INCREMENT,
@@ -153,9 +153,14 @@ CREATE TABLE IF NOT EXISTS `dependency` (
   `source_path` TEXT        NOT NULL,
   `target_path` TEXT        NOT NULL,
   `type`        VARCHAR(50) NOT NULL,
+  `source_path_hash` CHAR(32) CHARACTER SET ascii AS (MD5(LOWER(`source_path`))) PERSISTENT,
+  `target_path_hash` CHAR(32) CHARACTER SET ascii AS (MD5(LOWER(`target_path`))) PERSISTENT,
   PRIMARY KEY (`id`),
   KEY `dependency_site_idx` (`site`),
-  KEY `dependency_sourcepath_idx` (`source_path`(1000))
+  KEY `dependency_sourcepath_idx` (`source_path`(1000)),
+  KEY `dependency_targetpath_idx` (`site`, `target_path`(255)),
+  KEY `dependency_site_source_hash_idx` (`site`, `source_path_hash`),
+  KEY `dependency_site_target_hash_idx` (`site`, `target_path_hash`)
 )
   ENGINE = InnoDB
   DEFAULT CHARSET = utf8
@@ -167,9 +172,13 @@ CREATE TABLE IF NOT EXISTS `item_state` (
   `path`              VARCHAR(2000) NOT NULL,
   `state`             VARCHAR(255)  NOT NULL,
   `system_processing` BIT(1)        NOT NULL,
+  `path_hash`         CHAR(32) CHARACTER SET ascii AS (MD5(LOWER(`path`))) PERSISTENT,
+  `state_category`    VARCHAR(20)   AS (SUBSTRING_INDEX(`state`, '_', 1)) PERSISTENT,
   PRIMARY KEY (`object_id`),
   KEY `item_state_object_idx` (`object_id`),
-  UNIQUE `uq_is_site_path` (`site`, `path`(900))
+  UNIQUE `uq_is_site_path_hash` (`site`, `path_hash`),
+  KEY `item_state_site_path_idx` (`site`, `path`(255)),
+  KEY `item_state_site_category_path_idx` (`site`, `state_category`, `path`(255))
 )
   ENGINE = InnoDB
   DEFAULT CHARSET = utf8
@@ -263,8 +272,10 @@ CREATE TABLE IF NOT EXISTS `item_metadata` (
   `launchdate`              DATETIME      NULL,
   `commit_id`               VARCHAR(50)   NULL,
   `submittedtoenvironment`  VARCHAR(255)  NULL,
+  `path_hash`               CHAR(32) CHARACTER SET ascii AS (MD5(LOWER(`path`))) PERSISTENT,
   PRIMARY KEY (`id`),
-  UNIQUE `uq__im_site_path` (`site`, `path`(900))
+  UNIQUE `uq_im_site_path_hash` (`site`, `path_hash`),
+  KEY `item_metadata_site_path_idx` (`site`, `path`(255))
 )
   ENGINE = InnoDB
   DEFAULT CHARSET = utf8
@@ -399,6 +410,44 @@ CREATE TABLE IF NOT EXISTS gitlog
   DEFAULT CHARSET = utf8
   ROW_FORMAT = DYNAMIC ;
 
+CREATE TABLE IF NOT EXISTS item_history
+(
+  `id`            BIGINT(20)    NOT NULL AUTO_INCREMENT,
+  `site_id`       VARCHAR(50)   NOT NULL,
+  `path`          VARCHAR(2000) NOT NULL,
+  `previous_path` VARCHAR(2000) NULL,
+  `commit_id`     VARCHAR(50)   NOT NULL,
+  `commit_time`   BIGINT(20)    NOT NULL,
+  `path_hash`     CHAR(32) CHARACTER SET ascii AS (MD5(`path`)) PERSISTENT,
+  PRIMARY KEY (`id`),
+  UNIQUE `uq_ih_site_path_hash_commit` (`site_id`, `path_hash`, `commit_id`),
+  INDEX `item_history_site_path_time_idx` (`site_id`, `path_hash`, `commit_time`, `id`)
+)
+  ENGINE = InnoDB
+  DEFAULT CHARSET = utf8
+  ROW_FORMAT = DYNAMIC ;
+
+CREATE TABLE IF NOT EXISTS item_history_index
+(
+  `site_id`         VARCHAR(50)   NOT NULL,
+  `last_commit_id`  VARCHAR(50)   NOT NULL,
+  PRIMARY KEY (`site_id`)
+)
+  ENGINE = InnoDB
+  DEFAULT CHARSET = utf8
+  ROW_FORMAT = DYNAMIC ;
+
+CREATE TABLE IF NOT EXISTS rebuild_metadata_chunk
+(
+  `site_id`         VARCHAR(50)   NOT NULL,
+  `commit_id`       VARCHAR(50)   NOT NULL,
+  `chunk`           INT           NOT NULL,
+  PRIMARY KEY (`site_id`, `commit_id`, `chunk`)
+)
+  ENGINE = InnoDB
+  DEFAULT CHARSET = utf8
+  ROW_FORMAT = DYNAMIC ;
+
 CREATE TABLE IF NOT EXISTS remote_repository
 (
   `id`                    BIGINT(20)    NOT NULL AUTO_INCREMENT,
@@ -0,0 +1,32 @@
+
+call addColumnIfNotExists('crafter', 'item_state', 'path_hash', 'CHAR(32) CHARACTER SET ascii AS (MD5(LOWER(`path`))) PERSISTENT') ;
+
+call addColumnIfNotExists('crafter', 'item_state', 'state_category', 'VARCHAR(20) AS (SUBSTRING_INDEX(`state`, ''_'', 1)) PERSISTENT') ;
+
+call addUniqueIfNotExists('crafter', 'item_state', 'uq_is_site_path_hash', '(`site`, `path_hash`)') ;
+
+call dropIndexIfExists('crafter', 'item_state', 'uq_is_site_path') ;
+
+call addIndexIfNotExists('crafter', 'item_state', 'item_state_site_path_idx', '(`site`, `path`(255))') ;
+
+call addIndexIfNotExists('crafter', 'item_state', 'item_state_site_category_path_idx', '(`site`, `state_category`, `path`(255))') ;
+
+call addColumnIfNotExists('crafter', 'item_metadata', 'path_hash', 'CHAR(32) CHARACTER SET ascii AS (MD5(LOWER(`path`))) PERSISTENT') ;
+
+call addUniqueIfNotExists('crafter', 'item_metadata', 'uq_im_site_path_hash', '(`site`, `path_hash`)') ;
+
+call dropIndexIfExists('crafter', 'item_metadata', 'uq__im_site_path') ;
+
+call addIndexIfNotExists('crafter', 'item_metadata', 'item_metadata_site_path_idx', '(`site`, `path`(255))') ;
+
+call addColumnIfNotExists('crafter', 'dependency', 'source_path_hash', 'CHAR(32) CHARACTER SET ascii AS (MD5(LOWER(`source_path`))) PERSISTENT') ;
+
+call addColumnIfNotExists('crafter', 'dependency', 'target_path_hash', 'CHAR(32) CHARACTER SET ascii AS (MD5(LOWER(`target_path`))) PERSISTENT') ;
+
+call addIndexIfNotExists('crafter', 'dependency', 'dependency_site_source_hash_idx', '(`site`, `source_path_hash`)') ;
+
+call addIndexIfNotExists('crafter', 'dependency', 'dependency_site_target_hash_idx', '(`site`, `target_path_hash`)') ;
+
+call addIndexIfNotExists('crafter', 'dependency', 'dependency_targetpath_idx', '(`site`, `target_path`(255))') ;
+
+UPDATE _meta SET version = '3.1.4.19' ;
\ No newline at end of file
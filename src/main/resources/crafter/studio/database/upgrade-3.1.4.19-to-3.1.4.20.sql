@@ -0,0 +1,28 @@
+CREATE TABLE IF NOT EXISTS item_history
+(
+  `id`            BIGINT(20)    NOT NULL AUTO_INCREMENT,
+  `site_id`       VARCHAR(50)   NOT NULL,
+  `path`          VARCHAR(2000) NOT NULL,
+  `previous_path` VARCHAR(2000) NULL,
+  `commit_id`     VARCHAR(50)   NOT NULL,
+  `commit_time`   BIGINT(20)    NOT NULL,
+  `path_hash`     CHAR(32) CHARACTER SET ascii AS (MD5(`path`)) PERSISTENT,
+  PRIMARY KEY (`id`),
+  UNIQUE `uq_ih_site_path_hash_commit` (`site_id`, `path_hash`, `commit_id`),
+  INDEX `item_history_site_path_time_idx` (`site_id`, `path_hash`, `commit_time`, `id`)
+)
+  ENGINE = InnoDB
+  DEFAULT CHARSET = utf8
+  ROW_FORMAT = DYNAMIC ;
+
+CREATE TABLE IF NOT EXISTS item_history_index
+(
+  `site_id`         VARCHAR(50)   NOT NULL,
+  `last_commit_id`  VARCHAR(50)   NOT NULL,
+  PRIMARY KEY (`site_id`)
+)
+  ENGINE = InnoDB
+  DEFAULT CHARSET = utf8
+  ROW_FORMAT = DYNAMIC ;
+
+UPDATE _meta SET version = '3.1.4.20' ;
@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS rebuild_metadata_chunk
+(
+  `site_id`         VARCHAR(50)   NOT NULL,
+  `commit_id`       VARCHAR(50)   NOT NULL,
+  `chunk`           INT           NOT NULL,
+  PRIMARY KEY (`site_id`, `commit_id`, `chunk`)
+)
+  ENGINE = InnoDB
+  DEFAULT CHARSET = utf8
+  ROW_FORMAT = DYNAMIC ;
+
+UPDATE _meta SET version = '3.1.4.21' ;
@@ -68,6 +68,17 @@ class ContentServices {
 		throw new Exception("NOT USED")
 	}
 
+	/**
+	 * get the id of the current version of the content at a given path, it only changes when the content changes
+	 * @param site - the project ID
+	 * @param path - the path of the content
+	 * @oaran context - container for passing request, token and other values that may be needed by the implementation
+	 */
+	static getContentId(site, path, context) {
+		def contentServicesImpl = ServiceFactory.getContentServices(context)
+		return contentServicesImpl.getContentId(site, path)
+	}
+
 	/**
 	 * get the actual content at a given path
 	 * @param site - the project ID
@@ -125,6 +136,21 @@ class ContentServices {
 		return contentServicesImpl.getContentItemTree(site, path, depth) 
 	}
 
+	/**
+	 * get a bounded tree of content items (metadata) beginning at a root, children are paged on every level
+	 * @param site - the project ID
+	 * @param rootPath - the path to root at
+	 * @param offset - the number of children of the root to skip
+	 * @param limit - the maximum number of children per level
+	 * @param includeMetadata - if metadata (lock owner, modifier) should be populated
+	 * @param includeWorkflow - if workflow state should be populated
+	 * @oaran context - container for passing request, token and other values that may be needed by the implementation
+	 */
+	static getContentItemTree(site, path, depth, offset, limit, includeMetadata, includeWorkflow, context){
+		def contentServicesImpl = ServiceFactory.getContentServices(context)
+		return contentServicesImpl.getContentItemTree(site, path, depth, offset, limit, includeMetadata, includeWorkflow)
+	}
+
 	/**
 	 * get the content item (metadata) at a specific path
 	 * @param site - the project ID
@@ -211,6 +237,20 @@ class ContentServices {
 		return contentServicesImpl.getContentItemVersionHistory(site, path) 
 	}
 
+	/**
+	 * get a page of the version history for an item
+	 * @param site - the project ID
+	 * @param path - the path of the item
+	 * @param cursor - the cursor returned with the previous page, null for the first page
+	 * @param limit - the maximum number of versions
+	 * @param followRenames - include versions under previous paths
+	 * @oaran context - container for passing request, token and other values that may be needed by the implementation
+	 */
+	static getContentItemVersionHistory(site, path, cursor, limit, followRenames, context) {
+		def contentServicesImpl = ServiceFactory.getContentServices(context)
+		return contentServicesImpl.getContentItemVersionHistory(site, path, cursor, limit, followRenames)
+	}
+
 	/** 
 	 * revert a version (create a new version based on an old version)
 	 * @param site - the project ID
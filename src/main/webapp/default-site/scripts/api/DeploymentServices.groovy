@@ -65,6 +65,16 @@ class DeploymentServices {
         return deploymentServicesImpl.bulkGoLive(site, environment, path, comment)
     }
 
+    static getBulkGoLiveStatus(context, site) {
+        def deploymentServicesImpl = ServiceFactory.getDeploymentServices(context)
+        return deploymentServicesImpl.getBulkPublishStatus(site)
+    }
+
+    static cancelBulkGoLive(context, site) {
+        def deploymentServicesImpl = ServiceFactory.getDeploymentServices(context)
+        return deploymentServicesImpl.cancelBulkPublish(site)
+    }
+
     static getStatus(context, siteId) {
         def deploymentServicesImpl = ServiceFactory.getDeploymentServices(context)
         return deploymentServicesImpl.getPublishStatus(siteId)
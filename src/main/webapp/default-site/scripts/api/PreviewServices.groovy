@@ -46,4 +46,13 @@ class PreviewServices {
 		def deploymentServices = ServiceFactory.getDeploymentServices(context)
 		return deploymentServices.syncAllContentToPreview(site)
 	}
+
+	/**
+	 * get how far behind the sandbox the preview environment is
+	 * @param site - the project ID
+	 */
+	static getPreviewSyncStatus(context, site) {
+		def deploymentServices = ServiceFactory.getDeploymentServices(context)
+		return deploymentServices.getPreviewSyncStatus(site)
+	}
 }
@@ -102,6 +102,16 @@ class WorkflowServices {
         workflowServicesImpl.getGoLiveItems(site, sort, ascending);
     }
 
+    static getInProgressItems(context, site, sort, ascending, inProgressOnly, path, offset, limit) {
+        def workflowServicesImpl = ServiceFactory.getWorkflowServices(context);
+        workflowServicesImpl.getInProgressItems(site, sort, ascending, inProgressOnly, path, offset, limit);
+    }
+
+    static getGoLiveItems(context, site, sort, ascending, path, offset, limit) {
+        def workflowServicesImpl = ServiceFactory.getWorkflowServices(context);
+        workflowServicesImpl.getGoLiveItems(site, sort, ascending, path, offset, limit);
+    }
+
     static getWorkflowAffectedPaths(context, site, path) {
         def workflowServicesImpl = ServiceFactory.getWorkflowServices(context);
         workflowServicesImpl.getWorkflowAffectedPaths(site, path);
@@ -26,6 +26,7 @@ class SpringContentServices {
 
 	static CONTENT_SERVICES_BEAN = "cstudioContentService"
 	static ASSET_PROCESSING_SERVICE_BEAN = "studioAssetProcessingService"
+	static CONTENT_SERVICES_V2_BEAN = "contentService"
 
 	def context = null
 
@@ -33,6 +34,16 @@ class SpringContentServices {
 		this.context = context
 	}
 
+	/**
+	 * get the id of the current version of the content at a given path
+	 * @param site - the project ID
+	 * @param path - the path of the content
+	 */
+	def getContentId(site, path) {
+		def springBackedService = this.context.applicationContext.get(CONTENT_SERVICES_V2_BEAN)
+		return springBackedService.getContentId(site, path)
+	}
+
 	/**
 	 * Write content
 	 * @param site - the project ID
@@ -105,6 +116,17 @@ class SpringContentServices {
         return springBackedService.getContentItemTree(site, path, depth)
 	}
 
+	/**
+	 * get a bounded tree of content items (metadata) beginning at a root, children are paged on every level
+	 * @param site - the project ID
+	 * @param rootPath - the path to root at
+	 */
+	def getContentItemTree(site, path, depth, offset, limit, includeMetadata, includeWorkflow){
+        def springBackedService = this.context.applicationContext.get(CONTENT_SERVICES_BEAN)
+        return springBackedService.getContentItemTree(site, path, depth, offset, limit, includeMetadata,
+                includeWorkflow)
+	}
+
 	/**
 	 * get the content item (metadata) at a specific path
 	 * @param site - the project ID
@@ -174,6 +196,19 @@ class SpringContentServices {
         return springBackedService.getContentItemVersionHistory(site, path)
 	}
 
+	/**
+	 * get a page of the version history for an item
+	 * @param site - the project ID
+	 * @param path - the path of the item
+	 * @param cursor - the cursor returned with the previous page
+	 * @param limit - the maximum number of versions
+	 * @param followRenames - include versions under previous paths
+	 */
+	def getContentItemVersionHistory(site, path, cursor, limit, followRenames) {
+        def springBackedService = this.context.applicationContext.get(CONTENT_SERVICES_BEAN)
+        return springBackedService.getContentItemVersionHistory(site, path, cursor, limit, followRenames)
+	}
+
 	/**
 	 *  Get the content for a specific version
 	 * @param site - the project ID
@@ -63,11 +63,26 @@ class SpringDeploymentServices {
         return springBackedService.syncAllContentToPreview(site, false)
     }
 
+    def getPreviewSyncStatus(site) {
+        def springBackedService = this.context.applicationContext.get(DEPLOYMENT_SERVICES_BEAN)
+        return springBackedService.getPreviewSyncStatus(site)
+    }
+
     def bulkGoLive(site, environment, path, comment) {
         def springBackedService = this.context.applicationContext.get(DEPLOYMENT_SERVICES_BEAN)
         return springBackedService.bulkGoLive(site, environment, path, comment)
     }
 
+    def getBulkPublishStatus(site) {
+        def springBackedService = this.context.applicationContext.get(DEPLOYMENT_SERVICES_BEAN)
+        return springBackedService.getBulkPublishStatus(site)
+    }
+
+    def cancelBulkPublish(site) {
+        def springBackedService = this.context.applicationContext.get(DEPLOYMENT_SERVICES_BEAN)
+        return springBackedService.cancelBulkPublish(site)
+    }
+
     def getPublishStatus(siteId) {
         def springBackedService = this.context.applicationContext.get(DEPLOYMENT_SERVICES_BEAN)
         return springBackedService.getPublishStatus(siteId)
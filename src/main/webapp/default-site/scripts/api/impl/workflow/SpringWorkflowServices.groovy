@@ -44,6 +44,16 @@ class SpringWorkflowServices {
         springBackedService.getGoLiveItems(site, sort, ascending);
     }
 
+    def getInProgressItems(site, sort, ascending, inProgressOnly, path, offset, limit) {
+        def springBackedService = this.context.applicationContext.get("cstudioWorkflowService");
+        springBackedService.getInProgressItems(site, sort, ascending, inProgressOnly, path, offset, limit);
+    }
+
+    def getGoLiveItems(site, sort, ascending, path, offset, limit) {
+        def springBackedService = this.context.applicationContext.get("cstudioWorkflowService");
+        springBackedService.getGoLiveItems(site, sort, ascending, path, offset, limit);
+    }
+
     def getWorkflowAffectedPaths(site, path) {
         def springBackedService = this.context.applicationContext.get("cstudioWorkflowService");
         springBackedService.getWorkflowAffectedPaths(site, path);
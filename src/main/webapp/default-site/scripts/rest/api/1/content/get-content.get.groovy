@@ -16,6 +16,7 @@
  */
 
 import org.apache.commons.lang3.StringUtils
+import org.springframework.web.context.request.ServletWebRequest
 import scripts.api.ContentServices
 
 def result = [:]
@@ -47,6 +48,17 @@ if (invalidParams) {
 } else {
     def context = ContentServices.createContext(applicationContext, request)
 
+    // Answer with 304 when the client already has the current version, edit requests always go through since
+    // they lock the content
+    def contentId = ContentServices.getContentId(site, path, context)
+    if (!edit && StringUtils.isNotEmpty(contentId) &&
+            new ServletWebRequest(request, response).checkNotModified(contentId)) {
+        return null
+    }
+    if (StringUtils.isNotEmpty(contentId)) {
+        response.setHeader("ETag", "\"" + contentId + "\"")
+    }
+
     result.content = ContentServices.getContent(site, path, edit, context)
 
 }
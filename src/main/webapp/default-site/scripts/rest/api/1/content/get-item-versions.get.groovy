@@ -22,6 +22,9 @@ import scripts.api.ContentServices
 def result = [:]
 def site = params.site_id
 def path = params.path
+def cursor = params.cursor
+def limit = params.limit
+def followRenames = "true".equalsIgnoreCase(params.followRenames)
 
 /** Validate Parameters */
 def invalidParams = false
@@ -41,6 +44,20 @@ try {
     paramsList.add("site_id")
 }
 
+// limit
+try {
+    if (StringUtils.isNotEmpty(limit)) {
+        limit = limit.toInteger()
+        if (limit < 1) {
+            invalidParams = true
+            paramsList.add("limit")
+        }
+    }
+} catch (Exception exc) {
+    invalidParams = true
+    paramsList.add("limit")
+}
+
 if (invalidParams) {
     response.setStatus(400)
     result.message = "Invalid parameter(s): " + paramsList
@@ -48,7 +65,13 @@ if (invalidParams) {
     def context = ContentServices.createContext(applicationContext, request)
 
     result.item = ContentServices.getContentItem(site, path, context)
-    result.versions = ContentServices.getContentItemVersionHistory(site, path, context)
+    if (limit != null) {
+        def history = ContentServices.getContentItemVersionHistory(site, path, cursor, limit, followRenames, context)
+        result.versions = history.versions
+        result.nextCursor = history.nextCursor
+    } else {
+        result.versions = ContentServices.getContentItemVersionHistory(site, path, context)
+    }
 
 }
 return result
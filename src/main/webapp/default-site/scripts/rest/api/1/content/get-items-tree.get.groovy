@@ -23,6 +23,10 @@ def result = [:]
 def site = params.site_id
 def path = params.path
 def depth = params.depth.toInteger()
+def offset = params.offset
+def limit = params.limit
+def includeMetadata = !"false".equalsIgnoreCase(params.metadata)
+def includeWorkflow = !"false".equalsIgnoreCase(params.workflow)
 
 /** Validate Parameters */
 def invalidParams = false
@@ -42,13 +46,47 @@ try {
     paramsList.add("site_id")
 }
 
+// offset
+try {
+    if (StringUtils.isNotEmpty(offset)) {
+        offset = offset.toInteger()
+        if (offset < 0) {
+            invalidParams = true
+            paramsList.add("offset")
+        }
+    }
+} catch (Exception exc) {
+    invalidParams = true
+    paramsList.add("offset")
+}
+
+// limit
+try {
+    if (StringUtils.isNotEmpty(limit)) {
+        limit = limit.toInteger()
+        if (limit < 1) {
+            invalidParams = true
+            paramsList.add("limit")
+        }
+    }
+} catch (Exception exc) {
+    invalidParams = true
+    paramsList.add("limit")
+}
+
 if (invalidParams) {
     response.setStatus(400)
     result.message = "Invalid parameter(s): " + paramsList
 } else {
     def context = ContentServices.createContext(applicationContext, request)
 
-    result.item = ContentServices.getContentItemTree(site, path, depth, context)
+    if (offset != null || limit != null || !includeMetadata || !includeWorkflow) {
+        // Bounded tree, children are paged on every level
+        result.item = ContentServices.getContentItemTree(site, path, depth, offset ?: 0, limit ?: 0,
+                includeMetadata, includeWorkflow, context)
+    } else {
+        result.item = ContentServices.getContentItemTree(site, path, depth, context)
+    }
 
 }
 return result
@@ -38,6 +38,9 @@ if (inProgressOnly != null) {
 } else {
     inProgressOnly = false
 }
+def path = params.path
+def offset = params.offset
+def limit = params.limit
 def includeInProgress = params.includeInProgress
 if (includeInProgress != null) {
     includeInProgress = includeInProgress.toBoolean()
@@ -63,15 +66,36 @@ try {
     paramsList.add("site_id")
 }
 
+// offset
+try {
+    offset = StringUtils.isNotEmpty(offset) ? offset.toInteger() : 0
+    if (offset < 0) {
+        invalidParams = true
+        paramsList.add("offset")
+    }
+} catch (Exception exc) {
+    invalidParams = true
+    paramsList.add("offset")
+}
+
+// limit
+try {
+    limit = StringUtils.isNotEmpty(limit) ? limit.toInteger() : 0
+} catch (Exception exc) {
+    invalidParams = true
+    paramsList.add("limit")
+}
+
 if (invalidParams) {
     response.setStatus(400)
     result.message = "Invalid parameter(s): " + paramsList
 } else {
     def context = WorkflowServices.createContext(applicationContext, request)
     if (inProgressOnly || includeInProgress) {
-        result = WorkflowServices.getInProgressItems(context, site, sort, ascending, inProgressOnly)
+        result = WorkflowServices.getInProgressItems(context, site, sort, ascending, inProgressOnly, path, offset,
+                limit)
     } else {
-        result = WorkflowServices.getGoLiveItems(context, site, sort, ascending)
+        result = WorkflowServices.getGoLiveItems(context, site, sort, ascending, path, offset, limit)
     }
 }
 return result
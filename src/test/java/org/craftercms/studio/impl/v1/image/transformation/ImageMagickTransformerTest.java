@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.impl.v1.image.transformation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.craftercms.studio.api.v1.exception.ImageTransformationException;
+import org.craftercms.studio.api.v1.image.transformation.ImageTransformer;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class ImageMagickTransformerTest {
+
+    private static final String SOURCE_CONTENT = "not really an image";
+    private static final long RUN_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private Path tmpDir;
+    private Path runsFile;
+    private Path sourceFile;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            throw new SkipException("The fake transformer binary needs a POSIX shell");
+        }
+
+        tmpDir = Files.createTempDirectory("img-mgk-test");
+        runsFile = tmpDir.resolve("runs");
+        sourceFile = tmpDir.resolve("source.jpg");
+
+        Files.write(sourceFile, SOURCE_CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        if (tmpDir != null) {
+            FileUtils.deleteQuietly(tmpDir.toFile());
+        }
+    }
+
+    @Test
+    public void testTransform() throws Exception {
+        ImageMagickTransformer transformer = createTransformer(createFakeBinary(0, 0));
+        Path targetFile = tmpDir.resolve("target.jpg");
+
+        transformer.transform(sourceFile, targetFile, createParams("-resize 50%"));
+
+        assertEquals(new String(Files.readAllBytes(targetFile), StandardCharsets.UTF_8), SOURCE_CONTENT);
+        assertEquals(getRuns(), 1);
+    }
+
+    @Test(expectedExceptions = ImageTransformationException.class)
+    public void testTransformWithFailedProcess() throws Exception {
+        ImageMagickTransformer transformer = createTransformer(createFakeBinary(0, 1));
+
+        transformer.transform(sourceFile, tmpDir.resolve("target.jpg"), Collections.emptyMap());
+    }
+
+    @Test(expectedExceptions = ImageTransformationException.class)
+    public void testTransformRejectedWhenQueueIsFull() throws Exception {
+        ImageMagickTransformer transformer = createTransformer(createFakeBinary(2, 0));
+        transformer.setMaxProcesses(1);
+        transformer.setMaxQueuedTransformations(0);
+
+        Thread slowTransformation = new Thread(() -> {
+            try {
+                transformer.transform(sourceFile, tmpDir.resolve("slow.jpg"), Collections.emptyMap());
+            } catch (ImageTransformationException e) {
+                // Not relevant for the test
+            }
+        });
+        slowTransformation.start();
+        // The fake binary records the run once it started, so the slow transformation holds the only process slot
+        waitForRuns(1);
+
+        try {
+            transformer.transform(sourceFile, tmpDir.resolve("target.jpg"), Collections.emptyMap());
+        } finally {
+            slowTransformation.join();
+        }
+    }
+
+    @Test
+    public void testCachedTransform() throws Exception {
+        CachingImageTransformer transformer = createCachingTransformer(createTransformer(createFakeBinary(0, 0)));
+
+        transformer.transform(sourceFile, tmpDir.resolve("target1.jpg"), createParams("-resize 50%"));
+        transformer.transform(sourceFile, tmpDir.resolve("target2.jpg"), createParams("-resize 50%"));
+
+        assertEquals(getRuns(), 1);
+        assertEquals(new String(Files.readAllBytes(tmpDir.resolve("target2.jpg")), StandardCharsets.UTF_8),
+                     SOURCE_CONTENT);
+
+        transformer.transform(sourceFile, tmpDir.resolve("target3.jpg"), createParams("-resize 25%"));
+
+        assertEquals(getRuns(), 2);
+    }
+
+    @Test
+    public void testCachedTransformWithDifferentFormat() throws Exception {
+        CachingImageTransformer transformer = createCachingTransformer(createTransformer(createFakeBinary(0, 0)));
+
+        transformer.transform(sourceFile, tmpDir.resolve("target.jpg"), createParams("-resize 50%"));
+        transformer.transform(sourceFile, tmpDir.resolve("target.png"), createParams("-resize 50%"));
+
+        assertEquals(getRuns(), 2);
+    }
+
+    private ImageMagickTransformer createTransformer(Path binary) {
+        ImageMagickTransformer transformer = new ImageMagickTransformer();
+        transformer.setImgMgkPath(binary.toString());
+        transformer.setQueueTimeoutSecs(0);
+        transformer.setProcessTimeoutSecs(10);
+
+        return transformer;
+    }
+
+    private CachingImageTransformer createCachingTransformer(ImageTransformer actualTransformer) {
+        CachingImageTransformer transformer = new CachingImageTransformer();
+        transformer.setActualTransformer(actualTransformer);
+        transformer.setTransformerId("imageMagick");
+        transformer.setCachePath(tmpDir.resolve("cache").toString());
+        transformer.setMaxCacheSize(1024 * 1024);
+
+        return transformer;
+    }
+
+    private Path createFakeBinary(int sleepSecs, int exitCode) throws IOException {
+        Path binary = tmpDir.resolve("convert");
+        String script = "#!/bin/sh\n" +
+                        "for last; do :; done\n" +
+                        "echo run >> '" + runsFile + "'\n" +
+                        "sleep " + sleepSecs + "\n" +
+                        "cp \"$1\" \"$last\"\n" +
+                        "exit " + exitCode + "\n";
+
+        Files.write(binary, script.getBytes(StandardCharsets.UTF_8));
+        Files.setPosixFilePermissions(binary, PosixFilePermissions.fromString("rwx------"));
+
+        return binary;
+    }
+
+    private Map<String, String> createParams(String options) {
+        return Collections.singletonMap("options", options);
+    }
+
+    private int getRuns() throws IOException {
+        return Files.exists(runsFile) ? Files.readAllLines(runsFile).size() : 0;
+    }
+
+    private void waitForRuns(int runs) throws Exception {
+        long deadline = System.currentTimeMillis() + RUN_TIMEOUT;
+        while (getRuns() < runs) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("The fake binary was not run " + runs + " times in " + RUN_TIMEOUT + "ms");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.impl.v1.repository.git;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.apache.commons.io.FileUtils;
+import org.craftercms.studio.api.v1.to.VersionHistoryTO;
+import org.craftercms.studio.api.v1.to.VersionTO;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class GitContentRepositoryTest {
+
+    private static final String PATH = "site/website/index.xml";
+    private static final String BRANCH = "side";
+    private static final long START_TIME = 1500000000000L;
+
+    private Path tmpDir;
+    private Git git;
+    private List<String> commitIds;
+    private GitContentRepository contentRepository;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        tmpDir = Files.createTempDirectory("git-repo-test");
+        git = Git.init().setDirectory(tmpDir.toFile()).call();
+        commitIds = createMergedHistory();
+        contentRepository = new GitContentRepository();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        git.close();
+        FileUtils.deleteQuietly(tmpDir.toFile());
+    }
+
+    @Test
+    public void testHistoryIncludesBothSidesOfAMerge() {
+        VersionHistoryTO history = contentRepository.getGitContentVersionHistory(git.getRepository(), PATH, null,
+                                                                                 10, false);
+
+        assertEquals(getCommitIds(history.getVersions()), commitIds);
+        assertNull(history.getNextCursor());
+    }
+
+    @Test
+    public void testPagedHistoryIncludesBothSidesOfAMerge() {
+        List<String> pagedCommitIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            VersionHistoryTO page = contentRepository.getGitContentVersionHistory(git.getRepository(), PATH,
+                                                                                  cursor, 1, false);
+            pagedCommitIds.addAll(getCommitIds(page.getVersions()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(pagedCommitIds, commitIds);
+    }
+
+    @Test
+    public void testPagedHistoryIgnoresNewCommits() throws Exception {
+        VersionHistoryTO page = contentRepository.getGitContentVersionHistory(git.getRepository(), PATH, null, 2,
+                                                                              false);
+        commit("after the first page", 5);
+
+        page = contentRepository.getGitContentVersionHistory(git.getRepository(), PATH, page.getNextCursor(), 2,
+                                                             false);
+
+        assertEquals(getCommitIds(page.getVersions()), commitIds.subList(2, 4));
+        assertNull(page.getNextCursor());
+    }
+
+    /**
+     * Creates a merge of two branches that both changed the file, the commit on the side branch is older than the
+     * one in master so it's still pending in the walk when the commit in master is reached
+     *
+     * @return the ids of the commits that changed the file, newest first
+     */
+    private List<String> createMergedHistory() throws Exception {
+        RevCommit initial = commit("initial", 0);
+        git.branchCreate().setName(BRANCH).call();
+
+        git.checkout().setName(BRANCH).call();
+        RevCommit side = commit("side", 1);
+
+        git.checkout().setName("master").call();
+        RevCommit master = commit("master", 2);
+
+        MergeResult result = git.merge().include(git.getRepository().resolve(BRANCH)).call();
+        assertEquals(result.getMergeStatus(), MergeResult.MergeStatus.CONFLICTING);
+        RevCommit merge = commit("merge", 3);
+
+        return Arrays.asList(merge.getName(), master.getName(), side.getName(), initial.getName());
+    }
+
+    private RevCommit commit(String content, int time) throws Exception {
+        Path file = tmpDir.resolve(PATH);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        git.add().addFilepattern(PATH).call();
+
+        PersonIdent ident = new PersonIdent("test", "test@example.com", new Date(START_TIME + time * 1000L),
+                                            TimeZone.getTimeZone("UTC"));
+        return git.commit().setMessage(content).setAuthor(ident).setCommitter(ident).call();
+    }
+
+    private List<String> getCommitIds(VersionTO[] versions) {
+        List<String> ids = new ArrayList<>();
+        for (VersionTO version : versions) {
+            ids.add(version.getVersionNumber());
+        }
+        return ids;
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.impl.v1.service.aws;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceClient;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.apache.commons.io.IOUtils;
+import org.craftercms.commons.config.profiles.ConfigurationProfile;
+import org.craftercms.studio.api.v1.exception.AwsException;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public class AwsClientRegistryTest {
+
+    private static final String BUCKET = "bucket";
+    private static final String KEY = "video.mp4";
+    private static final String UPLOAD_ID = "upload1";
+
+    private AwsClientRegistry registry;
+    private ConfigurationProfile profile;
+    private AmazonS3 s3Client;
+    private Map<Integer, String> uploadedParts;
+    private Map<Integer, Boolean> lastParts;
+    private Map<Integer, Boolean> profileKept;
+
+    @BeforeMethod
+    public void setUp() {
+        uploadedParts = new ConcurrentHashMap<>();
+        lastParts = new ConcurrentHashMap<>();
+        profileKept = new ConcurrentHashMap<>();
+        registry = createRegistry();
+        profile = mock(ConfigurationProfile.class);
+        s3Client = createS3Client();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        registry.destroy();
+    }
+
+    @Test
+    public void testClientIsReusedPerProfile() {
+        ConfigurationProfile changedProfile = mock(ConfigurationProfile.class);
+        AtomicInteger created = new AtomicInteger();
+
+        Object client = registry.getClient(profile, "s3", () -> "client" + created.incrementAndGet());
+
+        assertSame(registry.getClient(profile, "s3", () -> "client" + created.incrementAndGet()), client);
+        assertEquals(created.get(), 1);
+
+        registry.getClient(profile, "mediaConvert", () -> "client" + created.incrementAndGet());
+        registry.getClient(changedProfile, "s3", () -> "client" + created.incrementAndGet());
+
+        assertEquals(created.get(), 3);
+    }
+
+    @Test
+    public void testClientsAreShutDownOnDestroy() {
+        AmazonWebServiceClient client = mock(AmazonWebServiceClient.class);
+        registry.getClient(mock(ConfigurationProfile.class), "s3", () -> client);
+
+        registry.destroy();
+
+        verify(client).shutdown();
+    }
+
+    @Test
+    public void testSmallFileIsUploadedInSingleRequest() throws Exception {
+        registry.uploadStream(profile, BUCKET, KEY, s3Client, 1024, KEY, createContent("small file"));
+
+        verify(s3Client).putObject(any(PutObjectRequest.class));
+        verify(s3Client, never()).initiateMultipartUpload(any(InitiateMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void testLargeFileIsUploadedInParts() throws Exception {
+        registry.uploadStream(profile, BUCKET, KEY, s3Client, 4, KEY, createContent("0123456789"));
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> completeRequest =
+            ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(completeRequest.capture());
+
+        assertEquals(uploadedParts.get(1), "0123");
+        assertEquals(uploadedParts.get(2), "4567");
+        assertEquals(uploadedParts.get(3), "89");
+
+        PartETag[] etags = completeRequest.getValue().getPartETags().toArray(new PartETag[0]);
+        assertEquals(etags.length, 3);
+        assertEquals(Arrays.stream(etags).map(PartETag::getETag).toArray(), new Object[] { "etag1", "etag2", "etag3" });
+        verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        assertEquals(lastParts.get(1), Boolean.FALSE);
+        assertEquals(lastParts.get(2), Boolean.FALSE);
+        assertEquals(lastParts.get(3), Boolean.TRUE);
+    }
+
+    @Test
+    public void testLastPartIsMarkedWhenSizeIsMultipleOfPartSize() throws Exception {
+        registry.uploadStream(profile, BUCKET, KEY, s3Client, 4, KEY, createContent("01234567"));
+
+        assertEquals(uploadedParts.size(), 2);
+        assertEquals(lastParts.get(1), Boolean.FALSE);
+        assertEquals(lastParts.get(2), Boolean.TRUE);
+    }
+
+    @Test
+    public void testProfileIsKeptDuringUpload() throws Exception {
+        registry.uploadStream(profile, BUCKET, KEY, s3Client, 4, KEY, createContent("0123456789"));
+
+        assertEquals(profileKept.values().toArray(), new Object[] { true, true, true });
+        assertTrue(registry.uploadProfiles.isEmpty());
+    }
+
+    @Test
+    public void testFailedPartAbortsUpload() {
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenThrow(new AmazonServiceException("Slow down"));
+
+        try {
+            registry.uploadStream(profile, BUCKET, KEY, s3Client, 4, KEY, createContent("0123456789"));
+            fail("The upload should have failed");
+        } catch (AwsException e) {
+            verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+            verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        }
+    }
+
+    private AwsClientRegistry createRegistry() {
+        AwsClientRegistry registry = new AwsClientRegistry();
+        registry.setUploadThreadPoolSize(2);
+        registry.setMaxParallelParts(2);
+        registry.init();
+
+        return registry;
+    }
+
+    private AmazonS3 createS3Client() {
+        InitiateMultipartUploadResult initResult = new InitiateMultipartUploadResult();
+        initResult.setUploadId(UPLOAD_ID);
+
+        AmazonS3 s3Client = mock(AmazonS3.class);
+        when(s3Client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initResult);
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = (UploadPartRequest) invocation.getArguments()[0];
+            uploadedParts.put(request.getPartNumber(),
+                              IOUtils.toString(request.getInputStream(), StandardCharsets.UTF_8));
+            lastParts.put(request.getPartNumber(), request.isLastPart());
+            profileKept.put(request.getPartNumber(), registry.uploadProfiles.containsValue(profile));
+
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag" + request.getPartNumber());
+
+            return result;
+        });
+
+        return s3Client;
+    }
+
+    private ByteArrayInputStream createContent(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.impl.v1.service.content;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.commons.io.FileUtils;
+import org.craftercms.studio.api.v1.constant.DmConstants;
+import org.craftercms.studio.api.v1.service.content.ContentService;
+import org.craftercms.studio.api.v1.service.content.ObjectMetadataManager;
+import org.craftercms.studio.api.v1.service.objectstate.ObjectStateService;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.IMPORT_ASSET_CHAIN_NAME;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.IMPORT_BATCH_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.IMPORT_THREAD_POOL_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.IMPORT_THROTTLE_LATENCY_RATIO;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.IMPORT_THROTTLE_MAX_PAUSE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.IMPORT_XML_CHAIN_NAME;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class ImportServiceImplTest {
+
+    private static final String SITE = "test";
+    private static final String XML_CHAIN = "formContent";
+    private static final String ASSET_CHAIN = "asset";
+
+    private Path tmpDir;
+    private ContentService contentService;
+    private List<String> writtenPaths;
+    private ImportServiceImpl importService;
+
+    @BeforeMethod
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        tmpDir = Files.createTempDirectory("import-test");
+        Path sourceDir = Files.createDirectories(tmpDir.resolve(SITE).resolve("site"));
+        write(sourceDir.resolve("a.xml"), "<page><title>A</title></page>");
+        write(sourceDir.resolve("b.xml"), "<page><title>B</title></page>");
+        write(sourceDir.resolve("c.txt"), "C");
+        write(sourceDir.resolve("invalid.xml"), "<page>");
+
+        StudioConfiguration studioConfiguration = mock(StudioConfiguration.class);
+        when(studioConfiguration.getProperty(eq(IMPORT_BATCH_SIZE), eq(Integer.class), anyInt())).thenReturn(2);
+        when(studioConfiguration.getProperty(eq(IMPORT_THREAD_POOL_SIZE), eq(Integer.class), anyInt()))
+            .thenReturn(2);
+        when(studioConfiguration.getProperty(eq(IMPORT_THROTTLE_LATENCY_RATIO), eq(Double.class), anyDouble()))
+            .thenReturn(2.0);
+        when(studioConfiguration.getProperty(eq(IMPORT_THROTTLE_MAX_PAUSE), eq(Long.class), anyLong()))
+            .thenReturn(0L);
+        when(studioConfiguration.getProperty(IMPORT_XML_CHAIN_NAME)).thenReturn(XML_CHAIN);
+        when(studioConfiguration.getProperty(IMPORT_ASSET_CHAIN_NAME)).thenReturn(ASSET_CHAIN);
+
+        writtenPaths = new ArrayList<>();
+        contentService = mock(ContentService.class);
+        doAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                Map<String, InputStream> contents = (Map<String, InputStream>) invocation.getArguments()[1];
+                writtenPaths.addAll(contents.keySet());
+                ((Consumer<String>) invocation.getArguments()[2]).accept("commit");
+                return "commit";
+            }
+        }).when(contentService).writeContents(eq(SITE), anyMap(), any(Consumer.class));
+
+        importService = new ImportServiceImpl();
+        importService.setContentService(contentService);
+        importService.setObjectStateService(mock(ObjectStateService.class));
+        importService.setObjectMetadataManager(mock(ObjectMetadataManager.class));
+        importService.setStudioConfiguration(studioConfiguration);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        FileUtils.deleteQuietly(tmpDir.toFile());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testImportWritesFilesInBatches() throws Exception {
+        Path config = tmpDir.resolve("import.xml");
+        write(config, "<sites><site><name>" + SITE + "</name>" +
+                      "<build-data-location>" + tmpDir + "</build-data-location>" +
+                      "<folders><folder name=\"site\" import-all=\"true\"/></folders>" +
+                      "</site></sites>");
+
+        importService.importSite(config.toString());
+
+        // 4 files in batches of 2, the invalid one is never written
+        verify(contentService, times(2)).writeContents(eq(SITE), anyMap(), any(Consumer.class));
+        assertEquals(writtenPaths.size(), 3);
+        assertFalse(writtenPaths.contains("/site/invalid.xml"));
+        // the asset is validated before the commit, then every file goes through its chain
+        verify(contentService, times(1)).processContent(anyString(), any(InputStream.class), eq(false), anyMap(),
+                                                        eq(DmConstants.CONTENT_CHAIN_ASSET_VALIDATION));
+        verify(contentService, times(2)).processContent(anyString(), any(InputStream.class), eq(true), anyMap(),
+                                                        eq(XML_CHAIN));
+        verify(contentService, times(1)).processContent(anyString(), any(InputStream.class), eq(false), anyMap(),
+                                                        eq(ASSET_CHAIN));
+    }
+
+    private void write(Path file, String content) throws Exception {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
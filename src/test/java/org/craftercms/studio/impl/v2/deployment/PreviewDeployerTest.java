@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.impl.v2.deployment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.craftercms.studio.api.v1.ebus.PreviewEventContext;
+import org.craftercms.studio.api.v1.repository.ContentRepository;
+import org.craftercms.studio.api.v1.to.PreviewSyncStatusTO;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PREVIEW_DEFAULT_PREVIEW_DEPLOYER_URL;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PREVIEW_SYNC_MAX_CHANGED_PATHS;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public class PreviewDeployerTest {
+
+    private static final String SITE = "test";
+    private static final String FIRST_COMMIT = "1111111111111111111111111111111111111111";
+    private static final String SECOND_COMMIT = "2222222222222222222222222222222222222222";
+    private static final String DEPLOY_URL = "/api/1/target/deploy";
+
+    private HttpServer server;
+    private List<Map<String, Object>> requests;
+    private boolean acknowledge;
+    private ContentRepository contentRepository;
+    private PreviewDeployer deployer;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        requests = new CopyOnWriteArrayList<>();
+        acknowledge = true;
+        server = createServer();
+        contentRepository = mock(ContentRepository.class);
+        deployer = createDeployer();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testSyncIsSkippedWhenNothingChanged() {
+        when(contentRepository.getRepoLastCommitId(SITE)).thenReturn(FIRST_COMMIT);
+
+        deployer.onPreviewSync(createContext(false));
+
+        assertEquals(requests.size(), 2);
+        assertEquals(requests.get(0).get("to_commit_id"), FIRST_COMMIT);
+        assertFalse(requests.get(0).containsKey("from_commit_id"));
+
+        deployer.onPreviewSync(createContext(false));
+
+        assertEquals(requests.size(), 2);
+        assertTrue(deployer.getPreviewSyncStatus(SITE).isUpToDate());
+    }
+
+    @Test
+    public void testForcedSyncIsNotSkipped() {
+        when(contentRepository.getRepoLastCommitId(SITE)).thenReturn(FIRST_COMMIT);
+
+        deployer.onPreviewSync(createContext(false));
+        requests.clear();
+
+        deployer.onPreviewSync(createContext(true));
+
+        assertEquals(requests.size(), 2);
+        assertEquals(requests.get(0).get("to_commit_id"), FIRST_COMMIT);
+        assertFalse(requests.get(0).containsKey("from_commit_id"));
+    }
+
+    @Test
+    public void testSyncIsNotSkippedWithoutAcknowledgement() {
+        acknowledge = false;
+        when(contentRepository.getRepoLastCommitId(SITE)).thenReturn(FIRST_COMMIT);
+
+        deployer.onPreviewSync(createContext(false));
+        deployer.onPreviewSync(createContext(false));
+
+        assertEquals(requests.size(), 4);
+        assertFalse(requests.get(2).containsKey("from_commit_id"));
+        assertFalse(deployer.getPreviewSyncStatus(SITE).isUpToDate());
+    }
+
+    @Test
+    public void testSyncCarriesCommitRangeAndChangedPaths() {
+        when(contentRepository.getRepoLastCommitId(SITE)).thenReturn(FIRST_COMMIT, SECOND_COMMIT);
+        when(contentRepository.getChangedPaths(SITE, FIRST_COMMIT, SECOND_COMMIT))
+            .thenReturn(Arrays.asList("/site/website/index.xml"));
+
+        deployer.onPreviewSync(createContext(false));
+        requests.clear();
+
+        deployer.onPreviewSync(createContext(false));
+
+        assertEquals(requests.size(), 2);
+        for (Map<String, Object> request : requests) {
+            assertEquals(request.get("from_commit_id"), FIRST_COMMIT);
+            assertEquals(request.get("to_commit_id"), SECOND_COMMIT);
+            assertEquals(request.get("changed_paths"), Arrays.asList("/site/website/index.xml"));
+        }
+    }
+
+    @Test
+    public void testChangedPathsAreOmittedWhenTooMany() {
+        when(contentRepository.getRepoLastCommitId(SITE)).thenReturn(FIRST_COMMIT, SECOND_COMMIT);
+        when(contentRepository.getChangedPaths(SITE, FIRST_COMMIT, SECOND_COMMIT))
+            .thenReturn(Arrays.asList("/site/website/index.xml", "/site/website/about/index.xml",
+                                      "/static-assets/css/main.css"));
+
+        deployer.onPreviewSync(createContext(false));
+        requests.clear();
+
+        deployer.onPreviewSync(createContext(false));
+
+        assertEquals(requests.size(), 2);
+        assertEquals(requests.get(0).get("from_commit_id"), FIRST_COMMIT);
+        assertFalse(requests.get(0).containsKey("changed_paths"));
+    }
+
+    @Test
+    public void testChangedPathsAreOmittedWhenCommitsCantBeCompared() {
+        when(contentRepository.getRepoLastCommitId(SITE)).thenReturn(FIRST_COMMIT, SECOND_COMMIT);
+        when(contentRepository.getChangedPaths(SITE, FIRST_COMMIT, SECOND_COMMIT)).thenReturn(null);
+
+        deployer.onPreviewSync(createContext(false));
+        requests.clear();
+
+        deployer.onPreviewSync(createContext(false));
+
+        assertEquals(requests.size(), 2);
+        assertFalse(requests.get(0).containsKey("changed_paths"));
+    }
+
+    @Test
+    public void testStatusReportsLagUntilSynced() {
+        when(contentRepository.getRepoLastCommitId(SITE)).thenReturn(FIRST_COMMIT);
+
+        PreviewSyncStatusTO status = deployer.getPreviewSyncStatus(SITE);
+
+        assertFalse(status.isUpToDate());
+        assertEquals(status.getTargets().size(), 2);
+        assertEquals(status.getTargets().get(0).getLagSeconds(), -1);
+
+        deployer.onPreviewSync(createContext(false));
+        when(contentRepository.getRepoLastCommitId(SITE)).thenReturn(SECOND_COMMIT);
+
+        status = deployer.getPreviewSyncStatus(SITE);
+
+        assertFalse(status.isUpToDate());
+        assertEquals(status.getHeadCommitId(), SECOND_COMMIT);
+        assertEquals(status.getTargets().get(0).getLastSyncedCommitId(), FIRST_COMMIT);
+        assertTrue(status.getTargets().get(0).getLagSeconds() >= 0);
+    }
+
+    private HttpServer createServer() throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext(DEPLOY_URL, this::handleDeploy);
+        httpServer.start();
+
+        return httpServer;
+    }
+
+    private PreviewDeployer createDeployer() {
+        StudioConfiguration studioConfiguration = mock(StudioConfiguration.class);
+        when(studioConfiguration.getProperty(PREVIEW_DEFAULT_PREVIEW_DEPLOYER_URL))
+            .thenReturn("http://localhost:" + server.getAddress().getPort() + DEPLOY_URL +
+                        "/{siteEnv}/{siteName}");
+        when(studioConfiguration.getProperty(eq(PREVIEW_SYNC_MAX_CHANGED_PATHS), eq(Integer.class), anyInt()))
+            .thenReturn(2);
+
+        PreviewDeployer deployer = new PreviewDeployer();
+        deployer.setStudioConfiguration(studioConfiguration);
+        deployer.setContentRepository(contentRepository);
+
+        return deployer;
+    }
+
+    private PreviewEventContext createContext(boolean force) {
+        PreviewEventContext context = new PreviewEventContext();
+        context.setSite(SITE);
+        context.setForce(force);
+
+        return context;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handleDeploy(HttpExchange exchange) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Object> request = objectMapper.readValue(exchange.getRequestBody(), Map.class);
+        requests.add(request);
+
+        Map<String, Object> result = Collections.emptyMap();
+        if (acknowledge) {
+            result = Collections.singletonMap("to_commit_id", request.get("to_commit_id"));
+        }
+        byte[] response = objectMapper.writeValueAsBytes(result);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.impl.v2.service.cmis;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.api.ItemIterable;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.client.api.Repository;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.client.api.SessionFactory;
+import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.craftercms.studio.api.v1.service.content.ContentService;
+import org.craftercms.studio.api.v2.dal.CmisContentItem;
+import org.craftercms.studio.api.v2.repository.ContentRepository;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.dom4j.DocumentHelper;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CMIS_SESSION_HEALTH_CHECK_INTERVAL;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_SITE_DATA_SOURCES_CONFIG_LOCATION;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public class CmisServiceImplTest {
+
+    private static final String SITE = "test";
+    private static final String REPO = "alfresco";
+    private static final String CONFIG_LOCATION = "/config/studio/data-sources/cmis-config.xml";
+    private static final String CONFIG =
+        "<cmis><repositories><repository>" +
+        "<id>" + REPO + "</id><type>alfresco</type><url>http://localhost/cmis</url>" +
+        "<username>admin</username><password>admin</password><base-path>/dam</base-path>" +
+        "<download-url-regex>http://localhost/{item_id}</download-url-regex><use-ssl>false</use-ssl>" +
+        "</repository></repositories></cmis>";
+
+    private StudioConfiguration studioConfiguration;
+    private ContentService contentService;
+    private ContentRepository contentRepository;
+    private SessionFactory sessionFactory;
+    private Session session;
+    private Folder folder;
+    private CmisServiceImpl cmisService;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        studioConfiguration = createStudioConfiguration();
+        contentService = createContentService();
+        contentRepository = createContentRepository();
+        folder = createFolder();
+        session = createSession();
+        sessionFactory = createSessionFactory();
+        cmisService = createCmisService();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSessionIsReused() throws Exception {
+        cmisService.init();
+
+        List<CmisContentItem> items = cmisService.list(SITE, REPO, "/folder");
+        cmisService.list(SITE, REPO, "/other");
+
+        assertEquals(items.size(), 1);
+        assertEquals(items.get(0).getItemId(), "doc1");
+        verify(sessionFactory, times(1)).createSession(anyMap());
+        verify(contentService, times(1)).getContentAsDocument(SITE, CONFIG_LOCATION);
+    }
+
+    @Test
+    public void testFolderListingIsCached() throws Exception {
+        cmisService.init();
+
+        cmisService.list(SITE, REPO, "/folder");
+        List<CmisContentItem> items = cmisService.list(SITE, REPO, "/folder");
+
+        assertEquals(items.size(), 1);
+        verify(folder, times(1)).getChildren();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNewSessionWhenConfigChanges() throws Exception {
+        cmisService.init();
+
+        cmisService.list(SITE, REPO, "/folder");
+        when(contentRepository.getContentBlobId(SITE, CONFIG_LOCATION)).thenReturn("blob2");
+        cmisService.list(SITE, REPO, "/folder");
+
+        verify(sessionFactory, times(2)).createSession(anyMap());
+        verify(folder, times(2)).getChildren();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReconnectWhenHealthCheckFails() throws Exception {
+        when(studioConfiguration.getProperty(eq(CMIS_SESSION_HEALTH_CHECK_INTERVAL), eq(Long.class), anyLong()))
+            .thenReturn(-1L);
+        when(session.getObject(eq("root"), any(OperationContext.class)))
+            .thenThrow(new CmisConnectionException("Connection refused"));
+        cmisService.init();
+
+        cmisService.list(SITE, REPO, "/folder");
+        cmisService.list(SITE, REPO, "/other");
+
+        verify(sessionFactory, times(2)).createSession(anyMap());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReconnectOnConnectionError() throws Exception {
+        when(session.getObjectByPath("/dam/folder"))
+            .thenThrow(new CmisConnectionException("Connection reset"))
+            .thenReturn(folder);
+        cmisService.init();
+
+        List<CmisContentItem> items = cmisService.list(SITE, REPO, "/folder");
+
+        assertEquals(items.size(), 1);
+        verify(sessionFactory, times(2)).createSession(anyMap());
+    }
+
+    private StudioConfiguration createStudioConfiguration() {
+        StudioConfiguration studioConfiguration = mock(StudioConfiguration.class);
+        when(studioConfiguration.getProperty(CONFIGURATION_SITE_DATA_SOURCES_CONFIG_LOCATION))
+            .thenReturn(CONFIG_LOCATION);
+        when(studioConfiguration.getProperty(anyString(), eq(Integer.class), anyInt()))
+            .thenAnswer(invocation -> invocation.getArguments()[2]);
+        when(studioConfiguration.getProperty(anyString(), eq(Long.class), anyLong()))
+            .thenAnswer(invocation -> invocation.getArguments()[2]);
+
+        return studioConfiguration;
+    }
+
+    private ContentService createContentService() throws Exception {
+        ContentService contentService = mock(ContentService.class);
+        when(contentService.getContentAsDocument(SITE, CONFIG_LOCATION))
+            .thenAnswer(invocation -> DocumentHelper.parseText(CONFIG));
+
+        return contentService;
+    }
+
+    private ContentRepository createContentRepository() {
+        ContentRepository contentRepository = mock(ContentRepository.class);
+        when(contentRepository.getContentBlobId(SITE, CONFIG_LOCATION)).thenReturn("blob1");
+
+        return contentRepository;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Folder createFolder() {
+        Document document = mock(Document.class);
+        when(document.getBaseTypeId()).thenReturn(BaseTypeId.CMIS_DOCUMENT);
+        when(document.getName()).thenReturn("logo.png");
+        when(document.getId()).thenReturn("doc1;1.0");
+        when(document.getPaths()).thenReturn(Collections.singletonList("/dam/folder/logo.png"));
+        when(document.getContentStreamMimeType()).thenReturn("image/png");
+        when(document.getContentStreamLength()).thenReturn(10L);
+
+        ItemIterable<CmisObject> children = mock(ItemIterable.class);
+        when(children.iterator()).thenAnswer(invocation -> Arrays.<CmisObject>asList(document).iterator());
+
+        Folder folder = mock(Folder.class);
+        when(folder.getBaseTypeId()).thenReturn(BaseTypeId.CMIS_FOLDER);
+        when(folder.getChildren()).thenReturn(children);
+
+        return folder;
+    }
+
+    private Session createSession() {
+        RepositoryInfo repositoryInfo = mock(RepositoryInfo.class);
+        when(repositoryInfo.getRootFolderId()).thenReturn("root");
+
+        Session session = mock(Session.class);
+        when(session.getObjectByPath(anyString())).thenReturn(folder);
+        when(session.createOperationContext()).thenReturn(mock(OperationContext.class));
+        when(session.getRepositoryInfo()).thenReturn(repositoryInfo);
+
+        return session;
+    }
+
+    @SuppressWarnings("unchecked")
+    private SessionFactory createSessionFactory() {
+        Repository repository = mock(Repository.class);
+        when(repository.getId()).thenReturn("repo1");
+
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(sessionFactory.getRepositories(anyMap())).thenReturn(Collections.singletonList(repository));
+        when(sessionFactory.createSession(anyMap())).thenReturn(session);
+
+        return sessionFactory;
+    }
+
+    private CmisServiceImpl createCmisService() {
+        CmisServiceImpl cmisService = new CmisServiceImpl();
+        cmisService.setStudioConfiguration(studioConfiguration);
+        cmisService.setContentService(contentService);
+        cmisService.setContentRepository(contentRepository);
+        cmisService.setSessionFactory(sessionFactory);
+
+        return cmisService;
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.impl.v2.service.webdav;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.craftercms.commons.config.profiles.webdav.WebDavProfile;
+import org.craftercms.studio.api.v1.webdav.WebDavItem;
+import org.craftercms.studio.impl.v1.util.config.profiles.SiteAwareConfigProfileLoader;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public class WebDavServiceImplTest {
+
+    private static final String SITE = "test";
+    private static final String PROFILE = "webdav";
+    private static final String FOLDER_LISTING =
+        "<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+        "<d:multistatus xmlns:d=\"DAV:\">" +
+        "<d:response><d:href>/dav/folder/</d:href><d:propstat><d:prop>" +
+        "<d:resourcetype><d:collection/></d:resourcetype>" +
+        "</d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat></d:response>" +
+        "<d:response><d:href>/dav/folder/logo.png</d:href><d:propstat><d:prop>" +
+        "<d:resourcetype/><d:getcontenttype>image/png</d:getcontenttype><d:getcontentlength>10</d:getcontentlength>" +
+        "</d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat></d:response>" +
+        "</d:multistatus>";
+
+    private HttpServer server;
+    private List<String> requests;
+    private WebDavServiceImpl webDavService;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        requests = new CopyOnWriteArrayList<>();
+        server = createServer();
+        webDavService = createWebDavService();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        webDavService.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    public void testListIsCached() throws Exception {
+        webDavService.setListingCacheTtl(60);
+
+        List<WebDavItem> items = webDavService.list(SITE, PROFILE, "/folder", null);
+        webDavService.list(SITE, PROFILE, "/folder", null);
+
+        assertEquals(items.size(), 1);
+        assertEquals(items.get(0).getName(), "logo.png");
+        assertEquals(requests, Collections.singletonList("PROPFIND /dav/folder/"));
+    }
+
+    @Test
+    public void testListWithoutCache() throws Exception {
+        webDavService.setListingCacheTtl(0);
+
+        webDavService.list(SITE, PROFILE, "/folder", null);
+        webDavService.list(SITE, PROFILE, "/folder", null);
+
+        assertEquals(requests.size(), 2);
+    }
+
+    @Test
+    public void testListMissingFolderTakesOneRequest() throws Exception {
+        List<WebDavItem> items = webDavService.list(SITE, PROFILE, "/missing", null);
+
+        assertTrue(items.isEmpty());
+        assertEquals(requests, Collections.singletonList("PROPFIND /dav/missing/"));
+    }
+
+    @Test
+    public void testUploadClearsCachedListings() throws Exception {
+        webDavService.setListingCacheTtl(60);
+
+        webDavService.list(SITE, PROFILE, "/folder", null);
+        webDavService.upload(SITE, PROFILE, null, "logo.png",
+                             new ByteArrayInputStream("not an image".getBytes(StandardCharsets.UTF_8)));
+        webDavService.list(SITE, PROFILE, "/folder", null);
+
+        assertEquals(requests.size(), 3);
+        assertEquals(requests.get(1), "PUT /dav/logo.png");
+        assertEquals(requests.get(2), "PROPFIND /dav/folder/");
+    }
+
+    private HttpServer createServer() throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/dav/", this::handleRequest);
+        httpServer.start();
+
+        return httpServer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private WebDavServiceImpl createWebDavService() throws Exception {
+        WebDavProfile profile = new WebDavProfile();
+        profile.setBaseUrl("http://localhost:" + server.getAddress().getPort() + "/dav");
+        profile.setUsername("admin");
+        profile.setPassword("admin");
+
+        SiteAwareConfigProfileLoader<WebDavProfile> profileLoader = mock(SiteAwareConfigProfileLoader.class);
+        when(profileLoader.loadProfile(SITE, PROFILE)).thenReturn(profile);
+
+        return new WebDavServiceImpl("/remote-assets/webdav/%s/%s/%s", profileLoader);
+    }
+
+    private void handleRequest(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        requests.add(method + " " + path);
+        IOUtils.toByteArray(exchange.getRequestBody());
+
+        if ("PROPFIND".equals(method) && "/dav/folder/".equals(path)) {
+            byte[] response = FOLDER_LISTING.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/xml; charset=utf-8");
+            exchange.sendResponseHeaders(207, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } else if ("PUT".equals(method)) {
+            exchange.sendResponseHeaders(201, -1);
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+        }
+        exchange.close();
+    }
+
+}
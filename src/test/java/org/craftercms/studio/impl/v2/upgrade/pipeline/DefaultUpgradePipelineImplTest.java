@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2007-2019 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.impl.v2.upgrade.pipeline;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.craftercms.studio.api.v2.upgrade.UpgradeOperation;
+import org.craftercms.studio.impl.v2.upgrade.operations.site.AbstractContentUpgradeOperation;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DefaultUpgradePipelineImplTest {
+
+    private static final String SITE = "test";
+
+    @Test
+    public void testConsecutiveContentOperationsShareRepositoryWalk() throws Exception {
+        List<Path> files = Collections.singletonList(Paths.get("site", "website", "index.xml"));
+
+        AbstractContentUpgradeOperation first = mock(AbstractContentUpgradeOperation.class);
+        AbstractContentUpgradeOperation second = mock(AbstractContentUpgradeOperation.class);
+        AbstractContentUpgradeOperation third = mock(AbstractContentUpgradeOperation.class);
+        UpgradeOperation other = mock(UpgradeOperation.class);
+        when(first.listRepositoryFiles(SITE)).thenReturn(files);
+        when(third.listRepositoryFiles(SITE)).thenReturn(files);
+
+        DefaultUpgradePipelineImpl pipeline = new DefaultUpgradePipelineImpl();
+        pipeline.setName("test");
+        pipeline.setOperations(Arrays.asList(first, second, other, third));
+
+        pipeline.execute(SITE);
+
+        verify(first).listRepositoryFiles(SITE);
+        verify(second, times(0)).listRepositoryFiles(SITE);
+        verify(first).execute(SITE, files);
+        verify(second).execute(SITE, files);
+        verify(other).execute(SITE);
+        // The tree needs to be walked again because the other operation could have changed it
+        verify(third).listRepositoryFiles(SITE);
+        verify(third).execute(SITE, files);
+    }
+
+}